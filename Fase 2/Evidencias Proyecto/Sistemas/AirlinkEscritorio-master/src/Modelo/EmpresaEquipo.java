@@ -6,6 +6,7 @@ public class EmpresaEquipo {
     private String modelo;
     private String matricula;
     private int capacidad;
+    private boolean activo = true;
 
     public int getIdEquipo() { return idEquipo; }
     public void setIdEquipo(int idEquipo) { this.idEquipo = idEquipo; }
@@ -22,6 +23,9 @@ public class EmpresaEquipo {
     public int getCapacidad() { return capacidad; }
     public void setCapacidad(int capacidad) { this.capacidad = capacidad; }
 
+    public boolean isActivo() { return activo; }
+    public void setActivo(boolean activo) { this.activo = activo; }
+
     @Override
     public String toString() {
         return modelo + " (" + matricula + ")";
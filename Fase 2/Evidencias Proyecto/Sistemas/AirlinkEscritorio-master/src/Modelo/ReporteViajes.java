@@ -1,16 +1,155 @@
 package Modelo;
 
 import dao.ReportesDAO;
+import dao.SeccionReporte;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
+/**
+ * Reporte de gestión: cada sección se consulta en paralelo en un pool
+ * acotado (-Dairlink.reportes.hilos, 4 por defecto, siempre por debajo del
+ * pool de conexiones) y al final se arma un solo PDF. El tiempo total queda
+ * cerca del de la sección más lenta en vez de la suma de todas.
+ *
+ * Cancelar no interrumpe los hilos (un hilo interrumpido a mitad de una
+ * llamada JDBC puede dejar la conexión inservible): las secciones que no
+ * empezaron no se corren y a las que están en la base se les hace
+ * Statement.cancel(). Cada consulta tiene además su query timeout.
+ */
 public class ReporteViajes {
 
+    private static final int HILOS = Integer.getInteger("airlink.reportes.hilos", 4);
+    private static final AtomicInteger NUMERO_HILO = new AtomicInteger();
+    private static final ExecutorService EJECUTOR = Executors.newFixedThreadPool(HILOS, r -> {
+        Thread t = new Thread(r, "airlink-reporte-" + NUMERO_HILO.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final ReportesDAO dao = new ReportesDAO();
+
     public void generarPDF(String rutaDestino) {
+        generarPDF(rutaDestino, SeccionReporte.todas(), null);
+    }
+
+    /**
+     * @param progreso recibe (secciones terminadas, sección recién terminada)
+     *                 desde el hilo que llama; puede ser null
+     * @return true si el PDF quedó escrito
+     */
+    public boolean generarPDF(String rutaDestino, List<SeccionReporte> secciones,
+                              BiConsumer<Integer, SeccionReporte> progreso) {
+        long inicio = System.nanoTime();
+        CompletionService<Terminada> completadas = new ExecutorCompletionService<>(EJECUTOR);
+        List<Future<Terminada>> pendientes = new ArrayList<>();
+        List<EnCurso> enCurso = new ArrayList<>();
+        for (int i = 0; i < secciones.size(); i++) {
+            // El índice viaja con la tarea: una sección repetida no pisa el lugar de la otra
+            int indice = i;
+            SeccionReporte seccion = secciones.get(i);
+            EnCurso sentencia = new EnCurso();
+            enCurso.add(sentencia);
+            pendientes.add(completadas.submit(() -> new Terminada(indice, consultar(seccion, sentencia))));
+        }
+
+        SeccionReporte.Resultado[] resultados = new SeccionReporte.Resultado[secciones.size()];
+        long masLenta = 0;
+        long suma = 0;
+        try {
+            for (int terminadas = 1; terminadas <= secciones.size(); terminadas++) {
+                Terminada t = completadas.take().get();
+                SeccionReporte.Resultado r = t.resultado;
+                resultados[t.indice] = r;
+                masLenta = Math.max(masLenta, r.getDuracionMs());
+                suma += r.getDuracionMs();
+                if (progreso != null) {
+                    progreso.accept(terminadas, r.getSeccion());
+                }
+            }
+        } catch (InterruptedException e) {
+            pendientes.forEach(f -> f.cancel(false));
+            enCurso.forEach(EnCurso::cancelar);
+            Thread.currentThread().interrupt();
+            System.out.println("⚠️ Reporte de gestión cancelado.");
+            return false;
+        } catch (ExecutionException e) {
+            // consultar() no lanza: cualquier error queda dentro del Resultado
+            throw new IllegalStateException(e.getCause());
+        }
+
+        boolean ok = dao.crearPdfSecciones(rutaDestino, List.of(resultados));
+        System.out.println("⏱ Reporte de gestión: " + (System.nanoTime() - inicio) / 1_000_000
+                + " ms en total, sección más lenta " + masLenta + " ms, suma de secciones " + suma + " ms");
+        return ok;
+    }
+
+    /** Listado completo de viajes, escrito en streaming; devuelve los viajes escritos o -1 si falló. */
+    public int generarListado(String rutaDestino) {
+        return dao.generarReporteViajes(rutaDestino);
+    }
+
+    private SeccionReporte.Resultado consultar(SeccionReporte seccion, Consumer<Statement> enCurso) {
+        long inicio = System.nanoTime();
         try {
-            ReportesDAO dao = new ReportesDAO();
-            dao.generarReporteViajes(rutaDestino); // 🔗 usa el método real
-            System.out.println("✅ Reporte generado exitosamente en: " + rutaDestino);
+            List<String[]> filas = dao.consultarSeccion(seccion, enCurso);
+            return new SeccionReporte.Resultado(seccion, filas, null, (System.nanoTime() - inicio) / 1_000_000);
         } catch (Exception e) {
-            System.out.println("❌ Error al generar reporte de viajes: " + e.getMessage());
+            System.out.println("❌ Error en la sección '" + seccion.getTitulo() + "': " + e.getMessage());
+            return new SeccionReporte.Resultado(seccion, List.of(), e.getMessage(), (System.nanoTime() - inicio) / 1_000_000);
+        }
+    }
+
+    private static final class Terminada {
+        final int indice;
+        final SeccionReporte.Resultado resultado;
+
+        Terminada(int indice, SeccionReporte.Resultado resultado) {
+            this.indice = indice;
+            this.resultado = resultado;
+        }
+    }
+
+    /**
+     * La sentencia que está ejecutando una sección. Se registra y se cancela
+     * bajo el mismo lock, así nunca se cancela una sentencia que ya volvió
+     * al pool y está usando otro.
+     */
+    private static final class EnCurso implements Consumer<Statement> {
+        private Statement sentencia;
+        private boolean cancelada;
+
+        @Override
+        public synchronized void accept(Statement st) {
+            sentencia = st;
+            if (st != null && cancelada) {
+                cortar(st);  // se canceló antes de que la consulta llegara a la base
+            }
+        }
+
+        synchronized void cancelar() {
+            cancelada = true;
+            if (sentencia != null) {
+                cortar(sentencia);
+            }
+        }
+
+        private static void cortar(Statement st) {
+            try {
+                st.cancel();
+            } catch (SQLException e) {
+                System.out.println("⚠️ No se pudo cancelar la consulta: " + e.getMessage());
+            }
         }
     }
 }
@@ -3,6 +3,7 @@ package Modelo;
 public class Terminal {
     private int id;
     private String nombre;
+    private String codigo;
     private String ciudad;
 
     public Terminal() {}
@@ -17,6 +18,8 @@ public class Terminal {
     public void setId(int id) { this.id = id; }
     public String getNombre() { return nombre; }
     public void setNombre(String nombre) { this.nombre = nombre; }
+    public String getCodigo() { return codigo; }
+    public void setCodigo(String codigo) { this.codigo = codigo; }
     public String getCiudad() { return ciudad; }
     public void setCiudad(String ciudad) { this.ciudad = ciudad; }
 }
@@ -0,0 +1,407 @@
+package Vista;
+
+import dao.Cambios;
+import java.awt.Cursor;
+import java.awt.Window;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import javax.swing.JProgressBar;
+import javax.swing.SwingWorker;
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * Carga las filas de una tabla en segundo plano.
+ *
+ * La consulta al DAO corre en un SwingWorker; las filas se convierten fuera
+ * del EDT y se agregan al modelo por bloques (un solo evento por bloque).
+ * Con {@link #sincronizar} los bloques salen mientras la base todavía manda
+ * filas, así la tabla empieza a llenarse sin esperar la consulta entera. Una
+ * nueva llamada a cargar() o el cierre de la ventana cancelan la carga
+ * anterior, y sus bloques pendientes se descartan. Se usa solo desde el EDT.
+ *
+ * Con {@link #conClave} la tabla además se puede refrescar con
+ * {@link #sincronizar}: después de la primera carga solo se piden a la base
+ * las filas que cambiaron desde la última marca y se aplican al modelo por
+ * id (la columna 0 de cada fila), así el refresco cuesta según lo que
+ * cambió y no según el tamaño de la tabla.
+ */
+public class CargaTabla<T> {
+
+    /** Cambios desde la marca; en una carga completa le pasa cada fila a {@code alLeer} apenas la lee. */
+    public interface Fuente<T> {
+        Cambios<T> cambiosDesde(Timestamp desde, Consumer<T> alLeer);
+    }
+
+    // Una carga que avisa cada elemento leído; las que ya traen la lista la recorren al final
+    private interface Lectura<T> {
+        Cambios<T> leer(Consumer<T> alLeer) throws Exception;
+    }
+
+    private static final int TAMANO_BLOQUE = Integer.getInteger("airlink.ui.bloqueFilas", 200);
+
+    private final Window ventana;
+    private final DefaultTableModel modelo;
+    private final Function<T, Object[]> aFila;
+    private final JProgressBar barra = new JProgressBar();
+    private Consumer<List<T>> alTerminar = lista -> { };
+    private Trabajo actual;
+
+    // Refresco incremental
+    private ToIntFunction<T> clave;
+    private final Map<Integer, T> items = new LinkedHashMap<>();
+    private Timestamp marca;
+    private Fuente<T> fuente;
+    private Delta delta;
+    private boolean repetir;
+    // id -> fila del modelo; se descarta cuando alguien más toca el modelo
+    private Map<Integer, Integer> filaDe;
+    private boolean aplicando;
+
+    public CargaTabla(Window ventana, DefaultTableModel modelo, Function<T, Object[]> aFila) {
+        this.ventana = ventana;
+        this.modelo = modelo;
+        this.aFila = aFila;
+        barra.setStringPainted(true);
+        barra.setVisible(false);
+        modelo.addTableModelListener(e -> {
+            if (!aplicando) {
+                filaDe = null;
+            }
+        });
+        if (ventana != null) {
+            ventana.addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowClosed(WindowEvent e) {
+                    cancelar();
+                }
+            });
+        }
+    }
+
+    /** Barra que la vista ubica donde le acomode; solo se ve mientras carga. */
+    public JProgressBar getBarraProgreso() {
+        return barra;
+    }
+
+    /** Se llama en el EDT con la lista completa cuando la carga termina bien. */
+    public CargaTabla<T> alTerminar(Consumer<List<T>> accion) {
+        this.alTerminar = accion;
+        return this;
+    }
+
+    /** Id de cada elemento; tiene que coincidir con la columna 0 que arma aFila. */
+    public CargaTabla<T> conClave(ToIntFunction<T> clave) {
+        this.clave = clave;
+        return this;
+    }
+
+    public void cargar(Callable<List<T>> consulta) {
+        iniciar(alLeer -> recorrer(new Cambios<>(consulta.call(), Collections.emptyList(), null, true), alLeer));
+    }
+
+    /**
+     * La primera vez (o si la marca quedó vieja) hace una carga completa;
+     * después solo trae y aplica lo que cambió. Si ya hay una carga o un
+     * refresco en curso, se repite al terminar.
+     */
+    public void sincronizar(Fuente<T> consulta) {
+        if (clave == null) {
+            throw new IllegalStateException("sincronizar necesita conClave");
+        }
+        fuente = consulta;
+        if (actual != null || delta != null) {
+            repetir = true;
+            return;
+        }
+        if (marca == null) {
+            iniciar(alLeer -> consulta.cambiosDesde(null, alLeer));
+        } else {
+            delta = new Delta(consulta, marca);
+            delta.execute();
+        }
+    }
+
+    private static <T> Cambios<T> recorrer(Cambios<T> cambios, Consumer<T> alLeer) {
+        if (cambios != null) {
+            cambios.getModificados().forEach(alLeer);
+        }
+        return cambios;
+    }
+
+    private void iniciar(Lectura<T> consulta) {
+        cancelar();
+        modelo.setRowCount(0);
+        barra.setIndeterminate(true);
+        barra.setString("Cargando...");
+        barra.setVisible(true);
+        if (ventana != null) {
+            ventana.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        }
+        actual = new Trabajo(consulta);
+        actual.execute();
+    }
+
+    public void cancelar() {
+        if (actual != null) {
+            // Sin interrumpir: un interrupt a mitad de una lectura JDBC puede dejar la conexión inutilizable
+            actual.cancel(false);
+            actual = null;
+            terminarIndicador();
+        }
+        if (delta != null) {
+            delta.cancel(false);
+            delta = null;
+        }
+        repetir = false;
+    }
+
+    public boolean isCargando() {
+        return actual != null;
+    }
+
+    private void repetirSiHaceFalta() {
+        if (repetir && fuente != null) {
+            repetir = false;
+            sincronizar(fuente);
+        }
+    }
+
+    /** Aplica los cambios al modelo: reemplaza las filas que están, agrega las nuevas y quita las borradas. */
+    private void aplicar(Cambios<T> cambios) {
+        if (cambios.isVacio()) {
+            return;
+        }
+        if (filaDe == null) {
+            filaDe = new HashMap<>();
+            for (int i = 0; i < modelo.getRowCount(); i++) {
+                filaDe.put(((Number) modelo.getValueAt(i, 0)).intValue(), i);
+            }
+        }
+        aplicando = true;
+        try {
+            aplicarConIndice(cambios);
+        } finally {
+            aplicando = false;
+        }
+    }
+
+    private void aplicarConIndice(Cambios<T> cambios) {
+        Vector<Vector<Object>> datos = filasDelModelo();
+        int primeraModificada = Integer.MAX_VALUE;
+        int ultimaModificada = -1;
+        int filasAntes = datos.size();
+        for (T item : cambios.getModificados()) {
+            int id = clave.applyAsInt(item);
+            boolean nuevo = items.put(id, item) == null;
+            Integer fila = filaDe.get(id);
+            if (fila != null) {
+                datos.set(fila, new Vector<>(Arrays.asList(aFila.apply(item))));
+                primeraModificada = Math.min(primeraModificada, fila);
+                ultimaModificada = Math.max(ultimaModificada, fila);
+            } else if (nuevo) {
+                filaDe.put(id, datos.size());
+                datos.add(new Vector<>(Arrays.asList(aFila.apply(item))));
+            }
+        }
+        if (ultimaModificada >= 0) {
+            modelo.fireTableRowsUpdated(primeraModificada, ultimaModificada);
+        }
+        if (datos.size() > filasAntes) {
+            modelo.fireTableRowsInserted(filasAntes, datos.size() - 1);
+        }
+        List<Integer> borrar = new ArrayList<>();
+        for (int id : cambios.getEliminados()) {
+            items.remove(id);
+            Integer fila = filaDe.get(id);
+            if (fila != null) {
+                borrar.add(fila);
+            }
+        }
+        borrar.sort(Collections.reverseOrder());
+        for (int fila : borrar) {
+            modelo.removeRow(fila);
+        }
+        if (!borrar.isEmpty()) {
+            filaDe = null;  // las filas de abajo se corrieron; se rearma en el próximo refresco
+        }
+    }
+
+    // Las filas del modelo, para agregar o reemplazar sin un evento por fila
+    @SuppressWarnings("unchecked")
+    private Vector<Vector<Object>> filasDelModelo() {
+        return (Vector<Vector<Object>>) (Vector<?>) modelo.getDataVector();
+    }
+
+    private void terminarIndicador() {
+        barra.setVisible(false);
+        if (ventana != null) {
+            ventana.setCursor(Cursor.getDefaultCursor());
+        }
+    }
+
+    private class Trabajo extends SwingWorker<Cambios<T>, List<Object[]>> {
+
+        private final Lectura<T> consulta;
+        private List<Object[]> bloque = new ArrayList<>(TAMANO_BLOQUE);
+        private long inicio;
+        private long primeraNanos = -1;
+        private long consultaNanos;
+        private long edtNanos;
+
+        Trabajo(Lectura<T> consulta) {
+            this.consulta = consulta;
+        }
+
+        @Override
+        protected Cambios<T> doInBackground() throws Exception {
+            inicio = System.nanoTime();
+            Cambios<T> cambios = consulta.leer(this::leida);
+            consultaNanos = System.nanoTime() - inicio;
+            if (cambios == null) {
+                throw new IllegalStateException("la consulta falló (ver consola)");
+            }
+            if (!bloque.isEmpty()) {
+                publish(bloque);
+            }
+            return cambios;
+        }
+
+        private void leida(T item) {
+            if (isCancelled()) {
+                // Corta la lectura: la conexión se cierra al salir del try del DAO
+                throw new CancellationException();
+            }
+            if (primeraNanos < 0) {
+                primeraNanos = System.nanoTime() - inicio;
+            }
+            bloque.add(aFila.apply(item));
+            if (bloque.size() == TAMANO_BLOQUE) {
+                publish(bloque);
+                bloque = new ArrayList<>(TAMANO_BLOQUE);
+            }
+        }
+
+        @Override
+        protected void process(List<List<Object[]>> bloques) {
+            if (isCancelled()) {
+                return;
+            }
+            long inicio = System.nanoTime();
+            int primera = modelo.getRowCount();
+            Vector<Vector<Object>> datos = filasDelModelo();
+            for (List<Object[]> bloque : bloques) {
+                for (Object[] fila : bloque) {
+                    datos.add(new Vector<>(Arrays.asList(fila)));
+                }
+            }
+            int ultima = modelo.getRowCount() - 1;
+            if (ultima >= primera) {
+                modelo.fireTableRowsInserted(primera, ultima);
+            }
+            // El total no se sabe hasta que la base termina de mandar filas
+            barra.setString((ultima + 1) + " filas...");
+            edtNanos += System.nanoTime() - inicio;
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                return;
+            }
+            actual = null;
+            terminarIndicador();
+            try {
+                Cambios<T> cambios = get();
+                List<T> lista = cambios.getModificados();
+                items.clear();
+                if (clave != null) {
+                    for (T item : lista) {
+                        items.put(clave.applyAsInt(item), item);
+                    }
+                }
+                marca = cambios.getMarca();
+                alTerminar.accept(lista);
+                System.out.println("⏱ Carga de " + lista.size() + " filas: primera fila "
+                        + Math.max(primeraNanos, 0) / 1_000_000 + " ms, consulta " + consultaNanos / 1_000_000
+                        + " ms, EDT " + edtNanos / 1_000_000 + " ms");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                System.out.println("❌ Error al cargar datos: " + e.getCause());
+            }
+            repetirSiHaceFalta();
+        }
+    }
+
+    /** Pide los cambios desde la marca en segundo plano y los aplica en el EDT. */
+    private class Delta extends SwingWorker<Cambios<T>, Void> {
+
+        private final Fuente<T> consulta;
+        private final Timestamp desde;
+        private long consultaNanos;
+
+        Delta(Fuente<T> consulta, Timestamp desde) {
+            this.consulta = consulta;
+            this.desde = desde;
+        }
+
+        @Override
+        protected Cambios<T> doInBackground() {
+            long inicio = System.nanoTime();
+            Cambios<T> cambios = consulta.cambiosDesde(desde, null);
+            consultaNanos = System.nanoTime() - inicio;
+            return cambios;
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                return;
+            }
+            delta = null;
+            Cambios<T> cambios;
+            try {
+                cambios = get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                cambios = null;
+                System.out.println("❌ Error al refrescar datos: " + e.getCause());
+            }
+            if (cambios == null) {
+                repetirSiHaceFalta();
+                return;  // se conserva la marca: el próximo refresco vuelve a pedir lo mismo
+            }
+            if (cambios.isCompleta()) {
+                // La marca era más vieja que las lápidas guardadas: vino la tabla entera
+                Cambios<T> completa = cambios;
+                iniciar(alLeer -> recorrer(completa, alLeer));
+                return;
+            }
+            long inicio = System.nanoTime();
+            aplicar(cambios);
+            marca = cambios.getMarca();
+            alTerminar.accept(new ArrayList<>(items.values()));
+            System.out.println("⏱ Refresco: " + cambios.getModificados().size() + " filas cambiadas, "
+                    + cambios.getEliminados().size() + " borradas; consulta " + consultaNanos / 1_000_000
+                    + " ms, EDT " + (System.nanoTime() - inicio) / 1_000 + " µs");
+            repetirSiHaceFalta();
+        }
+    }
+}
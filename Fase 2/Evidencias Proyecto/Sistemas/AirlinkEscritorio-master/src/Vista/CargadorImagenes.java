@@ -0,0 +1,377 @@
+package Vista;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.swing.Icon;
+import javax.swing.ImageIcon;
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+
+/**
+ * Miniaturas de las imágenes que la base guarda como ruta (destino.imagen,
+ * empresa.logo, ...), para mostrarlas en tablas sin trabar el EDT.
+ *
+ * {@link #miniatura} se llama al pintar: si la miniatura está en memoria la
+ * devuelve, si no devuelve un marcador y pide la imagen a los hilos
+ * "airlink-imagenes", que la leen (con submuestreo, así una foto grande no
+ * se decodifica entera), la achican y repintan la tabla. La cola de pedidos
+ * es LIFO y acotada: al desplazarse rápido se atienden primero las filas que
+ * están a la vista y se descartan las que ya pasaron.
+ *
+ * Las miniaturas viven en un LRU acotado por bytes
+ * (-Dairlink.imagenes.cacheMB, 32); las que salen de ahí quedan como
+ * referencias blandas que el GC puede recoger, y si vuelven a pedirse antes
+ * no se leen de nuevo. Las rutas relativas ("/uploads/...") se buscan en el
+ * classpath y bajo -Dairlink.imagenes.base; también sirven URL http y file.
+ */
+public final class CargadorImagenes {
+
+    private static final int MAX_COLA = Integer.getInteger("airlink.imagenes.cola", 256);
+    private static final int MAX_FALLIDAS = 1024;
+    private static final int TIMEOUT_MS = 5000;
+
+    private static volatile CargadorImagenes instancia;
+
+    private final long maxBytes;
+    private final Path base;
+
+    // Todo lo de abajo se toca con el lock de this
+    private final LinkedHashMap<String, Miniatura> lru = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+    private final Map<String, Blanda> blandas = new HashMap<>();
+    private final ReferenceQueue<Miniatura> recogidas = new ReferenceQueue<>();
+    private final Map<String, Set<JComponent>> pendientes = new HashMap<>();
+    private final Set<String> fallidas = Collections.newSetFromMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_FALLIDAS;
+        }
+    });
+
+    private final LinkedBlockingDeque<Pedido> cola = new LinkedBlockingDeque<>();
+    private final Map<String, ImageIcon> recursos = new ConcurrentHashMap<>();
+
+    public static CargadorImagenes getInstancia() {
+        CargadorImagenes c = instancia;
+        if (c == null) {
+            synchronized (CargadorImagenes.class) {
+                c = instancia;
+                if (c == null) {
+                    String base = System.getProperty("airlink.imagenes.base");
+                    int hilos = Integer.getInteger("airlink.imagenes.hilos",
+                            Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1)));
+                    c = new CargadorImagenes(Integer.getInteger("airlink.imagenes.cacheMB", 32) * 1024L * 1024L,
+                            base == null ? null : Paths.get(base), hilos);
+                    instancia = c;
+                }
+            }
+        }
+        return c;
+    }
+
+    private CargadorImagenes(long maxBytes, Path base, int hilos) {
+        this.maxBytes = maxBytes;
+        this.base = base;
+        for (int i = 1; i <= hilos; i++) {
+            Thread t = new Thread(this::atender, "airlink-imagenes-" + i);
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            t.start();
+        }
+    }
+
+    // ============================
+    // DESDE EL EDT
+    // ============================
+    /**
+     * Miniatura de {@code lado} x {@code lado} como máximo. Si todavía no
+     * está, devuelve un marcador y repinta {@code quien} cuando llegue.
+     */
+    public Icon miniatura(String ruta, int lado, JComponent quien) {
+        String clave = lado + "@" + ruta;
+        synchronized (this) {
+            Miniatura m = lru.get(clave);
+            if (m != null) {
+                return m;
+            }
+            limpiarRecogidas();
+            Blanda b = blandas.remove(clave);
+            m = b == null ? null : b.get();
+            if (m != null) {
+                guardar(clave, m);  // el GC no alcanzó a recogerla: vuelve al LRU
+                return m;
+            }
+            if (fallidas.contains(clave)) {
+                return new Marcador(lado, true);
+            }
+            Set<JComponent> esperando = pendientes.get(clave);
+            if (esperando == null) {
+                esperando = new HashSet<>();
+                pendientes.put(clave, esperando);
+                cola.offerFirst(new Pedido(clave, ruta, lado));
+                while (cola.size() > MAX_COLA) {
+                    Pedido viejo = cola.pollLast();
+                    if (viejo != null) {
+                        pendientes.remove(viejo.clave);  // si se vuelve a ver, se pide de nuevo
+                    }
+                }
+            }
+            if (quien != null) {
+                esperando.add(quien);
+            }
+        }
+        return new Marcador(lado, false);
+    }
+
+    /** Imagen de la aplicación (/Img/...) a tamaño original; se lee una sola vez. */
+    public ImageIcon recurso(String ruta) {
+        return recursos.computeIfAbsent(ruta, r -> {
+            URL url = CargadorImagenes.class.getResource(r);
+            return url == null ? new ImageIcon() : new ImageIcon(url);
+        });
+    }
+
+    public synchronized long getBytesEnCache() {
+        return bytes;
+    }
+
+    // ============================
+    // HILOS DE CARGA
+    // ============================
+    private void atender() {
+        while (true) {
+            Pedido p;
+            try {
+                p = cola.takeFirst();
+            } catch (InterruptedException e) {
+                return;
+            }
+            Miniatura m = null;
+            try {
+                BufferedImage img = leer(p.ruta, p.lado);
+                if (img != null) {
+                    m = new Miniatura(img, p.lado);
+                }
+            } catch (IOException | RuntimeException e) {
+                System.out.println("⚠ No se pudo leer la imagen " + p.ruta + ": " + e.getMessage());
+            }
+            Set<JComponent> esperando;
+            synchronized (this) {
+                esperando = pendientes.remove(p.clave);
+                if (m != null) {
+                    guardar(p.clave, m);
+                } else {
+                    fallidas.add(p.clave);
+                }
+            }
+            if (esperando != null && !esperando.isEmpty()) {
+                SwingUtilities.invokeLater(() -> esperando.forEach(Component::repaint));
+            }
+        }
+    }
+
+    private void guardar(String clave, Miniatura m) {
+        Miniatura anterior = lru.put(clave, m);
+        if (anterior != null) {
+            bytes -= anterior.bytes;
+        }
+        bytes += m.bytes;
+        Iterator<Map.Entry<String, Miniatura>> it = lru.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Miniatura> e = it.next();
+            if (e.getValue() == m) {
+                continue;  // la recién guardada se queda aunque sola pase el tope
+            }
+            bytes -= e.getValue().bytes;
+            blandas.put(e.getKey(), new Blanda(e.getKey(), e.getValue(), recogidas));
+            it.remove();
+        }
+    }
+
+    private void limpiarRecogidas() {
+        Blanda b;
+        while ((b = (Blanda) recogidas.poll()) != null) {
+            blandas.remove(b.clave, b);
+        }
+    }
+
+    private BufferedImage leer(String ruta, int lado) throws IOException {
+        try (InputStream in = abrir(ruta);
+             ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> lectores = ImageIO.getImageReaders(iis);
+            if (!lectores.hasNext()) {
+                throw new IOException("formato no soportado");
+            }
+            ImageReader lector = lectores.next();
+            try {
+                lector.setInput(iis, true, true);
+                int ancho = lector.getWidth(0);
+                int alto = lector.getHeight(0);
+                // Leer uno de cada "paso" píxeles, dejando al menos el doble del tamaño final
+                int paso = Math.max(1, Math.max(ancho, alto) / (lado * 2));
+                ImageReadParam param = lector.getDefaultReadParam();
+                param.setSourceSubsampling(paso, paso, 0, 0);
+                return escalar(lector.read(0, param), lado);
+            } finally {
+                lector.dispose();
+            }
+        }
+    }
+
+    private InputStream abrir(String ruta) throws IOException {
+        String r = ruta.trim();
+        if (r.startsWith("http://") || r.startsWith("https://") || r.startsWith("file:")) {
+            URLConnection con = new URL(r).openConnection();
+            con.setConnectTimeout(TIMEOUT_MS);
+            con.setReadTimeout(TIMEOUT_MS);
+            return con.getInputStream();
+        }
+        InputStream recurso = CargadorImagenes.class.getResourceAsStream(r.startsWith("/") ? r : "/" + r);
+        if (recurso != null) {
+            return recurso;
+        }
+        if (base != null) {
+            Path p = base.resolve(r.replaceFirst("^[/\\\\]+", ""));
+            if (Files.isRegularFile(p)) {
+                return Files.newInputStream(p);
+            }
+        }
+        Path p = Paths.get(r);
+        if (Files.isRegularFile(p)) {
+            return Files.newInputStream(p);
+        }
+        throw new FileNotFoundException("no existe");
+    }
+
+    private static BufferedImage escalar(BufferedImage img, int lado) {
+        double f = Math.min(1.0, (double) lado / Math.max(img.getWidth(), img.getHeight()));
+        int ancho = Math.max(1, (int) Math.round(img.getWidth() * f));
+        int alto = Math.max(1, (int) Math.round(img.getHeight() * f));
+        boolean opaca = img.getColorModel().getTransparency() == Transparency.OPAQUE;
+        BufferedImage salida = new BufferedImage(ancho, alto, opaca ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = salida.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.drawImage(img, 0, 0, ancho, alto, null);
+        g.dispose();
+        return salida;
+    }
+
+    private static final class Pedido {
+        final String clave;
+        final String ruta;
+        final int lado;
+
+        Pedido(String clave, String ruta, int lado) {
+            this.clave = clave;
+            this.ruta = ruta;
+            this.lado = lado;
+        }
+    }
+
+    private static final class Blanda extends SoftReference<Miniatura> {
+        final String clave;
+
+        Blanda(String clave, Miniatura m, ReferenceQueue<Miniatura> cola) {
+            super(m, cola);
+            this.clave = clave;
+        }
+    }
+
+    /** Se pinta centrada en un cuadro de lado x lado, así todas las filas miden lo mismo. */
+    private static final class Miniatura implements Icon {
+        final BufferedImage img;
+        final int lado;
+        final long bytes;
+
+        Miniatura(BufferedImage img, int lado) {
+            this.img = img;
+            this.lado = lado;
+            this.bytes = (long) img.getWidth() * img.getHeight() * 4;
+        }
+
+        @Override
+        public void paintIcon(Component c, Graphics g, int x, int y) {
+            g.drawImage(img, x + (lado - img.getWidth()) / 2, y + (lado - img.getHeight()) / 2, null);
+        }
+
+        @Override
+        public int getIconWidth() {
+            return lado;
+        }
+
+        @Override
+        public int getIconHeight() {
+            return lado;
+        }
+    }
+
+    /** Cuadro gris mientras carga; con una cruz si no se pudo leer. */
+    private static final class Marcador implements Icon {
+        private static final Color FONDO = new Color(225, 228, 235);
+        private static final Color TRAZO = new Color(170, 175, 185);
+
+        final int lado;
+        final boolean roto;
+
+        Marcador(int lado, boolean roto) {
+            this.lado = lado;
+            this.roto = roto;
+        }
+
+        @Override
+        public void paintIcon(Component c, Graphics g, int x, int y) {
+            Graphics2D g2 = (Graphics2D) g.create();
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.setColor(FONDO);
+            g2.fillRoundRect(x + 1, y + 1, lado - 2, lado - 2, 6, 6);
+            if (roto) {
+                g2.setColor(TRAZO);
+                g2.setStroke(new BasicStroke(2f));
+                int m = lado / 3;
+                g2.drawLine(x + m, y + m, x + lado - m, y + lado - m);
+                g2.drawLine(x + lado - m, y + m, x + m, y + lado - m);
+            }
+            g2.dispose();
+        }
+
+        @Override
+        public int getIconWidth() {
+            return lado;
+        }
+
+        @Override
+        public int getIconHeight() {
+            return lado;
+        }
+    }
+}
@@ -2,21 +2,22 @@ package Vista;
 
 import Modelo.Destino;
 import dao.DestinoDAO;
+import dao.ExportadorExcel;
 import java.awt.*;
-import java.util.List;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 
-public class DestinosVista extends javax.swing.JFrame {
+public class DestinosVista extends javax.swing.JFrame implements Refrescable {
 
     private DestinoDAO dao = new DestinoDAO();
     private Destino destinoSeleccionado = new Destino();
+    private CargaTabla<Destino> carga;
 
     // Componentes
     private JTable tablaDestinos;
     private JTextField txtNombre, txtPrecio, txtCiudad, txtPais, txtImagen, txtDescripcion;
     private JCheckBox chkDestacado;
-    private JButton btnAgregar, btnEditar, btnEliminar, btnVerViajes, btnVolver;
+    private JButton btnAgregar, btnEditar, btnEliminar, btnVerViajes, btnExportar, btnVolver;
 
     // ===============================
     // CONSTRUCTOR
@@ -30,22 +31,27 @@ public class DestinosVista extends javax.swing.JFrame {
     // ===============================
     // LISTAR DESTINOS
     // ===============================
+    // Solo trae lo que cambió desde el último refresco (la primera vez, todo)
     private void listar() {
-        DefaultTableModel model = (DefaultTableModel) tablaDestinos.getModel();
-        model.setRowCount(0);
-        List<Destino> lista = dao.listar();
-        for (Destino d : lista) {
-            model.addRow(new Object[]{
-                d.getIdDestino(),
-                d.getNombre(),
-                d.getPrecio(),
-                d.getCiudad(),
-                d.getPais(),
-                d.getImagen(),
-                d.getDescripcion(),
-                d.isDestacado() ? "Sí" : "No"
-            });
-        }
+        carga.sincronizar(dao::cambiosDesde);
+    }
+
+    @Override
+    public void refrescar() {
+        listar();
+    }
+
+    private static Object[] fila(Destino d) {
+        return new Object[]{
+            d.getIdDestino(),
+            d.getNombre(),
+            d.getPrecio(),
+            d.getCiudad(),
+            d.getPais(),
+            d.getImagen(),
+            d.getDescripcion(),
+            d.isDestacado() ? "Sí" : "No"
+        };
     }
 
     private void limpiarCampos() {
@@ -162,9 +168,14 @@ public class DestinosVista extends javax.swing.JFrame {
                     "ID", "Nombre", "Precio", "Ciudad", "País", "Imagen", "Descripción", "Destacado"
                 }
         ));
+        RenderMiniatura.instalar(tablaDestinos, 5, 40);
         scroll.setViewportView(tablaDestinos);
         add(scroll, new org.netbeans.lib.awtextra.AbsoluteConstraints(30, 50, 880, 250));
 
+        carga = new CargaTabla<>(this, (DefaultTableModel) tablaDestinos.getModel(), DestinosVista::fila)
+                .conClave(Destino::getIdDestino);
+        add(carga.getBarraProgreso(), new org.netbeans.lib.awtextra.AbsoluteConstraints(450, 15, 460, 20));
+
         // Labels y campos
         JLabel lblNombre = crearLabel("Nombre:");
         JLabel lblPrecio = crearLabel("Precio:");
@@ -208,13 +219,15 @@ public class DestinosVista extends javax.swing.JFrame {
         btnEditar = crearBoton("Editar");
         btnEliminar = crearBoton("Eliminar");
         btnVerViajes = crearBoton("Ver Viajes");
+        btnExportar = crearBoton("Exportar Excel");
         btnVolver = crearBoton("Volver");
 
-        add(btnAgregar, new org.netbeans.lib.awtextra.AbsoluteConstraints(80, 490, 130, 45));
-        add(btnEditar, new org.netbeans.lib.awtextra.AbsoluteConstraints(230, 490, 130, 45));
-        add(btnEliminar, new org.netbeans.lib.awtextra.AbsoluteConstraints(380, 490, 130, 45));
-        add(btnVerViajes, new org.netbeans.lib.awtextra.AbsoluteConstraints(530, 490, 130, 45));
-        add(btnVolver, new org.netbeans.lib.awtextra.AbsoluteConstraints(680, 490, 130, 45));
+        add(btnAgregar, new org.netbeans.lib.awtextra.AbsoluteConstraints(30, 490, 130, 45));
+        add(btnEditar, new org.netbeans.lib.awtextra.AbsoluteConstraints(180, 490, 130, 45));
+        add(btnEliminar, new org.netbeans.lib.awtextra.AbsoluteConstraints(330, 490, 130, 45));
+        add(btnVerViajes, new org.netbeans.lib.awtextra.AbsoluteConstraints(480, 490, 130, 45));
+        add(btnExportar, new org.netbeans.lib.awtextra.AbsoluteConstraints(630, 490, 130, 45));
+        add(btnVolver, new org.netbeans.lib.awtextra.AbsoluteConstraints(780, 490, 130, 45));
 
         // Eventos
         tablaDestinos.addMouseListener(new java.awt.event.MouseAdapter() {
@@ -226,22 +239,19 @@ public class DestinosVista extends javax.swing.JFrame {
         btnAgregar.addActionListener(evt -> btnAgregarActionPerformed(evt));
         btnEditar.addActionListener(evt -> btnEditarActionPerformed(evt));
         btnEliminar.addActionListener(evt -> btnEliminarActionPerformed(evt));
+        btnExportar.addActionListener(evt -> ExportacionExcel.exportar(this, ExportadorExcel.Tabla.DESTINOS));
 
         btnVerViajes.addActionListener(evt -> {
             int fila = tablaDestinos.getSelectedRow();
             if (fila >= 0) {
                 int idDestino = Integer.parseInt(tablaDestinos.getValueAt(fila, 0).toString());
-                new ViajesVista(idDestino).setVisible(true);
-                dispose();
+                Navegador.ir(this, "viajes#" + idDestino, () -> new ViajesVista(idDestino));
             } else {
                 JOptionPane.showMessageDialog(this, "Selecciona un destino para ver sus viajes.");
             }
         });
 
-        btnVolver.addActionListener(evt -> {
-            new MenuAdminModern().setVisible(true);
-            dispose();
-        });
+        btnVolver.addActionListener(evt -> Navegador.volver(this));
     }
 
     private JLabel crearLabel(String texto) {
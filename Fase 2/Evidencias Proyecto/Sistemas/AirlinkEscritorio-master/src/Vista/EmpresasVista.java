@@ -1,16 +1,17 @@
 package Vista;
 
 import dao.EmpresaDAO;
+import dao.ExportadorExcel;
 import Modelo.Empresa;
 import java.awt.*;
-import java.util.List;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 
-public class EmpresasVista extends javax.swing.JFrame {
+public class EmpresasVista extends javax.swing.JFrame implements Refrescable {
 
     EmpresaDAO dao = new EmpresaDAO();
     Empresa empresaSeleccionada = new Empresa();
+    private CargaTabla<Empresa> carga;
 
     // ======= CONSTRUCTOR =======
     public EmpresasVista() {
@@ -21,20 +22,24 @@ public class EmpresasVista extends javax.swing.JFrame {
 
     // ======= LISTAR =======
     private void listar() {
-        DefaultTableModel model = (DefaultTableModel) tablaEmpresas.getModel();
-        model.setRowCount(0);
-        List<Empresa> lista = dao.listar();
-        for (Empresa e : lista) {
-            model.addRow(new Object[]{
-                e.getIdEmpresa(),
-                e.getNombreEmpresa(),
-                e.getTipoEmpresa(),
-                e.getLogo(),
-                e.getDescripcion(),
-                e.getSitioWeb(),
-                e.isActivo() ? "Sí" : "No"
-            });
-        }
+        carga.sincronizar(dao::cambiosDesde);
+    }
+
+    @Override
+    public void refrescar() {
+        listar();
+    }
+
+    private static Object[] fila(Empresa e) {
+        return new Object[]{
+            e.getIdEmpresa(),
+            e.getNombreEmpresa(),
+            e.getTipoEmpresa(),
+            e.getLogo(),
+            e.getDescripcion(),
+            e.getSitioWeb(),
+            e.isActivo() ? "Sí" : "No"
+        };
     }
 
     private void limpiarCampos() {
@@ -144,10 +149,7 @@ public class EmpresasVista extends javax.swing.JFrame {
             }
         });
 
-        btnVolver.addActionListener(e -> {
-            this.dispose();
-            new MenuAdminModern().setVisible(true);
-        });
+        btnVolver.addActionListener(e -> Navegador.volver(this));
 
         add(btnVolver, new org.netbeans.lib.awtextra.AbsoluteConstraints(30, 10, 100, 30));
 
@@ -167,9 +169,14 @@ public class EmpresasVista extends javax.swing.JFrame {
                     "ID", "Nombre", "Tipo", "Logo", "Descripción", "Sitio Web", "Activa"
                 }
         ));
+        RenderMiniatura.instalar(tablaEmpresas, 3, 40);
         jScrollPane1.setViewportView(tablaEmpresas);
         add(jScrollPane1, new org.netbeans.lib.awtextra.AbsoluteConstraints(30, 50, 830, 250));
 
+        carga = new CargaTabla<>(this, (DefaultTableModel) tablaEmpresas.getModel(), EmpresasVista::fila)
+                .conClave(Empresa::getIdEmpresa);
+        add(carga.getBarraProgreso(), new org.netbeans.lib.awtextra.AbsoluteConstraints(470, 15, 390, 20));
+
         // ===== CAMPOS =====
         javax.swing.JLabel lblNombre = new javax.swing.JLabel("Nombre:");
         javax.swing.JLabel lblTipo = new javax.swing.JLabel("Tipo:");
@@ -214,11 +221,13 @@ public class EmpresasVista extends javax.swing.JFrame {
         btnActualizar = crearBoton("Actualizar");
         btnEliminar = crearBoton("Eliminar");
         btnLimpiar = crearBoton("Limpiar");
+        btnExportar = crearBoton("Exportar Excel");
 
-        add(btnAgregar, new org.netbeans.lib.awtextra.AbsoluteConstraints(80, 460, 140, 45));
-        add(btnActualizar, new org.netbeans.lib.awtextra.AbsoluteConstraints(250, 460, 140, 45));
-        add(btnEliminar, new org.netbeans.lib.awtextra.AbsoluteConstraints(420, 460, 140, 45));
-        add(btnLimpiar, new org.netbeans.lib.awtextra.AbsoluteConstraints(590, 460, 140, 45));
+        add(btnAgregar, new org.netbeans.lib.awtextra.AbsoluteConstraints(40, 460, 140, 45));
+        add(btnActualizar, new org.netbeans.lib.awtextra.AbsoluteConstraints(200, 460, 140, 45));
+        add(btnEliminar, new org.netbeans.lib.awtextra.AbsoluteConstraints(360, 460, 140, 45));
+        add(btnLimpiar, new org.netbeans.lib.awtextra.AbsoluteConstraints(520, 460, 140, 45));
+        add(btnExportar, new org.netbeans.lib.awtextra.AbsoluteConstraints(680, 460, 140, 45));
 
         // ===== EVENTOS =====
         tablaEmpresas.addMouseListener(new java.awt.event.MouseAdapter() {
@@ -231,6 +240,7 @@ public class EmpresasVista extends javax.swing.JFrame {
         btnActualizar.addActionListener(evt -> btnActualizarActionPerformed(evt));
         btnEliminar.addActionListener(evt -> btnEliminarActionPerformed(evt));
         btnLimpiar.addActionListener(evt -> limpiarCampos());
+        btnExportar.addActionListener(evt -> ExportacionExcel.exportar(this, ExportadorExcel.Tabla.EMPRESAS));
     }
 
     // ======= ESTILO DE BOTONES =======
@@ -256,6 +266,7 @@ public class EmpresasVista extends javax.swing.JFrame {
     private javax.swing.JButton btnActualizar;
     private javax.swing.JButton btnAgregar;
     private javax.swing.JButton btnEliminar;
+    private javax.swing.JButton btnExportar;
     private javax.swing.JButton btnLimpiar;
     private javax.swing.JCheckBox chkActivo;
     private javax.swing.JScrollPane jScrollPane1;
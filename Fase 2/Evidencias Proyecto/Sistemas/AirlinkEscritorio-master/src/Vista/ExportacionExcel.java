@@ -0,0 +1,81 @@
+package Vista;
+
+import dao.ExportadorExcel;
+import java.awt.Component;
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import javax.swing.JFileChooser;
+import javax.swing.JOptionPane;
+import javax.swing.ProgressMonitor;
+import javax.swing.SwingWorker;
+import javax.swing.filechooser.FileNameExtensionFilter;
+
+/**
+ * Botón "Exportar Excel" de las vistas de administración: pide el archivo,
+ * exporta en segundo plano y muestra el avance en un ProgressMonitor que
+ * permite cancelar.
+ */
+public final class ExportacionExcel {
+
+    private ExportacionExcel() {
+    }
+
+    public static void exportar(Component padre, ExportadorExcel.Tabla tabla) {
+        JFileChooser selector = new JFileChooser();
+        selector.setDialogTitle("Exportar " + tabla.getTitulo().toLowerCase() + " a Excel");
+        selector.setFileFilter(new FileNameExtensionFilter("Libro de Excel (*.xlsx)", "xlsx"));
+        selector.setSelectedFile(new File(tabla.getTitulo().toLowerCase() + ".xlsx"));
+        if (selector.showSaveDialog(padre) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File elegido = selector.getSelectedFile();
+        File archivo = elegido.getName().toLowerCase().endsWith(".xlsx")
+                ? elegido
+                : new File(elegido.getParentFile(), elegido.getName() + ".xlsx");
+
+        ProgressMonitor monitor = new ProgressMonitor(padre, "Exportando " + tabla.getTitulo().toLowerCase() + "...", "", 0, 100);
+        monitor.setMillisToDecideToPopup(200);
+
+        new SwingWorker<Integer, Integer>() {
+            private volatile int total;
+            // El exportador lo revisa entre bloques de filas; no se interrumpe el hilo del JDBC
+            private volatile boolean cancelado;
+
+            @Override
+            protected Integer doInBackground() throws Exception {
+                ExportadorExcel exportador = new ExportadorExcel();
+                total = Math.max(exportador.contar(tabla), 1);
+                return exportador.exportar(tabla, archivo, filas -> publish(filas), () -> cancelado);
+            }
+
+            @Override
+            protected void process(List<Integer> avances) {
+                if (monitor.isCanceled()) {
+                    cancelado = true;
+                    return;
+                }
+                int filas = avances.get(avances.size() - 1);
+                monitor.setMaximum(Math.max(total, filas));
+                monitor.setProgress(filas);
+                monitor.setNote(filas + " de " + total + " filas");
+            }
+
+            @Override
+            protected void done() {
+                monitor.close();
+                try {
+                    int filas = get();
+                    JOptionPane.showMessageDialog(padre, "📊 " + filas + " filas exportadas a:\n" + archivo);
+                } catch (Exception e) {
+                    Throwable causa = e.getCause() != null ? e.getCause() : e;
+                    if (causa instanceof CancellationException) {
+                        JOptionPane.showMessageDialog(padre, "Exportación cancelada.");
+                        return;
+                    }
+                    JOptionPane.showMessageDialog(padre, "❌ Error al exportar: " + causa.getMessage());
+                }
+            }
+        }.execute();
+    }
+}
@@ -0,0 +1,74 @@
+package Vista;
+
+import java.util.BitSet;
+import javax.swing.RowFilter;
+import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableRowSorter;
+import servicio.IndiceTrigramas;
+
+/**
+ * Filtro de una tabla con un {@link IndiceTrigramas}: el índice marca los ids
+ * que coinciden y el RowFilter deja pasar las filas cuyo id (columna 0) está
+ * marcado. Si la consulta extiende la anterior, el índice busca solo entre
+ * los resultados anteriores. Se usa desde el EDT.
+ *
+ * Se tiene que crear después del JTable del modelo: los listeners del modelo
+ * se avisan del último al primero, así este se entera de cada cambio antes
+ * que la tabla vuelva a filtrar.
+ */
+final class FiltroPorIndice {
+
+    private final DefaultTableModel modelo;
+    private final TableRowSorter<DefaultTableModel> ordenador;
+    private IndiceTrigramas indice;
+    private String consultaAplicada;
+    private BitSet coincidencias;
+    private int[] idPorFila;  // id de cada fila del modelo; null si el modelo cambió
+
+    FiltroPorIndice(DefaultTableModel modelo, TableRowSorter<DefaultTableModel> ordenador) {
+        this.modelo = modelo;
+        this.ordenador = ordenador;
+        modelo.addTableModelListener(e -> idPorFila = null);
+    }
+
+    /** Los resultados anteriores son del índice viejo: la próxima consulta no parte de ellos. */
+    void setIndice(IndiceTrigramas indice) {
+        this.indice = indice;
+        consultaAplicada = null;
+    }
+
+    /** @return false si todavía no hay índice y no se filtró nada */
+    boolean aplicar(String texto) {
+        if (indice == null) {
+            return false;
+        }
+        if (texto.isBlank()) {
+            consultaAplicada = null;
+            coincidencias = null;
+            ordenador.setRowFilter(null);
+            return true;
+        }
+        coincidencias = indice.buscar(texto, consultaAplicada, coincidencias);
+        consultaAplicada = texto;
+        BitSet visibles = coincidencias;
+        ordenador.setRowFilter(new RowFilter<DefaultTableModel, Integer>() {
+            @Override
+            public boolean include(Entry<? extends DefaultTableModel, ? extends Integer> fila) {
+                return visibles.get(idsPorFila()[fila.getIdentifier()]);
+            }
+        });
+        return true;
+    }
+
+    // Leer el id del Vector del modelo en cada fila era lo más caro de filtrar
+    private int[] idsPorFila() {
+        if (idPorFila == null) {
+            int[] ids = new int[modelo.getRowCount()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = ((Number) modelo.getValueAt(i, 0)).intValue();
+            }
+            idPorFila = ids;
+        }
+        return idPorFila;
+    }
+}
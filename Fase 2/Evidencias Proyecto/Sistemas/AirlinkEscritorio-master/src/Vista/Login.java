@@ -144,9 +144,11 @@ public class Login extends javax.swing.JFrame {
 
 if (usuario != null && usuario.getCorreo() != null) {
     JOptionPane.showMessageDialog(this, "✅ Bienvenido " + usuario.getNombre());
+    dao.Auditoria.setUsuario(usuario.getId());
 
     // Abre el panel principal de administrador
     Vista.MenuAdminModern menu = new Vista.MenuAdminModern(usuario);
+    Vista.Navegador.iniciar(menu);
     menu.setVisible(true);
     this.dispose(); // cierra la ventana de login
     } else {
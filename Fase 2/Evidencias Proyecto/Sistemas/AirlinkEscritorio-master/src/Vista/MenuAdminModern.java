@@ -1,9 +1,18 @@
 package Vista;
 
 import Modelo.Usuario;
-import Modelo.ReporteViajes;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
+import servicio.BuscadorGlobal;
+import servicio.ResultadoBusqueda;
 
 public class MenuAdminModern extends javax.swing.JFrame {
 
@@ -11,10 +20,19 @@ public class MenuAdminModern extends javax.swing.JFrame {
     private JLabel lblBienvenido, lblAvatar, lblLogo;
     private JButton btnUsuarios, btnEmpresas, btnDestinos, btnRutas, btnViajes, btnReportes, btnCerrar;
 
+    // Buscador global: destinos, terminales, empresas y rutas, en memoria
+    private static final int MAX_RESULTADOS = 8;
+    private JTextField txtBuscar;
+    private JPopupMenu popupResultados;
+    private DefaultListModel<ResultadoBusqueda> resultados;
+    private JList<ResultadoBusqueda> listaResultados;
+    private BuscadorGlobal buscador;
+
     public MenuAdminModern(Usuario usuario) {
         this.usuario = usuario;
         initComponents();
         this.setLocationRelativeTo(null);
+        prepararBuscador();
         lblBienvenido.setText("Bienvenido, " + usuario.getNombre());
         lblAvatar.setText(usuario.getNombre().substring(0, 1).toUpperCase());
     }
@@ -22,6 +40,7 @@ public class MenuAdminModern extends javax.swing.JFrame {
     public MenuAdminModern() {
         initComponents();
         this.setLocationRelativeTo(null);
+        prepararBuscador();
     }
 
     private void initComponents() {
@@ -38,7 +57,7 @@ public class MenuAdminModern extends javax.swing.JFrame {
         headerPanel.setBackground(new Color(25, 15, 60));
         headerPanel.setBorder(BorderFactory.createEmptyBorder(10, 20, 10, 20));
 
-        lblLogo = new JLabel(new ImageIcon(getClass().getResource("/Img/logo.png")));
+        lblLogo = new JLabel(CargadorImagenes.getInstancia().recurso("/Img/logo.png"));
         headerPanel.add(lblLogo, BorderLayout.WEST);
 
         JPanel userPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 15, 5));
@@ -62,6 +81,63 @@ public class MenuAdminModern extends javax.swing.JFrame {
         userPanel.add(btnCerrar);
         headerPanel.add(userPanel, BorderLayout.EAST);
 
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 0, 10));
+        searchPanel.setOpaque(false);
+        txtBuscar = new JTextField(22);
+        txtBuscar.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        txtBuscar.setToolTipText("Buscar destinos, terminales, empresas o rutas...");
+        txtBuscar.setBorder(BorderFactory.createEmptyBorder(6, 8, 6, 8));
+        searchPanel.add(txtBuscar);
+        headerPanel.add(searchPanel, BorderLayout.CENTER);
+
+        resultados = new DefaultListModel<>();
+        listaResultados = new JList<>(resultados);
+        listaResultados.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        listaResultados.setFocusable(false);
+        listaResultados.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+                ResultadoBusqueda r = (ResultadoBusqueda) value;
+                String texto = "<html><b>" + escapar(r.getTitulo()) + "</b> <font color='gray'>" + nombreTipo(r.getTipo())
+                        + (r.getDetalle() == null || r.getDetalle().isEmpty() ? "" : " · " + escapar(r.getDetalle())) + "</font></html>";
+                return super.getListCellRendererComponent(list, texto, index, isSelected, cellHasFocus);
+            }
+        });
+        listaResultados.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int i = listaResultados.locationToIndex(e.getPoint());
+                if (i >= 0) {
+                    abrir(resultados.get(i));
+                }
+            }
+        });
+        popupResultados = new JPopupMenu();
+        popupResultados.setFocusable(false);
+        popupResultados.add(new JScrollPane(listaResultados));
+
+        txtBuscar.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                buscarGlobal();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                buscarGlobal();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+        txtBuscar.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                moverSeleccion(e);
+            }
+        });
+
         // CENTRO
         JPanel centerPanel = new JPanel(new GridBagLayout());
         centerPanel.setOpaque(false);
@@ -93,11 +169,12 @@ public class MenuAdminModern extends javax.swing.JFrame {
         add(mainPanel);
 
         // EVENTOS
-        btnUsuarios.addActionListener(e -> new UsuariosVista().setVisible(true));
-        btnEmpresas.addActionListener(e -> new EmpresasVista().setVisible(true));
-        btnDestinos.addActionListener(e -> new DestinosVista().setVisible(true));
-        btnRutas.addActionListener(e -> new RutasVista().setVisible(true));
-        btnViajes.addActionListener(e -> new ViajesVista().setVisible(true));
+        // Las vistas se crean la primera vez y después se reutilizan (ver Navegador)
+        btnUsuarios.addActionListener(e -> Navegador.ir(this, "usuarios", UsuariosVista::new));
+        btnEmpresas.addActionListener(e -> Navegador.ir(this, "empresas", EmpresasVista::new));
+        btnDestinos.addActionListener(e -> Navegador.ir(this, "destinos", DestinosVista::new));
+        btnRutas.addActionListener(e -> Navegador.ir(this, "rutas", RutasVista::new));
+        btnViajes.addActionListener(e -> Navegador.ir(this, "viajes", ViajesVista::new));
         btnReportes.addActionListener(e -> abrirReportes());
     }
 
@@ -110,16 +187,106 @@ public class MenuAdminModern extends javax.swing.JFrame {
         return boton;
     }
 
+    // El índice se arma en segundo plano al abrir el menú; buscar después ya no toca la base
+    private void prepararBuscador() {
+        new SwingWorker<BuscadorGlobal, Void>() {
+            @Override
+            protected BuscadorGlobal doInBackground() {
+                BuscadorGlobal b = BuscadorGlobal.getInstancia();
+                b.buscar("a", 1);
+                return b;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    buscador = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    System.out.println("❌ Error al preparar el buscador: " + e);
+                    return;
+                }
+                buscarGlobal();  // lo que se haya escrito mientras tanto
+            }
+        }.execute();
+    }
+
+    private void buscarGlobal() {
+        String texto = txtBuscar.getText();
+        if (buscador == null || texto.isBlank()) {
+            popupResultados.setVisible(false);
+            return;
+        }
+        List<ResultadoBusqueda> encontrados = buscador.buscar(texto, MAX_RESULTADOS);
+        resultados.clear();
+        for (ResultadoBusqueda r : encontrados) {
+            resultados.addElement(r);
+        }
+        if (encontrados.isEmpty()) {
+            popupResultados.setVisible(false);
+            return;
+        }
+        listaResultados.setSelectedIndex(0);
+        listaResultados.setVisibleRowCount(encontrados.size());
+        popupResultados.setPopupSize(Math.max(txtBuscar.getWidth(), 360), listaResultados.getPreferredScrollableViewportSize().height + 6);
+        popupResultados.show(txtBuscar, 0, txtBuscar.getHeight());
+        txtBuscar.requestFocusInWindow();
+    }
+
+    private void moverSeleccion(KeyEvent e) {
+        if (!popupResultados.isVisible()) {
+            return;
+        }
+        int i = listaResultados.getSelectedIndex();
+        switch (e.getKeyCode()) {
+            case KeyEvent.VK_DOWN -> listaResultados.setSelectedIndex(Math.min(i + 1, resultados.size() - 1));
+            case KeyEvent.VK_UP -> listaResultados.setSelectedIndex(Math.max(i - 1, 0));
+            case KeyEvent.VK_ENTER -> {
+                if (i >= 0) {
+                    abrir(resultados.get(i));
+                }
+            }
+            case KeyEvent.VK_ESCAPE -> popupResultados.setVisible(false);
+            default -> {
+                return;
+            }
+        }
+        e.consume();
+    }
+
+    private void abrir(ResultadoBusqueda r) {
+        popupResultados.setVisible(false);
+        switch (r.getTipo()) {
+            case DESTINO -> Navegador.ir(this, "destinos", DestinosVista::new);
+            case EMPRESA -> Navegador.ir(this, "empresas", EmpresasVista::new);
+            // Los terminales no tienen vista propia; se ven en las rutas
+            case TERMINAL, RUTA -> Navegador.ir(this, "rutas", RutasVista::new);
+        }
+    }
+
+    private static String nombreTipo(ResultadoBusqueda.Tipo tipo) {
+        return switch (tipo) {
+            case DESTINO -> "Destino";
+            case TERMINAL -> "Terminal";
+            case EMPRESA -> "Empresa";
+            case RUTA -> "Ruta";
+        };
+    }
+
+    private static String escapar(String s) {
+        return s == null ? "" : s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
     private void abrirReportes() {
-        String ruta = System.getProperty("user.home") + "/Documents/reporte_viajes.pdf";
-        new ReporteViajes().generarPDF(ruta);
-        JOptionPane.showMessageDialog(this, "📄 Reporte generado en: " + ruta);
+        // Los reportes se generan en segundo plano desde su propia vista
+        Navegador.ir(this, "reportes", ReportesVista::new);
     }
 
     private void cerrarSesion() {
         int opcion = JOptionPane.showConfirmDialog(this, "¿Deseas cerrar sesión?", "Confirmar", JOptionPane.YES_NO_OPTION);
         if (opcion == JOptionPane.YES_OPTION) {
+            dao.Auditoria.setUsuario(null);
             new Login().setVisible(true);
+            Navegador.cerrarSesion();
             this.dispose();
         }
     }
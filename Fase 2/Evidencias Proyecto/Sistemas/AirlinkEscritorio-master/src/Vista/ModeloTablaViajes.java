@@ -0,0 +1,267 @@
+package Vista;
+
+import Modelo.Viaje;
+import dao.CursorViaje;
+import dao.FiltroViaje;
+import dao.OrdenViaje;
+import dao.PaginaViajes;
+import dao.ViajeDAO;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Modelo de la tabla de viajes que no carga la tabla completa.
+ *
+ * Solo pide a la base las páginas que la JTable llega a pintar (más la
+ * siguiente, como margen) y guarda en memoria un número acotado de ellas.
+ * Cada página se trae con ViajeDAO.buscar usando el cursor que dejó la
+ * anterior; si ese no se conoce (salto con la barra de desplazamiento) se
+ * usa OFFSET una vez. El orden lo resuelve el SQL: ordenarPor() vacía las páginas y
+ * vuelve a empezar.
+ *
+ * Todo el estado se toca desde el EDT; las consultas corren en un hilo
+ * aparte que atiende primero la página pedida más recientemente. Una página
+ * cuya consulta falló no se guarda: sus filas se repintan pasados
+ * -Dairlink.ui.reintentoPaginaMs (2000) y eso la vuelve a pedir.
+ */
+public class ModeloTablaViajes extends AbstractTableModel {
+
+    private static final String[] COLUMNAS = {"ID", "Salida", "Llegada", "Estado", "Destino"};
+    private static final OrdenViaje[] ORDEN_COLUMNA = {
+        OrdenViaje.ID, OrdenViaje.SALIDA, OrdenViaje.LLEGADA, OrdenViaje.ESTADO, OrdenViaje.DESTINO
+    };
+
+    private static final int TAMANO_PAGINA = Integer.getInteger("airlink.ui.paginaViajes", 100);
+    private static final int MAX_PAGINAS = Integer.getInteger("airlink.ui.paginasEnMemoria", 20);
+    private static final int REINTENTO_MS = Integer.getInteger("airlink.ui.reintentoPaginaMs", 2000);
+
+    private final ViajeDAO dao = new ViajeDAO();
+    private final FiltroViaje filtro;
+    private final ExecutorService cargador = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "airlink-paginas-viajes");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ConcurrentLinkedDeque<Solicitud> cola = new ConcurrentLinkedDeque<>();
+
+    private final Map<Integer, List<Viaje>> paginas = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Viaje>> mayor) {
+            return size() > MAX_PAGINAS;
+        }
+    };
+    // Cursor al final de cada página ya vista: basta para pedir la siguiente
+    private final Map<Integer, CursorViaje> anclas = new HashMap<>();
+    private final Set<Integer> pendientes = new HashSet<>();
+
+    private OrdenViaje orden = OrdenViaje.SALIDA;
+    private boolean ascendente = true;
+    private int filas;
+    private int generacion;
+    private Consumer<Boolean> alCambiarCarga = ocupado -> { };
+
+    public ModeloTablaViajes(FiltroViaje filtro) {
+        this.filtro = filtro;
+    }
+
+    /** Avisa (en el EDT) cuando empieza o termina de haber consultas en curso. */
+    public void setAlCambiarCarga(Consumer<Boolean> accion) {
+        this.alCambiarCarga = accion;
+    }
+
+    // ==============================
+    // CARGA
+    // ==============================
+    public void recargar() {
+        generacion++;
+        int gen = generacion;
+        paginas.clear();
+        anclas.clear();
+        pendientes.clear();
+        cola.clear();
+        alCambiarCarga.accept(true);
+        cargador.execute(() -> {
+            int total = dao.contar(filtro);
+            SwingUtilities.invokeLater(() -> {
+                if (gen != generacion) {
+                    return;
+                }
+                filas = total;
+                fireTableDataChanged();
+                alCambiarCarga.accept(!pendientes.isEmpty());
+            });
+        });
+    }
+
+    public void ordenarPor(int columna) {
+        OrdenViaje nuevo = ORDEN_COLUMNA[columna];
+        ascendente = nuevo != orden || !ascendente;
+        orden = nuevo;
+        fireTableStructureChanged();
+        recargar();
+    }
+
+    public void cerrar() {
+        generacion++;
+        cargador.shutdownNow();
+    }
+
+    private List<Viaje> pagina(int numero) {
+        List<Viaje> p = paginas.get(numero);
+        if (p == null) {
+            solicitar(numero);
+            if ((numero + 1) * TAMANO_PAGINA < filas) {
+                solicitar(numero + 1);
+            }
+        }
+        return p;
+    }
+
+    private void solicitar(int numero) {
+        if (paginas.containsKey(numero) || !pendientes.add(numero)) {
+            return;
+        }
+        if (pendientes.size() == 1) {
+            alCambiarCarga.accept(true);
+        }
+        cola.addLast(new Solicitud(generacion, numero, orden, ascendente,
+                numero == 0 ? null : anclas.get(numero - 1)));
+        // Si se acumulan pedidos (desplazamiento rápido) se olvidan los más viejos
+        while (cola.size() > MAX_PAGINAS) {
+            Solicitud vieja = cola.pollFirst();
+            if (vieja != null) {
+                pendientes.remove(vieja.numero);
+            }
+        }
+        cargador.execute(this::atenderSiguiente);
+    }
+
+    // Hilo cargador: siempre la página pedida más recientemente
+    private void atenderSiguiente() {
+        Solicitud s = cola.pollLast();
+        if (s == null) {
+            return;
+        }
+        List<Viaje> lista;
+        CursorViaje siguiente;
+        if (s.numero == 0 || s.ancla != null) {
+            PaginaViajes pagina = dao.buscar(filtro, s.orden, s.ascendente, s.ancla, TAMANO_PAGINA);
+            lista = pagina != null ? pagina.getViajes() : null;
+            siguiente = pagina != null ? pagina.getSiguiente() : null;
+        } else {
+            lista = dao.buscarDesde(filtro, s.orden, s.ascendente, s.numero * TAMANO_PAGINA, TAMANO_PAGINA);
+            siguiente = lista == null || lista.isEmpty() ? null
+                    : CursorViaje.despuesDe(lista.get(lista.size() - 1), s.orden, s.ascendente);
+        }
+        SwingUtilities.invokeLater(() -> aplicar(s, lista, siguiente));
+    }
+
+    /** {@code lista} null: la consulta falló y la página se vuelve a pedir más tarde. */
+    private void aplicar(Solicitud s, List<Viaje> lista, CursorViaje siguiente) {
+        if (s.generacion != generacion) {
+            return;
+        }
+        pendientes.remove(s.numero);
+        if (lista == null) {
+            reintentar(s);
+        } else {
+            paginas.put(s.numero, lista);
+            if (siguiente != null) {
+                anclas.put(s.numero, siguiente);
+            }
+            filasActualizadas(s.numero);
+        }
+        if (pendientes.isEmpty()) {
+            alCambiarCarga.accept(false);
+        }
+    }
+
+    // Repintar las filas hace que getValueAt pida la página otra vez; no enseguida, para no martillar una base caída
+    private void reintentar(Solicitud s) {
+        Timer t = new Timer(REINTENTO_MS, e -> {
+            if (s.generacion == generacion) {
+                filasActualizadas(s.numero);
+            }
+        });
+        t.setRepeats(false);
+        t.start();
+    }
+
+    private void filasActualizadas(int numero) {
+        int primera = numero * TAMANO_PAGINA;
+        int ultima = Math.min(primera + TAMANO_PAGINA, filas) - 1;
+        if (ultima >= primera) {
+            fireTableRowsUpdated(primera, ultima);
+        }
+    }
+
+    /** Viaje de la fila, o null si su página todavía no llega. */
+    public Viaje getViaje(int fila) {
+        List<Viaje> p = pagina(fila / TAMANO_PAGINA);
+        int i = fila % TAMANO_PAGINA;
+        return p != null && i < p.size() ? p.get(i) : null;
+    }
+
+    // ==============================
+    // TABLE MODEL
+    // ==============================
+    @Override
+    public int getRowCount() {
+        return filas;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNAS.length;
+    }
+
+    @Override
+    public String getColumnName(int columna) {
+        if (ORDEN_COLUMNA[columna] == orden) {
+            return COLUMNAS[columna] + (ascendente ? " ▲" : " ▼");
+        }
+        return COLUMNAS[columna];
+    }
+
+    @Override
+    public Object getValueAt(int fila, int columna) {
+        Viaje v = getViaje(fila);
+        if (v == null) {
+            return columna == 0 ? "…" : null;
+        }
+        switch (columna) {
+            case 0: return v.getIdViaje();
+            case 1: return v.getSalida();
+            case 2: return v.getLlegada();
+            case 3: return v.getEstado();
+            default: return v.getIdDestino();
+        }
+    }
+
+    private static final class Solicitud {
+        final int generacion;
+        final int numero;
+        final OrdenViaje orden;
+        final boolean ascendente;
+        final CursorViaje ancla;
+
+        Solicitud(int generacion, int numero, OrdenViaje orden, boolean ascendente, CursorViaje ancla) {
+            this.generacion = generacion;
+            this.numero = numero;
+            this.orden = orden;
+            this.ascendente = ascendente;
+            this.ancla = ancla;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package Vista;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mide cuánto tiempo pasa ocupado el Event Dispatch Thread.
+ *
+ * Se activa con -Dairlink.monitorEdt=true: reemplaza la cola de eventos por
+ * una que cronometra cada evento, avisa por consola cuando uno supera el
+ * umbral (-Dairlink.monitorEdt.umbralMs, 100 ms por defecto) e imprime un
+ * resumen al cerrar la aplicación. Sirve para comparar la UI antes y después
+ * de mover consultas fuera del EDT.
+ */
+public class MonitorEdt extends EventQueue {
+
+    private static final long UMBRAL_NANOS =
+            Long.getLong("airlink.monitorEdt.umbralMs", 100L) * 1_000_000;
+
+    private static final AtomicLong EVENTOS = new AtomicLong();
+    private static final AtomicLong OCUPADO_NANOS = new AtomicLong();
+    private static final AtomicLong MAXIMO_NANOS = new AtomicLong();
+    private static final AtomicLong BLOQUEOS = new AtomicLong();
+    private static final AtomicLong BLOQUEADO_NANOS = new AtomicLong();
+
+    private static volatile boolean instalado;
+
+    private MonitorEdt() {
+    }
+
+    public static synchronized void instalarSiActivo() {
+        if (instalado || !Boolean.getBoolean("airlink.monitorEdt")) {
+            return;
+        }
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(new MonitorEdt());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println(resumen()), "airlink-monitor-edt"));
+        instalado = true;
+    }
+
+    @Override
+    protected void dispatchEvent(AWTEvent evento) {
+        long inicio = System.nanoTime();
+        try {
+            super.dispatchEvent(evento);
+        } finally {
+            long duracion = System.nanoTime() - inicio;
+            EVENTOS.incrementAndGet();
+            OCUPADO_NANOS.addAndGet(duracion);
+            MAXIMO_NANOS.accumulateAndGet(duracion, Math::max);
+            if (duracion >= UMBRAL_NANOS) {
+                BLOQUEOS.incrementAndGet();
+                BLOQUEADO_NANOS.addAndGet(duracion);
+                System.out.println("🐢 EDT bloqueado " + duracion / 1_000_000 + " ms por "
+                        + evento.getClass().getSimpleName() + " (" + evento.getSource().getClass().getSimpleName() + ")");
+            }
+        }
+    }
+
+    public static long getEventos() {
+        return EVENTOS.get();
+    }
+
+    public static long getOcupadoMs() {
+        return OCUPADO_NANOS.get() / 1_000_000;
+    }
+
+    public static long getMaximoMs() {
+        return MAXIMO_NANOS.get() / 1_000_000;
+    }
+
+    public static long getBloqueos() {
+        return BLOQUEOS.get();
+    }
+
+    public static long getBloqueadoMs() {
+        return BLOQUEADO_NANOS.get() / 1_000_000;
+    }
+
+    public static String resumen() {
+        return "EDT: " + getEventos() + " eventos, ocupado " + getOcupadoMs() + " ms, máximo "
+                + getMaximoMs() + " ms, " + getBloqueos() + " bloqueos (" + getBloqueadoMs() + " ms)";
+    }
+}
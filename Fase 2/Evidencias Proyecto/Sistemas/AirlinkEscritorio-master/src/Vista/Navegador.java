@@ -0,0 +1,182 @@
+package Vista;
+
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import javax.management.NotificationEmitter;
+import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
+import javax.swing.WindowConstants;
+
+/**
+ * Navegación entre las ventanas del administrador, reutilizándolas.
+ *
+ * Antes cada botón creaba la ventana de nuevo (y cada "Volver" otro menú, sin
+ * cerrar el anterior): se rearmaban los componentes y se releían las tablas
+ * en cada clic. Ahora las vistas con clave se ocultan en vez de cerrarse y
+ * al volver a pedirlas se muestran las mismas, con sus datos; si son
+ * {@link Refrescable} traen solo lo que cambió. "Volver" regresa a la
+ * ventana desde la que se abrió la vista, y la X de la vista hace lo mismo
+ * (antes unas cerraban la aplicación y UsuariosVista se cerraba dejando el
+ * menú oculto, sin ninguna ventana a la vista).
+ *
+ * Se guardan como mucho -Dairlink.nav.maxVistas vistas (6); sobran, o el
+ * heap pasa -Dairlink.nav.umbralHeap por ciento (75) después de un GC, y se
+ * cierran las ocultas que hace más tiempo no se usan. Todo se llama en el EDT.
+ */
+public final class Navegador {
+
+    private static final int MAX_VISTAS = Integer.getInteger("airlink.nav.maxVistas", 6);
+    private static final int UMBRAL_HEAP = Integer.getInteger("airlink.nav.umbralHeap", 75);
+
+    private static MenuAdminModern menu;
+    // Orden de uso: la menos usada primero
+    private static final LinkedHashMap<String, JFrame> vistas = new LinkedHashMap<>(16, 0.75f, true);
+    private static final Map<JFrame, JFrame> origenes = new IdentityHashMap<>();
+
+    static {
+        vigilarMemoria();
+    }
+
+    private Navegador() {
+    }
+
+    /** Menú al que vuelven las vistas; lo fija el login. */
+    public static void iniciar(MenuAdminModern m) {
+        menu = m;
+    }
+
+    /**
+     * Oculta {@code origen} y muestra la vista de {@code clave}, creándola
+     * con {@code crear} si no está guardada. Con clave null la vista no se
+     * guarda (formularios) y se cierra al volver.
+     */
+    public static void ir(JFrame origen, String clave, Supplier<? extends JFrame> crear) {
+        long inicio = System.nanoTime();
+        JFrame vista = clave == null ? null : vistas.get(clave);
+        if (vista != null && !vista.isDisplayable()) {
+            vistas.remove(clave);  // la cerraron por fuera del navegador
+            vista = null;
+        }
+        boolean nueva = vista == null;
+        if (nueva) {
+            vista = crear.get();
+            cerrarComoVolver(vista);
+            if (clave != null) {
+                vistas.put(clave, vista);
+                recortar(MAX_VISTAS);
+            }
+        } else if (vista instanceof Refrescable) {
+            ((Refrescable) vista).refrescar();
+        }
+        if (origen != null && origen != vista) {
+            origenes.put(vista, origen);
+            origen.setVisible(false);
+        }
+        vista.setVisible(true);
+        vista.toFront();
+        Runtime rt = Runtime.getRuntime();
+        System.out.println("🧭 " + (clave == null ? vista.getTitle() : clave) + (nueva ? ": creada en " : ": reutilizada en ")
+                + (System.nanoTime() - inicio) / 1_000_000 + " ms (heap " + (rt.totalMemory() - rt.freeMemory()) / (1024 * 1024)
+                + " MB, " + vistas.size() + " vistas guardadas)");
+    }
+
+    /** Cierra u oculta {@code desde} y vuelve a la ventana que la abrió (o al menú). */
+    public static void volver(JFrame desde) {
+        JFrame origen = origenes.remove(desde);
+        if (origen == null || !origen.isDisplayable()) {
+            origen = menu();
+        }
+        if (vistas.containsValue(desde)) {
+            desde.setVisible(false);
+        } else {
+            desde.dispose();
+        }
+        if (origen instanceof Refrescable) {
+            ((Refrescable) origen).refrescar();
+        }
+        origen.setVisible(true);
+        origen.toFront();
+    }
+
+    /** Cierra el menú y todas las vistas guardadas. */
+    public static void cerrarSesion() {
+        for (JFrame v : new ArrayList<>(vistas.values())) {
+            v.dispose();
+        }
+        vistas.clear();
+        origenes.clear();
+        if (menu != null) {
+            menu.dispose();
+            menu = null;
+        }
+    }
+
+    // La X oculta o cierra la vista y vuelve, igual que su botón "Volver"
+    private static void cerrarComoVolver(JFrame vista) {
+        vista.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+        vista.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                volver(vista);
+            }
+        });
+    }
+
+    private static MenuAdminModern menu() {
+        if (menu == null) {
+            menu = new MenuAdminModern();  // vistas abiertas sin pasar por el login (sus main de prueba)
+        }
+        return menu;
+    }
+
+    // Cierra las ocultas menos usadas hasta dejar "maximo"; las que están a la vista no se tocan
+    private static int recortar(int maximo) {
+        int cerradas = 0;
+        List<Map.Entry<String, JFrame>> porUso = new ArrayList<>(vistas.entrySet());
+        for (Map.Entry<String, JFrame> e : porUso) {
+            if (vistas.size() <= maximo) {
+                break;
+            }
+            JFrame v = e.getValue();
+            if (v.isVisible()) {
+                continue;
+            }
+            vistas.remove(e.getKey());
+            origenes.remove(v);
+            origenes.values().removeIf(o -> o == v);
+            v.dispose();  // sus windowClosed cancelan cargas y cierran hilos
+            cerradas++;
+        }
+        return cerradas;
+    }
+
+    private static void vigilarMemoria() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            long max = pool.getUsage().getMax();
+            if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported() && max > 0) {
+                pool.setCollectionUsageThreshold(max * UMBRAL_HEAP / 100);
+            }
+        }
+        NotificationEmitter emisor = (NotificationEmitter) ManagementFactory.getMemoryMXBean();
+        emisor.addNotificationListener((aviso, datos) -> {
+            if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(aviso.getType())) {
+                SwingUtilities.invokeLater(() -> {
+                    int cerradas = recortar(0);
+                    if (cerradas > 0) {
+                        System.out.println("🧹 Memoria alta: se cerraron " + cerradas + " vistas ocultas");
+                    }
+                });
+            }
+        }, null, null);
+    }
+}
@@ -0,0 +1,11 @@
+package Vista;
+
+/**
+ * Vista que {@link Navegador} puede volver a mostrar sin crearla de nuevo:
+ * al reaparecer se le pide que traiga lo que cambió mientras estaba oculta.
+ */
+public interface Refrescable {
+
+    /** Se llama en el EDT justo antes de volver a mostrarla; no debe bloquear. */
+    void refrescar();
+}
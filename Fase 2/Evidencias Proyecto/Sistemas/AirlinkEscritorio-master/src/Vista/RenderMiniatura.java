@@ -0,0 +1,42 @@
+package Vista;
+
+import java.awt.Component;
+import javax.swing.JTable;
+import javax.swing.SwingConstants;
+import javax.swing.table.DefaultTableCellRenderer;
+
+/**
+ * Celda que muestra la imagen cuya ruta trae el modelo (la ruta queda en el
+ * tooltip). Las imágenes las lee y guarda {@link CargadorImagenes}; el modelo
+ * sigue teniendo el texto, así que editar y exportar no cambian.
+ */
+public class RenderMiniatura extends DefaultTableCellRenderer {
+
+    private final int lado;
+
+    public RenderMiniatura(int lado) {
+        this.lado = lado;
+        setHorizontalAlignment(SwingConstants.CENTER);
+    }
+
+    /** Pone miniaturas en la columna y agranda las filas para que quepan. */
+    public static void instalar(JTable tabla, int columna, int lado) {
+        tabla.getColumnModel().getColumn(columna).setCellRenderer(new RenderMiniatura(lado));
+        tabla.setRowHeight(Math.max(tabla.getRowHeight(), lado + 4));
+    }
+
+    @Override
+    public Component getTableCellRendererComponent(JTable tabla, Object valor, boolean seleccionada,
+                                                   boolean foco, int fila, int columna) {
+        super.getTableCellRendererComponent(tabla, null, seleccionada, foco, fila, columna);
+        String ruta = valor == null ? "" : valor.toString().trim();
+        if (ruta.isEmpty()) {
+            setIcon(null);
+            setToolTipText(null);
+        } else {
+            setIcon(CargadorImagenes.getInstancia().miniatura(ruta, lado, tabla));
+            setToolTipText(ruta);
+        }
+        return this;
+    }
+}
@@ -1,15 +1,18 @@
 package Vista;
 
 import Modelo.ReporteViajes;
+import dao.SeccionReporte;
 import javax.swing.*;
 import java.awt.*;
 import java.io.File;
+import java.util.List;
 
 public class ReportesVista extends JFrame {
 
-    private JButton btnGenerar, btnVolver;
+    private JButton btnGenerar, btnListado, btnVolver;
     private JLabel lblTitulo, lblInfo;
     private JPanel mainPanel, buttonPanel;
+    private JProgressBar barraProgreso;
 
     public ReportesVista() {
         initComponentss();
@@ -19,7 +22,7 @@ public class ReportesVista extends JFrame {
     private void initComponentss() {
         setTitle("Reportes de Viajes - Airlink");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setSize(600, 400);
+        setSize(700, 400);
         setResizable(false);
 
         mainPanel = new JPanel();
@@ -34,11 +37,22 @@ public class ReportesVista extends JFrame {
         mainPanel.add(lblTitulo, BorderLayout.NORTH);
 
         // ====== INFO ======
-        lblInfo = new JLabel("<html><div style='text-align:center;'>El sistema generará un reporte PDF con todos los viajes registrados.<br>"
-                + "El archivo se guardará en tu carpeta Documentos.</div></html>", SwingConstants.CENTER);
+        lblInfo = new JLabel("<html><div style='text-align:center;'>El reporte de gestión incluye viajes por ruta, ocupación por equipo,<br>"
+                + "ingresos por empresa y uso de cupones. El listado trae todos los viajes.<br>"
+                + "Los archivos se guardan en tu carpeta Documentos.</div></html>", SwingConstants.CENTER);
         lblInfo.setFont(new Font("Segoe UI", Font.PLAIN, 14));
         lblInfo.setForeground(Color.LIGHT_GRAY);
-        mainPanel.add(lblInfo, BorderLayout.CENTER);
+
+        barraProgreso = new JProgressBar();
+        barraProgreso.setStringPainted(true);
+        barraProgreso.setVisible(false);
+
+        JPanel centro = new JPanel(new BorderLayout(0, 15));
+        centro.setOpaque(false);
+        centro.setBorder(BorderFactory.createEmptyBorder(0, 40, 0, 40));
+        centro.add(lblInfo, BorderLayout.CENTER);
+        centro.add(barraProgreso, BorderLayout.SOUTH);
+        mainPanel.add(centro, BorderLayout.CENTER);
 
         // ====== BOTONES ======
         buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 30, 20));
@@ -51,6 +65,13 @@ public class ReportesVista extends JFrame {
         btnGenerar.setPreferredSize(new Dimension(180, 40));
         btnGenerar.addActionListener(e -> generarReporte());
 
+        btnListado = new JButton("Listado de Viajes");
+        btnListado.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        btnListado.setBackground(Color.WHITE);
+        btnListado.setForeground(new Color(35, 22, 81));
+        btnListado.setPreferredSize(new Dimension(180, 40));
+        btnListado.addActionListener(e -> generarListado());
+
         btnVolver = new JButton("Volver");
         btnVolver.setFont(new Font("Segoe UI", Font.BOLD, 14));
         btnVolver.setBackground(Color.WHITE);
@@ -59,6 +80,7 @@ public class ReportesVista extends JFrame {
         btnVolver.addActionListener(e -> volverMenu());
 
         buttonPanel.add(btnGenerar);
+        buttonPanel.add(btnListado);
         buttonPanel.add(btnVolver);
 
         mainPanel.add(buttonPanel, BorderLayout.SOUTH);
@@ -67,15 +89,69 @@ public class ReportesVista extends JFrame {
     }
 
     private void generarReporte() {
-        try {
-            String ruta = System.getProperty("user.home") + File.separator + "Documents" + File.separator + "reporte_viajes.pdf";
-            ReporteViajes reporte = new ReporteViajes();
-            reporte.generarPDF(ruta);
+        String ruta = carpetaDocumentos() + "reporte_gestion.pdf";
+        List<SeccionReporte> secciones = SeccionReporte.todas();
+        ocupado(true);
+        barraProgreso.setIndeterminate(false);
+        barraProgreso.setMaximum(secciones.size());
+        barraProgreso.setValue(0);
+        barraProgreso.setString("Consultando " + secciones.size() + " secciones...");
+
+        new SwingWorker<Boolean, String>() {
+            @Override
+            protected Boolean doInBackground() {
+                return new ReporteViajes().generarPDF(ruta, secciones,
+                        (terminadas, seccion) -> publish(terminadas + "/" + secciones.size() + " " + seccion.getTitulo()));
+            }
+
+            @Override
+            protected void process(List<String> avances) {
+                String ultimo = avances.get(avances.size() - 1);
+                barraProgreso.setValue(Integer.parseInt(ultimo.substring(0, ultimo.indexOf('/'))));
+                barraProgreso.setString("✔ " + ultimo);
+            }
+
+            @Override
+            protected void done() {
+                terminar(this, ruta);
+            }
+        }.execute();
+    }
 
-            JOptionPane.showMessageDialog(this,
-                    "📄 Reporte generado correctamente:\n" + ruta,
-                    "Éxito",
-                    JOptionPane.INFORMATION_MESSAGE);
+    private void generarListado() {
+        String ruta = carpetaDocumentos() + "reporte_viajes.pdf";
+        ocupado(true);
+        barraProgreso.setIndeterminate(true);
+        barraProgreso.setString("Escribiendo listado de viajes...");
+
+        new SwingWorker<Boolean, Void>() {
+            @Override
+            protected Boolean doInBackground() {
+                // -1: falló la consulta o la escritura (el detalle queda en consola)
+                return new ReporteViajes().generarListado(ruta) >= 0;
+            }
+
+            @Override
+            protected void done() {
+                terminar(this, ruta);
+            }
+        }.execute();
+    }
+
+    private void terminar(SwingWorker<Boolean, ?> worker, String ruta) {
+        ocupado(false);
+        try {
+            if (worker.get()) {
+                JOptionPane.showMessageDialog(this,
+                        "📄 Reporte generado correctamente:\n" + ruta,
+                        "Éxito",
+                        JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(this,
+                        "❌ No se pudo generar el reporte.",
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+            }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this,
                     "❌ Error al generar el reporte: " + e.getMessage(),
@@ -84,9 +160,18 @@ public class ReportesVista extends JFrame {
         }
     }
 
+    private void ocupado(boolean ocupado) {
+        btnGenerar.setEnabled(!ocupado);
+        btnListado.setEnabled(!ocupado);
+        barraProgreso.setVisible(ocupado);
+    }
+
+    private static String carpetaDocumentos() {
+        return System.getProperty("user.home") + File.separator + "Documents" + File.separator;
+    }
+
     private void volverMenu() {
-        new MenuAdminModern().setVisible(true);
-        this.dispose();
+        Navegador.volver(this);
     }
 
     public static void main(String[] args) {
@@ -1,18 +1,19 @@
 package Vista;
 
 import Modelo.Ruta;
+import dao.ExportadorExcel;
 import dao.RutaDAO;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.util.List;
 
-public class RutasVista extends JFrame {
+public class RutasVista extends JFrame implements Refrescable {
 
     private JTable tabla;
     private DefaultTableModel modeloTabla;
-    private JButton btnAgregar, btnEditar, btnEliminar, btnVolver;
+    private JButton btnAgregar, btnEditar, btnEliminar, btnExportar, btnVolver;
     private RutaDAO rutaDAO;
+    private CargaTabla<Ruta> carga;
 
     public RutasVista() {
         rutaDAO = new RutaDAO();
@@ -42,18 +43,25 @@ public class RutasVista extends JFrame {
         tabla = new JTable(modeloTabla);
         tabla.setRowHeight(25);
         JScrollPane scroll = new JScrollPane(tabla);
-        add(scroll, BorderLayout.CENTER);
+        carga = new CargaTabla<>(this, modeloTabla, RutasVista::fila)
+                .conClave(Ruta::getIdRuta);
+        JPanel panelTabla = new JPanel(new BorderLayout());
+        panelTabla.add(carga.getBarraProgreso(), BorderLayout.NORTH);
+        panelTabla.add(scroll, BorderLayout.CENTER);
+        add(panelTabla, BorderLayout.CENTER);
 
         // Panel inferior (botones)
         JPanel panelBotones = new JPanel(new FlowLayout(FlowLayout.CENTER, 15, 10));
         btnAgregar = crearBoton("Agregar");
         btnEditar = crearBoton("Editar");
         btnEliminar = crearBoton("Eliminar");
+        btnExportar = crearBoton("Exportar Excel");
         btnVolver = crearBoton("Volver al Menú");
 
         panelBotones.add(btnAgregar);
         panelBotones.add(btnEditar);
         panelBotones.add(btnEliminar);
+        panelBotones.add(btnExportar);
         panelBotones.add(btnVolver);
 
         add(panelBotones, BorderLayout.SOUTH);
@@ -62,6 +70,7 @@ public class RutasVista extends JFrame {
         btnAgregar.addActionListener(e -> agregarRuta());
         btnEditar.addActionListener(e -> editarRuta());
         btnEliminar.addActionListener(e -> eliminarRuta());
+        btnExportar.addActionListener(e -> ExportacionExcel.exportar(this, ExportadorExcel.Tabla.RUTAS));
         btnVolver.addActionListener(e -> volverMenu());
     }
 
@@ -76,19 +85,25 @@ public class RutasVista extends JFrame {
         return b;
     }
 
+    // Solo trae lo que cambió desde el último refresco (la primera vez, todo)
     private void cargarRutas() {
-        modeloTabla.setRowCount(0);
-        List<Ruta> rutas = rutaDAO.listar();
-        for (Ruta r : rutas) {
-            modeloTabla.addRow(new Object[]{
-                    r.getIdRuta(),
-                    r.getOrigen(),
-                    r.getDestino(),
-                    r.getDistanciaKm(),
-                    r.getDuracionEstimadaMin(),
-                    r.isActivo() ? "Sí" : "No"
-            });
-        }
+        carga.sincronizar(rutaDAO::cambiosDesde);
+    }
+
+    @Override
+    public void refrescar() {
+        cargarRutas();
+    }
+
+    private static Object[] fila(Ruta r) {
+        return new Object[]{
+                r.getIdRuta(),
+                r.getOrigen(),
+                r.getDestino(),
+                r.getDistanciaKm(),
+                r.getDuracionEstimadaMin(),
+                r.isActivo() ? "Sí" : "No"
+        };
     }
 
     private void agregarRuta() {
@@ -195,8 +210,7 @@ public class RutasVista extends JFrame {
     }
 
     private void volverMenu() {
-        new MenuAdminModern().setVisible(true);
-        this.dispose();
+        Navegador.volver(this);
     }
 
     public static void main(String[] args) {
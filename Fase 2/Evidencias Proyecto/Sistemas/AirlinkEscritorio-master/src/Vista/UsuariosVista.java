@@ -1,16 +1,21 @@
 package Vista;
 
+import Modelo.Combo;
 import Modelo.Usuario;
+import dao.ExportadorExcel;
 import dao.UsuarioDAO;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableRowSorter;
 import java.awt.*;
-import java.awt.event.KeyAdapter;
-import java.awt.event.KeyEvent;
+import servicio.DatosReferencia;
+import servicio.IndiceTrigramas;
 
-public class UsuariosVista extends JFrame {
+public class UsuariosVista extends JFrame implements Refrescable {
 
     private final UsuarioDAO dao = new UsuarioDAO();
     private DefaultTableModel modelo;
@@ -18,10 +23,17 @@ public class UsuariosVista extends JFrame {
     private JTable tablaUsuarios;
     private JTextField txtId, txtNombre, txtCorreo, txtPass, txtBuscar;
     private JComboBox<String> cbRol;
-    private JButton btnAgregar, btnActualizar, btnEliminar, btnRefrescar, btnVolver;
+    private JButton btnAgregar, btnActualizar, btnEliminar, btnRefrescar, btnExportar, btnVolver;
     private JLabel lblTotal;
 
-    private List<Usuario> listaUsuarios; // cache para el filtro
+    private CargaTabla<Usuario> carga;
+
+    // Búsqueda: índice de trigramas sobre nombre y correo, filtro por id en la vista de la tabla
+    private static final int REBOTE_MS = Integer.getInteger("airlink.ui.reboteBusquedaMs", 120);
+    private FiltroPorIndice filtro;
+    private SwingWorker<IndiceTrigramas, Void> armadoIndice;
+    private Timer rebote;
+    private long ultimoFiltro;
 
     public UsuariosVista() {
         initComponents();
@@ -42,17 +54,79 @@ public class UsuariosVista extends JFrame {
     }
 
     private void listar() {
-        listaUsuarios = dao.listar();
-        cargarTabla(listaUsuarios);
+        carga.sincronizar(dao::cambiosDesde);
+    }
+
+    @Override
+    public void refrescar() {
+        listar();
+    }
+
+    private void alTerminarCarga(List<Usuario> lista) {
+        mostrarTotal();
+        armarIndice(lista);
+    }
+
+    // El índice se arma fuera del EDT; mientras tanto sigue valiendo el anterior
+    private void armarIndice(List<Usuario> lista) {
+        if (armadoIndice != null) {
+            armadoIndice.cancel(false);
+        }
+        int[] ids = new int[lista.size()];
+        String[][] campos = new String[lista.size()][];
+        for (int i = 0; i < ids.length; i++) {
+            Usuario u = lista.get(i);
+            ids[i] = u.getId();
+            campos[i] = new String[]{u.getNombre(), u.getCorreo()};
+        }
+        armadoIndice = new SwingWorker<>() {
+            @Override
+            protected IndiceTrigramas doInBackground() {
+                return new IndiceTrigramas(ids, campos);
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+                armadoIndice = null;
+                try {
+                    filtro.setIndice(get());
+                } catch (InterruptedException | ExecutionException e) {
+                    System.out.println("❌ Error al armar el índice de usuarios: " + e);
+                    return;
+                }
+                filtrar();
+            }
+        };
+        armadoIndice.execute();
     }
 
-    private void cargarTabla(List<Usuario> lista) {
-        modelo.setRowCount(0);
-        for (Usuario u : lista) {
-            Object[] fila = {u.getId(), u.getNombre(), u.getCorreo(), u.getRol()};
-            modelo.addRow(fila);
+    // Al primer tecleo filtra de inmediato; si siguen llegando seguidos, filtra al terminar la ráfaga
+    private void programarFiltro() {
+        if (System.currentTimeMillis() - ultimoFiltro >= REBOTE_MS && !rebote.isRunning()) {
+            filtrar();
+        } else {
+            rebote.restart();
         }
-        lblTotal.setText("Mostrando " + lista.size() + " usuario" + (lista.size() == 1 ? "" : "s"));
+    }
+
+    // Sin índice todavía no filtra: se aplica cuando esté listo
+    private void filtrar() {
+        ultimoFiltro = System.currentTimeMillis();
+        if (filtro.aplicar(txtBuscar.getText())) {
+            mostrarTotal();
+        }
+    }
+
+    private void mostrarTotal() {
+        int total = tablaUsuarios.getRowCount();
+        lblTotal.setText("Mostrando " + total + " usuario" + (total == 1 ? "" : "s"));
+    }
+
+    private static Object[] fila(Usuario u) {
+        return new Object[]{u.getId(), u.getNombre(), u.getCorreo(), u.getRol()};
     }
 
     private void limpiarCampos() {
@@ -101,8 +175,7 @@ public class UsuariosVista extends JFrame {
         });
 
         btnVolver.addActionListener(e -> {
-            this.dispose(); // cierra esta ventana
-            new MenuAdminModern().setVisible(true); // 👉 cambia esto por la ventana a la que quieres volver
+            Navegador.volver(this); // queda oculta con sus datos para la próxima vez
         });
 
         leftPanel.add(btnVolver);
@@ -121,15 +194,21 @@ public class UsuariosVista extends JFrame {
         txtBuscar.setToolTipText("Buscar por nombre o correo...");
         txtBuscar.setBorder(BorderFactory.createEmptyBorder(6, 8, 6, 8));
 
-        txtBuscar.addKeyListener(new KeyAdapter() {
+        rebote = new Timer(REBOTE_MS, e -> filtrar());
+        rebote.setRepeats(false);
+        txtBuscar.getDocument().addDocumentListener(new DocumentListener() {
             @Override
-            public void keyReleased(KeyEvent e) {
-                String texto = txtBuscar.getText().toLowerCase();
-                List<Usuario> filtrados = listaUsuarios.stream()
-                        .filter(u -> u.getNombre().toLowerCase().contains(texto)
-                                || u.getCorreo().toLowerCase().contains(texto))
-                        .collect(Collectors.toList());
-                cargarTabla(filtrados);
+            public void insertUpdate(DocumentEvent e) {
+                programarFiltro();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                programarFiltro();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
             }
         });
 
@@ -142,6 +221,9 @@ public class UsuariosVista extends JFrame {
         // ----------- TABLA -----------
         modelo = new DefaultTableModel(new Object[][]{}, new String[]{"ID", "Nombre", "Correo", "Rol"});
         tablaUsuarios = new JTable(modelo);
+        TableRowSorter<DefaultTableModel> ordenador = new TableRowSorter<>(modelo);
+        tablaUsuarios.setRowSorter(ordenador);
+        filtro = new FiltroPorIndice(modelo, ordenador);
         tablaUsuarios.setFillsViewportHeight(true);
         tablaUsuarios.setSelectionBackground(new Color(51, 102, 204));
         tablaUsuarios.setRowHeight(24);
@@ -151,9 +233,17 @@ public class UsuariosVista extends JFrame {
         lblTotal.setFont(new Font("Segoe UI", Font.ITALIC, 13));
         lblTotal.setForeground(new Color(60, 60, 60));
 
+        carga = new CargaTabla<>(this, modelo, UsuariosVista::fila)
+                .conClave(Usuario::getId)
+                .alTerminar(this::alTerminarCarga);
+
+        JPanel pieTabla = new JPanel(new BorderLayout(10, 0));
+        pieTabla.add(lblTotal, BorderLayout.WEST);
+        pieTabla.add(carga.getBarraProgreso(), BorderLayout.CENTER);
+
         JPanel tableContainer = new JPanel(new BorderLayout());
         tableContainer.add(scroll, BorderLayout.CENTER);
-        tableContainer.add(lblTotal, BorderLayout.SOUTH);
+        tableContainer.add(pieTabla, BorderLayout.SOUTH);
 
         panel.add(tableContainer, BorderLayout.CENTER);
 
@@ -175,12 +265,20 @@ public class UsuariosVista extends JFrame {
         txtNombre = new JTextField(15);
         txtCorreo = new JTextField(15);
         txtPass = new JTextField(15);
-        cbRol = new JComboBox<>(new String[]{"1 - Cliente", "2 - Usuario", "3 - Administrador"});
+        cbRol = new JComboBox<>();
+        for (Combo rol : DatosReferencia.getInstancia().roles()) {
+            cbRol.addItem(rol.getId() + " - " + rol.getNombre());
+        }
+        if (cbRol.getItemCount() == 0) {
+            // Sin base no hay roles que leer; quedan los de siempre
+            cbRol.setModel(new DefaultComboBoxModel<>(new String[]{"1 - Cliente", "2 - Usuario", "3 - Administrador"}));
+        }
 
         btnAgregar = crearBoton("Agregar");
         btnActualizar = crearBoton("Actualizar");
         btnEliminar = crearBoton("Eliminar");
         btnRefrescar = crearBoton("Refrescar");
+        btnExportar = crearBoton("Exportar Excel");
 
         gbc.gridx = 0; gbc.gridy = 0; formPanel.add(lblId, gbc);
         gbc.gridx = 1; formPanel.add(txtId, gbc);
@@ -200,6 +298,7 @@ public class UsuariosVista extends JFrame {
 
         gbc.gridx = 0; gbc.gridy = 4; formPanel.add(lblRol, gbc);
         gbc.gridx = 1; formPanel.add(cbRol, gbc);
+        gbc.gridx = 2; formPanel.add(btnExportar, gbc);
 
         panel.add(formPanel, BorderLayout.SOUTH);
 
@@ -255,6 +354,7 @@ public class UsuariosVista extends JFrame {
         });
 
         btnRefrescar.addActionListener(e -> listar());
+        btnExportar.addActionListener(e -> ExportacionExcel.exportar(this, ExportadorExcel.Tabla.USUARIOS));
     }
 
     private JButton crearBoton(String texto) {
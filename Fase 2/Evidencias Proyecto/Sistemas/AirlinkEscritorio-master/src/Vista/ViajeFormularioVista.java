@@ -5,9 +5,8 @@ import Modelo.Viaje;
 import Modelo.EmpresaEquipo;
 import Modelo.Destino;
 import dao.ViajeDAO;
-import dao.RutaDAO;
-import dao.EmpresaEquipoDAO;
-import dao.DestinoDAO;
+import servicio.AgendaEquipos;
+import servicio.DatosReferencia;
 import javax.swing.*;
 import java.awt.*;
 import java.sql.Timestamp;
@@ -22,9 +21,7 @@ public class ViajeFormularioVista extends JFrame {
     private JButton btnGuardar, btnVolver;
 
     private ViajeDAO viajeDAO;
-    private RutaDAO rutaDAO;
-    private EmpresaEquipoDAO equipoDAO;
-    private DestinoDAO destinoDAO;
+    private DatosReferencia referencia;
     private Viaje viajeEditando;
 
     public ViajeFormularioVista() {
@@ -34,9 +31,7 @@ public class ViajeFormularioVista extends JFrame {
     public ViajeFormularioVista(Viaje viaje) {
         this.viajeEditando = viaje;
         viajeDAO = new ViajeDAO();
-        rutaDAO = new RutaDAO();
-        equipoDAO = new EmpresaEquipoDAO();
-        destinoDAO = new DestinoDAO();
+        referencia = DatosReferencia.getInstancia();
         initComponentesExtra();
         setLocationRelativeTo(null);
         if (viajeEditando != null) {
@@ -133,7 +128,7 @@ public class ViajeFormularioVista extends JFrame {
 
     private void llenarComboRutas() {
         cbRuta.removeAllItems();
-        List<Ruta> rutas = rutaDAO.listar();
+        List<Ruta> rutas = referencia.rutas();
         for (Ruta r : rutas) {
             cbRuta.addItem(r.getIdRuta() + " - " + r.getOrigen() + " → " + r.getDestino());
         }
@@ -141,7 +136,7 @@ public class ViajeFormularioVista extends JFrame {
 
     private void llenarComboEquipos() {
         cbEquipo.removeAllItems();
-        List<EmpresaEquipo> equipos = equipoDAO.listar();
+        List<EmpresaEquipo> equipos = referencia.equipos();
         for (EmpresaEquipo e : equipos) {
             cbEquipo.addItem(e.getIdEquipo() + " - " + e.getModelo());
         }
@@ -149,7 +144,7 @@ public class ViajeFormularioVista extends JFrame {
 
     private void llenarComboDestinos() {
         cbDestino.removeAllItems();
-        List<Destino> destinos = destinoDAO.listar();
+        List<Destino> destinos = referencia.destinos();
         for (Destino d : destinos) {
             cbDestino.addItem(d.getIdDestino() + " - " + d.getNombre() + " (" + d.getCiudad() + ")");
         }
@@ -182,6 +177,9 @@ public class ViajeFormularioVista extends JFrame {
                 nuevo.setSalida(salida);
                 nuevo.setLlegada(llegada);
                 nuevo.setEstado(estado);
+                if (hayChoqueDeEquipo(nuevo)) {
+                    return;
+                }
                 if (viajeDAO.agregar(nuevo)) {
                     JOptionPane.showMessageDialog(this, "Viaje agregado correctamente.");
                     volver();
@@ -196,6 +194,9 @@ public class ViajeFormularioVista extends JFrame {
                 viajeEditando.setLlegada(llegada);
                 viajeEditando.setEstado(estado);
 
+                if (hayChoqueDeEquipo(viajeEditando)) {
+                    return;
+                }
                 if (viajeDAO.actualizar(viajeEditando)) {
                     JOptionPane.showMessageDialog(this, "Viaje actualizado correctamente.");
                     volver();
@@ -208,9 +209,21 @@ public class ViajeFormularioVista extends JFrame {
         }
     }
 
+    private boolean hayChoqueDeEquipo(Viaje v) {
+        List<AgendaEquipos.Conflicto> choques = AgendaEquipos.getInstancia().conflictos(v);
+        if (choques.isEmpty()) {
+            return false;
+        }
+        StringBuilder sb = new StringBuilder("El equipo seleccionado no está libre en ese horario:\n");
+        for (AgendaEquipos.Conflicto c : choques) {
+            sb.append("• ").append(c).append("\n");
+        }
+        JOptionPane.showMessageDialog(this, sb.toString(), "Conflicto de equipo", JOptionPane.WARNING_MESSAGE);
+        return true;
+    }
+
     private void volver() {
-        new ViajesVista().setVisible(true);
-        this.dispose();
+        Navegador.volver(this);  // la lista de viajes que lo abrió se refresca al reaparecer
     }
 
     public static void main(String[] args) {
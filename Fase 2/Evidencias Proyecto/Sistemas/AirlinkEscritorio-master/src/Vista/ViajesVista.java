@@ -1,7 +1,9 @@
 package Vista;
 
 import dao.ViajeDAO;
-import dao.DestinoDAO;
+import dao.ExportadorExcel;
+import dao.FiltroViaje;
+import dao.ImportadorViajes;
 import Modelo.Viaje;
 import Modelo.Destino;
 import java.awt.*;
@@ -9,9 +11,9 @@ import java.awt.event.*;
 import java.util.List;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import javax.swing.table.DefaultTableModel;
+import servicio.DatosReferencia;
 
-public class ViajesVista extends JFrame {
+public class ViajesVista extends JFrame implements Refrescable {
 
     private int idDestino = -1;
     private String nombreDestino = "";
@@ -20,7 +22,9 @@ public class ViajesVista extends JFrame {
     private JTable tablaViajes;
     private JScrollPane scrollTabla;
     private JLabel lblTitulo;
-    private JButton btnAgregar, btnEditar, btnEliminar, btnVolver;
+    private JButton btnAgregar, btnEditar, btnEliminar, btnImportar, btnExportar, btnVolver;
+    private ModeloTablaViajes modeloViajes;
+    private JProgressBar barraCarga;
 
     // ==============================
     // CONSTRUCTORES
@@ -51,18 +55,42 @@ public class ViajesVista extends JFrame {
 
         // Tabla
         tablaViajes = new JTable();
-        tablaViajes.setModel(new DefaultTableModel(
-            new Object[][]{},
-            new String[]{"ID", "Salida", "Llegada", "Estado", "Destino"}
-        ));
+        FiltroViaje filtro = new FiltroViaje();
+        filtro.setIdDestino(idDestino);
+        modeloViajes = new ModeloTablaViajes(filtro);
+        tablaViajes.setModel(modeloViajes);
         tablaViajes.setRowHeight(26);
         tablaViajes.setSelectionBackground(new Color(108, 99, 255));
         tablaViajes.setSelectionForeground(Color.WHITE);
         tablaViajes.getTableHeader().setBackground(new Color(230, 230, 255));
         tablaViajes.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 13));
 
+        // Clic en el encabezado: ordena en la base (no en memoria)
+        tablaViajes.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int columna = tablaViajes.columnAtPoint(e.getPoint());
+                if (columna >= 0) {
+                    modeloViajes.ordenarPor(tablaViajes.convertColumnIndexToModel(columna));
+                }
+            }
+        });
+
         scrollTabla = new JScrollPane(tablaViajes);
-        panelContenido.add(scrollTabla, BorderLayout.CENTER);
+        barraCarga = new JProgressBar();
+        barraCarga.setIndeterminate(true);
+        barraCarga.setVisible(false);
+        modeloViajes.setAlCambiarCarga(ocupado -> barraCarga.setVisible(ocupado));
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                modeloViajes.cerrar();
+            }
+        });
+        JPanel panelTabla = new JPanel(new BorderLayout());
+        panelTabla.add(barraCarga, BorderLayout.NORTH);
+        panelTabla.add(scrollTabla, BorderLayout.CENTER);
+        panelContenido.add(panelTabla, BorderLayout.CENTER);
 
         // Panel de botones
         JPanel panelBotones = new JPanel(new BorderLayout());
@@ -84,18 +112,26 @@ public class ViajesVista extends JFrame {
         btnAgregar = new JButton("➕ Agregar");
         btnEditar = new JButton("✏️ Editar");
         btnEliminar = new JButton("🗑️ Eliminar");
+        btnImportar = new JButton("📥 Importar");
+        btnExportar = new JButton("📊 Excel");
 
         estilizarBoton(btnAgregar);
         estilizarBoton(btnEditar);
         estilizarBoton(btnEliminar);
+        estilizarBoton(btnImportar);
+        estilizarBoton(btnExportar);
 
         btnAgregar.addActionListener(evt -> btnAgregarActionPerformed(evt));
         btnEditar.addActionListener(evt -> btnEditarActionPerformed(evt));
         btnEliminar.addActionListener(evt -> btnEliminarActionPerformed(evt));
+        btnImportar.addActionListener(evt -> btnImportarActionPerformed(evt));
+        btnExportar.addActionListener(evt -> ExportacionExcel.exportar(this, ExportadorExcel.Tabla.VIAJES));
 
         panelCentro.add(btnAgregar);
         panelCentro.add(btnEditar);
         panelCentro.add(btnEliminar);
+        panelCentro.add(btnImportar);
+        panelCentro.add(btnExportar);
 
         // Ensamblar paneles
         panelBotones.add(panelIzq, BorderLayout.WEST);
@@ -148,38 +184,34 @@ public class ViajesVista extends JFrame {
             lblTitulo.setText("✈ Todos los viajes");
             return;
         }
-        DestinoDAO dao = new DestinoDAO();
-        List<Destino> destinos = dao.listar();
-        for (Destino d : destinos) {
-            if (d.getIdDestino() == idDestino) {
-                nombreDestino = d.getNombre();
-                lblTitulo.setText("✈ Viajes de " + nombreDestino);
-                break;
+        new SwingWorker<String, Void>() {
+            @Override
+            protected String doInBackground() {
+                Destino d = DatosReferencia.getInstancia().destino(idDestino);
+                return d == null ? "" : d.getNombre();
             }
-        }
+
+            @Override
+            protected void done() {
+                try {
+                    nombreDestino = get();
+                    if (!nombreDestino.isEmpty()) {
+                        lblTitulo.setText("✈ Viajes de " + nombreDestino);
+                    }
+                } catch (Exception e) {
+                    System.out.println("❌ Error al buscar el destino: " + e);
+                }
+            }
+        }.execute();
     }
 
     private void cargarViajes() {
-        ViajeDAO dao = new ViajeDAO();
-        DefaultTableModel modelo = (DefaultTableModel) tablaViajes.getModel();
-        modelo.setRowCount(0);
-
-        List<Viaje> lista;
-        if (idDestino > 0) {
-            lista = dao.listarPorDestino(idDestino);
-        } else {
-            lista = dao.listar();
-        }
+        modeloViajes.recargar();
+    }
 
-        for (Viaje v : lista) {
-            modelo.addRow(new Object[]{
-                v.getIdViaje(),
-                v.getSalida(),
-                v.getLlegada(),
-                v.getEstado(),
-                v.getIdDestino()
-            });
-        }
+    @Override
+    public void refrescar() {
+        cargarViajes();
     }
 
     // ==============================
@@ -190,25 +222,22 @@ public class ViajesVista extends JFrame {
 // ==============================
 
 private void btnAgregarActionPerformed(java.awt.event.ActionEvent evt) {
-    // Abrir el formulario en modo "Agregar"
-    this.dispose();
-    new ViajeFormularioVista(null).setVisible(true);
+    // Abrir el formulario en modo "Agregar"; esta vista queda oculta hasta que vuelva
+    Navegador.ir(this, null, () -> new ViajeFormularioVista(null));
 }
 
 private void btnEditarActionPerformed(java.awt.event.ActionEvent evt) {
     int fila = tablaViajes.getSelectedRow();
     if (fila >= 0) {
-        // Crear objeto Viaje con los datos seleccionados
-        Viaje v = new Viaje();
-        v.setIdViaje(Integer.parseInt(tablaViajes.getValueAt(fila, 0).toString()));
-        v.setSalida(java.sql.Timestamp.valueOf(tablaViajes.getValueAt(fila, 1).toString()));
-        v.setLlegada(java.sql.Timestamp.valueOf(tablaViajes.getValueAt(fila, 2).toString()));
-        v.setEstado(tablaViajes.getValueAt(fila, 3).toString());
-        v.setIdDestino(Integer.parseInt(tablaViajes.getValueAt(fila, 4).toString()));
+        // El modelo ya tiene el viaje completo de la fila seleccionada
+        Viaje v = modeloViajes.getViaje(fila);
+        if (v == null) {
+            JOptionPane.showMessageDialog(this, "El viaje todavía se está cargando, intenta de nuevo.");
+            return;
+        }
 
         // Abrir el formulario en modo edición
-        this.dispose();
-        new ViajeFormularioVista(v).setVisible(true);
+        Navegador.ir(this, null, () -> new ViajeFormularioVista(v));
     } else {
         JOptionPane.showMessageDialog(this, "Selecciona un viaje para editar.");
     }
@@ -218,7 +247,11 @@ private void btnEditarActionPerformed(java.awt.event.ActionEvent evt) {
     private void btnEliminarActionPerformed(java.awt.event.ActionEvent evt) {
         int fila = tablaViajes.getSelectedRow();
         if (fila >= 0) {
-            int idViaje = Integer.parseInt(tablaViajes.getValueAt(fila, 0).toString());
+            Viaje v = modeloViajes.getViaje(fila);
+            if (v == null) {
+                return;
+            }
+            int idViaje = v.getIdViaje();
             ViajeDAO dao = new ViajeDAO();
             if (dao.eliminar(idViaje)) {
                 JOptionPane.showMessageDialog(this, "✅ Viaje eliminado correctamente.");
@@ -231,9 +264,53 @@ private void btnEditarActionPerformed(java.awt.event.ActionEvent evt) {
         }
     }
 
+    private void btnImportarActionPerformed(java.awt.event.ActionEvent evt) {
+        JFileChooser selector = new JFileChooser();
+        selector.setDialogTitle("Importar viajes");
+        selector.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter(
+                "Planilla de viajes (*.csv, *.xlsx, *.xls)", "csv", "xlsx", "xls"));
+        if (selector.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        java.io.File archivo = selector.getSelectedFile();
+        btnImportar.setEnabled(false);
+        barraCarga.setVisible(true);
+
+        new SwingWorker<ImportadorViajes.Resultado, Void>() {
+            @Override
+            protected ImportadorViajes.Resultado doInBackground() throws Exception {
+                return new ImportadorViajes().importar(archivo);
+            }
+
+            @Override
+            protected void done() {
+                btnImportar.setEnabled(true);
+                barraCarga.setVisible(false);
+                try {
+                    ImportadorViajes.Resultado r = get();
+                    StringBuilder msg = new StringBuilder()
+                            .append("✅ ").append(r.getInsertadas()).append(" de ").append(r.getLeidas())
+                            .append(" viajes importados en ").append(r.getDuracionMs()).append(" ms");
+                    List<ImportadorViajes.ErrorFila> errores = r.getErrores();
+                    if (!errores.isEmpty()) {
+                        msg.append("\n\n❌ ").append(errores.size()).append(" filas con error:");
+                        errores.stream().limit(20).forEach(e -> msg.append("\n").append(e));
+                        if (errores.size() > 20) {
+                            msg.append("\n…");
+                        }
+                    }
+                    JOptionPane.showMessageDialog(ViajesVista.this, msg.toString());
+                    cargarViajes();
+                } catch (Exception e) {
+                    Throwable causa = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(ViajesVista.this, "❌ No se pudo importar: " + causa.getMessage());
+                }
+            }
+        }.execute();
+    }
+
     private void btnVolverActionPerformed(java.awt.event.ActionEvent evt) {
-        this.dispose(); // Cierra esta ventana
-        new MenuAdminModern().setVisible(true); // Abre la ventana de menu admin 
+        Navegador.volver(this); // Vuelve a la ventana que la abrió (menú o destinos)
     }
 
     // ==============================
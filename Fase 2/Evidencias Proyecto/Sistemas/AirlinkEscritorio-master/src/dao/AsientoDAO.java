@@ -0,0 +1,65 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public class AsientoDAO {
+
+    public interface LectorAsientos {
+        void asiento(int idAsiento, String numero, int idCabinaClase, boolean libre);
+    }
+
+    /** Un asiento está libre si sigue disponible y nadie lo tiene en pasajero_asiento. */
+    public boolean leerAsientos(int idViaje, LectorAsientos lector) {
+        String sql = """
+            SELECT a.idAsiento, a.numero, a.idCabinaClase,
+                   CASE WHEN a.disponible = 1 AND pa.idAsiento IS NULL THEN 1 ELSE 0 END AS libre
+            FROM asiento a
+            LEFT JOIN pasajero_asiento pa ON pa.idAsiento = a.idAsiento
+            WHERE a.idViaje = ?
+            """;
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setInt(1, idViaje);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    lector.asiento(rs.getInt("idAsiento"), rs.getString("numero"), rs.getInt("idCabinaClase"),
+                            rs.getInt("libre") == 1);
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            System.out.println("❌ Error al leer asientos del viaje " + idViaje + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Marca el asiento como vendido solo si seguía disponible: 1 si lo marcó,
+     * 0 si otro lo tomó antes, -1 si falló la base.
+     */
+    public int ocupar(int idAsiento) {
+        return marcar(idAsiento, 0, 1);
+    }
+
+    /** Lo contrario de {@link #ocupar}, con los mismos valores de vuelta. */
+    public int liberar(int idAsiento) {
+        return marcar(idAsiento, 1, 0);
+    }
+
+    private int marcar(int idAsiento, int nuevo, int esperado) {
+        String sql = "UPDATE asiento SET disponible = ? WHERE idAsiento = ? AND disponible = ?";
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setInt(1, nuevo);
+            ps.setInt(2, idAsiento);
+            ps.setInt(3, esperado);
+            return ps.executeUpdate();
+        } catch (SQLException e) {
+            System.out.println("❌ Error al actualizar asiento " + idAsiento + ": " + e.getMessage());
+            return -1;
+        }
+    }
+}
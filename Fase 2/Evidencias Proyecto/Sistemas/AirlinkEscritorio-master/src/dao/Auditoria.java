@@ -0,0 +1,483 @@
+package dao;
+
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Registro de cambios en la tabla auditoria sin alargar las escrituras de
+ * los DAO.
+ *
+ * El DAO solo encola el evento (entidad, id, acción y los valores antes y
+ * después) en un buffer circular acotado sin locks; el diff campo a campo,
+ * el JSON y el INSERT los hace el hilo airlink-auditoria, que vacía el
+ * buffer cada -Dairlink.auditoria.intervaloMs (200) o en cuanto se juntan
+ * -Dairlink.auditoria.lote eventos (200), con un solo executeBatch por lote.
+ * Con rewriteBatchedStatements Connector/J lo manda como un INSERT de
+ * varias filas.
+ *
+ * Si el buffer (-Dairlink.auditoria.capacidad, 8192) se llena, quien
+ * escribe espera hasta -Dairlink.auditoria.esperaMs (100) a que se libere
+ * lugar y, si no, graba su evento él mismo: nunca se pierde un evento por
+ * falta de espacio. Lo pendiente se graba antes de que se cierre el pool al
+ * terminar la aplicación.
+ */
+public final class Auditoria {
+
+    public static final String CREAR = "CREAR";
+    public static final String ACTUALIZAR = "ACTUALIZAR";
+    public static final String ELIMINAR = "ELIMINAR";
+
+    private static final String SQL = "INSERT INTO auditoria (idUsuario, entidad, idEntidad, accion, cambios_json, ip, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String OCULTO = "***";
+
+    private static volatile Integer idUsuario;
+    private static volatile String ip;
+
+    private Auditoria() {
+    }
+
+    /** Usuario al que se atribuyen los cambios desde ahora (null al cerrar sesión). */
+    public static void setUsuario(Integer id) {
+        idUsuario = id;
+    }
+
+    // ============================
+    // CAPTURA (hilo del DAO)
+    // ============================
+
+    /**
+     * Valores actuales de una fila, leídos dentro de la transacción que va a
+     * actualizarla o borrarla (con autocommit apagado). FOR UPDATE deja la
+     * fila bloqueada hasta el commit, así lo registrado como anterior es lo
+     * que había en la base cuando se escribió, aunque otro la haya cambiado
+     * desde que la vista la mostró. null si la fila no existe o no se pudo
+     * leer; en ese caso no se registra nada.
+     */
+    static Map<String, Object> foto(Connection con, String tabla, String columnaId, int id) {
+        String sql = "SELECT * FROM " + tabla + " WHERE " + columnaId + " = ? FOR UPDATE";
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                // Sin distinguir mayúsculas: H2 entrega los nombres de columna en mayúsculas
+                ResultSetMetaData md = rs.getMetaData();
+                Map<String, Object> fila = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+                for (int i = 1; i <= md.getColumnCount(); i++) {
+                    Object v = rs.getObject(i);
+                    if (v instanceof Clob) {
+                        v = ((Clob) v).getSubString(1, (int) ((Clob) v).length());
+                    }
+                    fila.put(md.getColumnLabel(i), v);
+                }
+                return fila;
+            }
+        } catch (SQLException e) {
+            System.out.println("⚠️ Auditoría: no se pudo leer " + tabla + " " + id + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Pares columna, valor con los nombres de columna de la tabla. */
+    static Map<String, Object> campos(Object... columnaValor) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        for (int i = 0; i < columnaValor.length; i += 2) {
+            m.put((String) columnaValor[i], columnaValor[i + 1]);
+        }
+        return m;
+    }
+
+    static void creado(String entidad, int id, Map<String, Object> despues) {
+        encolar(new Evento(entidad, id, CREAR, null, despues));
+    }
+
+    static void actualizado(String entidad, int id, Map<String, Object> antes, Map<String, Object> despues) {
+        if (antes != null) {
+            encolar(new Evento(entidad, id, ACTUALIZAR, antes, despues));
+        }
+    }
+
+    static void eliminado(String entidad, int id, Map<String, Object> antes) {
+        if (antes != null) {
+            encolar(new Evento(entidad, id, ELIMINAR, antes, null));
+        }
+    }
+
+    /** Graba ya todo lo encolado. Lo usa el cierre de la aplicación. */
+    public static void vaciar() {
+        Escritor.INSTANCIA.vaciar();
+    }
+
+    private static void encolar(Evento e) {
+        Escritor esc = Escritor.INSTANCIA;
+        if (esc.buffer.ofrecer(e)) {
+            esc.avisarSiHayLote();
+            return;
+        }
+        // Lleno: despertar al escritor y esperar un poco antes de grabar a mano
+        long limite = System.nanoTime() + esc.esperaNs;
+        while (System.nanoTime() < limite) {
+            LockSupport.unpark(esc.hilo);
+            LockSupport.parkNanos(50_000);
+            if (esc.buffer.ofrecer(e)) {
+                return;
+            }
+        }
+        esc.esperasAgotadas.incrementAndGet();
+        esc.grabar(List.of(e));
+    }
+
+    // ============================
+    // ESCRITURA (hilo airlink-auditoria)
+    // ============================
+    private static final class Escritor implements Runnable {
+
+        static final Escritor INSTANCIA = new Escritor(
+                Integer.getInteger("airlink.auditoria.capacidad", 8192),
+                Integer.getInteger("airlink.auditoria.lote", 200),
+                Integer.getInteger("airlink.auditoria.intervaloMs", 200),
+                Integer.getInteger("airlink.auditoria.esperaMs", 100));
+
+        final Buffer buffer;
+        final int lote;
+        final long intervaloNs;
+        final long esperaNs;
+        final AtomicLong esperasAgotadas = new AtomicLong();
+        // Un solo consumidor a la vez: el hilo o quien llame a vaciar
+        final ReentrantLock consumo = new ReentrantLock();
+        final Thread hilo;
+
+        Escritor(int capacidad, int lote, int intervaloMs, int esperaMs) {
+            this.buffer = new Buffer(capacidad);
+            this.lote = Math.max(1, lote);
+            this.intervaloNs = TimeUnit.MILLISECONDS.toNanos(Math.max(1, intervaloMs));
+            this.esperaNs = TimeUnit.MILLISECONDS.toNanos(Math.max(0, esperaMs));
+            this.hilo = new Thread(this, "airlink-auditoria");
+            hilo.setDaemon(true);
+            hilo.start();
+            Conexion.antesDeCerrar(this::vaciar);
+        }
+
+        void avisarSiHayLote() {
+            if (buffer.tamano() >= lote) {
+                LockSupport.unpark(hilo);
+            }
+        }
+
+        @Override
+        public void run() {
+            List<Evento> pendientes = new ArrayList<>(lote);
+            while (true) {
+                if (buffer.tamano() < lote) {
+                    LockSupport.parkNanos(this, intervaloNs);
+                }
+                consumo.lock();
+                try {
+                    while (buffer.sacar(pendientes, lote) > 0) {
+                        grabar(pendientes);
+                        pendientes.clear();
+                    }
+                } catch (RuntimeException e) {
+                    System.out.println("❌ Error en el escritor de auditoría: " + e);
+                    pendientes.clear();
+                } finally {
+                    consumo.unlock();
+                }
+            }
+        }
+
+        void vaciar() {
+            List<Evento> pendientes = new ArrayList<>(lote);
+            consumo.lock();
+            try {
+                while (buffer.sacar(pendientes, lote) > 0) {
+                    grabar(pendientes);
+                    pendientes.clear();
+                }
+            } finally {
+                consumo.unlock();
+            }
+            long agotadas = esperasAgotadas.getAndSet(0);
+            if (agotadas > 0) {
+                System.out.println("⚠️ Auditoría: " + agotadas + " eventos se grabaron sin pasar por el buffer (lleno)");
+            }
+        }
+
+        /**
+         * Un executeBatch por lote. Si el lote falla se reintenta fila a fila
+         * para no perder las buenas por una mala; lo que no entra queda en la
+         * consola.
+         */
+        void grabar(List<Evento> eventos) {
+            List<Evento> validos = new ArrayList<>(eventos.size());
+            List<String> jsons = new ArrayList<>(eventos.size());
+            for (Evento e : eventos) {
+                String json = e.json();
+                if (json != null) {
+                    validos.add(e);
+                    jsons.add(json);
+                }
+            }
+            if (validos.isEmpty()) {
+                return;
+            }
+            String origen = ip();
+            try (Connection con = Conexion.getConexion();
+                 PreparedStatement ps = con.prepareStatement(SQL)) {
+                try {
+                    for (int i = 0; i < validos.size(); i++) {
+                        asignar(ps, validos.get(i), jsons.get(i), origen);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                } catch (SQLException e) {
+                    ps.clearBatch();
+                    for (int i = 0; i < validos.size(); i++) {
+                        try {
+                            asignar(ps, validos.get(i), jsons.get(i), origen);
+                            ps.executeUpdate();
+                        } catch (SQLException ex) {
+                            perdido(validos.get(i), jsons.get(i), ex);
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                for (int i = 0; i < validos.size(); i++) {
+                    perdido(validos.get(i), jsons.get(i), e);
+                }
+            }
+        }
+
+        private static void asignar(PreparedStatement ps, Evento e, String json, String origen) throws SQLException {
+            if (e.idUsuario != null) {
+                ps.setInt(1, e.idUsuario);
+            } else {
+                ps.setNull(1, Types.INTEGER);
+            }
+            ps.setString(2, e.entidad);
+            ps.setInt(3, e.idEntidad);
+            ps.setString(4, e.accion);
+            ps.setString(5, json);
+            ps.setString(6, origen);
+            ps.setTimestamp(7, new Timestamp(e.momento));
+        }
+
+        private static void perdido(Evento e, String json, SQLException ex) {
+            System.out.println("❌ Auditoría no grabada (" + e.accion + " " + e.entidad + " " + e.idEntidad + " " + json
+                    + "): " + ex.getMessage());
+        }
+
+        private static String ip() {
+            String actual = ip;
+            if (actual == null) {
+                try {
+                    actual = InetAddress.getLocalHost().getHostAddress();
+                } catch (Exception e) {
+                    actual = "127.0.0.1";
+                }
+                ip = actual;
+            }
+            return actual;
+        }
+    }
+
+    /**
+     * Cola acotada de muchos productores y un consumidor (el esquema de
+     * Dmitry Vyukov): cada casilla lleva un número de secuencia que dice si
+     * está libre para la vuelta actual o ya tiene un evento publicado. Un
+     * productor solo compite por el contador de cola con compareAndSet.
+     */
+    private static final class Buffer {
+        final int mascara;
+        final AtomicReferenceArray<Evento> casillas;
+        final AtomicLongArray secuencias;
+        final AtomicLong cola = new AtomicLong();
+        volatile long cabeza;
+
+        Buffer(int capacidad) {
+            int n = Integer.highestOneBit(Math.max(2, capacidad) * 2 - 1);
+            mascara = n - 1;
+            casillas = new AtomicReferenceArray<>(n);
+            secuencias = new AtomicLongArray(n);
+            for (int i = 0; i < n; i++) {
+                secuencias.set(i, i);
+            }
+        }
+
+        boolean ofrecer(Evento e) {
+            while (true) {
+                long pos = cola.get();
+                int i = (int) (pos & mascara);
+                long dif = secuencias.get(i) - pos;
+                if (dif == 0) {
+                    if (cola.compareAndSet(pos, pos + 1)) {
+                        casillas.lazySet(i, e);
+                        secuencias.set(i, pos + 1);
+                        return true;
+                    }
+                } else if (dif < 0) {
+                    return false;  // la casilla sigue ocupada de la vuelta anterior: lleno
+                }
+            }
+        }
+
+        /** Solo con el lock de consumo tomado. */
+        int sacar(List<Evento> destino, int maximo) {
+            long pos = cabeza;
+            int sacados = 0;
+            while (sacados < maximo) {
+                int i = (int) (pos & mascara);
+                if (secuencias.get(i) != pos + 1) {
+                    break;  // vacía, o un productor tomó la casilla y aún no publica
+                }
+                destino.add(casillas.get(i));
+                casillas.lazySet(i, null);
+                secuencias.set(i, pos + mascara + 1);
+                pos++;
+                sacados++;
+            }
+            cabeza = pos;
+            return sacados;
+        }
+
+        long tamano() {
+            return cola.get() - cabeza;
+        }
+    }
+
+    private static final class Evento {
+        final String entidad;
+        final int idEntidad;
+        final String accion;
+        final Map<String, Object> antes;
+        final Map<String, Object> despues;
+        final Integer idUsuario = Auditoria.idUsuario;
+        final long momento = System.currentTimeMillis();
+
+        Evento(String entidad, int idEntidad, String accion, Map<String, Object> antes, Map<String, Object> despues) {
+            this.entidad = entidad;
+            this.idEntidad = idEntidad;
+            this.accion = accion;
+            this.antes = antes;
+            this.despues = despues;
+        }
+
+        /**
+         * CREAR guarda los valores nuevos, ELIMINAR la fila borrada
+         * y ACTUALIZAR solo los campos que cambiaron como
+         * {"campo":{"antes":..,"despues":..}}. null si la actualización no
+         * cambió nada.
+         */
+        String json() {
+            StringBuilder sb = new StringBuilder(128).append('{');
+            if (ACTUALIZAR.equals(accion)) {
+                for (Map.Entry<String, Object> c : despues.entrySet()) {
+                    String campo = c.getKey();
+                    String previo = texto(antes.get(campo));
+                    String nuevo = texto(c.getValue());
+                    if (previo == null ? nuevo == null : previo.equals(nuevo)) {
+                        continue;
+                    }
+                    if (sb.length() > 1) {
+                        sb.append(',');
+                    }
+                    cadena(sb, campo).append(":{\"antes\":");
+                    valor(sb, campo, previo).append(",\"despues\":");
+                    valor(sb, campo, nuevo).append('}');
+                }
+                if (sb.length() == 1) {
+                    return null;
+                }
+            } else {
+                for (Map.Entry<String, Object> c : (antes != null ? antes : despues).entrySet()) {
+                    if (sb.length() > 1) {
+                        sb.append(',');
+                    }
+                    cadena(sb, c.getKey()).append(':');
+                    valor(sb, c.getKey(), texto(c.getValue()));
+                }
+            }
+            return sb.append('}').toString();
+        }
+
+        /** Mismo texto para el valor que viene del modelo y el que viene de la base (double/DECIMAL, boolean/TINYINT...). */
+        private static String texto(Object v) {
+            if (v == null) {
+                return null;
+            }
+            if (v instanceof Boolean) {
+                return (Boolean) v ? "1" : "0";
+            }
+            if (v instanceof BigDecimal) {
+                return ((BigDecimal) v).stripTrailingZeros().toPlainString();
+            }
+            if (v instanceof Double || v instanceof Float) {
+                return new BigDecimal(v.toString()).stripTrailingZeros().toPlainString();
+            }
+            if (v instanceof Number) {
+                return new BigDecimal(v.toString()).toPlainString();
+            }
+            if (v instanceof Date) {
+                return new Timestamp(((Date) v).getTime()).toString();
+            }
+            if (v instanceof TemporalAccessor) {
+                return v.toString().replace('T', ' ');
+            }
+            return v.toString();
+        }
+
+        private static StringBuilder valor(StringBuilder sb, String campo, String texto) {
+            if (texto == null) {
+                return sb.append("null");
+            }
+            // Nunca el hash de la contraseña: solo se deja constancia de que cambió
+            String nombre = campo.toLowerCase(Locale.ROOT);
+            return cadena(sb, nombre.startsWith("contrasena") || nombre.startsWith("password") ? OCULTO : texto);
+        }
+
+        private static StringBuilder cadena(StringBuilder sb, String s) {
+            sb.append('"');
+            for (int i = 0; i < s.length(); i++) {
+                char ch = s.charAt(i);
+                switch (ch) {
+                    case '"' -> sb.append("\\\"");
+                    case '\\' -> sb.append("\\\\");
+                    case '\n' -> sb.append("\\n");
+                    case '\r' -> sb.append("\\r");
+                    case '\t' -> sb.append("\\t");
+                    default -> {
+                        if (ch < 0x20) {
+                            sb.append(String.format("\\u%04x", (int) ch));
+                        } else {
+                            sb.append(ch);
+                        }
+                    }
+                }
+            }
+            return sb.append('"');
+        }
+    }
+}
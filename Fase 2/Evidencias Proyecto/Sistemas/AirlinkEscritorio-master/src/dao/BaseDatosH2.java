@@ -0,0 +1,246 @@
+package dao;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Carga el esquema de BasedeDatos/Airlink.sql y los Inserts*.sql en una base
+ * H2 (modo MySQL) para poder trabajar sin servidor MySQL.
+ *
+ * Los scripts están escritos para MySQL, así que antes de ejecutarlos se
+ * adaptan: se omiten DROP/CREATE DATABASE y USE, los nombres de índice se
+ * prefijan con la tabla (en H2 son globales al esquema) y se quitan las
+ * opciones de tabla (ENGINE, CHARSET, COLLATE, COMMENT). Todas las sentencias
+ * van en un solo executeBatch.
+ */
+public class BaseDatosH2 {
+
+    // DB_CLOSE_ON_EXIT=FALSE: la cierra el pool, después de las tareas de Conexion.antesDeCerrar
+    public static final String URL_MEMORIA =
+            "jdbc:h2:mem:airlink;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+
+    // Columnas que usa la aplicación y que Airlink.sql no trae
+    private static final String[] PARCHES = {
+        "ALTER TABLE viaje ADD COLUMN IF NOT EXISTS idDestino INT"
+    };
+
+    private static final Pattern OMITIR =
+            Pattern.compile("^(DROP|CREATE)\\s+DATABASE\\b.*|^USE\\s+\\w+$",
+                    Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern CREATE_TABLE =
+            Pattern.compile("^CREATE\\s+TABLE\\s+(?:IF\\s+NOT\\s+EXISTS\\s+)?`?(\\w+)`?",
+                    Pattern.CASE_INSENSITIVE);
+    private static final Pattern INDICE =
+            Pattern.compile("\\b((?:UNIQUE\\s+)?(?:INDEX|KEY))\\s+`?(\\w+)`?\\s*\\(",
+                    Pattern.CASE_INSENSITIVE);
+    private static final Pattern OPCIONES_TABLA =
+            Pattern.compile("\\)\\s*(?:ENGINE|DEFAULT\\s+CHARSET|CHARSET|COLLATE|COMMENT|AUTO_INCREMENT)\\b[^)]*$",
+                    Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    // ============================
+    // CARGA
+    // ============================
+
+    /**
+     * Carpeta de los scripts: -Dairlink.h2.scripts o, por defecto,
+     * ../BasedeDatos relativo al directorio del proyecto.
+     */
+    public static Path carpetaScripts() {
+        return Paths.get(System.getProperty("airlink.h2.scripts", "../BasedeDatos"));
+    }
+
+    /**
+     * Crea el esquema y los datos de ejemplo si la base todavía no tiene la
+     * tabla viaje (una base H2 en archivo solo se carga la primera vez).
+     *
+     * @return milisegundos que tomó la carga, o 0 si no hizo falta
+     */
+    public static long inicializar(Connection con, Path carpeta) throws SQLException, IOException {
+        if (existeTabla(con, "viaje")) {
+            return 0;
+        }
+        long inicio = System.nanoTime();
+
+        List<String> sentencias = new ArrayList<>();
+        sentencias.addAll(leerScript(carpeta.resolve("Airlink.sql")));
+        for (Path inserts : scriptsInserts(carpeta)) {
+            sentencias.addAll(leerScript(inserts));
+        }
+        for (String parche : PARCHES) {
+            sentencias.add(parche);
+        }
+        long lectura = System.nanoTime();
+
+        int fallidas = ejecutarEnLote(con, sentencias);
+
+        long fin = System.nanoTime();
+        long totalMs = (fin - inicio) / 1_000_000;
+        System.out.println("✅ Base H2 cargada: " + sentencias.size() + " sentencias en " + totalMs
+                + " ms (lectura " + (lectura - inicio) / 1_000_000
+                + " ms, ejecución " + (fin - lectura) / 1_000_000 + " ms)"
+                + (fallidas > 0 ? ", " + fallidas + " con error" : ""));
+        return Math.max(totalMs, 1);
+    }
+
+    private static boolean existeTabla(Connection con, String tabla) throws SQLException {
+        try (ResultSet rs = con.getMetaData().getTables(null, null, tabla, new String[] {"TABLE"})) {
+            return rs.next();
+        }
+    }
+
+    // Inserts1.sql, Inserts2.sql, ... en orden numérico
+    private static List<Path> scriptsInserts(Path carpeta) throws IOException {
+        List<Path> scripts = new ArrayList<>();
+        try (var archivos = Files.list(carpeta)) {
+            archivos.filter(p -> p.getFileName().toString().matches("(?i)Inserts\\d+\\.sql"))
+                    .forEach(scripts::add);
+        }
+        scripts.sort((a, b) -> Integer.compare(numeroScript(a), numeroScript(b)));
+        return scripts;
+    }
+
+    private static int numeroScript(Path p) {
+        return Integer.parseInt(p.getFileName().toString().replaceAll("\\D", ""));
+    }
+
+    private static List<String> leerScript(Path script) throws IOException {
+        String texto = new String(Files.readAllBytes(script), StandardCharsets.UTF_8);
+        List<String> adaptadas = new ArrayList<>();
+        for (String sql : dividir(texto)) {
+            String adaptada = adaptar(sql);
+            if (adaptada != null) {
+                adaptadas.add(adaptada);
+            }
+        }
+        return adaptadas;
+    }
+
+    private static int ejecutarEnLote(Connection con, List<String> sentencias) throws SQLException {
+        boolean autoCommit = con.getAutoCommit();
+        con.setAutoCommit(false);
+        try (Statement st = con.createStatement()) {
+            for (String sql : sentencias) {
+                st.addBatch(sql);
+            }
+            try {
+                st.executeBatch();
+                con.commit();
+                return 0;
+            } catch (BatchUpdateException e) {
+                // H2 sigue con el resto del lote y reporta los errores al final
+                con.commit();
+                int fallidas = 0;
+                for (SQLException ex = e.getNextException(); ex != null; ex = ex.getNextException()) {
+                    System.out.println("⚠️ Script H2: " + ex.getMessage());
+                    fallidas++;
+                }
+                return Math.max(fallidas, 1);
+            }
+        } finally {
+            con.setAutoCommit(autoCommit);
+        }
+    }
+
+    // ============================
+    // ADAPTACIÓN MySQL -> H2
+    // ============================
+
+    /** Devuelve la sentencia lista para H2, o null si hay que omitirla. */
+    static String adaptar(String sql) {
+        if (OMITIR.matcher(sql).matches()) {
+            return null;
+        }
+        Matcher tabla = CREATE_TABLE.matcher(sql);
+        if (!tabla.find()) {
+            return sql;
+        }
+        String nombreTabla = tabla.group(1).toLowerCase(Locale.ROOT);
+
+        Matcher indice = INDICE.matcher(sql);
+        StringBuilder sb = new StringBuilder();
+        while (indice.find()) {
+            indice.appendReplacement(sb, Matcher.quoteReplacement(
+                    indice.group(1) + " " + nombreTabla + "_" + indice.group(2) + " ("));
+        }
+        indice.appendTail(sb);
+
+        return OPCIONES_TABLA.matcher(sb).replaceFirst(")");
+    }
+
+    /**
+     * Separa un script en sentencias por ';', respetando cadenas y
+     * identificadores entre comillas y quitando los comentarios
+     * (--, # y bloques).
+     */
+    static List<String> dividir(String script) {
+        List<String> sentencias = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        int n = script.length();
+        int i = 0;
+        while (i < n) {
+            char c = script.charAt(i);
+            if (c == '\'' || c == '"' || c == '`') {
+                int fin = finCadena(script, i, c);
+                actual.append(script, i, fin);
+                i = fin;
+            } else if (c == '-' && i + 1 < n && script.charAt(i + 1) == '-' || c == '#') {
+                while (i < n && script.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '/' && i + 1 < n && script.charAt(i + 1) == '*') {
+                int fin = script.indexOf("*/", i + 2);
+                i = fin < 0 ? n : fin + 2;
+                actual.append(' ');
+            } else if (c == ';') {
+                agregarSentencia(sentencias, actual);
+                i++;
+            } else {
+                actual.append(c);
+                i++;
+            }
+        }
+        agregarSentencia(sentencias, actual);
+        return sentencias;
+    }
+
+    // Índice justo después de la comilla que cierra (acepta '' y \' como escape)
+    private static int finCadena(String s, int inicio, char comilla) {
+        int i = inicio + 1;
+        while (i < s.length()) {
+            char c = s.charAt(i);
+            if (c == '\\' && comilla != '`') {
+                i += 2;
+            } else if (c == comilla) {
+                if (i + 1 < s.length() && s.charAt(i + 1) == comilla) {
+                    i += 2;
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        return s.length();
+    }
+
+    private static void agregarSentencia(List<String> sentencias, StringBuilder actual) {
+        String sql = actual.toString().trim();
+        if (!sql.isEmpty()) {
+            sentencias.add(sql);
+        }
+        actual.setLength(0);
+    }
+}
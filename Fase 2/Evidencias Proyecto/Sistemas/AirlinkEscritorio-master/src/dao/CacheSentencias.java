@@ -0,0 +1,251 @@
+package dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché LRU de PreparedStatement de una conexión física, indexada por el
+ * texto SQL. Cada conexión del pool tiene la suya, así que una consulta
+ * frecuente (p. ej. el login) se prepara una sola vez por conexión.
+ *
+ * El DAO recibe un envoltorio: close() no cierra la sentencia real, la deja
+ * como recién preparada (sin parámetros, sin lote pendiente y con sus
+ * propiedades originales) y libre para el siguiente uso. Si algo de eso no
+ * se puede restaurar, la sentencia se cierra y sale de la caché.
+ */
+class CacheSentencias {
+
+    // Contadores compartidos por todas las conexiones
+    private static final AtomicLong ACIERTOS = new AtomicLong();
+    private static final AtomicLong FALLOS = new AtomicLong();
+    private static final AtomicLong DESALOJOS = new AtomicLong();
+
+    private final Connection real;
+    private final int capacidad;
+    private final LinkedHashMap<String, Entrada> entradas;
+
+    CacheSentencias(Connection real, int capacidad) {
+        this.real = real;
+        this.capacidad = capacidad;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entrada> eldest) {
+                if (size() <= CacheSentencias.this.capacidad) {
+                    return false;
+                }
+                DESALOJOS.incrementAndGet();
+                eldest.getValue().desalojar();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Devuelve la sentencia cacheada para el SQL o la prepara si no existe.
+     * Si la sentencia ya está en uso dentro de la misma conexión se prepara
+     * una aparte que se cierra de verdad al terminar.
+     */
+    synchronized PreparedStatement preparar(String sql) throws SQLException {
+        if (capacidad <= 0) {
+            FALLOS.incrementAndGet();
+            return real.prepareStatement(sql);
+        }
+        Entrada entrada = entradas.get(sql);
+        if (entrada != null && !entrada.enUso) {
+            ACIERTOS.incrementAndGet();
+            return entrada.prestar();
+        }
+        FALLOS.incrementAndGet();
+        if (entrada != null) {
+            return real.prepareStatement(sql);
+        }
+        entrada = new Entrada(real.prepareStatement(sql));
+        entradas.put(sql, entrada);
+        return entrada.prestar();
+    }
+
+    /**
+     * Cierra todas las sentencias; se llama cuando el pool descarta la conexión.
+     */
+    synchronized void cerrarTodo() {
+        for (Entrada entrada : entradas.values()) {
+            entrada.desalojar();
+        }
+        entradas.clear();
+    }
+
+    static long getAciertos() { return ACIERTOS.get(); }
+
+    static long getFallos() { return FALLOS.get(); }
+
+    static long getDesalojos() { return DESALOJOS.get(); }
+
+    static double getTasaAciertos() {
+        long total = ACIERTOS.get() + FALLOS.get();
+        return total == 0 ? 0 : (double) ACIERTOS.get() / total;
+    }
+
+    // ============================
+    // ENTRADA Y ENVOLTORIO
+    // ============================
+    private final class Entrada {
+        final PreparedStatement sentencia;
+        final int fetchSizeInicial;
+        final int maxRowsInicial;
+        final int queryTimeoutInicial;
+        final int fetchDirectionInicial;
+        final int maxFieldSizeInicial;
+        boolean enUso;
+        boolean desalojada;
+        // Se cambió algo que JDBC no deja leer de vuelta (escape processing, cursor...)
+        boolean sinRestaurar;
+
+        Entrada(PreparedStatement sentencia) throws SQLException {
+            this.sentencia = sentencia;
+            this.fetchSizeInicial = sentencia.getFetchSize();
+            this.maxRowsInicial = sentencia.getMaxRows();
+            this.queryTimeoutInicial = sentencia.getQueryTimeout();
+            this.fetchDirectionInicial = sentencia.getFetchDirection();
+            this.maxFieldSizeInicial = sentencia.getMaxFieldSize();
+        }
+
+        PreparedStatement prestar() {
+            enUso = true;
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    CacheSentencias.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new SentenciaPrestada(this));
+        }
+
+        void liberar() {
+            synchronized (CacheSentencias.this) {
+                enUso = false;
+                if (desalojada) {
+                    cerrarReal();
+                    return;
+                }
+                try {
+                    if (sinRestaurar) {
+                        throw new SQLException("propiedades sin restaurar");
+                    }
+                    // Un lote que quedó a medias (executeBatch lanzó) no puede llegar al próximo uso
+                    sentencia.clearBatch();
+                    sentencia.clearParameters();
+                    sentencia.clearWarnings();
+                    if (sentencia.getFetchSize() != fetchSizeInicial) {
+                        sentencia.setFetchSize(fetchSizeInicial);
+                    }
+                    if (sentencia.getMaxRows() != maxRowsInicial) {
+                        sentencia.setMaxRows(maxRowsInicial);
+                    }
+                    if (sentencia.getQueryTimeout() != queryTimeoutInicial) {
+                        sentencia.setQueryTimeout(queryTimeoutInicial);
+                    }
+                    if (sentencia.getFetchDirection() != fetchDirectionInicial) {
+                        sentencia.setFetchDirection(fetchDirectionInicial);
+                    }
+                    if (sentencia.getMaxFieldSize() != maxFieldSizeInicial) {
+                        sentencia.setMaxFieldSize(maxFieldSizeInicial);
+                    }
+                } catch (SQLException | RuntimeException e) {
+                    entradas.values().remove(this);
+                    cerrarReal();
+                }
+            }
+        }
+
+        void desalojar() {
+            desalojada = true;
+            if (!enUso) {
+                cerrarReal();
+            }
+        }
+
+        private void cerrarReal() {
+            try {
+                sentencia.close();
+            } catch (SQLException e) {
+                // la sentencia ya no se va a reutilizar
+            }
+        }
+    }
+
+    private static final class SentenciaPrestada implements InvocationHandler {
+        private final Entrada entrada;
+        private final List<ResultSet> resultados = new ArrayList<>(1);
+        private boolean cerrada;
+
+        SentenciaPrestada(Entrada entrada) {
+            this.entrada = entrada;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            switch (metodo.getName()) {
+                case "close":
+                    cerrar();
+                    return null;
+                case "isClosed":
+                    return cerrada;
+                case "getConnection":
+                    // devolvería la conexión física y permitiría saltarse el pool
+                    throw new SQLFeatureNotSupportedException("Usa la conexión del pool, no la de la sentencia");
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "SentenciaCacheada[" + entrada.sentencia + "]";
+                case "setEscapeProcessing":
+                case "setCursorName":
+                case "setPoolable":
+                case "setLargeMaxRows":
+                case "closeOnCompletion":
+                    entrada.sinRestaurar = true;
+                    break;
+                default:
+                    break;
+            }
+            if (cerrada) {
+                throw new SQLException("La sentencia ya fue cerrada");
+            }
+            try {
+                Object resultado = metodo.invoke(entrada.sentencia, args);
+                if (resultado instanceof ResultSet) {
+                    resultados.add((ResultSet) resultado);
+                }
+                return resultado;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void cerrar() {
+            if (cerrada) {
+                return;
+            }
+            cerrada = true;
+            for (ResultSet rs : resultados) {
+                try {
+                    rs.close();
+                } catch (SQLException e) {
+                    // se ignora: la sentencia se limpia igualmente
+                }
+            }
+            resultados.clear();
+            entrada.liberar();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package dao;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Lo que cambió en una tabla desde una marca: filas creadas o modificadas,
+ * ids borrados y la marca para pedir los siguientes cambios. Si la consulta
+ * fue completa (sin marca previa) los modificados son la tabla entera y no
+ * hay eliminados.
+ */
+public class Cambios<T> {
+
+    private final List<T> modificados;
+    private final List<Integer> eliminados;
+    private final Timestamp marca;
+    private final boolean completa;
+
+    public Cambios(List<T> modificados, List<Integer> eliminados, Timestamp marca, boolean completa) {
+        this.modificados = modificados;
+        this.eliminados = eliminados;
+        this.marca = marca;
+        this.completa = completa;
+    }
+
+    public List<T> getModificados() { return modificados; }
+
+    public List<Integer> getEliminados() { return eliminados; }
+
+    /**
+     * Hora de la base al empezar la consulta; se pasa tal cual al próximo
+     * cambiosDesde. null si la base no tiene con qué seguir los cambios.
+     */
+    public Timestamp getMarca() { return marca; }
+
+    public boolean isCompleta() { return completa; }
+
+    public boolean isVacio() {
+        return modificados.isEmpty() && eliminados.isEmpty();
+    }
+}
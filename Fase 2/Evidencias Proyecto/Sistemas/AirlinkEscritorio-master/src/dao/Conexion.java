@@ -1,28 +1,102 @@
 package dao;
 
+import java.io.IOException;
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class Conexion {
 
-    private static final String URL = "jdbc:mysql://localhost:3306/AirLink?useSSL=false&serverTimezone=America/Santiago";
-    private static final String USER = "root";  // tu usuario MySQL
-    private static final String PASSWORD = "root";  // tu contraseña MySQL
+    // -Dairlink.db=h2 usa una base H2 en memoria cargada desde BasedeDatos/*.sql
+    private static final boolean H2 = "h2".equalsIgnoreCase(System.getProperty("airlink.db", "mysql"));
 
-    public static Connection getConexion() {
-        Connection con = null;
+    private static final String URL = System.getProperty("airlink.db.url", H2
+            ? BaseDatosH2.URL_MEMORIA
+            : "jdbc:mysql://localhost:3306/AirLink?useSSL=false&serverTimezone=America/Santiago&useServerPrepStmts=true&rewriteBatchedStatements=true");
+    private static final String USER = System.getProperty("airlink.db.usuario", H2 ? "sa" : "root");  // tu usuario MySQL
+    private static final String PASSWORD = System.getProperty("airlink.db.password", H2 ? "" : "root");  // tu contraseña MySQL
+
+    private static final List<Runnable> ANTES_DE_CERRAR = new CopyOnWriteArrayList<>();
+
+    // El pool se crea la primera vez que alguien pide una conexión
+    private static class Holder {
+        static final PoolConexiones POOL = crearPool();
+    }
+
+    private static PoolConexiones crearPool() {
         try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            con = DriverManager.getConnection(URL, USER, PASSWORD);
-            System.out.println("✅ Conexión exitosa a la base de datos Airlink.");
+            Class.forName(H2 ? "org.h2.Driver" : "com.mysql.cj.jdbc.Driver");
         } catch (ClassNotFoundException e) {
-            System.out.println("❌ Error: no se encontró el driver JDBC de MySQL.");
-            e.printStackTrace();
+            System.out.println("❌ Error: no se encontró el driver JDBC de " + (H2 ? "H2." : "MySQL."));
+        }
+        PoolConexiones pool = PoolConexiones.desdePropiedades(URL, USER, PASSWORD);
+        pool.registrarJmx("AirLink");
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> cerrar(pool), "airlink-pool-cierre"));
+        if (H2) {
+            cargarH2(pool);
+        }
+        return pool;
+    }
+
+    private static void cerrar(PoolConexiones pool) {
+        for (Runnable tarea : ANTES_DE_CERRAR) {
+            try {
+                tarea.run();
+            } catch (RuntimeException e) {
+                System.out.println("❌ Error al cerrar: " + e);
+            }
+        }
+        pool.close();
+    }
+
+    private static void cargarH2(PoolConexiones pool) {
+        try (Connection con = pool.obtener()) {
+            BaseDatosH2.inicializar(con, BaseDatosH2.carpetaScripts());
+        } catch (SQLException | IOException e) {
+            System.out.println("❌ Error al cargar la base H2: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Entrega una conexión del pool. Hay que cerrarla (try-with-resources)
+     * para que vuelva al pool. Los DAO no guardan conexiones, sentencias ni
+     * ResultSet en atributos: todo vive dentro del método, por eso una misma
+     * instancia de DAO se puede usar desde varios hilos a la vez.
+     */
+    public static Connection getConexion() throws SQLException {
+        try {
+            return Holder.POOL.obtener();
         } catch (SQLException e) {
             System.out.println("❌ Error al conectar con la base de datos: " + e.getMessage());
-            e.printStackTrace();
+            throw e;
         }
-        return con;
+    }
+
+    /**
+     * Deja la sentencia lista para recorrer un resultado grande hacia
+     * adelante sin cargarlo entero en memoria. Connector/J solo transmite
+     * fila a fila con fetchSize = Integer.MIN_VALUE; H2 respeta un fetchSize
+     * normal.
+     */
+    static void habilitarStreaming(Statement st) throws SQLException {
+        st.setFetchDirection(ResultSet.FETCH_FORWARD);
+        st.setFetchSize(H2 ? 1000 : Integer.MIN_VALUE);
+    }
+
+    /**
+     * Tarea que tiene que correr al terminar la aplicación mientras el pool
+     * todavía entrega conexiones (grabar auditoría, devolver cupones...).
+     * Los shutdown hooks corren en cualquier orden, por eso no basta con
+     * registrar uno propio.
+     */
+    public static void antesDeCerrar(Runnable tarea) {
+        ANTES_DE_CERRAR.add(tarea);
+    }
+
+    public static PoolConexiones getPool() {
+        return Holder.POOL;
     }
 }
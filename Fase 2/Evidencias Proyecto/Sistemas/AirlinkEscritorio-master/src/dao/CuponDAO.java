@@ -0,0 +1,69 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public class CuponDAO {
+
+    /**
+     * Usos que le quedan a un cupón activo y vigente hoy; 0 si no existe,
+     * está inactivo o fuera de fecha, -1 si falló la consulta.
+     */
+    public int usosRestantes(String codigo) {
+        String sql = """
+            SELECT uso_maximo - uso_actual FROM cupon_descuento
+            WHERE codigo = ? AND activo = 1 AND CURRENT_DATE BETWEEN fecha_inicio AND fecha_fin
+            """;
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setString(1, codigo);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? Math.max(0, rs.getInt(1)) : 0;
+            }
+        } catch (SQLException e) {
+            System.out.println("❌ Error al consultar cupón " + codigo + ": " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Suma {@code cantidad} a uso_actual en una sola sentencia condicional:
+     * si con eso se pasaría de uso_maximo (o el cupón dejó de estar vigente)
+     * no cambia nada y devuelve false. Nunca sobrevende, aunque otra
+     * instancia de la aplicación esté canjeando el mismo código.
+     */
+    public boolean tomarUsos(String codigo, int cantidad) {
+        String sql = """
+            UPDATE cupon_descuento SET uso_actual = uso_actual + ?
+            WHERE codigo = ? AND activo = 1 AND CURRENT_DATE BETWEEN fecha_inicio AND fecha_fin
+              AND uso_actual + ? <= uso_maximo
+            """;
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setInt(1, cantidad);
+            ps.setString(2, codigo);
+            ps.setInt(3, cantidad);
+            return ps.executeUpdate() == 1;
+        } catch (SQLException e) {
+            System.out.println("❌ Error al tomar usos del cupón " + codigo + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** Devuelve usos tomados y no canjeados (o de canjes anulados). */
+    public boolean devolverUsos(String codigo, int cantidad) {
+        String sql = "UPDATE cupon_descuento SET uso_actual = uso_actual - ? WHERE codigo = ? AND uso_actual >= ?";
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setInt(1, cantidad);
+            ps.setString(2, codigo);
+            ps.setInt(3, cantidad);
+            return ps.executeUpdate() == 1;
+        } catch (SQLException e) {
+            System.out.println("❌ Error al devolver usos del cupón " + codigo + ": " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package dao;
+
+import Modelo.Viaje;
+
+/**
+ * Posición dentro de un listado de viajes: la clave de orden y el idViaje de
+ * la última fila entregada. Solo sirve con el mismo orden con que se obtuvo.
+ */
+public final class CursorViaje {
+
+    final OrdenViaje orden;
+    final boolean ascendente;
+    final Object clave;
+    final int idViaje;
+
+    private CursorViaje(OrdenViaje orden, boolean ascendente, Object clave, int idViaje) {
+        this.orden = orden;
+        this.ascendente = ascendente;
+        this.clave = clave;
+        this.idViaje = idViaje;
+    }
+
+    /** Cursor que continúa justo después de {@code ultimo}. */
+    public static CursorViaje despuesDe(Viaje ultimo, OrdenViaje orden, boolean ascendente) {
+        return new CursorViaje(orden, ascendente, orden.clave(ultimo), ultimo.getIdViaje());
+    }
+
+    public OrdenViaje getOrden() {
+        return orden;
+    }
+
+    public boolean isAscendente() {
+        return ascendente;
+    }
+
+    @Override
+    public String toString() {
+        return orden + (ascendente ? " > " : " < ") + "(" + clave + ", " + idViaje + ")";
+    }
+}
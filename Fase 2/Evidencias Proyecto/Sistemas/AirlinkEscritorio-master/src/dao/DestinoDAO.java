@@ -3,11 +3,20 @@ package dao;
 import Modelo.Destino;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 public class DestinoDAO {
-    Connection con;
-    PreparedStatement ps;
-    ResultSet rs;
+
+    private static final List<OyenteDestinos> OYENTES = new CopyOnWriteArrayList<>();
+
+    public static void agregarOyente(OyenteDestinos oyente) {
+        OYENTES.add(oyente);
+    }
+
+    public static void quitarOyente(OyenteDestinos oyente) {
+        OYENTES.remove(oyente);
+    }
 
     // ============================
     // LISTAR
@@ -15,25 +24,11 @@ public class DestinoDAO {
     public List<Destino> listar() {
         List<Destino> lista = new ArrayList<>();
         String sql = "SELECT * FROM destino";
-        try {
-            con = Conexion.getConexion();
-            ps = con.prepareStatement(sql);
-            rs = ps.executeQuery();
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
             while (rs.next()) {
-                Destino d = new Destino();
-                d.setIdDestino(rs.getInt("idDestino"));
-                d.setNombre(rs.getString("nombre"));
-                d.setPrecio(rs.getDouble("precio"));
-                d.setCiudad(rs.getString("ciudad"));
-                d.setPais(rs.getString("pais"));
-                d.setImagen(rs.getString("imagen"));
-                d.setDescripcion(rs.getString("descripcion"));
-                try {
-                    d.setDestacado(rs.getBoolean("destacado"));
-                } catch (SQLException ex) {
-                    d.setDestacado(false);
-                }
-                lista.add(d);
+                lista.add(mapear(rs));
             }
         } catch (Exception e) {
             System.out.println("Error al listar destinos: " + e);
@@ -41,14 +36,44 @@ public class DestinoDAO {
         return lista;
     }
 
+    // ============================
+    // CAMBIOS DESDE UNA MARCA
+    // ============================
+    /** Destinos creados o modificados desde la marca, y los borrados; con null, todos. */
+    public Cambios<Destino> cambiosDesde(Timestamp desde) {
+        return cambiosDesde(desde, null);
+    }
+
+    /** Igual, y en una carga completa le pasa cada destino a {@code alLeer} apenas se lee. */
+    public Cambios<Destino> cambiosDesde(Timestamp desde, Consumer<Destino> alLeer) {
+        return Sincronizacion.cambiosDesde("destino", "SELECT * FROM destino", "ultima_modificacion", desde, this::mapear,
+                alLeer);
+    }
+
+    private Destino mapear(ResultSet rs) throws SQLException {
+        Destino d = new Destino();
+        d.setIdDestino(rs.getInt("idDestino"));
+        d.setNombre(rs.getString("nombre"));
+        d.setPrecio(rs.getDouble("precio"));
+        d.setCiudad(rs.getString("ciudad"));
+        d.setPais(rs.getString("pais"));
+        d.setImagen(rs.getString("imagen"));
+        d.setDescripcion(rs.getString("descripcion"));
+        try {
+            d.setDestacado(rs.getBoolean("destacado"));
+        } catch (SQLException ex) {
+            d.setDestacado(false);
+        }
+        return d;
+    }
+
     // ============================
     // AGREGAR
     // ============================
     public boolean agregar(Destino d) {
         String sql = "INSERT INTO destino (nombre, precio, ciudad, pais, imagen, descripcion, destacado) VALUES (?, ?, ?, ?, ?, ?, ?)";
-        try {
-            con = Conexion.getConexion();
-            ps = con.prepareStatement(sql);
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             ps.setString(1, d.getNombre());
             ps.setDouble(2, d.getPrecio());
             ps.setString(3, d.getCiudad());
@@ -57,6 +82,15 @@ public class DestinoDAO {
             ps.setString(6, d.getDescripcion());
             ps.setBoolean(7, d.isDestacado());
             ps.executeUpdate();
+            try (ResultSet claves = ps.getGeneratedKeys()) {
+                if (claves.next()) {
+                    d.setIdDestino(claves.getInt(1));
+                }
+            }
+            Auditoria.creado("destino", d.getIdDestino(), campos(d));
+            for (OyenteDestinos o : OYENTES) {
+                o.destinoGuardado(d);
+            }
             return true;
         } catch (Exception e) {
             System.out.println("Error al agregar destino: " + e);
@@ -69,18 +103,30 @@ public class DestinoDAO {
     // ============================
     public boolean actualizar(Destino d) {
         String sql = "UPDATE destino SET nombre=?, precio=?, ciudad=?, pais=?, imagen=?, descripcion=?, destacado=? WHERE idDestino=?";
-        try {
-            con = Conexion.getConexion();
-            ps = con.prepareStatement(sql);
-            ps.setString(1, d.getNombre());
-            ps.setDouble(2, d.getPrecio());
-            ps.setString(3, d.getCiudad());
-            ps.setString(4, d.getPais());
-            ps.setString(5, d.getImagen());
-            ps.setString(6, d.getDescripcion());
-            ps.setBoolean(7, d.isDestacado());
-            ps.setInt(8, d.getIdDestino());
-            ps.executeUpdate();
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+            Map<String, Object> antes;
+            con.setAutoCommit(false);
+            try {
+                antes = Auditoria.foto(con, "destino", "idDestino", d.getIdDestino());
+                ps.setString(1, d.getNombre());
+                ps.setDouble(2, d.getPrecio());
+                ps.setString(3, d.getCiudad());
+                ps.setString(4, d.getPais());
+                ps.setString(5, d.getImagen());
+                ps.setString(6, d.getDescripcion());
+                ps.setBoolean(7, d.isDestacado());
+                ps.setInt(8, d.getIdDestino());
+                ps.executeUpdate();
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
+            Auditoria.actualizado("destino", d.getIdDestino(), antes, campos(d));
+            for (OyenteDestinos o : OYENTES) {
+                o.destinoGuardado(d);
+            }
             return true;
         } catch (Exception e) {
             System.out.println("Error al actualizar destino: " + e);
@@ -93,15 +139,34 @@ public class DestinoDAO {
     // ============================
     public boolean eliminar(int id) {
         String sql = "DELETE FROM destino WHERE idDestino=?";
-        try {
-            con = Conexion.getConexion();
-            ps = con.prepareStatement(sql);
-            ps.setInt(1, id);
-            ps.executeUpdate();
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+            Map<String, Object> antes;
+            con.setAutoCommit(false);
+            try {
+                antes = Auditoria.foto(con, "destino", "idDestino", id);
+                ps.setInt(1, id);
+                ps.executeUpdate();
+                Sincronizacion.registrarEliminado(con, "destino", id);
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
+            Auditoria.eliminado("destino", id, antes);
+            for (OyenteDestinos o : OYENTES) {
+                o.destinoEliminado(id);
+            }
             return true;
         } catch (Exception e) {
             System.out.println("Error al eliminar destino: " + e);
             return false;
         }
     }
+
+    private static Map<String, Object> campos(Destino d) {
+        return Auditoria.campos("nombre", d.getNombre(), "precio", d.getPrecio(), "ciudad", d.getCiudad(),
+                "pais", d.getPais(), "imagen", d.getImagen(), "descripcion", d.getDescripcion(),
+                "destacado", d.isDestacado());
+    }
 }
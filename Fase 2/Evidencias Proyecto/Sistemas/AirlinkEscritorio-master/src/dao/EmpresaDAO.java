@@ -3,31 +3,30 @@ package dao;
 import Modelo.Empresa;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 public class EmpresaDAO {
-    Connection con;
-    PreparedStatement ps;
-    ResultSet rs;
-    Conexion cn = new Conexion();
+
+    private static final List<OyenteEmpresas> OYENTES = new CopyOnWriteArrayList<>();
+
+    public static void agregarOyente(OyenteEmpresas oyente) {
+        OYENTES.add(oyente);
+    }
+
+    public static void quitarOyente(OyenteEmpresas oyente) {
+        OYENTES.remove(oyente);
+    }
 
     // Listar todas las empresas
     public List<Empresa> listar() {
         List<Empresa> lista = new ArrayList<>();
         String sql = "SELECT * FROM empresa ORDER BY idEmpresa DESC";
-        try {
-            con = Conexion.getConexion();
-            ps = con.prepareStatement(sql);
-            rs = ps.executeQuery();
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
             while (rs.next()) {
-                Empresa e = new Empresa();
-                e.setIdEmpresa(rs.getInt("idEmpresa"));
-                e.setNombreEmpresa(rs.getString("nombreEmpresa"));
-                e.setTipoEmpresa(rs.getString("tipoEmpresa"));
-                e.setLogo(rs.getString("logo"));
-                e.setDescripcion(rs.getString("descripcion"));
-                e.setSitioWeb(rs.getString("sitio_web"));
-                e.setActivo(rs.getBoolean("activo"));
-                lista.add(e);
+                lista.add(mapear(rs));
             }
         } catch (SQLException ex) {
             System.out.println("❌ Error al listar empresas: " + ex.getMessage());
@@ -35,12 +34,34 @@ public class EmpresaDAO {
         return lista;
     }
 
+    // Empresas creadas o modificadas desde la marca, y las borradas; con null, todas
+    public Cambios<Empresa> cambiosDesde(Timestamp desde) {
+        return cambiosDesde(desde, null);
+    }
+
+    // alLeer recibe cada empresa de una carga completa apenas se lee
+    public Cambios<Empresa> cambiosDesde(Timestamp desde, Consumer<Empresa> alLeer) {
+        return Sincronizacion.cambiosDesde("empresa", "SELECT * FROM empresa", "ultima_modificacion", desde, this::mapear,
+                alLeer);
+    }
+
+    private Empresa mapear(ResultSet rs) throws SQLException {
+        Empresa e = new Empresa();
+        e.setIdEmpresa(rs.getInt("idEmpresa"));
+        e.setNombreEmpresa(rs.getString("nombreEmpresa"));
+        e.setTipoEmpresa(rs.getString("tipoEmpresa"));
+        e.setLogo(rs.getString("logo"));
+        e.setDescripcion(rs.getString("descripcion"));
+        e.setSitioWeb(rs.getString("sitio_web"));
+        e.setActivo(rs.getBoolean("activo"));
+        return e;
+    }
+
     // Agregar empresa
     public boolean agregar(Empresa e) {
         String sql = "INSERT INTO empresa (nombreEmpresa, tipoEmpresa, logo, descripcion, sitio_web, activo) VALUES (?, ?, ?, ?, ?, ?)";
-        try {
-            con = Conexion.getConexion();
-            ps = con.prepareStatement(sql);
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             ps.setString(1, e.getNombreEmpresa());
             ps.setString(2, e.getTipoEmpresa());
             ps.setString(3, e.getLogo());
@@ -48,6 +69,15 @@ public class EmpresaDAO {
             ps.setString(5, e.getSitioWeb());
             ps.setBoolean(6, e.isActivo());
             ps.execute();
+            try (ResultSet claves = ps.getGeneratedKeys()) {
+                if (claves.next()) {
+                    e.setIdEmpresa(claves.getInt(1));
+                }
+            }
+            Auditoria.creado("empresa", e.getIdEmpresa(), campos(e));
+            for (OyenteEmpresas o : OYENTES) {
+                o.empresaGuardada(e);
+            }
             return true;
         } catch (SQLException ex) {
             System.out.println("❌ Error al agregar empresa: " + ex.getMessage());
@@ -58,17 +88,29 @@ public class EmpresaDAO {
     // Actualizar empresa
     public boolean actualizar(Empresa e) {
         String sql = "UPDATE empresa SET nombreEmpresa=?, tipoEmpresa=?, logo=?, descripcion=?, sitio_web=?, activo=? WHERE idEmpresa=?";
-        try {
-            con = Conexion.getConexion();
-            ps = con.prepareStatement(sql);
-            ps.setString(1, e.getNombreEmpresa());
-            ps.setString(2, e.getTipoEmpresa());
-            ps.setString(3, e.getLogo());
-            ps.setString(4, e.getDescripcion());
-            ps.setString(5, e.getSitioWeb());
-            ps.setBoolean(6, e.isActivo());
-            ps.setInt(7, e.getIdEmpresa());
-            ps.execute();
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+            Map<String, Object> antes;
+            con.setAutoCommit(false);
+            try {
+                antes = Auditoria.foto(con, "empresa", "idEmpresa", e.getIdEmpresa());
+                ps.setString(1, e.getNombreEmpresa());
+                ps.setString(2, e.getTipoEmpresa());
+                ps.setString(3, e.getLogo());
+                ps.setString(4, e.getDescripcion());
+                ps.setString(5, e.getSitioWeb());
+                ps.setBoolean(6, e.isActivo());
+                ps.setInt(7, e.getIdEmpresa());
+                ps.execute();
+                con.commit();
+            } catch (SQLException ex) {
+                con.rollback();
+                throw ex;
+            }
+            Auditoria.actualizado("empresa", e.getIdEmpresa(), antes, campos(e));
+            for (OyenteEmpresas o : OYENTES) {
+                o.empresaGuardada(e);
+            }
             return true;
         } catch (SQLException ex) {
             System.out.println("❌ Error al actualizar empresa: " + ex.getMessage());
@@ -79,15 +121,34 @@ public class EmpresaDAO {
     // Eliminar empresa
     public boolean eliminar(int idEmpresa) {
         String sql = "DELETE FROM empresa WHERE idEmpresa=?";
-        try {
-            con = Conexion.getConexion();
-            ps = con.prepareStatement(sql);
-            ps.setInt(1, idEmpresa);
-            ps.execute();
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+            Map<String, Object> antes;
+            con.setAutoCommit(false);
+            try {
+                antes = Auditoria.foto(con, "empresa", "idEmpresa", idEmpresa);
+                ps.setInt(1, idEmpresa);
+                ps.execute();
+                Sincronizacion.registrarEliminado(con, "empresa", idEmpresa);
+                con.commit();
+            } catch (SQLException ex) {
+                con.rollback();
+                throw ex;
+            }
+            Auditoria.eliminado("empresa", idEmpresa, antes);
+            for (OyenteEmpresas o : OYENTES) {
+                o.empresaEliminada(idEmpresa);
+            }
             return true;
         } catch (SQLException ex) {
             System.out.println("❌ Error al eliminar empresa: " + ex.getMessage());
             return false;
         }
     }
+
+    private static Map<String, Object> campos(Empresa e) {
+        return Auditoria.campos("nombreEmpresa", e.getNombreEmpresa(), "tipoEmpresa", e.getTipoEmpresa(),
+                "logo", e.getLogo(), "descripcion", e.getDescripcion(), "sitio_web", e.getSitioWeb(),
+                "activo", e.isActivo());
+    }
 }
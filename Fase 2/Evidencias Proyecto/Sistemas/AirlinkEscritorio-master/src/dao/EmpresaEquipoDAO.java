@@ -6,29 +6,35 @@ import java.util.*;
 
 public class EmpresaEquipoDAO {
 
-    Connection con;
-    PreparedStatement ps;
-    ResultSet rs;
-
     public List<EmpresaEquipo> listar() {
         List<EmpresaEquipo> lista = new ArrayList<>();
         String sql = "SELECT * FROM empresa_equipo WHERE activo = 1";
-        try {
-            con = Conexion.getConexion();
-            ps = con.prepareStatement(sql);
-            rs = ps.executeQuery();
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
             while (rs.next()) {
-                EmpresaEquipo e = new EmpresaEquipo();
-                e.setIdEquipo(rs.getInt("idEquipo"));
-                e.setIdEmpresa(rs.getInt("idEmpresa"));
-                e.setModelo(rs.getString("modelo"));
-                e.setMatricula(rs.getString("matricula"));
-                e.setCapacidad(rs.getInt("capacidad"));
-                lista.add(e);
+                lista.add(mapear(rs));
             }
         } catch (SQLException ex) {
             System.out.println("Error al listar equipos: " + ex);
         }
         return lista;
     }
+
+    // Equipos creados o modificados desde la marca, activos o no (un equipo dado de baja llega con activo=false)
+    public Cambios<EmpresaEquipo> cambiosDesde(Timestamp desde) {
+        return Sincronizacion.cambiosDesde("empresa_equipo", "SELECT * FROM empresa_equipo", "ultima_modificacion",
+                desde, this::mapear);
+    }
+
+    private EmpresaEquipo mapear(ResultSet rs) throws SQLException {
+        EmpresaEquipo e = new EmpresaEquipo();
+        e.setIdEquipo(rs.getInt("idEquipo"));
+        e.setIdEmpresa(rs.getInt("idEmpresa"));
+        e.setModelo(rs.getString("modelo"));
+        e.setMatricula(rs.getString("matricula"));
+        e.setCapacidad(rs.getInt("capacidad"));
+        e.setActivo(rs.getBoolean("activo"));
+        return e;
+    }
 }
@@ -0,0 +1,242 @@
+package dao;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+/**
+ * Exporta las tablas de administración a XLSX leyendo la base en streaming
+ * y escribiendo con SXSSF: en memoria solo vive una ventana de filas
+ * (-Dairlink.excel.ventana, 500 por defecto) y el resto se baja a un
+ * temporal comprimido. test/dao/ComparacionExportacionExcel mide lo mismo
+ * contra un XSSFWorkbook común.
+ */
+public class ExportadorExcel {
+
+    private static final int VENTANA = Integer.getInteger("airlink.excel.ventana", 500);
+    private static final int MAX_FILAS_HOJA = 1_048_576;  // límite de Excel por hoja
+    private static final int AVISAR_CADA = 1000;
+
+    public enum Tabla {
+        VIAJES("Viajes",
+                new String[] {"ID", "Origen", "Destino", "Salida", "Llegada", "Matrícula", "Empresa", "Estado", "Destino turístico"},
+                """
+                SELECT v.idViaje, t1.nombreTerminal, t2.nombreTerminal, v.salida, v.llegada,
+                       eq.matricula, e.nombreEmpresa, v.estado, d.nombre
+                FROM viaje v
+                LEFT JOIN ruta r ON v.idRuta = r.idRuta
+                LEFT JOIN terminal t1 ON r.idTerminalOrigen = t1.idTerminal
+                LEFT JOIN terminal t2 ON r.idTerminalDestino = t2.idTerminal
+                LEFT JOIN empresa_equipo eq ON v.idEquipo = eq.idEquipo
+                LEFT JOIN empresa e ON eq.idEmpresa = e.idEmpresa
+                LEFT JOIN destino d ON v.idDestino = d.idDestino
+                ORDER BY v.idViaje
+                """),
+        RUTAS("Rutas",
+                new String[] {"ID", "Código origen", "Origen", "Código destino", "Destino", "Distancia (km)", "Duración (min)", "Activa"},
+                """
+                SELECT r.idRuta, t1.codigo, t1.nombreTerminal, t2.codigo, t2.nombreTerminal,
+                       r.distanciaKm, r.duracionEstimadaMin, r.activo
+                FROM ruta r
+                JOIN terminal t1 ON r.idTerminalOrigen = t1.idTerminal
+                JOIN terminal t2 ON r.idTerminalDestino = t2.idTerminal
+                ORDER BY r.idRuta
+                """),
+        EMPRESAS("Empresas",
+                new String[] {"ID", "Nombre", "Tipo", "Sitio web", "Activa", "Creada"},
+                "SELECT idEmpresa, nombreEmpresa, tipoEmpresa, sitio_web, activo, creado FROM empresa ORDER BY idEmpresa"),
+        DESTINOS("Destinos",
+                new String[] {"ID", "Nombre", "Ciudad", "País", "Precio", "Destacado", "Activo"},
+                "SELECT idDestino, nombre, ciudad, pais, precio, destacado, activo FROM destino ORDER BY idDestino"),
+        // Sin contraseña ni googleId
+        USUARIOS("Usuarios",
+                new String[] {"ID", "Nombre", "Email", "Rol", "Verificado", "Creado"},
+                """
+                SELECT u.idUsuario, u.nombreUsuario, u.email, r.nombreRol, u.verificado, u.creado
+                FROM usuario u
+                JOIN rol r ON u.idRol = r.idRol
+                ORDER BY u.idUsuario
+                """);
+
+        private final String titulo;
+        private final String[] encabezados;
+        final String sql;  // visible en el paquete: test/dao/ComparacionExportacionExcel la exporta también con XSSF
+
+        Tabla(String titulo, String[] encabezados, String sql) {
+            this.titulo = titulo;
+            this.encabezados = encabezados;
+            this.sql = sql;
+        }
+
+        public String getTitulo() {
+            return titulo;
+        }
+
+        private String sqlContar() {
+            // Mismo FROM/JOIN, sin columnas ni ORDER BY
+            return "SELECT COUNT(*) " + sql.substring(sql.indexOf("FROM")).replaceFirst("(?s)ORDER BY.*$", "");
+        }
+    }
+
+    /** Cantidad de filas que tendrá la exportación, para dimensionar la barra de progreso. */
+    public int contar(Tabla tabla) {
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(tabla.sqlContar());
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            System.out.println("❌ Error al contar filas de " + tabla.getTitulo() + ": " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Escribe la tabla completa en {@code archivo}. Cada
+     * {@code AVISAR_CADA} filas consulta {@code cancelado}; si devuelve
+     * true lanza CancellationException y borra el archivo a medio escribir.
+     * No se interrumpe el hilo: cortar una lectura JDBC a la mitad puede
+     * dejar inutilizable la conexión del pool (igual que en CargaTabla).
+     *
+     * @param progreso recibe las filas escritas hasta el momento; puede ser null
+     * @param cancelado se consulta desde el hilo que exporta; puede ser null
+     * @return cantidad de filas exportadas
+     */
+    public int exportar(Tabla tabla, File archivo, IntConsumer progreso, BooleanSupplier cancelado)
+            throws IOException, SQLException {
+        long inicio = System.nanoTime();
+        int filas = 0;
+        SXSSFWorkbook libro = new SXSSFWorkbook(VENTANA);
+        libro.setCompressTempFiles(true);
+        boolean completo = false;
+        try {
+            CellStyle estiloEncabezado = libro.createCellStyle();
+            Font negrita = libro.createFont();
+            negrita.setBold(true);
+            estiloEncabezado.setFont(negrita);
+            CellStyle estiloFecha = libro.createCellStyle();
+            estiloFecha.setDataFormat(libro.createDataFormat().getFormat("yyyy-mm-dd hh:mm"));
+
+            try (Connection con = Conexion.getConexion();
+                 PreparedStatement ps = con.prepareStatement(tabla.sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                Conexion.habilitarStreaming(ps);
+                try (ResultSet rs = ps.executeQuery()) {
+                    ResultSetMetaData meta = rs.getMetaData();
+                    int columnas = meta.getColumnCount();
+                    int[] tipos = new int[columnas];
+                    for (int c = 0; c < columnas; c++) {
+                        tipos[c] = meta.getColumnType(c + 1);
+                    }
+
+                    Sheet hoja = null;
+                    int filaHoja = MAX_FILAS_HOJA;
+                    while (rs.next()) {
+                        if (filaHoja == MAX_FILAS_HOJA) {
+                            int numero = libro.getNumberOfSheets() + 1;
+                            hoja = crearHoja(libro, numero == 1 ? tabla.titulo : tabla.titulo + " (" + numero + ")",
+                                    tabla.encabezados, estiloEncabezado);
+                            filaHoja = 1;
+                        }
+                        Row row = hoja.createRow(filaHoja++);
+                        for (int c = 0; c < columnas; c++) {
+                            escribirCelda(row, c, rs, tipos[c], estiloFecha);
+                        }
+                        filas++;
+                        if (filas % AVISAR_CADA == 0) {
+                            if (cancelado != null && cancelado.getAsBoolean()) {
+                                throw new CancellationException("Exportación cancelada");
+                            }
+                            if (progreso != null) {
+                                progreso.accept(filas);
+                            }
+                        }
+                    }
+                    if (hoja == null) {
+                        crearHoja(libro, tabla.titulo, tabla.encabezados, estiloEncabezado);
+                    }
+                }
+            }
+
+            try (OutputStream salida = new FileOutputStream(archivo)) {
+                libro.write(salida);
+            }
+            completo = true;
+        } finally {
+            libro.dispose();  // borra los temporales de SXSSF
+            libro.close();
+            if (!completo) {
+                archivo.delete();
+            }
+        }
+
+        if (progreso != null) {
+            progreso.accept(filas);
+        }
+        Runtime rt = Runtime.getRuntime();
+        System.out.println("📊 Exportación de " + tabla.getTitulo() + " a Excel: " + filas + " filas en "
+                + (System.nanoTime() - inicio) / 1_000_000 + " ms, heap en uso "
+                + (rt.totalMemory() - rt.freeMemory()) / (1024 * 1024) + " MB (ventana " + VENTANA + ")");
+        return filas;
+    }
+
+    private static Sheet crearHoja(SXSSFWorkbook libro, String nombre, String[] encabezados, CellStyle estilo) {
+        Sheet hoja = libro.createSheet(nombre);
+        hoja.setDefaultColumnWidth(18);
+        hoja.createFreezePane(0, 1);
+        Row row = hoja.createRow(0);
+        for (int c = 0; c < encabezados.length; c++) {
+            Cell celda = row.createCell(c);
+            celda.setCellValue(encabezados[c]);
+            celda.setCellStyle(estilo);
+        }
+        return hoja;
+    }
+
+    private static void escribirCelda(Row row, int c, ResultSet rs, int tipo, CellStyle estiloFecha) throws SQLException {
+        switch (tipo) {
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT,
+                 Types.DECIMAL, Types.NUMERIC, Types.REAL, Types.FLOAT, Types.DOUBLE -> {
+                double valor = rs.getDouble(c + 1);
+                if (!rs.wasNull()) {
+                    row.createCell(c).setCellValue(valor);
+                }
+            }
+            case Types.BIT, Types.BOOLEAN -> {
+                boolean valor = rs.getBoolean(c + 1);
+                if (!rs.wasNull()) {
+                    row.createCell(c).setCellValue(valor ? "Sí" : "No");
+                }
+            }
+            case Types.DATE, Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE -> {
+                Timestamp valor = rs.getTimestamp(c + 1);
+                if (valor != null) {
+                    Cell celda = row.createCell(c);
+                    celda.setCellValue(valor);
+                    celda.setCellStyle(estiloFecha);
+                }
+            }
+            default -> {
+                String valor = rs.getString(c + 1);
+                if (valor != null) {
+                    row.createCell(c).setCellValue(valor);
+                }
+            }
+        }
+    }
+}
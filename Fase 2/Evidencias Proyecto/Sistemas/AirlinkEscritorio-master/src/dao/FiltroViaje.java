@@ -0,0 +1,30 @@
+package dao;
+
+import java.sql.Timestamp;
+
+/**
+ * Criterios para {@link ViajeDAO#buscar}. Los campos en null (o los id en 0)
+ * no filtran. El rango de salida es [salidaDesde, salidaHasta).
+ */
+public class FiltroViaje {
+
+    private Timestamp salidaDesde;
+    private Timestamp salidaHasta;
+    private String estado;
+    private int idRuta;
+    private int idEquipo;
+    private int idDestino;
+
+    public Timestamp getSalidaDesde() { return salidaDesde; }
+    public void setSalidaDesde(Timestamp salidaDesde) { this.salidaDesde = salidaDesde; }
+    public Timestamp getSalidaHasta() { return salidaHasta; }
+    public void setSalidaHasta(Timestamp salidaHasta) { this.salidaHasta = salidaHasta; }
+    public String getEstado() { return estado; }
+    public void setEstado(String estado) { this.estado = estado; }
+    public int getIdRuta() { return idRuta; }
+    public void setIdRuta(int idRuta) { this.idRuta = idRuta; }
+    public int getIdEquipo() { return idEquipo; }
+    public void setIdEquipo(int idEquipo) { this.idEquipo = idEquipo; }
+    public int getIdDestino() { return idDestino; }
+    public void setIdDestino(int idDestino) { this.idDestino = idDestino; }
+}
@@ -0,0 +1,64 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Lectura de los horarios reales (viaje + viaje_tramo) para armar tablas de
+ * conexiones. Un viaje sin filas en viaje_tramo se entrega como un solo
+ * tramo entre los terminales de su ruta.
+ */
+public class HorarioDAO {
+
+    /** Recibe los tramos en orden de idViaje y luego de viaje_tramo.orden. */
+    public interface LectorTramos {
+        void tramo(int idViaje, String estado, Timestamp salidaViaje, int idTerminalSalida, int idTerminalLlegada,
+                   Timestamp salida, Timestamp llegada);
+    }
+
+    public boolean leerTramos(LectorTramos lector) {
+        return leer("", 0, lector);
+    }
+
+    /** Solo los tramos de un viaje; si el viaje ya no existe no llama al lector. */
+    public boolean leerTramosDeViaje(int idViaje, LectorTramos lector) {
+        return leer("WHERE v.idViaje = ?", idViaje, lector);
+    }
+
+    private boolean leer(String filtro, int idViaje, LectorTramos lector) {
+        String sql = """
+            SELECT v.idViaje, v.estado, v.salida AS salidaViaje,
+                   COALESCE(vt.idTerminalSalida, r.idTerminalOrigen) AS desde,
+                   COALESCE(vt.idTerminalLlegada, r.idTerminalDestino) AS hasta,
+                   COALESCE(vt.hora_salida, v.salida) AS salida,
+                   COALESCE(vt.hora_llegada, v.llegada) AS llegada
+            FROM viaje v
+            JOIN ruta r ON v.idRuta = r.idRuta
+            LEFT JOIN viaje_tramo vt ON vt.idViaje = v.idViaje
+            """ + filtro + """
+
+            ORDER BY v.idViaje, vt.orden
+            """;
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            if (filtro.isEmpty()) {
+                Conexion.habilitarStreaming(ps);
+            } else {
+                ps.setInt(1, idViaje);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    lector.tramo(rs.getInt("idViaje"), rs.getString("estado"), rs.getTimestamp("salidaViaje"),
+                            rs.getInt("desde"), rs.getInt("hasta"), rs.getTimestamp("salida"), rs.getTimestamp("llegada"));
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            System.out.println("❌ Error al leer horarios: " + e.getMessage());
+            return false;
+        }
+    }
+}
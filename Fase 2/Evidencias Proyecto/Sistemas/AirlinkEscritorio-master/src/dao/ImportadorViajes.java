@@ -0,0 +1,388 @@
+package dao;
+
+import Modelo.Viaje;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.IntStream;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+
+/**
+ * Carga masiva de viajes desde CSV (separado por coma o punto y coma) o
+ * Excel (.xlsx / .xls, primera hoja).
+ *
+ * La primera fila debe traer los encabezados: ruta, equipo, salida, llegada
+ * y opcionalmente estado y destino. La ruta puede ser el idRuta o los
+ * códigos de terminal "SCL-PMC"; el equipo, el idEquipo o la matrícula; el
+ * destino, el idDestino o su nombre. Rutas, equipos y destinos se leen una
+ * sola vez, las filas se validan en paralelo y las válidas se insertan con
+ * {@link ViajeDAO#agregarLote}. Las filas con error no detienen la carga:
+ * quedan en el resultado con su número de línea.
+ */
+public class ImportadorViajes {
+
+    private static final int TAMANO_LOTE = Integer.getInteger("airlink.importacion.lote", 1000);
+    private static final List<DateTimeFormatter> FORMATOS_FECHA = Arrays.asList(
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm[:ss]"),
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm[:ss]"),
+            DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm[:ss]"),
+            DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm[:ss]"));
+
+    private final ViajeDAO viajeDAO = new ViajeDAO();
+
+    // ============================
+    // IMPORTAR
+    // ============================
+    public Resultado importar(File archivo) throws IOException {
+        long inicio = System.nanoTime();
+        List<FilaLeida> filas = leer(archivo);
+        Resultado resultado = new Resultado();
+        if (filas.isEmpty()) {
+            resultado.errores.add(new ErrorFila(1, "El archivo está vacío"));
+            return resultado;
+        }
+
+        FilaLeida encabezado = filas.get(0);
+        Map<String, Integer> columnas = columnas(encabezado.campos);
+        for (String requerida : new String[] {"ruta", "equipo", "salida", "llegada"}) {
+            if (!columnas.containsKey(requerida)) {
+                resultado.errores.add(new ErrorFila(encabezado.linea, "Falta la columna '" + requerida + "'"));
+            }
+        }
+        if (!resultado.errores.isEmpty()) {
+            return resultado;
+        }
+
+        Referencias refs = cargarReferencias();
+        int n = filas.size() - 1;
+        resultado.leidas = n;
+
+        // Validación en paralelo: cada posición se escribe desde un solo hilo
+        Viaje[] viajes = new Viaje[n];
+        String[] errores = new String[n];
+        IntStream.range(0, n).parallel().forEach(i -> {
+            try {
+                viajes[i] = convertir(filas.get(i + 1).campos, columnas, refs);
+            } catch (IllegalArgumentException e) {
+                errores[i] = e.getMessage();
+            }
+        });
+        long validacion = System.nanoTime();
+
+        // Los errores se informan con la línea (o fila de la hoja) tal como está en el archivo
+        List<Viaje> validos = new ArrayList<>(n);
+        List<Integer> lineas = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int linea = filas.get(i + 1).linea;
+            if (viajes[i] != null) {
+                validos.add(viajes[i]);
+                lineas.add(linea);
+            } else {
+                resultado.errores.add(new ErrorFila(linea, errores[i]));
+            }
+        }
+
+        List<ErrorFila> erroresInsercion = Collections.synchronizedList(new ArrayList<>());
+        resultado.insertadas = viajeDAO.agregarLote(validos, TAMANO_LOTE,
+                (i, mensaje) -> erroresInsercion.add(new ErrorFila(lineas.get(i), mensaje)));
+        resultado.errores.addAll(erroresInsercion);
+        resultado.errores.sort((a, b) -> Integer.compare(a.linea, b.linea));
+
+        long fin = System.nanoTime();
+        resultado.validacionMs = (validacion - inicio) / 1_000_000;
+        resultado.duracionMs = (fin - inicio) / 1_000_000;
+        System.out.println("📥 Importación de viajes: " + resultado);
+        return resultado;
+    }
+
+    private Viaje convertir(String[] fila, Map<String, Integer> columnas, Referencias refs) {
+        Viaje v = new Viaje();
+
+        String ruta = valor(fila, columnas, "ruta");
+        Integer idRuta = refs.rutas.get(ruta.toUpperCase(Locale.ROOT).replace(" ", ""));
+        if (idRuta == null) {
+            throw new IllegalArgumentException("Ruta desconocida: '" + ruta + "'");
+        }
+        v.setIdRuta(idRuta);
+
+        String equipo = valor(fila, columnas, "equipo");
+        Integer idEquipo = refs.equipos.get(equipo.toUpperCase(Locale.ROOT));
+        if (idEquipo == null) {
+            throw new IllegalArgumentException("Equipo desconocido o inactivo: '" + equipo + "'");
+        }
+        v.setIdEquipo(idEquipo);
+
+        v.setSalida(fecha(valor(fila, columnas, "salida"), "salida"));
+        v.setLlegada(fecha(valor(fila, columnas, "llegada"), "llegada"));
+        if (!v.getLlegada().after(v.getSalida())) {
+            throw new IllegalArgumentException("La llegada debe ser posterior a la salida");
+        }
+
+        String estado = valor(fila, columnas, "estado").toLowerCase(Locale.ROOT);
+        if (estado.isEmpty()) {
+            estado = "programado";
+        } else if (estado.length() > 30) {
+            throw new IllegalArgumentException("Estado demasiado largo: '" + estado + "'");
+        }
+        v.setEstado(estado);
+
+        String destino = valor(fila, columnas, "destino");
+        if (!destino.isEmpty()) {
+            Integer idDestino = refs.destinos.get(destino.toLowerCase(Locale.ROOT));
+            if (idDestino == null) {
+                throw new IllegalArgumentException("Destino desconocido: '" + destino + "'");
+            }
+            v.setIdDestino(idDestino);
+        }
+        return v;
+    }
+
+    private static String valor(String[] fila, Map<String, Integer> columnas, String nombre) {
+        Integer i = columnas.get(nombre);
+        if (i == null || i >= fila.length || fila[i] == null) {
+            return "";
+        }
+        return fila[i].trim();
+    }
+
+    private static Timestamp fecha(String texto, String campo) {
+        if (texto.isEmpty()) {
+            throw new IllegalArgumentException("Falta la " + campo);
+        }
+        for (DateTimeFormatter formato : FORMATOS_FECHA) {
+            try {
+                return Timestamp.valueOf(LocalDateTime.parse(texto, formato));
+            } catch (DateTimeParseException e) {
+                // probar el siguiente formato
+            }
+        }
+        throw new IllegalArgumentException("Fecha de " + campo + " no válida: '" + texto + "'");
+    }
+
+    private static Map<String, Integer> columnas(String[] encabezado) {
+        Map<String, Integer> columnas = new HashMap<>();
+        for (int i = 0; i < encabezado.length; i++) {
+            String nombre = encabezado[i] == null ? "" : encabezado[i].trim().toLowerCase(Locale.ROOT);
+            if (nombre.startsWith("id")) {
+                nombre = nombre.substring(2);  // idRuta -> ruta
+            }
+            columnas.putIfAbsent(nombre, i);
+        }
+        return columnas;
+    }
+
+    // ============================
+    // REFERENCIAS (una consulta por tabla)
+    // ============================
+    private static class Referencias {
+        final Map<String, Integer> rutas = new HashMap<>();
+        final Map<String, Integer> equipos = new HashMap<>();
+        final Map<String, Integer> destinos = new HashMap<>();
+    }
+
+    private Referencias cargarReferencias() throws IOException {
+        Referencias refs = new Referencias();
+        try (Connection con = Conexion.getConexion()) {
+            String sqlRutas = """
+                SELECT r.idRuta, t1.codigo AS origen, t2.codigo AS destino
+                FROM ruta r
+                JOIN terminal t1 ON r.idTerminalOrigen = t1.idTerminal
+                JOIN terminal t2 ON r.idTerminalDestino = t2.idTerminal
+                """;
+            try (PreparedStatement ps = con.prepareStatement(sqlRutas);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int id = rs.getInt("idRuta");
+                    refs.rutas.put(String.valueOf(id), id);
+                    refs.rutas.putIfAbsent((rs.getString("origen") + "-" + rs.getString("destino")).toUpperCase(Locale.ROOT), id);
+                }
+            }
+            try (PreparedStatement ps = con.prepareStatement("SELECT idEquipo, matricula FROM empresa_equipo WHERE activo = 1");
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int id = rs.getInt("idEquipo");
+                    refs.equipos.put(String.valueOf(id), id);
+                    refs.equipos.put(rs.getString("matricula").toUpperCase(Locale.ROOT), id);
+                }
+            }
+            try (PreparedStatement ps = con.prepareStatement("SELECT idDestino, nombre FROM destino");
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int id = rs.getInt("idDestino");
+                    refs.destinos.put(String.valueOf(id), id);
+                    refs.destinos.putIfAbsent(rs.getString("nombre").toLowerCase(Locale.ROOT), id);
+                }
+            }
+        } catch (SQLException e) {
+            throw new IOException("No se pudieron leer rutas/equipos/destinos: " + e.getMessage(), e);
+        }
+        return refs;
+    }
+
+    // ============================
+    // LECTURA DE ARCHIVOS
+    // ============================
+    /** Una fila del archivo con su número de línea (base 1), contando las vacías que se saltan. */
+    private static class FilaLeida {
+        final int linea;
+        final String[] campos;
+
+        FilaLeida(int linea, String[] campos) {
+            this.linea = linea;
+            this.campos = campos;
+        }
+    }
+
+    private static List<FilaLeida> leer(File archivo) throws IOException {
+        String nombre = archivo.getName().toLowerCase(Locale.ROOT);
+        if (nombre.endsWith(".xlsx") || nombre.endsWith(".xls")) {
+            return leerExcel(archivo);
+        }
+        return leerCsv(archivo);
+    }
+
+    private static List<FilaLeida> leerExcel(File archivo) throws IOException {
+        List<FilaLeida> filas = new ArrayList<>();
+        DataFormatter formato = new DataFormatter();
+        SimpleDateFormat fechaHora = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        try (Workbook libro = WorkbookFactory.create(archivo, null, true)) {
+            Sheet hoja = libro.getSheetAt(0);
+            for (Row row : hoja) {
+                int ultima = Math.max(row.getLastCellNum(), 0);
+                String[] fila = new String[ultima];
+                for (int c = 0; c < ultima; c++) {
+                    Cell celda = row.getCell(c);
+                    if (celda == null) {
+                        fila[c] = "";
+                    } else if (celda.getCellTypeEnum() == CellType.NUMERIC && DateUtil.isCellDateFormatted(celda)) {
+                        fila[c] = fechaHora.format(celda.getDateCellValue());
+                    } else {
+                        fila[c] = formato.formatCellValue(celda);
+                    }
+                }
+                // El iterador se salta las filas que no existen en la hoja; el número es el de la hoja
+                filas.add(new FilaLeida(row.getRowNum() + 1, fila));
+            }
+        } catch (org.apache.poi.openxml4j.exceptions.InvalidFormatException e) {
+            throw new IOException("Archivo Excel no válido: " + e.getMessage(), e);
+        }
+        return filas;
+    }
+
+    private static List<FilaLeida> leerCsv(File archivo) throws IOException {
+        List<FilaLeida> filas = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(archivo.toPath(), StandardCharsets.UTF_8)) {
+            String linea;
+            int numero = 0;
+            char separador = 0;
+            while ((linea = in.readLine()) != null) {
+                numero++;
+                if (numero == 1 && linea.startsWith("\uFEFF")) {
+                    linea = linea.substring(1);  // BOM de Excel
+                }
+                if (linea.isBlank()) {
+                    continue;
+                }
+                if (separador == 0) {
+                    separador = linea.indexOf(';') >= 0 && linea.indexOf(',') < 0 ? ';' : ',';
+                }
+                filas.add(new FilaLeida(numero, dividirCsv(linea, separador)));
+            }
+        }
+        return filas;
+    }
+
+    private static String[] dividirCsv(String linea, char separador) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (c == '"') {
+                if (entreComillas && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else {
+                    entreComillas = !entreComillas;
+                }
+            } else if (c == separador && !entreComillas) {
+                campos.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        campos.add(actual.toString());
+        return campos.toArray(new String[0]);
+    }
+
+    // ============================
+    // RESULTADO
+    // ============================
+    public static class ErrorFila {
+        private final int linea;
+        private final String mensaje;
+
+        ErrorFila(int linea, String mensaje) {
+            this.linea = linea;
+            this.mensaje = mensaje;
+        }
+
+        public int getLinea() { return linea; }
+        public String getMensaje() { return mensaje; }
+
+        @Override
+        public String toString() {
+            return "Línea " + linea + ": " + mensaje;
+        }
+    }
+
+    public static class Resultado {
+        private int leidas;
+        private int insertadas;
+        private long validacionMs;
+        private long duracionMs;
+        private final List<ErrorFila> errores = new ArrayList<>();
+
+        public int getLeidas() { return leidas; }
+        public int getInsertadas() { return insertadas; }
+        public long getDuracionMs() { return duracionMs; }
+        public List<ErrorFila> getErrores() { return errores; }
+
+        public double getFilasPorSegundo() {
+            return duracionMs == 0 ? insertadas : insertadas * 1000.0 / duracionMs;
+        }
+
+        @Override
+        public String toString() {
+            return insertadas + "/" + leidas + " filas insertadas, " + errores.size() + " con error, "
+                    + duracionMs + " ms (validación " + validacionMs + " ms), "
+                    + String.format("%.0f", getFilasPorSegundo()) + " filas/s";
+        }
+    }
+}
@@ -5,19 +5,15 @@ import java.sql.*;
 import org.mindrot.jbcrypt.BCrypt;
 
 public class LoginDAO {
-    Connection con;
-    PreparedStatement ps;
-    ResultSet rs;
 
 public Usuario log(String correo, String passIngresada) {
     Usuario usuario = null;
     String sql = "SELECT * FROM usuario WHERE email = ?";
 
-    try {
-        con = Conexion.getConexion();
-        ps = con.prepareStatement(sql);
+    try (Connection con = Conexion.getConexion();
+         PreparedStatement ps = con.prepareStatement(sql)) {
         ps.setString(1, correo);
-        rs = ps.executeQuery();
+        ResultSet rs = ps.executeQuery(); // se cierra junto con ps
 
         if (rs.next()) {
             String hashGuardado = rs.getString("contrasena");
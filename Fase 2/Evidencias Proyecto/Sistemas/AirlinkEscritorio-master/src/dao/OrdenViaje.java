@@ -0,0 +1,38 @@
+package dao;
+
+import Modelo.Viaje;
+
+/**
+ * Columnas por las que se pueden ordenar (y paginar) los viajes. El orden
+ * siempre se desempata por idViaje, así cada fila tiene una clave única.
+ */
+public enum OrdenViaje {
+
+    ID("v.idViaje"),
+    SALIDA("v.salida"),
+    LLEGADA("v.llegada"),
+    ESTADO("COALESCE(v.estado, '')"),
+    DESTINO("COALESCE(v.idDestino, 0)");
+
+    final String expresion;
+
+    OrdenViaje(String expresion) {
+        this.expresion = expresion;
+    }
+
+    // Valor de la columna de orden para una fila, con el mismo COALESCE que el SQL
+    Object clave(Viaje v) {
+        switch (this) {
+            case SALIDA:
+                return v.getSalida();
+            case LLEGADA:
+                return v.getLlegada();
+            case ESTADO:
+                return v.getEstado() == null ? "" : v.getEstado();
+            case DESTINO:
+                return v.getIdDestino();
+            default:
+                return v.getIdViaje();
+        }
+    }
+}
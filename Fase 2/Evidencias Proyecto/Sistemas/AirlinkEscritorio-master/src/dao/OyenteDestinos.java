@@ -0,0 +1,16 @@
+package dao;
+
+import Modelo.Destino;
+
+/**
+ * Se registra con {@link DestinoDAO#agregarOyente} para enterarse de los
+ * cambios en la tabla destino hechos a través del DAO. Se llama en el hilo
+ * que hizo el cambio, después de que la sentencia se ejecutó con éxito.
+ */
+public interface OyenteDestinos {
+
+    /** Destino agregado o actualizado; ya trae su idDestino. */
+    void destinoGuardado(Destino destino);
+
+    void destinoEliminado(int idDestino);
+}
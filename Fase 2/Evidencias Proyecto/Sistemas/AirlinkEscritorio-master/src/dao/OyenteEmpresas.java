@@ -0,0 +1,16 @@
+package dao;
+
+import Modelo.Empresa;
+
+/**
+ * Se registra con {@link EmpresaDAO#agregarOyente} para enterarse de los
+ * cambios en la tabla empresa hechos a través del DAO. Se llama en el hilo
+ * que hizo el cambio, después de que la sentencia se ejecutó con éxito.
+ */
+public interface OyenteEmpresas {
+
+    /** Empresa agregada o actualizada; ya trae su idEmpresa. */
+    void empresaGuardada(Empresa empresa);
+
+    void empresaEliminada(int idEmpresa);
+}
@@ -0,0 +1,16 @@
+package dao;
+
+import Modelo.Ruta;
+
+/**
+ * Se registra con {@link RutaDAO#agregarOyente} para enterarse de los
+ * cambios en la tabla ruta hechos a través del DAO. Se llama en el hilo que
+ * hizo el cambio, después de que la sentencia se ejecutó con éxito.
+ */
+public interface OyenteRutas {
+
+    /** Ruta agregada o actualizada; ya trae su idRuta. */
+    void rutaGuardada(Ruta ruta);
+
+    void rutaEliminada(int idRuta);
+}
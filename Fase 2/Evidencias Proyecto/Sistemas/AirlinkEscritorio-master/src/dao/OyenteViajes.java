@@ -0,0 +1,20 @@
+package dao;
+
+import Modelo.Viaje;
+
+/**
+ * Se registra con {@link ViajeDAO#agregarOyente} para enterarse de los
+ * cambios en la tabla viaje hechos a través del DAO. Se llama en el hilo que
+ * hizo el cambio, después de que la sentencia se ejecutó con éxito.
+ */
+public interface OyenteViajes {
+
+    /** Viaje agregado o actualizado (también demoras y cancelaciones); ya trae su idViaje. */
+    void viajeGuardado(Viaje viaje);
+
+    void viajeEliminado(int idViaje);
+
+    /** Muchos viajes nuevos de una vez (carga masiva): conviene releer la tabla. */
+    default void cargaMasiva() {
+    }
+}
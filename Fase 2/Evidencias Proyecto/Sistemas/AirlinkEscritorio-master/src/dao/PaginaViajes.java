@@ -0,0 +1,29 @@
+package dao;
+
+import Modelo.Viaje;
+import java.util.List;
+
+/** Una página de {@link ViajeDAO#buscar} y el cursor para pedir la siguiente. */
+public class PaginaViajes {
+
+    private final List<Viaje> viajes;
+    private final CursorViaje siguiente;
+
+    PaginaViajes(List<Viaje> viajes, CursorViaje siguiente) {
+        this.viajes = viajes;
+        this.siguiente = siguiente;
+    }
+
+    public List<Viaje> getViajes() {
+        return viajes;
+    }
+
+    /** Cursor de la página siguiente, o null si esta es la última. */
+    public CursorViaje getSiguiente() {
+        return siguiente;
+    }
+
+    public boolean hayMas() {
+        return siguiente != null;
+    }
+}
@@ -0,0 +1,451 @@
+package dao;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.ObjectName;
+
+/**
+ * Pool de conexiones JDBC usado por {@link Conexion}.
+ *
+ * Las conexiones que entrega son envoltorios: al llamar close() la conexión
+ * física vuelve al pool en vez de cerrarse. El tamaño está acotado por
+ * maxConexiones, las conexiones inactivas se descartan pasado el tiempo de
+ * inactividad, se validan al prestarse y se avisa por consola cuando alguien
+ * retiene una conexión más allá del umbral de fuga.
+ *
+ * Cada conexión física lleva su propia {@link CacheSentencias}, de modo que
+ * prepareStatement(sql) reutiliza la sentencia ya preparada en esa conexión.
+ */
+public class PoolConexiones implements PoolConexionesMBean, AutoCloseable {
+
+    // Si la conexión se usó hace menos de esto no se vuelve a validar al prestarla
+    private static final long VALIDACION_OMITIDA_MS = 500;
+
+    private final String url;
+    private final String usuario;
+    private final String password;
+
+    private final int maxConexiones;
+    private final int minInactivas;
+    private final long timeoutEsperaMs;
+    private final long inactividadMs;
+    private final long umbralFugaMs;
+    private final int timeoutValidacionSeg;
+    private final int tamanoCacheSentencias;
+
+    private final Semaphore permisos;
+    private final LinkedBlockingDeque<ConexionFisica> inactivas = new LinkedBlockingDeque<>();
+    private final Set<ConexionFisica> prestadas = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService mantenimiento;
+    private volatile boolean cerrado;
+
+    // Métricas
+    private final AtomicInteger totales = new AtomicInteger();
+    private final AtomicLong prestamos = new AtomicLong();
+    private final AtomicLong esperaTotalNanos = new AtomicLong();
+    private final AtomicLong esperaMaximaNanos = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong creadas = new AtomicLong();
+    private final AtomicLong descartadas = new AtomicLong();
+    private final AtomicLong fugas = new AtomicLong();
+
+    public PoolConexiones(String url, String usuario, String password,
+                          int maxConexiones, int minInactivas, long timeoutEsperaMs,
+                          long inactividadMs, long umbralFugaMs, int timeoutValidacionSeg,
+                          int tamanoCacheSentencias) {
+        if (maxConexiones < 1) {
+            throw new IllegalArgumentException("maxConexiones debe ser >= 1");
+        }
+        this.url = url;
+        this.usuario = usuario;
+        this.password = password;
+        this.maxConexiones = maxConexiones;
+        this.minInactivas = Math.min(Math.max(minInactivas, 0), maxConexiones);
+        this.timeoutEsperaMs = timeoutEsperaMs;
+        this.inactividadMs = inactividadMs;
+        this.umbralFugaMs = umbralFugaMs;
+        this.timeoutValidacionSeg = timeoutValidacionSeg;
+        this.tamanoCacheSentencias = tamanoCacheSentencias;
+        this.permisos = new Semaphore(maxConexiones, true);
+
+        this.mantenimiento = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "airlink-pool-mantenimiento");
+            t.setDaemon(true);
+            return t;
+        });
+        long periodo = Math.max(1000, (umbralFugaMs > 0 ? Math.min(inactividadMs, umbralFugaMs) : inactividadMs) / 2);
+        mantenimiento.scheduleWithFixedDelay(this::mantener, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Crea el pool leyendo tamaños y tiempos desde propiedades del sistema
+     * (-Dairlink.pool.max=10, -Dairlink.pool.minInactivas=2, ...). Con
+     * -Dairlink.pool.cacheSentencias=0 se desactiva la caché de sentencias y
+     * con -Dairlink.pool.fugaMs=0 la detección de fugas.
+     */
+    public static PoolConexiones desdePropiedades(String url, String usuario, String password) {
+        return new PoolConexiones(url, usuario, password,
+                Integer.getInteger("airlink.pool.max", 10),
+                Integer.getInteger("airlink.pool.minInactivas", 2),
+                Long.getLong("airlink.pool.timeoutEsperaMs", 30_000L),
+                Long.getLong("airlink.pool.inactividadMs", 600_000L),
+                Long.getLong("airlink.pool.fugaMs", 60_000L),
+                Integer.getInteger("airlink.pool.validacionSeg", 2),
+                Integer.getInteger("airlink.pool.cacheSentencias", 50));
+    }
+
+    // ============================
+    // PRESTAR / DEVOLVER
+    // ============================
+    public Connection obtener() throws SQLException {
+        if (cerrado) {
+            throw new SQLException("El pool de conexiones está cerrado");
+        }
+        long inicio = System.nanoTime();
+        try {
+            if (!permisos.tryAcquire(timeoutEsperaMs, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new SQLException("Tiempo de espera agotado (" + timeoutEsperaMs
+                        + " ms) esperando una conexión libre; activas=" + prestadas.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido esperando una conexión", e);
+        }
+
+        ConexionFisica fisica;
+        try {
+            fisica = tomarInactivaValida();
+            if (fisica == null) {
+                fisica = crear();
+            }
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+
+        registrarEspera(System.nanoTime() - inicio);
+        fisica.prestadaEn = System.currentTimeMillis();
+        // Capturar la pila cuesta; solo se hace si alguien la va a mirar
+        fisica.origen = umbralFugaMs > 0 ? new Throwable("Conexión prestada a " + Thread.currentThread().getName()) : null;
+        fisica.fugaReportada = false;
+        prestadas.add(fisica);
+        return fisica.envolver();
+    }
+
+    private ConexionFisica tomarInactivaValida() {
+        ConexionFisica fisica;
+        // LIFO: la conexión usada más recientemente es la que más probablemente siga viva
+        while ((fisica = inactivas.pollFirst()) != null) {
+            if (esValida(fisica)) {
+                return fisica;
+            }
+            descartar(fisica, "falló la validación");
+        }
+        return null;
+    }
+
+    private boolean esValida(ConexionFisica fisica) {
+        if (System.currentTimeMillis() - fisica.ultimoUso < VALIDACION_OMITIDA_MS) {
+            return true;
+        }
+        try {
+            return fisica.real.isValid(timeoutValidacionSeg);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private ConexionFisica crear() throws SQLException {
+        Connection real = DriverManager.getConnection(url, usuario, password);
+        totales.incrementAndGet();
+        creadas.incrementAndGet();
+        System.out.println("✅ Nueva conexión física a la base de datos Airlink (" + totales.get() + "/" + maxConexiones + ")");
+        return new ConexionFisica(real);
+    }
+
+    private void devolver(ConexionFisica fisica, boolean rota) {
+        prestadas.remove(fisica);
+        try {
+            if (rota || cerrado) {
+                descartar(fisica, rota ? "conexión rota" : "pool cerrado");
+                return;
+            }
+            try {
+                if (!fisica.real.getAutoCommit()) {
+                    fisica.real.rollback();
+                    fisica.real.setAutoCommit(true);
+                }
+                fisica.real.clearWarnings();
+            } catch (SQLException e) {
+                descartar(fisica, "no se pudo restablecer su estado");
+                return;
+            }
+            fisica.ultimoUso = System.currentTimeMillis();
+            inactivas.offerFirst(fisica);
+        } finally {
+            permisos.release();
+        }
+    }
+
+    private void descartar(ConexionFisica fisica, String motivo) {
+        totales.decrementAndGet();
+        descartadas.incrementAndGet();
+        fisica.cache.cerrarTodo();
+        try {
+            fisica.real.close();
+        } catch (SQLException e) {
+            // la conexión ya no sirve; no hay nada más que hacer
+        }
+        System.out.println("♻️ Conexión descartada del pool: " + motivo);
+    }
+
+    private void registrarEspera(long nanos) {
+        prestamos.incrementAndGet();
+        esperaTotalNanos.addAndGet(nanos);
+        esperaMaximaNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    // ============================
+    // MANTENIMIENTO (inactividad y fugas)
+    // ============================
+    private void mantener() {
+        try {
+            long ahora = System.currentTimeMillis();
+
+            // Expulsar inactivas antiguas, conservando el mínimo configurado
+            Iterator<ConexionFisica> it = inactivas.descendingIterator();
+            while (it.hasNext() && inactivas.size() > minInactivas) {
+                ConexionFisica fisica = it.next();
+                if (ahora - fisica.ultimoUso > inactividadMs && inactivas.removeFirstOccurrence(fisica)) {
+                    descartar(fisica, "inactiva por más de " + inactividadMs + " ms");
+                }
+            }
+
+            // Avisar de conexiones retenidas demasiado tiempo
+            for (ConexionFisica fisica : prestadas) {
+                if (umbralFugaMs > 0 && !fisica.fugaReportada && ahora - fisica.prestadaEn > umbralFugaMs) {
+                    fisica.fugaReportada = true;
+                    fugas.incrementAndGet();
+                    System.out.println("⚠️ Posible fuga: conexión retenida " + (ahora - fisica.prestadaEn)
+                            + " ms sin devolverse al pool. Origen:");
+                    fisica.origen.printStackTrace(System.out);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.out.println("❌ Error en el mantenimiento del pool: " + e);
+        }
+    }
+
+    /**
+     * Publica las métricas del pool en el servidor JMX de la plataforma.
+     */
+    public void registrarJmx(String nombre) {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                    .registerMBean(this, new ObjectName("airlink:type=PoolConexiones,name=" + nombre));
+        } catch (Exception e) {
+            System.out.println("⚠️ No se pudieron publicar las métricas del pool por JMX: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        cerrado = true;
+        mantenimiento.shutdownNow();
+        ConexionFisica fisica;
+        while ((fisica = inactivas.pollFirst()) != null) {
+            descartar(fisica, "pool cerrado");
+        }
+    }
+
+    // ============================
+    // MÉTRICAS
+    // ============================
+    @Override
+    public int getConexionesActivas() { return prestadas.size(); }
+
+    @Override
+    public int getConexionesInactivas() { return inactivas.size(); }
+
+    @Override
+    public int getConexionesTotales() { return totales.get(); }
+
+    @Override
+    public int getMaxConexiones() { return maxConexiones; }
+
+    @Override
+    public int getHilosEsperando() { return permisos.getQueueLength(); }
+
+    @Override
+    public long getTotalPrestamos() { return prestamos.get(); }
+
+    @Override
+    public double getEsperaPromedioMs() {
+        long n = prestamos.get();
+        return n == 0 ? 0 : esperaTotalNanos.get() / 1_000_000.0 / n;
+    }
+
+    @Override
+    public double getEsperaMaximaMs() { return esperaMaximaNanos.get() / 1_000_000.0; }
+
+    @Override
+    public long getTimeoutsEspera() { return timeouts.get(); }
+
+    @Override
+    public long getConexionesCreadas() { return creadas.get(); }
+
+    @Override
+    public long getConexionesDescartadas() { return descartadas.get(); }
+
+    @Override
+    public long getFugasDetectadas() { return fugas.get(); }
+
+    @Override
+    public long getAciertosCacheSentencias() { return CacheSentencias.getAciertos(); }
+
+    @Override
+    public long getFallosCacheSentencias() { return CacheSentencias.getFallos(); }
+
+    @Override
+    public long getDesalojosCacheSentencias() { return CacheSentencias.getDesalojos(); }
+
+    @Override
+    public double getTasaAciertosCacheSentencias() { return CacheSentencias.getTasaAciertos(); }
+
+    @Override
+    public String toString() {
+        return String.format("Pool[activas=%d, inactivas=%d, max=%d, esperando=%d, préstamos=%d, espera prom=%.2f ms, espera máx=%.2f ms, fugas=%d, caché sentencias=%d/%d (%.0f%%)]",
+                getConexionesActivas(), getConexionesInactivas(), maxConexiones, getHilosEsperando(),
+                getTotalPrestamos(), getEsperaPromedioMs(), getEsperaMaximaMs(), getFugasDetectadas(),
+                getAciertosCacheSentencias(), getAciertosCacheSentencias() + getFallosCacheSentencias(),
+                getTasaAciertosCacheSentencias() * 100);
+    }
+
+    // ============================
+    // CONEXIÓN FÍSICA Y ENVOLTORIO
+    // ============================
+    private final class ConexionFisica {
+        final Connection real;
+        final CacheSentencias cache;
+        volatile long ultimoUso = System.currentTimeMillis();
+        volatile long prestadaEn;
+        volatile Throwable origen;
+        volatile boolean fugaReportada;
+
+        ConexionFisica(Connection real) {
+            this.real = real;
+            this.cache = new CacheSentencias(real, tamanoCacheSentencias);
+        }
+
+        Connection envolver() {
+            return (Connection) Proxy.newProxyInstance(
+                    PoolConexiones.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new ConexionPrestada(this));
+        }
+    }
+
+    /**
+     * Lo que ve el DAO: delega todo en la conexión física salvo close(), que
+     * cierra las sentencias abiertas y devuelve la conexión al pool.
+     */
+    private final class ConexionPrestada implements InvocationHandler {
+        private final ConexionFisica fisica;
+        private final List<Statement> sentencias = new ArrayList<>();
+        private boolean cerrada;
+        private boolean rota;
+
+        ConexionPrestada(ConexionFisica fisica) {
+            this.fisica = fisica;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            switch (metodo.getName()) {
+                case "close":
+                    cerrar();
+                    return null;
+                case "isClosed":
+                    return cerrada;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "ConexionPrestada[" + fisica.real + "]";
+                default:
+                    break;
+            }
+            if (cerrada) {
+                throw new SQLException("La conexión ya fue devuelta al pool");
+            }
+            try {
+                Object resultado;
+                if ("prepareStatement".equals(metodo.getName()) && args.length == 1) {
+                    resultado = fisica.cache.preparar((String) args[0]);
+                    sentencias.add((Statement) resultado);
+                    return resultado;
+                }
+                resultado = metodo.invoke(fisica.real, args);
+                if (resultado instanceof Statement) {
+                    sentencias.add((Statement) resultado);
+                }
+                return resultado;
+            } catch (InvocationTargetException e) {
+                throw marcarSiRota(e.getCause());
+            } catch (SQLException e) {
+                throw marcarSiRota(e);
+            }
+        }
+
+        private Throwable marcarSiRota(Throwable causa) {
+            if (causa instanceof SQLException && esErrorDeConexion((SQLException) causa)) {
+                rota = true;
+            }
+            return causa;
+        }
+
+        private void cerrar() {
+            if (cerrada) {
+                return;
+            }
+            cerrada = true;
+            // las sentencias cacheadas solo se liberan; el resto se cierra
+            for (Statement st : sentencias) {
+                try {
+                    st.close();
+                } catch (SQLException e) {
+                    // se descarta junto con la conexión si está rota
+                }
+            }
+            sentencias.clear();
+            devolver(fisica, rota);
+        }
+    }
+
+    // SQLState clase 08 = errores de conexión
+    private static boolean esErrorDeConexion(SQLException e) {
+        String estado = e.getSQLState();
+        return estado != null && estado.startsWith("08");
+    }
+}
@@ -0,0 +1,39 @@
+package dao;
+
+/**
+ * Métricas del pool de conexiones publicadas por JMX (jconsole / VisualVM).
+ */
+public interface PoolConexionesMBean {
+
+    int getConexionesActivas();
+
+    int getConexionesInactivas();
+
+    int getConexionesTotales();
+
+    int getMaxConexiones();
+
+    int getHilosEsperando();
+
+    long getTotalPrestamos();
+
+    double getEsperaPromedioMs();
+
+    double getEsperaMaximaMs();
+
+    long getTimeoutsEspera();
+
+    long getConexionesCreadas();
+
+    long getConexionesDescartadas();
+
+    long getFugasDetectadas();
+
+    long getAciertosCacheSentencias();
+
+    long getFallosCacheSentencias();
+
+    long getDesalojosCacheSentencias();
+
+    double getTasaAciertosCacheSentencias();
+}
@@ -1,15 +1,31 @@
 package dao;
 
+import java.io.File;
 import java.io.FileOutputStream;
 import java.sql.*;
 import com.itextpdf.text.*;
 import com.itextpdf.text.pdf.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class ReportesDAO {
 
-    public void generarReporteViajes(String rutaArchivo) {
+    // Filas que se acumulan en la tabla antes de escribirlas al PDF
+    private static final int FILAS_POR_BLOQUE = Integer.getInteger("airlink.reportes.bloque", 500);
+    // Tope para cada consulta de sección; una que se cuelga no deja el reporte esperando para siempre
+    private static final int TIMEOUT_SEG = Integer.getInteger("airlink.reportes.timeoutSeg", 300);
+    private static final Font FUENTE_CELDA = new Font(Font.FontFamily.HELVETICA, 12);
+
+    /**
+     * Escribe el PDF mientras recorre los viajes: el ResultSet se lee hacia
+     * adelante en streaming y la tabla se vuelca al documento cada
+     * {@code FILAS_POR_BLOQUE} filas, así la memoria no crece con la
+     * cantidad de viajes.
+     *
+     * @return cantidad de viajes escritos, o -1 si el reporte no se pudo generar
+     */
+    public int generarReporteViajes(String rutaArchivo) {
         String sql = """
             SELECT 
                 v.idViaje,
@@ -28,85 +44,198 @@ public class ReportesDAO {
             ORDER BY v.salida;
         """;
 
-        List<String[]> datos = new ArrayList<>();
+        long inicio = System.nanoTime();
+        int contador = 0;
+        Document doc = new Document(PageSize.A4.rotate());
 
         try (Connection con = Conexion.getConexion();
-             PreparedStatement ps = con.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-
-            int contador = 0;
-            while (rs.next()) {
-                String[] fila = new String[]{
-                    rs.getString("idViaje"),
-                    rs.getString("Origen"),
-                    rs.getString("Destino"),
-                    rs.getString("salida"),
-                    rs.getString("llegada"),
-                    rs.getString("Empresa"),
-                    rs.getString("estado")
-                };
-                datos.add(fila);
-                contador++;
-
-                // Para depuración
-                System.out.println("✅ Viaje ID " + rs.getInt("idViaje") + " - " +
-                        rs.getString("Origen") + " → " + rs.getString("Destino"));
-            }
+             PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+             FileOutputStream salida = new FileOutputStream(rutaArchivo)) {
 
-            if (contador == 0) {
-                System.out.println("⚠️ No se encontraron viajes para el reporte.");
-            } else {
-                System.out.println("✅ Total de viajes encontrados: " + contador);
-            }
+            Conexion.habilitarStreaming(ps);
+            PdfWriter.getInstance(doc, salida);
+            doc.open();
+            try {
+                Font tituloFont = new Font(Font.FontFamily.HELVETICA, 18, Font.BOLD, BaseColor.DARK_GRAY);
+                Paragraph titulo = new Paragraph("Reporte de Viajes Airlink\n\n", tituloFont);
+                titulo.setAlignment(Element.ALIGN_CENTER);
+                doc.add(titulo);
+
+                PdfPTable tabla = crearTabla();
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        tabla.addCell(new Phrase(texto(rs.getString("idViaje")), FUENTE_CELDA));
+                        tabla.addCell(new Phrase(texto(rs.getString("Origen")), FUENTE_CELDA));
+                        tabla.addCell(new Phrase(texto(rs.getString("Destino")), FUENTE_CELDA));
+                        tabla.addCell(new Phrase(texto(rs.getString("salida")), FUENTE_CELDA));
+                        tabla.addCell(new Phrase(texto(rs.getString("llegada")), FUENTE_CELDA));
+                        tabla.addCell(new Phrase(texto(rs.getString("Empresa")), FUENTE_CELDA));
+                        tabla.addCell(new Phrase(texto(rs.getString("estado")), FUENTE_CELDA));
+                        contador++;
+
+                        // Tabla incompleta: iText escribe las filas ya agregadas y las suelta
+                        if (contador % FILAS_POR_BLOQUE == 0) {
+                            doc.add(tabla);
+                        }
+                    }
+                }
+
+                tabla.setComplete(true);
+                doc.add(tabla);
 
-            // Crear PDF
-            crearPDF(datos, rutaArchivo);
+                if (contador == 0) {
+                    System.out.println("⚠️ No se encontraron viajes para el reporte.");
+                }
+                doc.add(new Paragraph("\nTotal de viajes registrados: " + contador));
+            } finally {
+                // Antes de que se cierre el archivo: close() escribe el final del PDF
+                doc.close();
+            }
 
         } catch (SQLException e) {
             System.out.println("❌ Error al obtener datos de reporte: " + e.getMessage());
+            return descartar(rutaArchivo);
+        } catch (Exception e) {
+            System.out.println("❌ Error al generar PDF: " + e.getMessage());
+            return descartar(rutaArchivo);
         }
+
+        Runtime rt = Runtime.getRuntime();
+        System.out.println("✅ Reporte PDF generado correctamente: " + rutaArchivo + " (" + contador + " viajes, "
+                + (System.nanoTime() - inicio) / 1_000_000 + " ms, heap en uso "
+                + (rt.totalMemory() - rt.freeMemory()) / (1024 * 1024) + " MB)");
+        return contador;
     }
 
-    private void crearPDF(List<String[]> datos, String rutaArchivo) {
-        Document doc = new Document(PageSize.A4.rotate());
-        try {
-            PdfWriter.getInstance(doc, new FileOutputStream(rutaArchivo));
-            doc.open();
+    // Un PDF a medias no se puede abrir; mejor que no quede
+    private static int descartar(String rutaArchivo) {
+        new File(rutaArchivo).delete();
+        return -1;
+    }
 
-            Font tituloFont = new Font(Font.FontFamily.HELVETICA, 18, Font.BOLD, BaseColor.DARK_GRAY);
-            Paragraph titulo = new Paragraph("Reporte de Viajes Airlink\n\n", tituloFont);
-            titulo.setAlignment(Element.ALIGN_CENTER);
-            doc.add(titulo);
-
-            PdfPTable tabla = new PdfPTable(7);
-            tabla.setWidthPercentage(100);
-            tabla.setWidths(new float[]{1.2f, 2.5f, 2.5f, 2.8f, 2.8f, 2.5f, 2f});
-
-            // Encabezados
-            String[] encabezados = {"ID", "Origen", "Destino", "Salida", "Llegada", "Empresa", "Estado"};
-            for (String encabezado : encabezados) {
-                PdfPCell celda = new PdfPCell(new Phrase(encabezado, new Font(Font.FontFamily.HELVETICA, 12, Font.BOLD)));
-                celda.setBackgroundColor(BaseColor.LIGHT_GRAY);
-                celda.setHorizontalAlignment(Element.ALIGN_CENTER);
-                tabla.addCell(celda);
-            }
+    private PdfPTable crearTabla() throws DocumentException {
+        PdfPTable tabla = new PdfPTable(7);
+        tabla.setWidthPercentage(100);
+        tabla.setWidths(new float[]{1.2f, 2.5f, 2.5f, 2.8f, 2.8f, 2.5f, 2f});
+        tabla.setComplete(false);
+        tabla.setHeaderRows(1);  // se repite en cada página
+
+        // Encabezados
+        String[] encabezados = {"ID", "Origen", "Destino", "Salida", "Llegada", "Empresa", "Estado"};
+        Font fuente = new Font(Font.FontFamily.HELVETICA, 12, Font.BOLD);
+        for (String encabezado : encabezados) {
+            PdfPCell celda = new PdfPCell(new Phrase(encabezado, fuente));
+            celda.setBackgroundColor(BaseColor.LIGHT_GRAY);
+            celda.setHorizontalAlignment(Element.ALIGN_CENTER);
+            tabla.addCell(celda);
+        }
+        return tabla;
+    }
+
+    // ============================
+    // REPORTE DE GESTIÓN POR SECCIONES
+    // ============================
+    public List<String[]> consultarSeccion(SeccionReporte seccion) throws SQLException {
+        return consultarSeccion(seccion, null);
+    }
 
-            // Datos
-            for (String[] fila : datos) {
-                for (String valor : fila) {
-                    tabla.addCell(new Phrase(valor != null ? valor : "N/D"));
+    /**
+     * @param enCurso recibe la sentencia justo antes de ejecutarla y null
+     *                cuando termina, antes de que vuelva al pool, para que
+     *                otro hilo pueda cortarla con {@link Statement#cancel()};
+     *                puede ser null
+     */
+    public List<String[]> consultarSeccion(SeccionReporte seccion, Consumer<Statement> enCurso) throws SQLException {
+        List<String[]> filas = new ArrayList<>();
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(seccion.sql)) {
+            ps.setQueryTimeout(TIMEOUT_SEG);
+            if (enCurso != null) {
+                enCurso.accept(ps);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                int columnas = seccion.getColumnas();
+                while (rs.next()) {
+                    String[] fila = new String[columnas];
+                    for (int i = 0; i < columnas; i++) {
+                        fila[i] = rs.getString(i + 1);
+                    }
+                    filas.add(fila);
+                }
+            } finally {
+                if (enCurso != null) {
+                    enCurso.accept(null);
                 }
             }
+        }
+        return filas;
+    }
 
-            doc.add(tabla);
-            doc.add(new Paragraph("\nTotal de viajes registrados: " + datos.size()));
-
-            System.out.println("✅ Reporte PDF generado correctamente: " + rutaArchivo);
+    /** Arma un solo PDF con las secciones ya consultadas, en el orden recibido. */
+    public boolean crearPdfSecciones(String rutaArchivo, List<SeccionReporte.Resultado> resultados) {
+        Document doc = new Document(PageSize.A4.rotate());
+        try (FileOutputStream salida = new FileOutputStream(rutaArchivo)) {
+            PdfWriter.getInstance(doc, salida);
+            doc.open();
+            try {
+                Font tituloFont = new Font(Font.FontFamily.HELVETICA, 18, Font.BOLD, BaseColor.DARK_GRAY);
+                Paragraph titulo = new Paragraph("Reporte de Gestión Airlink\n\n", tituloFont);
+                titulo.setAlignment(Element.ALIGN_CENTER);
+                doc.add(titulo);
+
+                Font seccionFont = new Font(Font.FontFamily.HELVETICA, 14, Font.BOLD, BaseColor.DARK_GRAY);
+                Font encabezadoFont = new Font(Font.FontFamily.HELVETICA, 11, Font.BOLD);
+                Font errorFont = new Font(Font.FontFamily.HELVETICA, 12, Font.ITALIC, BaseColor.RED);
+
+                for (SeccionReporte.Resultado r : resultados) {
+                    SeccionReporte seccion = r.getSeccion();
+                    Paragraph subtitulo = new Paragraph(seccion.getTitulo(), seccionFont);
+                    subtitulo.setSpacingBefore(12);
+                    subtitulo.setSpacingAfter(6);
+                    doc.add(subtitulo);
+
+                    if (r.getError() != null) {
+                        doc.add(new Paragraph("No se pudo generar esta sección: " + r.getError(), errorFont));
+                        continue;
+                    }
+
+                    PdfPTable tabla = new PdfPTable(seccion.getColumnas());
+                    tabla.setWidthPercentage(100);
+                    tabla.setWidths(seccion.anchos());
+                    tabla.setHeaderRows(1);
+                    for (String encabezado : seccion.encabezados()) {
+                        PdfPCell celda = new PdfPCell(new Phrase(encabezado, encabezadoFont));
+                        celda.setBackgroundColor(BaseColor.LIGHT_GRAY);
+                        celda.setHorizontalAlignment(Element.ALIGN_CENTER);
+                        tabla.addCell(celda);
+                    }
+                    for (String[] fila : r.getFilas()) {
+                        for (String valor : fila) {
+                            tabla.addCell(new Phrase(texto(valor), FUENTE_CELDA));
+                        }
+                    }
+                    doc.add(tabla);
+                    if (r.getFilas().isEmpty()) {
+                        doc.add(new Paragraph("Sin datos."));
+                    }
+                }
+            } finally {
+                // Antes de que se cierre el archivo: close() escribe el final del PDF
+                doc.close();
+            }
 
         } catch (Exception e) {
             System.out.println("❌ Error al generar PDF: " + e.getMessage());
-        } finally {
-            doc.close();
+            descartar(rutaArchivo);
+            return false;
         }
+
+        System.out.println("✅ Reporte de gestión generado correctamente: " + rutaArchivo);
+        return true;
+    }
+
+    private static String texto(String valor) {
+        return valor != null ? valor : "N/D";
     }
 }
@@ -0,0 +1,102 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ReservaDAO {
+
+    public static final String PENDIENTE = "pendiente";
+    public static final String EXPIRADA = "expirada";
+
+    public interface LectorPendientes {
+        /** Una fila por asiento tomado; idAsiento es 0 si la reserva no tiene asientos. */
+        void pendiente(int idReserva, int idViaje, Timestamp fechaReserva, int idAsiento);
+    }
+
+    /** Reservas en estado pendiente con sus asientos, ordenadas por idReserva. */
+    public boolean leerPendientes(LectorPendientes lector) {
+        String sql = """
+            SELECT r.idReserva, r.idViaje, r.fecha_reserva, pa.idAsiento
+            FROM reserva r
+            LEFT JOIN pasajero p ON p.idReserva = r.idReserva
+            LEFT JOIN pasajero_asiento pa ON pa.idPasajero = p.idPasajero
+            WHERE r.estado = ?
+            ORDER BY r.idReserva
+            """;
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            Conexion.habilitarStreaming(ps);
+            ps.setString(1, PENDIENTE);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    lector.pendiente(rs.getInt("idReserva"), rs.getInt("idViaje"), rs.getTimestamp("fecha_reserva"),
+                            rs.getInt("idAsiento"));
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            System.out.println("❌ Error al leer reservas pendientes: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Pasa a expirada las reservas que sigan pendientes y borra sus
+     * pasajero_asiento, en una sola transacción. Primero bloquea con
+     * FOR UPDATE las que siguen pendientes, así una reserva que se pagó
+     * entretanto no pierde sus asientos.
+     *
+     * @return las reservas que efectivamente expiraron, o null si falló
+     */
+    public List<Integer> expirar(List<Integer> idReservas) {
+        List<Integer> expiradas = new ArrayList<>();
+        if (idReservas.isEmpty()) {
+            return expiradas;
+        }
+        String marcas = String.join(",", Collections.nCopies(idReservas.size(), "?"));
+        String sqlBloqueo = "SELECT idReserva FROM reserva WHERE estado = ? AND idReserva IN (" + marcas + ") FOR UPDATE";
+        String sqlReserva = "UPDATE reserva SET estado = ? WHERE idReserva = ?";
+        String sqlAsientos = "DELETE FROM pasajero_asiento WHERE idPasajero IN (SELECT idPasajero FROM pasajero WHERE idReserva = ?)";
+        try (Connection con = Conexion.getConexion()) {
+            con.setAutoCommit(false);
+            try (PreparedStatement bloqueo = con.prepareStatement(sqlBloqueo);
+                 PreparedStatement ps = con.prepareStatement(sqlReserva);
+                 PreparedStatement psAsientos = con.prepareStatement(sqlAsientos)) {
+                bloqueo.setString(1, PENDIENTE);
+                for (int i = 0; i < idReservas.size(); i++) {
+                    bloqueo.setInt(i + 2, idReservas.get(i));
+                }
+                try (ResultSet rs = bloqueo.executeQuery()) {
+                    while (rs.next()) {
+                        expiradas.add(rs.getInt(1));
+                    }
+                }
+                for (int id : expiradas) {
+                    ps.setString(1, EXPIRADA);
+                    ps.setInt(2, id);
+                    ps.addBatch();
+                    psAsientos.setInt(1, id);
+                    psAsientos.addBatch();
+                }
+                if (!expiradas.isEmpty()) {
+                    ps.executeBatch();
+                    psAsientos.executeBatch();
+                }
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.out.println("❌ Error al expirar reservas: " + e.getMessage());
+            return null;
+        }
+        return expiradas;
+    }
+}
@@ -0,0 +1,23 @@
+package dao;
+
+import Modelo.Combo;
+import java.sql.*;
+import java.util.*;
+
+public class RolDAO {
+
+    public List<Combo> listar() {
+        List<Combo> lista = new ArrayList<>();
+        String sql = "SELECT idRol, nombreRol FROM rol ORDER BY idRol";
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                lista.add(new Combo(rs.getInt("idRol"), rs.getString("nombreRol")));
+            }
+        } catch (SQLException e) {
+            System.out.println("❌ Error al listar roles: " + e.getMessage());
+        }
+        return lista;
+    }
+}
@@ -3,12 +3,20 @@ package dao;
 import Modelo.Ruta;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 public class RutaDAO {
 
-    Connection con;
-    PreparedStatement ps;
-    ResultSet rs;
+    private static final List<OyenteRutas> OYENTES = new CopyOnWriteArrayList<>();
+
+    public static void agregarOyente(OyenteRutas oyente) {
+        OYENTES.add(oyente);
+    }
+
+    public static void quitarOyente(OyenteRutas oyente) {
+        OYENTES.remove(oyente);
+    }
 
     // ===== LISTAR TODAS LAS RUTAS =====
     public List<Ruta> listar() {
@@ -26,21 +34,11 @@ public class RutaDAO {
             JOIN terminal t1 ON r.idTerminalOrigen = t1.idTerminal
             JOIN terminal t2 ON r.idTerminalDestino = t2.idTerminal;
             """;
-        try {
-            con = Conexion.getConexion();
-            ps = con.prepareStatement(sql);
-            rs = ps.executeQuery();
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
             while (rs.next()) {
-                Ruta r = new Ruta();
-                r.setIdRuta(rs.getInt("idRuta"));
-                r.setIdTerminalOrigen(rs.getInt("idTerminalOrigen"));
-                r.setIdTerminalDestino(rs.getInt("idTerminalDestino"));
-                r.setOrigen(rs.getString("origen"));
-                r.setDestino(rs.getString("destino"));
-                r.setDistanciaKm(rs.getDouble("distanciaKm"));
-                r.setDuracionEstimadaMin(rs.getInt("duracionEstimadaMin"));
-                r.setActivo(rs.getBoolean("activo"));
-                lista.add(r);
+                lista.add(mapear(rs));
             }
         } catch (SQLException e) {
             System.out.println("Error al listar rutas: " + e);
@@ -48,18 +46,53 @@ public class RutaDAO {
         return lista;
     }
 
+    // ===== CAMBIOS DESDE UNA MARCA (null = todas) =====
+    // Cuenta también la hora de las terminales, así un cambio de nombre llega a las rutas que lo muestran
+    public Cambios<Ruta> cambiosDesde(Timestamp desde) {
+        return cambiosDesde(desde, null);
+    }
+
+    // alLeer recibe cada ruta de una carga completa apenas se lee
+    public Cambios<Ruta> cambiosDesde(Timestamp desde, Consumer<Ruta> alLeer) {
+        return Sincronizacion.cambiosDesde("ruta", CONSULTA_CAMBIOS,
+                "GREATEST(r.ultima_modificacion, t1.ultima_modificacion, t2.ultima_modificacion)", desde, this::mapear,
+                alLeer);
+    }
+
+    private static final String CONSULTA_CAMBIOS = """
+            SELECT r.idRuta,
+                   r.idTerminalOrigen,
+                   r.idTerminalDestino,
+                   t1.nombreTerminal AS origen,
+                   t2.nombreTerminal AS destino,
+                   r.distanciaKm,
+                   r.duracionEstimadaMin,
+                   r.activo
+            FROM ruta r
+            JOIN terminal t1 ON r.idTerminalOrigen = t1.idTerminal
+            JOIN terminal t2 ON r.idTerminalDestino = t2.idTerminal
+            """;
+
     // ===== AGREGAR RUTA =====
     public boolean agregar(Ruta r) {
         String sql = "INSERT INTO ruta (idTerminalOrigen, idTerminalDestino, distanciaKm, duracionEstimadaMin, activo) VALUES (?, ?, ?, ?, ?)";
-        try {
-            con = Conexion.getConexion();
-            ps = con.prepareStatement(sql);
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             ps.setInt(1, r.getIdTerminalOrigen());
             ps.setInt(2, r.getIdTerminalDestino());
             ps.setDouble(3, r.getDistanciaKm());
             ps.setInt(4, r.getDuracionEstimadaMin());
             ps.setBoolean(5, r.isActivo());
             ps.executeUpdate();
+            try (ResultSet claves = ps.getGeneratedKeys()) {
+                if (claves.next()) {
+                    r.setIdRuta(claves.getInt(1));
+                }
+            }
+            Auditoria.creado("ruta", r.getIdRuta(), campos(r));
+            for (OyenteRutas o : OYENTES) {
+                o.rutaGuardada(r);
+            }
             return true;
         } catch (SQLException e) {
             System.out.println("Error al agregar ruta: " + e);
@@ -70,16 +103,28 @@ public class RutaDAO {
     // ===== ACTUALIZAR RUTA =====
     public boolean actualizar(Ruta r) {
         String sql = "UPDATE ruta SET idTerminalOrigen=?, idTerminalDestino=?, distanciaKm=?, duracionEstimadaMin=?, activo=? WHERE idRuta=?";
-        try {
-            con = Conexion.getConexion();
-            ps = con.prepareStatement(sql);
-            ps.setInt(1, r.getIdTerminalOrigen());
-            ps.setInt(2, r.getIdTerminalDestino());
-            ps.setDouble(3, r.getDistanciaKm());
-            ps.setInt(4, r.getDuracionEstimadaMin());
-            ps.setBoolean(5, r.isActivo());
-            ps.setInt(6, r.getIdRuta());
-            ps.executeUpdate();
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+            Map<String, Object> antes;
+            con.setAutoCommit(false);
+            try {
+                antes = Auditoria.foto(con, "ruta", "idRuta", r.getIdRuta());
+                ps.setInt(1, r.getIdTerminalOrigen());
+                ps.setInt(2, r.getIdTerminalDestino());
+                ps.setDouble(3, r.getDistanciaKm());
+                ps.setInt(4, r.getDuracionEstimadaMin());
+                ps.setBoolean(5, r.isActivo());
+                ps.setInt(6, r.getIdRuta());
+                ps.executeUpdate();
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
+            Auditoria.actualizado("ruta", r.getIdRuta(), antes, campos(r));
+            for (OyenteRutas o : OYENTES) {
+                o.rutaGuardada(r);
+            }
             return true;
         } catch (SQLException e) {
             System.out.println("Error al actualizar ruta: " + e);
@@ -90,11 +135,24 @@ public class RutaDAO {
     // ===== ELIMINAR RUTA =====
     public boolean eliminar(int idRuta) {
         String sql = "DELETE FROM ruta WHERE idRuta=?";
-        try {
-            con = Conexion.getConexion();
-            ps = con.prepareStatement(sql);
-            ps.setInt(1, idRuta);
-            ps.executeUpdate();
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+            Map<String, Object> antes;
+            con.setAutoCommit(false);
+            try {
+                antes = Auditoria.foto(con, "ruta", "idRuta", idRuta);
+                ps.setInt(1, idRuta);
+                ps.executeUpdate();
+                Sincronizacion.registrarEliminado(con, "ruta", idRuta);
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
+            Auditoria.eliminado("ruta", idRuta, antes);
+            for (OyenteRutas o : OYENTES) {
+                o.rutaEliminada(idRuta);
+            }
             return true;
         } catch (SQLException e) {
             System.out.println("Error al eliminar ruta: " + e);
@@ -102,6 +160,12 @@ public class RutaDAO {
         }
     }
 
+    private static Map<String, Object> campos(Ruta r) {
+        return Auditoria.campos("idTerminalOrigen", r.getIdTerminalOrigen(), "idTerminalDestino", r.getIdTerminalDestino(),
+                "distanciaKm", r.getDistanciaKm(), "duracionEstimadaMin", r.getDuracionEstimadaMin(),
+                "activo", r.isActivo());
+    }
+
     // ===== OBTENER RUTA POR ID =====
     public Ruta obtenerPorId(int idRuta) {
         String sql = """
@@ -118,26 +182,30 @@ public class RutaDAO {
             JOIN terminal t2 ON r.idTerminalDestino = t2.idTerminal
             WHERE r.idRuta = ?;
             """;
-        try {
-            con = Conexion.getConexion();
-            ps = con.prepareStatement(sql);
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql)) {
             ps.setInt(1, idRuta);
-            rs = ps.executeQuery();
-            if (rs.next()) {
-                Ruta r = new Ruta();
-                r.setIdRuta(rs.getInt("idRuta"));
-                r.setIdTerminalOrigen(rs.getInt("idTerminalOrigen"));
-                r.setIdTerminalDestino(rs.getInt("idTerminalDestino"));
-                r.setOrigen(rs.getString("origen"));
-                r.setDestino(rs.getString("destino"));
-                r.setDistanciaKm(rs.getDouble("distanciaKm"));
-                r.setDuracionEstimadaMin(rs.getInt("duracionEstimadaMin"));
-                r.setActivo(rs.getBoolean("activo"));
-                return r;
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return mapear(rs);
+                }
             }
         } catch (SQLException e) {
             System.out.println("Error al obtener ruta: " + e);
         }
         return null;
     }
+
+    private Ruta mapear(ResultSet rs) throws SQLException {
+        Ruta r = new Ruta();
+        r.setIdRuta(rs.getInt("idRuta"));
+        r.setIdTerminalOrigen(rs.getInt("idTerminalOrigen"));
+        r.setIdTerminalDestino(rs.getInt("idTerminalDestino"));
+        r.setOrigen(rs.getString("origen"));
+        r.setDestino(rs.getString("destino"));
+        r.setDistanciaKm(rs.getDouble("distanciaKm"));
+        r.setDuracionEstimadaMin(rs.getInt("duracionEstimadaMin"));
+        r.setActivo(rs.getBoolean("activo"));
+        return r;
+    }
 }
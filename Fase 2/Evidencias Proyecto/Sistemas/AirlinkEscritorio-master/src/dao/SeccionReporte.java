@@ -0,0 +1,137 @@
+package dao;
+
+import java.util.List;
+
+/**
+ * Una sección del reporte de gestión: una consulta agregada independiente de
+ * las demás y cómo mostrarla en una tabla del PDF.
+ */
+public final class SeccionReporte {
+
+    public static final SeccionReporte VIAJES_POR_RUTA = new SeccionReporte(
+            "Viajes por ruta",
+            new String[] {"Origen", "Destino", "Viajes", "Primera salida", "Última salida"},
+            new float[] {3f, 3f, 1.2f, 2.5f, 2.5f},
+            """
+            SELECT t1.nombreTerminal AS origen, t2.nombreTerminal AS destino,
+                   COUNT(v.idViaje) AS viajes, MIN(v.salida) AS primera, MAX(v.salida) AS ultima
+            FROM ruta r
+            JOIN terminal t1 ON r.idTerminalOrigen = t1.idTerminal
+            JOIN terminal t2 ON r.idTerminalDestino = t2.idTerminal
+            LEFT JOIN viaje v ON v.idRuta = r.idRuta
+            GROUP BY r.idRuta, t1.nombreTerminal, t2.nombreTerminal
+            ORDER BY viajes DESC, origen, destino
+            """);
+
+    public static final SeccionReporte OCUPACION_POR_EQUIPO = new SeccionReporte(
+            "Factor de ocupación por equipo",
+            new String[] {"Matrícula", "Modelo", "Capacidad", "Viajes", "Asientos ocupados", "Ocupación %"},
+            new float[] {2f, 3f, 1.5f, 1.2f, 2f, 1.8f},
+            """
+            SELECT eq.matricula, eq.modelo, eq.capacidad,
+                   COUNT(DISTINCT v.idViaje) AS viajes,
+                   COUNT(pa.idPasajeroAsiento) AS ocupados,
+                   ROUND(100.0 * COUNT(pa.idPasajeroAsiento)
+                         / NULLIF(eq.capacidad * COUNT(DISTINCT v.idViaje), 0), 1) AS ocupacion
+            FROM empresa_equipo eq
+            LEFT JOIN viaje v ON v.idEquipo = eq.idEquipo
+            LEFT JOIN asiento a ON a.idViaje = v.idViaje
+            LEFT JOIN pasajero_asiento pa ON pa.idAsiento = a.idAsiento
+            GROUP BY eq.idEquipo, eq.matricula, eq.modelo, eq.capacidad
+            ORDER BY ocupacion DESC, eq.matricula
+            """);
+
+    public static final SeccionReporte INGRESOS_POR_EMPRESA = new SeccionReporte(
+            "Ingresos por empresa",
+            new String[] {"Empresa", "Tipo", "Reservas", "Ingresos aprobados"},
+            new float[] {3.5f, 1.5f, 1.5f, 2.5f},
+            """
+            SELECT e.nombreEmpresa, e.tipoEmpresa,
+                   COUNT(DISTINCT r.idReserva) AS reservas,
+                   COALESCE(SUM(p.monto), 0) AS ingresos
+            FROM empresa e
+            LEFT JOIN empresa_equipo eq ON eq.idEmpresa = e.idEmpresa
+            LEFT JOIN viaje v ON v.idEquipo = eq.idEquipo
+            LEFT JOIN reserva r ON r.idViaje = v.idViaje
+            LEFT JOIN pago p ON p.idReserva = r.idReserva
+                AND p.idEstadoPago = (SELECT idEstadoPago FROM estado_pago WHERE nombreEstadoPago = 'Aprobado')
+            GROUP BY e.idEmpresa, e.nombreEmpresa, e.tipoEmpresa
+            ORDER BY ingresos DESC, e.nombreEmpresa
+            """);
+
+    public static final SeccionReporte USO_CUPONES = new SeccionReporte(
+            "Uso de cupones",
+            new String[] {"Código", "Tipo", "Valor", "Usos", "Uso máximo", "Vigencia", "Descontado"},
+            new float[] {2f, 1.8f, 1.3f, 1f, 1.3f, 3f, 1.8f},
+            """
+            SELECT c.codigo, tc.nombreTipoCupon, c.valor, c.uso_actual, c.uso_maximo,
+                   CONCAT(c.fecha_inicio, ' a ', c.fecha_fin) AS vigencia,
+                   COALESCE(SUM(rc.montoAplicado), 0) AS descontado
+            FROM cupon_descuento c
+            JOIN tipo_cupon tc ON c.idTipoCupon = tc.idTipoCupon
+            LEFT JOIN reserva_cupon rc ON rc.idCuponDescuento = c.idCuponDescuento
+            GROUP BY c.idCuponDescuento, c.codigo, tc.nombreTipoCupon, c.valor,
+                     c.uso_actual, c.uso_maximo, c.fecha_inicio, c.fecha_fin
+            ORDER BY c.uso_actual DESC, c.codigo
+            """);
+
+    private static final List<SeccionReporte> TODAS =
+            List.of(VIAJES_POR_RUTA, OCUPACION_POR_EQUIPO, INGRESOS_POR_EMPRESA, USO_CUPONES);
+
+    private final String titulo;
+    private final String[] encabezados;
+    private final float[] anchos;
+    final String sql;
+
+    private SeccionReporte(String titulo, String[] encabezados, float[] anchos, String sql) {
+        this.titulo = titulo;
+        this.encabezados = encabezados;
+        this.anchos = anchos;
+        this.sql = sql;
+    }
+
+    public static List<SeccionReporte> todas() {
+        return TODAS;
+    }
+
+    public String getTitulo() {
+        return titulo;
+    }
+
+    public int getColumnas() {
+        return encabezados.length;
+    }
+
+    String[] encabezados() {
+        return encabezados;
+    }
+
+    float[] anchos() {
+        return anchos;
+    }
+
+    @Override
+    public String toString() {
+        return titulo;
+    }
+
+    /** Filas obtenidas para una sección, o el error que impidió obtenerlas. */
+    public static class Resultado {
+        private final SeccionReporte seccion;
+        private final List<String[]> filas;
+        private final String error;
+        private final long duracionMs;
+
+        public Resultado(SeccionReporte seccion, List<String[]> filas, String error, long duracionMs) {
+            this.seccion = seccion;
+            this.filas = filas;
+            this.error = error;
+            this.duracionMs = duracionMs;
+        }
+
+        public SeccionReporte getSeccion() { return seccion; }
+        public List<String[]> getFilas() { return filas; }
+        public String getError() { return error; }
+        public long getDuracionMs() { return duracionMs; }
+    }
+}
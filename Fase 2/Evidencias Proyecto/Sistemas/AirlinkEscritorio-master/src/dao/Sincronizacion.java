@@ -0,0 +1,181 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Consultas de cambios por ultima_modificacion y lápidas en la tabla
+ * eliminado, compartidas por los DAO que las vistas refrescan en forma
+ * incremental.
+ *
+ * La marca es la hora de la base (no la del equipo) tomada antes de leer, y
+ * cada consulta vuelve a mirar -Dairlink.sync.margenSeg segundos (5) hacia
+ * atrás: ultima_modificacion tiene resolución de segundos y una transacción
+ * que confirma tarde puede dejar una hora anterior a la marca. Repetir filas
+ * no hace daño porque la vista las aplica por id. Una marca más vieja que
+ * -Dairlink.sync.retencionDias (30) se trata como carga completa, porque las
+ * lápidas más antiguas se borran.
+ *
+ * Una base MySQL creada antes de este esquema no tiene la tabla eliminado
+ * ni ultima_modificacion en empresa, destino, terminal, empresa_equipo, ruta
+ * y viaje (se agregan con BasedeDatos/Migracion_sincronizacion.sql). Mientras falten, los borrados
+ * se hacen igual sin lápida y cambiosDesde devuelve la tabla entera sin
+ * marca, así la vista sigue recargando completo.
+ */
+final class Sincronizacion {
+
+    interface Mapeo<T> {
+        T mapear(ResultSet rs) throws SQLException;
+    }
+
+    private static final long MARGEN_MS = Integer.getInteger("airlink.sync.margenSeg", 5) * 1000L;
+    private static final int RETENCION_DIAS = Integer.getInteger("airlink.sync.retencionDias", 30);
+
+    // tabla.columna que ya se vio que existen; lo que falta se vuelve a mirar por si corrieron la migración
+    private static final Set<String> COLUMNAS = ConcurrentHashMap.newKeySet();
+    private static volatile boolean avisado;
+
+    private Sincronizacion() {
+    }
+
+    /**
+     * @param consulta SELECT de la tabla sin WHERE ni ORDER BY
+     * @param columna  columna ultima_modificacion con el alias de la consulta
+     * @return null si falló la consulta
+     */
+    static <T> Cambios<T> cambiosDesde(String entidad, String consulta, String columna, Timestamp desde, Mapeo<T> mapeo) {
+        return cambiosDesde(entidad, consulta, columna, desde, mapeo, null);
+    }
+
+    /**
+     * Igual, pero en una carga completa la tabla se lee en streaming y cada
+     * fila se le pasa a {@code alLeer} apenas se lee, así quien muestra la
+     * tabla no espera a que llegue entera. Corre en el hilo de la consulta y
+     * con la conexión tomada: tiene que ser rápido y no usar la base.
+     */
+    static <T> Cambios<T> cambiosDesde(String entidad, String consulta, String columna, Timestamp desde, Mapeo<T> mapeo,
+                                       Consumer<T> alLeer) {
+        try (Connection con = Conexion.getConexion()) {
+            Timestamp ahora = ahora(con);
+            boolean seguimiento = existe(con, entidad, "ultima_modificacion") && existe(con, "eliminado", null);
+            if (!seguimiento) {
+                avisar();
+            }
+            boolean completa = !seguimiento || desde == null
+                    || desde.getTime() < ahora.getTime() - RETENCION_DIAS * 86_400_000L;
+            List<T> modificados = new ArrayList<>();
+            List<Integer> eliminados = Collections.emptyList();
+            if (completa) {
+                try (PreparedStatement ps = con.prepareStatement(consulta)) {
+                    Conexion.habilitarStreaming(ps);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            T item = mapeo.mapear(rs);
+                            modificados.add(item);
+                            if (alLeer != null) {
+                                alLeer.accept(item);
+                            }
+                        }
+                    }
+                }
+                if (seguimiento) {
+                    purgarLapidas(con, ahora);
+                }
+            } else {
+                Timestamp desdeConMargen = new Timestamp(desde.getTime() - MARGEN_MS);
+                try (PreparedStatement ps = con.prepareStatement(consulta + " WHERE " + columna + " >= ?")) {
+                    ps.setTimestamp(1, desdeConMargen);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            modificados.add(mapeo.mapear(rs));
+                        }
+                    }
+                }
+                eliminados = eliminadosDesde(con, entidad, desdeConMargen);
+            }
+            return new Cambios<>(modificados, eliminados, seguimiento ? ahora : null, completa);
+        } catch (SQLException e) {
+            System.out.println("❌ Error al leer cambios de " + entidad + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Deja la lápida del borrado; va en la misma transacción que el DELETE. Sin tabla eliminado no hace nada. */
+    static void registrarEliminado(Connection con, String entidad, int id) throws SQLException {
+        if (!existe(con, "eliminado", null)) {
+            avisar();
+            return;
+        }
+        try (PreparedStatement ps = con.prepareStatement("INSERT INTO eliminado (entidad, idEntidad) VALUES (?, ?)")) {
+            ps.setString(1, entidad);
+            ps.setInt(2, id);
+            ps.executeUpdate();
+        }
+    }
+
+    /** Si {@code columna} es null basta con que exista la tabla. Los nombres van en minúsculas, como en la base. */
+    private static boolean existe(Connection con, String tabla, String columna) throws SQLException {
+        String clave = tabla + "." + columna;
+        if (COLUMNAS.contains(clave)) {
+            return true;
+        }
+        DatabaseMetaData meta = con.getMetaData();
+        try (ResultSet rs = columna == null
+                ? meta.getTables(con.getCatalog(), null, tabla, new String[] {"TABLE"})
+                : meta.getColumns(con.getCatalog(), null, tabla, columna)) {
+            if (!rs.next()) {
+                return false;
+            }
+        }
+        COLUMNAS.add(clave);
+        return true;
+    }
+
+    private static void avisar() {
+        if (!avisado) {
+            avisado = true;
+            System.out.println("⚠️ La base no tiene la tabla eliminado o ultima_modificacion: las vistas recargan completo."
+                    + " Corre BasedeDatos/Migracion_sincronizacion.sql");
+        }
+    }
+
+    private static Timestamp ahora(Connection con) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement("SELECT CURRENT_TIMESTAMP");
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getTimestamp(1);
+        }
+    }
+
+    private static List<Integer> eliminadosDesde(Connection con, String entidad, Timestamp desde) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (PreparedStatement ps = con.prepareStatement(
+                "SELECT idEntidad FROM eliminado WHERE entidad = ? AND eliminado_en >= ?")) {
+            ps.setString(1, entidad);
+            ps.setTimestamp(2, desde);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static void purgarLapidas(Connection con, Timestamp ahora) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement("DELETE FROM eliminado WHERE eliminado_en < ?")) {
+            ps.setTimestamp(1, new Timestamp(ahora.getTime() - RETENCION_DIAS * 86_400_000L));
+            ps.executeUpdate();
+        }
+    }
+}
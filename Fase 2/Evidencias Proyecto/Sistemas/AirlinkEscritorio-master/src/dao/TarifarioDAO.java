@@ -0,0 +1,89 @@
+package dao;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Lectura en bloque de lo que hace falta para cotizar: precios por viaje y
+ * tarifa, impuestos activos y cupones activos. Cada método recorre la tabla
+ * una vez y entrega las filas al lector; si algo falla devuelve false.
+ */
+public class TarifarioDAO {
+
+    public interface LectorPrecios {
+        void precio(int idViaje, int idTarifa, BigDecimal precio, String moneda);
+    }
+
+    public interface LectorImpuestos {
+        void impuesto(String codigo, BigDecimal porcentaje, BigDecimal fijoMonto, String moneda);
+    }
+
+    public interface LectorCupones {
+        void cupon(String codigo, String tipo, BigDecimal valor, Date inicio, Date fin, int usoMaximo, int usoActual);
+    }
+
+    public boolean leerPrecios(LectorPrecios lector) {
+        String sql = """
+            SELECT vt.idViaje, vt.idTarifa, vt.precio, vt.moneda
+            FROM viaje_tarifa vt
+            JOIN tarifa t ON vt.idTarifa = t.idTarifa
+            WHERE t.activo = 1
+            """;
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            Conexion.habilitarStreaming(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    lector.precio(rs.getInt("idViaje"), rs.getInt("idTarifa"), rs.getBigDecimal("precio"),
+                            rs.getString("moneda"));
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            System.out.println("❌ Error al leer precios: " + e.getMessage());
+            return false;
+        }
+    }
+
+    public boolean leerImpuestos(LectorImpuestos lector) {
+        String sql = "SELECT codigo, porcentaje, fijo_monto, moneda FROM impuesto WHERE activo = 1";
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                lector.impuesto(rs.getString("codigo"), rs.getBigDecimal("porcentaje"), rs.getBigDecimal("fijo_monto"),
+                        rs.getString("moneda"));
+            }
+            return true;
+        } catch (SQLException e) {
+            System.out.println("❌ Error al leer impuestos: " + e.getMessage());
+            return false;
+        }
+    }
+
+    public boolean leerCupones(LectorCupones lector) {
+        String sql = """
+            SELECT c.codigo, tc.nombreTipoCupon, c.valor, c.fecha_inicio, c.fecha_fin, c.uso_maximo, c.uso_actual
+            FROM cupon_descuento c
+            JOIN tipo_cupon tc ON c.idTipoCupon = tc.idTipoCupon
+            WHERE c.activo = 1
+            """;
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                lector.cupon(rs.getString("codigo"), rs.getString("nombreTipoCupon"), rs.getBigDecimal("valor"),
+                        rs.getDate("fecha_inicio"), rs.getDate("fecha_fin"), rs.getInt("uso_maximo"),
+                        rs.getInt("uso_actual"));
+            }
+            return true;
+        } catch (SQLException e) {
+            System.out.println("❌ Error al leer cupones: " + e.getMessage());
+            return false;
+        }
+    }
+}
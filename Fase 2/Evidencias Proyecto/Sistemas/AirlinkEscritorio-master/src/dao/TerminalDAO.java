@@ -5,27 +5,34 @@ import java.util.*;
 import Modelo.Terminal;
 
 public class TerminalDAO {
-    Connection con;
-    PreparedStatement ps;
-    ResultSet rs;
 
     public List<Terminal> listar() {
         List<Terminal> lista = new ArrayList<>();
-        String sql = "SELECT * FROM terminal";
-        try {
-            con = Conexion.getConexion();
-            ps = con.prepareStatement(sql);
-            rs = ps.executeQuery();
+        String sql = "SELECT idTerminal, nombreTerminal, codigo, ciudad FROM terminal";
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
             while (rs.next()) {
-                Terminal t = new Terminal();
-                t.setId(rs.getInt("id"));
-                t.setNombre(rs.getString("nombre"));
-                t.setCiudad(rs.getString("ciudad"));
-                lista.add(t);
+                lista.add(mapear(rs));
             }
         } catch (SQLException e) {
             System.out.println("❌ Error al listar terminales: " + e.getMessage());
         }
         return lista;
     }
+
+    // Terminales creadas o modificadas desde la marca; con null, todas
+    public Cambios<Terminal> cambiosDesde(Timestamp desde) {
+        return Sincronizacion.cambiosDesde("terminal", "SELECT idTerminal, nombreTerminal, codigo, ciudad FROM terminal",
+                "ultima_modificacion", desde, this::mapear);
+    }
+
+    private Terminal mapear(ResultSet rs) throws SQLException {
+        Terminal t = new Terminal();
+        t.setId(rs.getInt("idTerminal"));
+        t.setNombre(rs.getString("nombreTerminal"));
+        t.setCodigo(rs.getString("codigo"));
+        t.setCiudad(rs.getString("ciudad"));
+        return t;
+    }
 }
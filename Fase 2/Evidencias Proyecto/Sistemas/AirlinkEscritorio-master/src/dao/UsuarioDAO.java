@@ -2,30 +2,21 @@ package dao;
 
 import java.sql.*;
 import java.util.*;
+import java.util.function.Consumer;
 import Modelo.Usuario;
 import org.mindrot.jbcrypt.BCrypt;
 
 public class UsuarioDAO {
-    Connection con;
-    PreparedStatement ps;
-    ResultSet rs;
 
     // --- LISTAR ---
     public List<Usuario> listar() {
         List<Usuario> lista = new ArrayList<>();
         String sql = "SELECT u.*, r.nombreRol FROM usuario u JOIN rol r ON u.idRol = r.idRol";
-        try {
-            con = Conexion.getConexion();
-            ps = con.prepareStatement(sql);
-            rs = ps.executeQuery();
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
             while (rs.next()) {
-                Usuario u = new Usuario();
-                u.setId(rs.getInt("idUsuario"));
-                u.setNombre(rs.getString("nombreUsuario"));
-                u.setCorreo(rs.getString("email"));
-                u.setContraseña(rs.getString("contrasena"));
-                u.setRol(rs.getString("nombreRol"));
-                lista.add(u);
+                lista.add(mapear(rs));
             }
         } catch (SQLException e) {
             System.out.println("Error al listar usuarios: " + e.getMessage());
@@ -33,21 +24,47 @@ public class UsuarioDAO {
         return lista;
     }
 
+    // --- CAMBIOS DESDE UNA MARCA (null = todos) ---
+    public Cambios<Usuario> cambiosDesde(Timestamp desde) {
+        return cambiosDesde(desde, null);
+    }
+
+    // alLeer recibe cada usuario de una carga completa apenas se lee
+    public Cambios<Usuario> cambiosDesde(Timestamp desde, Consumer<Usuario> alLeer) {
+        return Sincronizacion.cambiosDesde("usuario",
+                "SELECT u.*, r.nombreRol FROM usuario u JOIN rol r ON u.idRol = r.idRol",
+                "u.ultima_modificacion", desde, this::mapear, alLeer);
+    }
+
+    private Usuario mapear(ResultSet rs) throws SQLException {
+        Usuario u = new Usuario();
+        u.setId(rs.getInt("idUsuario"));
+        u.setNombre(rs.getString("nombreUsuario"));
+        u.setCorreo(rs.getString("email"));
+        u.setContraseña(rs.getString("contrasena"));
+        u.setRol(rs.getString("nombreRol"));
+        return u;
+    }
+
     // --- AGREGAR ---
     public boolean agregar(Usuario u) {
         String sql = "INSERT INTO usuario (nombreUsuario, email, contrasena, idRol) VALUES (?, ?, ?, ?)";
-        try {
-            con = Conexion.getConexion();
-            ps = con.prepareStatement(sql);
-
-            // Encriptar la contraseña antes de guardarla
-            String hash = BCrypt.hashpw(u.getContraseña(), BCrypt.gensalt());
-
+        // Encriptar la contraseña antes de guardarla (fuera de la conexión: BCrypt es lento)
+        String hash = BCrypt.hashpw(u.getContraseña(), BCrypt.gensalt());
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             ps.setString(1, u.getNombre());
             ps.setString(2, u.getCorreo());
             ps.setString(3, hash);
             ps.setInt(4, Integer.parseInt(u.getRol()));
             ps.executeUpdate();
+            int id = 0;
+            try (ResultSet claves = ps.getGeneratedKeys()) {
+                if (claves.next()) {
+                    id = claves.getInt(1);
+                }
+            }
+            Auditoria.creado("usuario", id, campos(u, hash));
             return true;
         } catch (SQLException e) {
             System.out.println("Error al agregar usuario: " + e.getMessage());
@@ -58,22 +75,31 @@ public class UsuarioDAO {
     // --- ACTUALIZAR ---
     public boolean actualizar(Usuario u) {
         String sql = "UPDATE usuario SET nombreUsuario=?, email=?, contrasena=?, idRol=? WHERE idUsuario=?";
-        try {
-            con = Conexion.getConexion();
-            ps = con.prepareStatement(sql);
 
-            // si la contraseña no está cifrada, cifrarla
-            String contrasena = u.getContraseña();
-            if (!contrasena.startsWith("$2b$")) {
-                contrasena = BCrypt.hashpw(contrasena, BCrypt.gensalt());
-            }
+        // si la contraseña no está cifrada, cifrarla
+        String contrasena = u.getContraseña();
+        if (!contrasena.startsWith("$2b$")) {
+            contrasena = BCrypt.hashpw(contrasena, BCrypt.gensalt());
+        }
 
-            ps.setString(1, u.getNombre());
-            ps.setString(2, u.getCorreo());
-            ps.setString(3, contrasena);
-            ps.setInt(4, Integer.parseInt(u.getRol()));
-            ps.setInt(5, u.getId());
-            ps.executeUpdate();
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+            Map<String, Object> antes;
+            con.setAutoCommit(false);
+            try {
+                antes = Auditoria.foto(con, "usuario", "idUsuario", u.getId());
+                ps.setString(1, u.getNombre());
+                ps.setString(2, u.getCorreo());
+                ps.setString(3, contrasena);
+                ps.setInt(4, Integer.parseInt(u.getRol()));
+                ps.setInt(5, u.getId());
+                ps.executeUpdate();
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
+            Auditoria.actualizado("usuario", u.getId(), antes, campos(u, contrasena));
             return true;
         } catch (SQLException e) {
             System.out.println("Error al actualizar usuario: " + e.getMessage());
@@ -84,11 +110,21 @@ public class UsuarioDAO {
     // --- ELIMINAR ---
     public boolean eliminar(int id) {
         String sql = "DELETE FROM usuario WHERE idUsuario=?";
-        try {
-            con = Conexion.getConexion();
-            ps = con.prepareStatement(sql);
-            ps.setInt(1, id);
-            ps.executeUpdate();
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+            Map<String, Object> antes;
+            con.setAutoCommit(false);
+            try {
+                antes = Auditoria.foto(con, "usuario", "idUsuario", id);
+                ps.setInt(1, id);
+                ps.executeUpdate();
+                Sincronizacion.registrarEliminado(con, "usuario", id);
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
+            Auditoria.eliminado("usuario", id, antes);
             return true;
         } catch (SQLException e) {
             System.out.println("Error al eliminar usuario: " + e.getMessage());
@@ -96,33 +132,37 @@ public class UsuarioDAO {
         }
     }
 
+    // La auditoría enmascara la contraseña; el hash solo sirve para saber si cambió
+    private static Map<String, Object> campos(Usuario u, String hash) {
+        return Auditoria.campos("nombreUsuario", u.getNombre(), "email", u.getCorreo(), "contrasena", hash,
+                "idRol", Integer.parseInt(u.getRol()));
+    }
+
     // --- LOGIN ---
     public Usuario login(String correo, String contrasenaIngresada) {
         Usuario usuario = null;
         String sql = "SELECT * FROM usuario WHERE email = ?";
-        try {
-            con = Conexion.getConexion();
-            ps = con.prepareStatement(sql);
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql)) {
             ps.setString(1, correo);
-            rs = ps.executeQuery();
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    String hashGuardado = rs.getString("contrasena");
 
-            if (rs.next()) {
-                String hashGuardado = rs.getString("contrasena");
-
-                // compara la contraseña normal (texto) con el hash guardado
-                if (BCrypt.checkpw(contrasenaIngresada, hashGuardado)) {
-                    usuario = new Usuario();
-                    usuario.setId(rs.getInt("idUsuario"));
-                    usuario.setNombre(rs.getString("nombreUsuario"));
-                    usuario.setCorreo(rs.getString("email"));
-                    usuario.setRol(String.valueOf(rs.getInt("idRol")));
+                    // compara la contraseña normal (texto) con el hash guardado
+                    if (BCrypt.checkpw(contrasenaIngresada, hashGuardado)) {
+                        usuario = new Usuario();
+                        usuario.setId(rs.getInt("idUsuario"));
+                        usuario.setNombre(rs.getString("nombreUsuario"));
+                        usuario.setCorreo(rs.getString("email"));
+                        usuario.setRol(String.valueOf(rs.getInt("idRol")));
+                    } else {
+                        System.out.println("Contraseña incorrecta para: " + correo);
+                    }
                 } else {
-                    System.out.println("Contraseña incorrecta para: " + correo);
+                    System.out.println("Usuario no encontrado: " + correo);
                 }
-            } else {
-                System.out.println("Usuario no encontrado: " + correo);
             }
-
         } catch (SQLException e) {
             System.out.println("Error al validar login: " + e.getMessage());
         }
@@ -1,15 +1,25 @@
 package dao;
 
-import dao.Conexion;
 import Modelo.Viaje;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import servicio.AgendaEquipos;
 
 public class ViajeDAO {
-    Connection con;
-    PreparedStatement ps;
-    ResultSet rs;
+
+    private static final List<OyenteViajes> OYENTES = new CopyOnWriteArrayList<>();
+
+    public static void agregarOyente(OyenteViajes oyente) {
+        OYENTES.add(oyente);
+    }
+
+    public static void quitarOyente(OyenteViajes oyente) {
+        OYENTES.remove(oyente);
+    }
 
     // ==========================
     // 1️⃣ LISTAR TODOS LOS VIAJES
@@ -17,20 +27,11 @@ public class ViajeDAO {
     public List<Viaje> listar() {
         List<Viaje> lista = new ArrayList<>();
         String sql = "SELECT * FROM viaje";
-        try {
-            con = Conexion.getConexion();
-            ps = con.prepareStatement(sql);
-            rs = ps.executeQuery();
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
             while (rs.next()) {
-                Viaje v = new Viaje();
-                v.setIdViaje(rs.getInt("idViaje"));
-                v.setIdRuta(rs.getInt("idRuta"));
-                v.setSalida(rs.getTimestamp("salida"));
-                v.setLlegada(rs.getTimestamp("llegada"));
-                v.setIdEquipo(rs.getInt("idEquipo"));
-                v.setEstado(rs.getString("estado"));
-                v.setIdDestino(rs.getInt("idDestino"));
-                lista.add(v);
+                lista.add(mapear(rs));
             }
         } catch (Exception e) {
             System.out.println("❌ Error al listar viajes: " + e);
@@ -43,21 +44,13 @@ public class ViajeDAO {
     public List<Viaje> listarPorDestino(int idDestino) {
         List<Viaje> lista = new ArrayList<>();
         String sql = "SELECT * FROM viaje WHERE idDestino = ?";
-        try {
-            con = Conexion.getConexion();
-            ps = con.prepareStatement(sql);
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql)) {
             ps.setInt(1, idDestino);
-            rs = ps.executeQuery();
-            while (rs.next()) {
-                Viaje v = new Viaje();
-                v.setIdViaje(rs.getInt("idViaje"));
-                v.setIdRuta(rs.getInt("idRuta"));
-                v.setSalida(rs.getTimestamp("salida"));
-                v.setLlegada(rs.getTimestamp("llegada"));
-                v.setIdEquipo(rs.getInt("idEquipo"));
-                v.setEstado(rs.getString("estado"));
-                v.setIdDestino(rs.getInt("idDestino"));
-                lista.add(v);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    lista.add(mapear(rs));
+                }
             }
         } catch (Exception e) {
             System.out.println("❌ Error al listar viajes por destino: " + e);
@@ -65,25 +58,176 @@ public class ViajeDAO {
         return lista;
     }
 
+    // Viajes creados o modificados desde la marca, y los borrados; con null, todos
+    public Cambios<Viaje> cambiosDesde(Timestamp desde) {
+        return Sincronizacion.cambiosDesde("viaje", "SELECT * FROM viaje", "ultima_modificacion", desde, this::mapear);
+    }
+
     // ==========================
     // 3️⃣ AGREGAR NUEVO VIAJE
     // ==========================
     public boolean agregar(Viaje v) {
+        AgendaEquipos agenda = AgendaEquipos.getInstancia();
+        // El horario queda apartado en la agenda; la base y los avisos van sin su lock
+        AgendaEquipos.Reserva reserva = agenda.reservar(v);
+        if (rechazado(reserva, v)) {
+            return false;
+        }
         String sql = "INSERT INTO viaje (idRuta, salida, llegada, idEquipo, estado, idDestino) VALUES (?, ?, ?, ?, ?, ?)";
-        try {
-            con = Conexion.getConexion();
-            ps = con.prepareStatement(sql);
-            ps.setInt(1, v.getIdRuta());
-            ps.setTimestamp(2, v.getSalida());
-            ps.setTimestamp(3, v.getLlegada());
-            ps.setInt(4, v.getIdEquipo());
-            ps.setString(5, v.getEstado());
-            ps.setInt(6, v.getIdDestino());
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            asignarCampos(ps, v);
             ps.executeUpdate();
+            try (ResultSet claves = ps.getGeneratedKeys()) {
+                if (claves.next()) {
+                    v.setIdViaje(claves.getInt(1));
+                }
+            }
+            Auditoria.creado("viaje", v.getIdViaje(), campos(v));
+            for (OyenteViajes o : OYENTES) {
+                o.viajeGuardado(v);
+            }
             return true;
         } catch (Exception e) {
             System.out.println("❌ Error al agregar viaje: " + e);
             return false;
+        } finally {
+            agenda.liberar(reserva);
+        }
+    }
+
+    /**
+     * Inserta muchos viajes con executeBatch, confirmando cada
+     * {@code tamanoLote} filas. Si un lote falla se deshace y sus filas se
+     * reintentan de a una, para que una fila mala no tumbe a las demás; cada
+     * fila rechazada se informa a {@code alFallar} con su posición en la lista.
+     * Antes de insertar se revisa la temporada completa contra la agenda de
+     * equipos; las filas que chocan se rechazan sin llegar a la base y las
+     * demás quedan apartadas en la agenda mientras se insertan. Cada
+     * viaje insertado recibe su id y queda auditado como CREAR, igual que
+     * con {@link #agregar}.
+     *
+     * @return cantidad de viajes insertados
+     */
+    public int agregarLote(List<Viaje> viajes, int tamanoLote, BiConsumer<Integer, String> alFallar) {
+        AgendaEquipos agenda = AgendaEquipos.getInstancia();
+        List<AgendaEquipos.Reserva> reservas = new ArrayList<>(viajes.size());
+        List<Viaje> aceptados = new ArrayList<>(viajes.size());
+        int[] posicion = new int[viajes.size()];
+        String[] rechazos = new String[viajes.size()];
+        synchronized (agenda) {
+            Map<Integer, AgendaEquipos.Conflicto> choques = agenda.revisarTemporada(viajes);
+            for (int i = 0; i < viajes.size(); i++) {
+                AgendaEquipos.Conflicto c = choques.get(i);
+                AgendaEquipos.Reserva r = c == null ? agenda.reservar(viajes.get(i)) : null;
+                if (r != null && r.getConflictos().isEmpty()) {
+                    reservas.add(r);
+                    posicion[aceptados.size()] = i;
+                    aceptados.add(viajes.get(i));
+                } else {
+                    rechazos[i] = (c != null ? c : r.getConflictos().get(0)).toString();
+                }
+            }
+        }
+        try {
+            int rechazados = viajes.size() - aceptados.size();
+            if (rechazados > 0) {
+                for (int i = 0; i < rechazos.length; i++) {
+                    if (rechazos[i] != null) {
+                        alFallar.accept(i, rechazos[i]);
+                    }
+                }
+                System.out.println("⚠️ Carga masiva: " + rechazados + " viajes rechazados por choque de equipo");
+            }
+            return insertarLote(aceptados, tamanoLote, (i, mensaje) -> alFallar.accept(posicion[i], mensaje));
+        } finally {
+            for (AgendaEquipos.Reserva r : reservas) {
+                agenda.liberar(r);
+            }
+        }
+    }
+
+    private int insertarLote(List<Viaje> viajes, int tamanoLote, BiConsumer<Integer, String> alFallar) {
+        String sql = "INSERT INTO viaje (idRuta, salida, llegada, idEquipo, estado, idDestino) VALUES (?, ?, ?, ?, ?, ?)";
+        int insertados = 0;
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            con.setAutoCommit(false);
+            for (int inicio = 0; inicio < viajes.size(); inicio += tamanoLote) {
+                int fin = Math.min(inicio + tamanoLote, viajes.size());
+                try {
+                    for (int i = inicio; i < fin; i++) {
+                        asignarCampos(ps, viajes.get(i));
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                    try (ResultSet claves = ps.getGeneratedKeys()) {
+                        for (int i = inicio; i < fin && claves.next(); i++) {
+                            viajes.get(i).setIdViaje(claves.getInt(1));
+                        }
+                    }
+                    con.commit();
+                    insertados += fin - inicio;
+                    for (int i = inicio; i < fin; i++) {
+                        Auditoria.creado("viaje", viajes.get(i).getIdViaje(), campos(viajes.get(i)));
+                    }
+                } catch (SQLException e) {
+                    ps.clearBatch();
+                    con.rollback();
+                    insertados += agregarUnoAUno(con, ps, viajes, inicio, fin, alFallar);
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println("❌ Error en la carga masiva de viajes: " + e.getMessage());
+        }
+        if (insertados > 0) {
+            for (OyenteViajes o : OYENTES) {
+                o.cargaMasiva();
+            }
+        }
+        return insertados;
+    }
+
+    private int agregarUnoAUno(Connection con, PreparedStatement ps, List<Viaje> viajes,
+                               int inicio, int fin, BiConsumer<Integer, String> alFallar) throws SQLException {
+        int insertados = 0;
+        for (int i = inicio; i < fin; i++) {
+            try {
+                Viaje v = viajes.get(i);
+                asignarCampos(ps, v);
+                ps.executeUpdate();
+                try (ResultSet claves = ps.getGeneratedKeys()) {
+                    if (claves.next()) {
+                        v.setIdViaje(claves.getInt(1));
+                    }
+                }
+                con.commit();
+                insertados++;
+                Auditoria.creado("viaje", v.getIdViaje(), campos(v));
+            } catch (SQLException e) {
+                con.rollback();
+                alFallar.accept(i, e.getMessage());
+            }
+        }
+        return insertados;
+    }
+
+    private static Map<String, Object> campos(Viaje v) {
+        return Auditoria.campos("idRuta", v.getIdRuta(), "salida", v.getSalida(), "llegada", v.getLlegada(),
+                "idEquipo", v.getIdEquipo(), "estado", v.getEstado(), "idDestino", v.getIdDestino() > 0 ? v.getIdDestino() : null);
+    }
+
+    /** Parámetros 1 a 6 del INSERT y del UPDATE; sin destino (0) va NULL, no un id que no existe. */
+    private static void asignarCampos(PreparedStatement ps, Viaje v) throws SQLException {
+        ps.setInt(1, v.getIdRuta());
+        ps.setTimestamp(2, v.getSalida());
+        ps.setTimestamp(3, v.getLlegada());
+        ps.setInt(4, v.getIdEquipo());
+        ps.setString(5, v.getEstado());
+        if (v.getIdDestino() > 0) {
+            ps.setInt(6, v.getIdDestino());
+        } else {
+            ps.setNull(6, Types.INTEGER);
         }
     }
 
@@ -91,23 +235,47 @@ public class ViajeDAO {
     // 4️⃣ ACTUALIZAR VIAJE
     // ==========================
     public boolean actualizar(Viaje v) {
+        AgendaEquipos agenda = AgendaEquipos.getInstancia();
+        // Mientras se escribe quedan apartados el horario viejo y el nuevo
+        AgendaEquipos.Reserva reserva = agenda.reservar(v);
+        if (rechazado(reserva, v)) {
+            return false;
+        }
         String sql = "UPDATE viaje SET idRuta=?, salida=?, llegada=?, idEquipo=?, estado=?, idDestino=? WHERE idViaje=?";
-        try {
-            con = Conexion.getConexion();
-            ps = con.prepareStatement(sql);
-            ps.setInt(1, v.getIdRuta());
-            ps.setTimestamp(2, v.getSalida());
-            ps.setTimestamp(3, v.getLlegada());
-            ps.setInt(4, v.getIdEquipo());
-            ps.setString(5, v.getEstado());
-            ps.setInt(6, v.getIdDestino());
-            ps.setInt(7, v.getIdViaje());
-            ps.executeUpdate();
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+            Map<String, Object> antes;
+            con.setAutoCommit(false);
+            try {
+                antes = Auditoria.foto(con, "viaje", "idViaje", v.getIdViaje());
+                asignarCampos(ps, v);
+                ps.setInt(7, v.getIdViaje());
+                ps.executeUpdate();
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
+            Auditoria.actualizado("viaje", v.getIdViaje(), antes, campos(v));
+            for (OyenteViajes o : OYENTES) {
+                o.viajeGuardado(v);
+            }
             return true;
         } catch (Exception e) {
             System.out.println("❌ Error al actualizar viaje: " + e);
             return false;
+        } finally {
+            agenda.liberar(reserva);
+        }
+    }
+
+    private static boolean rechazado(AgendaEquipos.Reserva reserva, Viaje v) {
+        List<AgendaEquipos.Conflicto> choques = reserva.getConflictos();
+        if (choques.isEmpty()) {
+            return false;
         }
+        System.out.println("⚠️ Viaje no guardado, equipo " + v.getIdEquipo() + ": " + choques.get(0));
+        return true;
     }
 
     // ==========================
@@ -115,15 +283,197 @@ public class ViajeDAO {
     // ==========================
     public boolean eliminar(int idViaje) {
         String sql = "DELETE FROM viaje WHERE idViaje = ?";
-        try {
-            con = Conexion.getConexion();
-            ps = con.prepareStatement(sql);
-            ps.setInt(1, idViaje);
-            ps.executeUpdate();
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+            Map<String, Object> antes;
+            con.setAutoCommit(false);
+            try {
+                antes = Auditoria.foto(con, "viaje", "idViaje", idViaje);
+                ps.setInt(1, idViaje);
+                ps.executeUpdate();
+                Sincronizacion.registrarEliminado(con, "viaje", idViaje);
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
+            Auditoria.eliminado("viaje", idViaje, antes);
+            for (OyenteViajes o : OYENTES) {
+                o.viajeEliminado(idViaje);
+            }
             return true;
         } catch (Exception e) {
             System.out.println("❌ Error al eliminar viaje: " + e);
             return false;
         }
     }
-}
\ No newline at end of file
+
+    // ==========================
+    // 6️⃣ BÚSQUEDA PAGINADA
+    // ==========================
+    public static final int LIMITE_MAXIMO = 500;
+
+    public int contar(FiltroViaje filtro) {
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM viaje v");
+        List<Object> params = new ArrayList<>();
+        agregarFiltros(sql, params, filtro);
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql.toString())) {
+            asignar(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Error al contar viajes: " + e);
+            return 0;
+        }
+    }
+
+    /**
+     * Página de viajes que cumplen el filtro, en el orden pedido y a partir
+     * del cursor (null = primera página). Usa keyset: filtra por la clave de
+     * la última fila en vez de saltar filas, así el costo no crece con la
+     * posición y el orden por salida aprovecha idx_salida. El límite se
+     * acota a {@link #LIMITE_MAXIMO}.
+     *
+     * @return null si falló la consulta (distinto de una página vacía)
+     */
+    public PaginaViajes buscar(FiltroViaje filtro, OrdenViaje orden, boolean ascendente,
+                               CursorViaje despuesDe, int limite) {
+        if (despuesDe != null && (despuesDe.orden != orden || despuesDe.ascendente != ascendente)) {
+            throw new IllegalArgumentException("El cursor es de otro orden: " + despuesDe);
+        }
+        int tope = Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+
+        StringBuilder sql = new StringBuilder(COLUMNAS_PAGINA);
+        List<Object> params = new ArrayList<>();
+        String conector = agregarFiltros(sql, params, filtro);
+        if (despuesDe != null) {
+            String op = ascendente ? " > " : " < ";
+            if (orden == OrdenViaje.ID) {
+                sql.append(conector).append("v.idViaje").append(op).append("?");
+            } else {
+                sql.append(conector).append("(").append(orden.expresion).append(op).append("? OR (")
+                   .append(orden.expresion).append(" = ? AND v.idViaje").append(op).append("?))");
+                params.add(despuesDe.clave);
+                params.add(despuesDe.clave);
+            }
+            params.add(despuesDe.idViaje);
+        }
+        // Una fila de más para saber si hay página siguiente
+        sql.append(ordenSql(orden, ascendente)).append(" LIMIT ?");
+        params.add(tope + 1);
+
+        List<Viaje> lista = consultarPagina(sql.toString(), params);
+        if (lista == null) {
+            return null;
+        }
+        if (lista.size() <= tope) {
+            return new PaginaViajes(lista, null);
+        }
+        lista.remove(tope);
+        return new PaginaViajes(lista, CursorViaje.despuesDe(lista.get(tope - 1), orden, ascendente));
+    }
+
+    /**
+     * Página por posición (OFFSET). Solo para saltar a una página cuyo
+     * cursor no se conoce; el recorrido normal usa buscar.
+     *
+     * @return null si falló la consulta
+     */
+    public List<Viaje> buscarDesde(FiltroViaje filtro, OrdenViaje orden, boolean ascendente,
+                                   int desde, int limite) {
+        StringBuilder sql = new StringBuilder(COLUMNAS_PAGINA);
+        List<Object> params = new ArrayList<>();
+        agregarFiltros(sql, params, filtro);
+        sql.append(ordenSql(orden, ascendente)).append(" LIMIT ? OFFSET ?");
+        params.add(Math.max(1, Math.min(limite, LIMITE_MAXIMO)));
+        params.add(desde);
+        return consultarPagina(sql.toString(), params);
+    }
+
+    private static final String COLUMNAS_PAGINA =
+            "SELECT v.idViaje, v.idRuta, v.salida, v.llegada, v.idEquipo, v.estado, v.idDestino FROM viaje v";
+
+    // Devuelve el conector (" WHERE " o " AND ") para la siguiente condición
+    private static String agregarFiltros(StringBuilder sql, List<Object> params, FiltroViaje f) {
+        String conector = " WHERE ";
+        if (f == null) {
+            return conector;
+        }
+        if (f.getSalidaDesde() != null) {
+            sql.append(conector).append("v.salida >= ?");
+            params.add(f.getSalidaDesde());
+            conector = " AND ";
+        }
+        if (f.getSalidaHasta() != null) {
+            sql.append(conector).append("v.salida < ?");
+            params.add(f.getSalidaHasta());
+            conector = " AND ";
+        }
+        if (f.getEstado() != null && !f.getEstado().isEmpty()) {
+            sql.append(conector).append("v.estado = ?");
+            params.add(f.getEstado());
+            conector = " AND ";
+        }
+        if (f.getIdRuta() > 0) {
+            sql.append(conector).append("v.idRuta = ?");
+            params.add(f.getIdRuta());
+            conector = " AND ";
+        }
+        if (f.getIdEquipo() > 0) {
+            sql.append(conector).append("v.idEquipo = ?");
+            params.add(f.getIdEquipo());
+            conector = " AND ";
+        }
+        if (f.getIdDestino() > 0) {
+            sql.append(conector).append("v.idDestino = ?");
+            params.add(f.getIdDestino());
+            conector = " AND ";
+        }
+        return conector;
+    }
+
+    private static String ordenSql(OrdenViaje orden, boolean ascendente) {
+        String dir = ascendente ? " ASC" : " DESC";
+        if (orden == OrdenViaje.ID) {
+            return " ORDER BY v.idViaje" + dir;
+        }
+        return " ORDER BY " + orden.expresion + dir + ", v.idViaje" + dir;
+    }
+
+    private static void asignar(PreparedStatement ps, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            ps.setObject(i + 1, params.get(i));
+        }
+    }
+
+    private List<Viaje> consultarPagina(String sql, List<Object> params) {
+        List<Viaje> lista = new ArrayList<>();
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+            asignar(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    lista.add(mapear(rs));
+                }
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Error al buscar viajes: " + e);
+            return null;
+        }
+        return lista;
+    }
+
+    private Viaje mapear(ResultSet rs) throws SQLException {
+        Viaje v = new Viaje();
+        v.setIdViaje(rs.getInt("idViaje"));
+        v.setIdRuta(rs.getInt("idRuta"));
+        v.setSalida(rs.getTimestamp("salida"));
+        v.setLlegada(rs.getTimestamp("llegada"));
+        v.setIdEquipo(rs.getInt("idEquipo"));
+        v.setEstado(rs.getString("estado"));
+        v.setIdDestino(rs.getInt("idDestino"));
+        return v;
+    }
+}
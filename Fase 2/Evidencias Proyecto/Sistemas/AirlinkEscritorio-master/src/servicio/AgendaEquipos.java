@@ -0,0 +1,418 @@
+package servicio;
+
+import Modelo.Viaje;
+import dao.OyenteViajes;
+import dao.ViajeDAO;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Agenda de cada avión o bus (empresa_equipo): un árbol de intervalos por
+ * idEquipo con los viajes no cancelados, para saber al guardar si el equipo
+ * ya está ocupado en esa ventana o si no le alcanza el tiempo mínimo de
+ * giro entre un viaje y el siguiente (-Dairlink.equipos.giroMin, 30 por
+ * defecto).
+ *
+ * Se arma la primera vez que se consulta y después se mantiene con los
+ * avisos de {@link ViajeDAO}; una carga masiva la vuelve a leer completa.
+ * Mientras el DAO escribe un viaje, su ventana queda apartada con
+ * {@link #reservar}, así el lock de la agenda solo cubre la revisión y no
+ * la base de datos ni los avisos a los oyentes.
+ */
+public class AgendaEquipos implements OyenteViajes {
+
+    private static volatile AgendaEquipos instancia;
+
+    private final long giroMs;
+    private final Map<Integer, Arbol> equipos = new HashMap<>();
+    /** idViaje → nodo, para poder sacarlo al actualizar o eliminar. */
+    private final Map<Integer, Nodo> nodos = new HashMap<>();
+    /** Ventanas apartadas que el DAO todavía no termina de escribir, por clave (negativa). */
+    private final Map<Integer, Nodo> reservas = new HashMap<>();
+    private int ultimaReserva;
+    private boolean cargada;
+
+    public static AgendaEquipos getInstancia() {
+        AgendaEquipos a = instancia;
+        if (a == null) {
+            synchronized (AgendaEquipos.class) {
+                a = instancia;
+                if (a == null) {
+                    a = new AgendaEquipos(Integer.getInteger("airlink.equipos.giroMin", 30));
+                    ViajeDAO.agregarOyente(a);
+                    instancia = a;
+                }
+            }
+        }
+        return a;
+    }
+
+    public AgendaEquipos(int giroMin) {
+        this.giroMs = giroMin * 60_000L;
+    }
+
+    // ============================
+    // CONSULTAS
+    // ============================
+
+    /**
+     * Viajes del mismo equipo que chocan con {@code v}: se solapan con su
+     * ventana o quedan a menos del tiempo de giro. Ignora al propio viaje
+     * (para poder revisar una edición) y devuelve vacío si v está cancelado.
+     */
+    public synchronized List<Conflicto> conflictos(Viaje v) {
+        List<Conflicto> lista = new ArrayList<>();
+        if (v.getSalida() == null || v.getLlegada() == null || esCancelado(v.getEstado())) {
+            return lista;
+        }
+        cargar();
+        Arbol a = equipos.get(v.getIdEquipo());
+        if (a != null) {
+            long s = v.getSalida().getTime();
+            long l = v.getLlegada().getTime();
+            a.chocan(a.raiz, s - giroMs, l + giroMs, n -> {
+                if (n.clave != v.getIdViaje()) {
+                    lista.add(new Conflicto(n.idViaje, -1, n.salida, n.llegada, n.salida < l && n.llegada > s));
+                }
+            });
+        }
+        return lista;
+    }
+
+    /**
+     * Revisa una temporada completa antes de insertarla: contra la agenda y
+     * entre las filas nuevas. Ordena las filas por equipo y salida y las
+     * recorre una vez; de dos filas nuevas que chocan se queda la que sale
+     * primero.
+     *
+     * @return posición en {@code viajes} → conflicto que la rechaza
+     */
+    public synchronized Map<Integer, Conflicto> revisarTemporada(List<Viaje> viajes) {
+        cargar();
+        Integer[] orden = new Integer[viajes.size()];
+        int n = 0;
+        for (int i = 0; i < viajes.size(); i++) {
+            if (viajes.get(i).getSalida() != null && viajes.get(i).getLlegada() != null) {
+                orden[n++] = i;
+            }
+        }
+        orden = Arrays.copyOf(orden, n);
+        Arrays.sort(orden, (x, y) -> {
+            Viaje a = viajes.get(x), b = viajes.get(y);
+            int c = Integer.compare(a.getIdEquipo(), b.getIdEquipo());
+            return c != 0 ? c : a.getSalida().compareTo(b.getSalida());
+        });
+
+        Map<Integer, Conflicto> rechazados = new LinkedHashMap<>();
+        int equipoAnterior = 0;
+        int aceptadoAnterior = -1;
+        for (int i : orden) {
+            Viaje v = viajes.get(i);
+            if (esCancelado(v.getEstado())) {
+                continue;
+            }
+            if (v.getIdEquipo() != equipoAnterior) {
+                equipoAnterior = v.getIdEquipo();
+                aceptadoAnterior = -1;
+            }
+            List<Conflicto> contra = conflictos(v);
+            if (!contra.isEmpty()) {
+                rechazados.put(i, contra.get(0));
+                continue;
+            }
+            if (aceptadoAnterior >= 0) {
+                Viaje p = viajes.get(aceptadoAnterior);
+                if (p.getLlegada().getTime() + giroMs > v.getSalida().getTime()) {
+                    rechazados.put(i, new Conflicto(0, aceptadoAnterior, p.getSalida().getTime(),
+                            p.getLlegada().getTime(), p.getLlegada().after(v.getSalida())));
+                    continue;
+                }
+            }
+            aceptadoAnterior = i;
+        }
+        return rechazados;
+    }
+
+    /**
+     * Revisa {@code v} como {@link #conflictos} y, si no choca con nada, le
+     * aparta la ventana hasta {@link #liberar}. Otro guardado del mismo
+     * equipo que llegue mientras tanto ya la ve ocupada.
+     */
+    public synchronized Reserva reservar(Viaje v) {
+        List<Conflicto> choques = conflictos(v);
+        if (!choques.isEmpty() || v.getSalida() == null || v.getLlegada() == null || esCancelado(v.getEstado())) {
+            return new Reserva(0, choques);
+        }
+        Nodo n = new Nodo(--ultimaReserva, v.getIdViaje(), v.getIdEquipo(), v.getSalida().getTime(), v.getLlegada().getTime());
+        reservas.put(n.clave, n);
+        Arbol a = equipos.computeIfAbsent(n.idEquipo, k -> new Arbol());
+        a.raiz = a.insertar(a.raiz, n);
+        return new Reserva(n.clave, choques);
+    }
+
+    /**
+     * Suelta una ventana apartada. El DAO la llama siempre al terminar: si
+     * el viaje se guardó, {@link #viajeGuardado} ya dejó su nodo definitivo;
+     * si falló, la ventana simplemente vuelve a quedar libre.
+     */
+    public synchronized void liberar(Reserva r) {
+        Nodo n = reservas.remove(r.clave);
+        if (n != null) {
+            Arbol a = equipos.get(n.idEquipo);
+            if (a != null) {
+                a.raiz = a.eliminar(a.raiz, n);
+            }
+        }
+    }
+
+    // ============================
+    // CAMBIOS DESDE EL DAO
+    // ============================
+    @Override
+    public synchronized void viajeGuardado(Viaje v) {
+        if (!cargada) {
+            return;
+        }
+        quitar(v.getIdViaje());
+        poner(v.getIdViaje(), v.getIdEquipo(), v.getEstado(), v.getSalida(), v.getLlegada());
+    }
+
+    @Override
+    public synchronized void viajeEliminado(int idViaje) {
+        if (cargada) {
+            quitar(idViaje);
+        }
+    }
+
+    @Override
+    public synchronized void cargaMasiva() {
+        cargada = false;
+    }
+
+    private void cargar() {
+        if (cargada) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        equipos.clear();
+        nodos.clear();
+        for (Viaje v : new ViajeDAO().listar()) {
+            poner(v.getIdViaje(), v.getIdEquipo(), v.getEstado(), v.getSalida(), v.getLlegada());
+        }
+        // Lo que se está escribiendo ahora sigue apartado aunque se relea la agenda
+        for (Nodo n : reservas.values()) {
+            n.izq = n.der = null;
+            n.maxLlegada = n.llegada;
+            Arbol a = equipos.computeIfAbsent(n.idEquipo, k -> new Arbol());
+            a.raiz = a.insertar(a.raiz, n);
+        }
+        cargada = true;
+        System.out.println("🛫 Agenda de equipos: " + nodos.size() + " viajes en " + equipos.size() + " equipos ("
+                + (System.nanoTime() - inicio) / 1_000_000 + " ms)");
+    }
+
+    private void poner(int idViaje, int idEquipo, String estado, Timestamp salida, Timestamp llegada) {
+        if (salida == null || llegada == null || esCancelado(estado)) {
+            return;
+        }
+        Nodo n = new Nodo(idViaje, idViaje, idEquipo, salida.getTime(), llegada.getTime());
+        Arbol a = equipos.computeIfAbsent(idEquipo, k -> new Arbol());
+        a.raiz = a.insertar(a.raiz, n);
+        nodos.put(idViaje, n);
+    }
+
+    private void quitar(int idViaje) {
+        Nodo n = nodos.remove(idViaje);
+        if (n != null) {
+            Arbol a = equipos.get(n.idEquipo);
+            a.raiz = a.eliminar(a.raiz, n);
+        }
+    }
+
+    private static boolean esCancelado(String estado) {
+        return estado != null && estado.trim().toLowerCase().startsWith("cancelad");
+    }
+
+    // ============================
+    // ÁRBOL DE INTERVALOS
+    // ============================
+    private static final class Nodo {
+        /** idViaje para los viajes guardados, negativa para una reserva. */
+        final int clave;
+        final int idViaje;
+        final int idEquipo;
+        final long salida;
+        final long llegada;
+        final int prioridad = ThreadLocalRandom.current().nextInt();
+        long maxLlegada;
+        Nodo izq, der;
+
+        Nodo(int clave, int idViaje, int idEquipo, long salida, long llegada) {
+            this.clave = clave;
+            this.idViaje = idViaje;
+            this.idEquipo = idEquipo;
+            this.salida = salida;
+            this.llegada = llegada;
+            this.maxLlegada = llegada;
+        }
+
+        int comparar(Nodo o) {
+            int c = Long.compare(salida, o.salida);
+            return c != 0 ? c : Integer.compare(clave, o.clave);
+        }
+
+        void recalcular() {
+            maxLlegada = llegada;
+            if (izq != null && izq.maxLlegada > maxLlegada) {
+                maxLlegada = izq.maxLlegada;
+            }
+            if (der != null && der.maxLlegada > maxLlegada) {
+                maxLlegada = der.maxLlegada;
+            }
+        }
+    }
+
+    /**
+     * Treap ordenado por salida, cada nodo con la llegada máxima de su
+     * subárbol: buscar lo que choca con una ventana es O(log n + k).
+     */
+    private static final class Arbol {
+        Nodo raiz;
+
+        Nodo insertar(Nodo t, Nodo n) {
+            if (t == null) {
+                return n;
+            }
+            if (n.comparar(t) < 0) {
+                t.izq = insertar(t.izq, n);
+                if (t.izq.prioridad > t.prioridad) {
+                    t = rotarDerecha(t);
+                }
+            } else {
+                t.der = insertar(t.der, n);
+                if (t.der.prioridad > t.prioridad) {
+                    t = rotarIzquierda(t);
+                }
+            }
+            t.recalcular();
+            return t;
+        }
+
+        Nodo eliminar(Nodo t, Nodo n) {
+            if (t == null) {
+                return null;
+            }
+            int c = n.comparar(t);
+            if (c < 0) {
+                t.izq = eliminar(t.izq, n);
+            } else if (c > 0) {
+                t.der = eliminar(t.der, n);
+            } else {
+                return unir(t.izq, t.der);
+            }
+            t.recalcular();
+            return t;
+        }
+
+        private Nodo unir(Nodo a, Nodo b) {
+            if (a == null) {
+                return b;
+            }
+            if (b == null) {
+                return a;
+            }
+            if (a.prioridad > b.prioridad) {
+                a.der = unir(a.der, b);
+                a.recalcular();
+                return a;
+            }
+            b.izq = unir(a, b.izq);
+            b.recalcular();
+            return b;
+        }
+
+        /** Nodos con salida < hasta y llegada > desde. */
+        void chocan(Nodo t, long desde, long hasta, Consumer<Nodo> accion) {
+            if (t == null || t.maxLlegada <= desde) {
+                return;
+            }
+            chocan(t.izq, desde, hasta, accion);
+            if (t.salida < hasta) {
+                if (t.llegada > desde) {
+                    accion.accept(t);
+                }
+                chocan(t.der, desde, hasta, accion);
+            }
+        }
+
+        private static Nodo rotarDerecha(Nodo t) {
+            Nodo l = t.izq;
+            t.izq = l.der;
+            l.der = t;
+            t.recalcular();
+            return l;
+        }
+
+        private static Nodo rotarIzquierda(Nodo t) {
+            Nodo r = t.der;
+            t.der = r.izq;
+            r.izq = t;
+            t.recalcular();
+            return r;
+        }
+    }
+
+    /** Resultado de {@link #reservar}: la ventana quedó apartada si no hubo conflictos. */
+    public static final class Reserva {
+        private final int clave;
+        private final List<Conflicto> conflictos;
+
+        Reserva(int clave, List<Conflicto> conflictos) {
+            this.clave = clave;
+            this.conflictos = conflictos;
+        }
+
+        public List<Conflicto> getConflictos() { return conflictos; }
+    }
+
+    /** Choque de horario con otro viaje del mismo equipo. */
+    public static class Conflicto {
+        private final int idViaje;
+        private final int fila;
+        private final Timestamp salida;
+        private final Timestamp llegada;
+        private final boolean solape;
+
+        Conflicto(int idViaje, int fila, long salida, long llegada, boolean solape) {
+            this.idViaje = idViaje;
+            this.fila = fila;
+            this.salida = new Timestamp(salida);
+            this.llegada = new Timestamp(llegada);
+            this.solape = solape;
+        }
+
+        /** Viaje con el que choca, o 0 si es otra fila de la misma temporada o un viaje nuevo que se está guardando. */
+        public int getIdViaje() { return idViaje; }
+        /** Posición de la otra fila de la temporada, o -1. */
+        public int getFila() { return fila; }
+        public Timestamp getSalida() { return salida; }
+        public Timestamp getLlegada() { return llegada; }
+        /** true si las ventanas se pisan; false si solo falta tiempo de giro. */
+        public boolean isSolape() { return solape; }
+
+        @Override
+        public String toString() {
+            String otro = idViaje > 0 ? "viaje " + idViaje
+                    : fila >= 0 ? "otra fila de la misma carga" : "otro viaje que se está guardando";
+            return (solape ? "Equipo ocupado: " : "Sin tiempo de giro: ") + otro
+                    + " (" + salida + " → " + llegada + ")";
+        }
+    }
+}
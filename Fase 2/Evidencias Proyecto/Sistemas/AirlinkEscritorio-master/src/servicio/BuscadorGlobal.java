@@ -0,0 +1,429 @@
+package servicio;
+
+import Modelo.Destino;
+import Modelo.Empresa;
+import Modelo.Ruta;
+import Modelo.Terminal;
+import dao.DestinoDAO;
+import dao.EmpresaDAO;
+import dao.OyenteDestinos;
+import dao.OyenteEmpresas;
+import dao.OyenteRutas;
+import dao.RutaDAO;
+import dao.TerminalDAO;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import servicio.ResultadoBusqueda.Tipo;
+
+/**
+ * Búsqueda por nombre en destinos, terminales, empresas y rutas, sin ir a la
+ * base: el buscador global del menú de administración.
+ *
+ * Los textos se pliegan con {@link Texto#plegar} y se parten en palabras; un
+ * índice invertido guarda, por palabra, los registros que la contienen y si
+ * la tienen en un campo principal (nombre, código, extremos de la ruta) o
+ * secundario (ciudad, país). Cada palabra de la consulta tiene que calzar con
+ * alguna del registro: igual, como prefijo (la que se está escribiendo) o con
+ * una o dos letras de diferencia, y el puntaje baja en ese orden.
+ *
+ * Igual que {@link GrafoRutas}, el índice es una instantánea inmutable: los
+ * cambios que avisan los DAO la marcan como vieja y la siguiente búsqueda la
+ * rearma una sola vez. Los terminales no tienen DAO de escritura, así que se
+ * leen una vez al crear la instancia.
+ */
+public class BuscadorGlobal implements OyenteDestinos, OyenteEmpresas, OyenteRutas {
+
+    private static final double PESO_SECUNDARIO = 0.6;
+    private static final double EXACTA = 1.0;
+    private static final double PREFIJO = 0.8;
+    private static final double PARECIDA = 0.5;
+
+    private static volatile BuscadorGlobal instancia;
+
+    private final Map<Tipo, Map<Integer, Documento>> documentos = new EnumMap<>(Tipo.class);
+    private final Map<Integer, Terminal> terminales = new HashMap<>();
+    private final Map<Integer, Ruta> rutas = new HashMap<>();
+    private volatile Indice indice;
+
+    /** Buscador con los datos de la base, que se mantiene al día con los DAO. */
+    public static BuscadorGlobal getInstancia() {
+        BuscadorGlobal b = instancia;
+        if (b == null) {
+            synchronized (BuscadorGlobal.class) {
+                b = instancia;
+                if (b == null) {
+                    b = new BuscadorGlobal(new DestinoDAO().listar(), new TerminalDAO().listar(),
+                            new EmpresaDAO().listar(), new RutaDAO().listar());
+                    DestinoDAO.agregarOyente(b);
+                    EmpresaDAO.agregarOyente(b);
+                    RutaDAO.agregarOyente(b);
+                    instancia = b;
+                }
+            }
+        }
+        return b;
+    }
+
+    public BuscadorGlobal(Collection<Destino> destinos, Collection<Terminal> terminales,
+                          Collection<Empresa> empresas, Collection<Ruta> rutas) {
+        for (Tipo t : Tipo.values()) {
+            documentos.put(t, new HashMap<>());
+        }
+        for (Terminal t : terminales) {
+            this.terminales.put(t.getId(), t);
+            documentos.get(Tipo.TERMINAL).put(t.getId(), new Documento(Tipo.TERMINAL, t.getId(), t.getNombre(),
+                    unir(" · ", t.getCodigo(), t.getCiudad()),
+                    new String[]{t.getNombre(), t.getCodigo()}, new String[]{t.getCiudad()}));
+        }
+        for (Destino d : destinos) {
+            destinoGuardado(d);
+        }
+        for (Empresa e : empresas) {
+            empresaGuardada(e);
+        }
+        for (Ruta r : rutas) {
+            rutaGuardada(r);
+        }
+    }
+
+    // ============================
+    // CAMBIOS DESDE LOS DAO
+    // ============================
+    @Override
+    public synchronized void destinoGuardado(Destino d) {
+        documentos.get(Tipo.DESTINO).put(d.getIdDestino(), new Documento(Tipo.DESTINO, d.getIdDestino(), d.getNombre(),
+                unir(", ", d.getCiudad(), d.getPais()),
+                new String[]{d.getNombre()}, new String[]{d.getCiudad(), d.getPais()}));
+        indice = null;
+    }
+
+    @Override
+    public synchronized void destinoEliminado(int idDestino) {
+        if (documentos.get(Tipo.DESTINO).remove(idDestino) != null) {
+            indice = null;
+        }
+    }
+
+    @Override
+    public synchronized void empresaGuardada(Empresa e) {
+        documentos.get(Tipo.EMPRESA).put(e.getIdEmpresa(), new Documento(Tipo.EMPRESA, e.getIdEmpresa(),
+                e.getNombreEmpresa(), e.getTipoEmpresa(),
+                new String[]{e.getNombreEmpresa()}, new String[0]));
+        indice = null;
+    }
+
+    @Override
+    public synchronized void empresaEliminada(int idEmpresa) {
+        if (documentos.get(Tipo.EMPRESA).remove(idEmpresa) != null) {
+            indice = null;
+        }
+    }
+
+    @Override
+    public synchronized void rutaGuardada(Ruta r) {
+        // Los nombres salen de los terminales: el formulario de edición no siempre los trae
+        Terminal origen = terminales.get(r.getIdTerminalOrigen());
+        Terminal destino = terminales.get(r.getIdTerminalDestino());
+        Ruta anterior = rutas.get(r.getIdRuta());
+        String nombreOrigen = origen != null ? origen.getNombre()
+                : r.getOrigen() != null ? r.getOrigen() : anterior != null ? anterior.getOrigen() : null;
+        String nombreDestino = destino != null ? destino.getNombre()
+                : r.getDestino() != null ? r.getDestino() : anterior != null ? anterior.getDestino() : null;
+        Ruta copia = new Ruta();
+        copia.setIdRuta(r.getIdRuta());
+        copia.setOrigen(nombreOrigen);
+        copia.setDestino(nombreDestino);
+        rutas.put(r.getIdRuta(), copia);
+
+        String[] principales = {nombreOrigen, nombreDestino,
+                origen != null ? origen.getCodigo() : null, destino != null ? destino.getCodigo() : null};
+        String[] secundarios = {origen != null ? origen.getCiudad() : null, destino != null ? destino.getCiudad() : null};
+        documentos.get(Tipo.RUTA).put(r.getIdRuta(), new Documento(Tipo.RUTA, r.getIdRuta(),
+                nombreOrigen + " → " + nombreDestino,
+                origen != null && destino != null ? origen.getCiudad() + " → " + destino.getCiudad() : "",
+                principales, secundarios));
+        indice = null;
+    }
+
+    @Override
+    public synchronized void rutaEliminada(int idRuta) {
+        rutas.remove(idRuta);
+        if (documentos.get(Tipo.RUTA).remove(idRuta) != null) {
+            indice = null;
+        }
+    }
+
+    private Indice indice() {
+        Indice i = indice;
+        if (i == null) {
+            synchronized (this) {
+                i = indice;
+                if (i == null) {
+                    long inicio = System.nanoTime();
+                    List<Documento> todos = new ArrayList<>();
+                    for (Map<Integer, Documento> porId : documentos.values()) {
+                        todos.addAll(porId.values());
+                    }
+                    i = new Indice(todos);
+                    indice = i;
+                    System.out.println("🔎 Índice de búsqueda: " + i.docs.length + " registros, "
+                            + i.terminos.length + " palabras, armado en "
+                            + (System.nanoTime() - inicio) / 1_000_000 + " ms");
+                }
+            }
+        }
+        return i;
+    }
+
+    // ============================
+    // BÚSQUEDA
+    // ============================
+    /** Hasta {@code maximo} registros, del que mejor calza al peor. */
+    public List<ResultadoBusqueda> buscar(String consulta, int maximo) {
+        List<String> palabras = palabras(consulta);
+        if (palabras.isEmpty() || maximo <= 0) {
+            return Collections.emptyList();
+        }
+        Indice ind = indice();
+        int n = ind.docs.length;
+        double[] total = new double[n];
+        int[] calces = new int[n];
+        double[] aporte = new double[n];
+        int[] tocados = new int[n];
+        for (String p : palabras) {
+            int cuantos = 0;
+            // Las palabras cortas solo calzan como prefijo: basta el rango de términos que empiezan con ella
+            int desde = 0;
+            int hasta = ind.terminos.length;
+            if (p.length() < 4) {
+                desde = ind.desde(p);
+                hasta = ind.desde(p + Character.MAX_VALUE);
+            }
+            for (int t = desde; t < hasta; t++) {
+                double calce = calce(p, ind.terminos[t]);
+                if (calce == 0) {
+                    continue;
+                }
+                for (int entrada : ind.listas[t]) {
+                    int d = entrada >>> 1;
+                    double v = (entrada & 1) == 0 ? calce : calce * PESO_SECUNDARIO;
+                    if (aporte[d] == 0) {
+                        tocados[cuantos++] = d;
+                    }
+                    if (v > aporte[d]) {
+                        aporte[d] = v;
+                    }
+                }
+            }
+            // Cuenta la mejor palabra del registro para cada palabra de la consulta
+            for (int k = 0; k < cuantos; k++) {
+                int d = tocados[k];
+                total[d] += aporte[d];
+                calces[d]++;
+                aporte[d] = 0;
+            }
+        }
+        // Con una o dos letras calzan miles: se guardan solo los mejores, con el peor arriba
+        Comparator<Integer> orden = Comparator.<Integer>comparingDouble(d -> total[d])
+                .thenComparingInt(d -> -ind.docs[d].titulo.length())
+                .thenComparing(d -> ind.docs[d].titulo, Comparator.reverseOrder());
+        PriorityQueue<Integer> mejores = new PriorityQueue<>(maximo + 1, orden);
+        for (int d = 0; d < n; d++) {
+            if (calces[d] == palabras.size()) {
+                if (mejores.size() < maximo) {
+                    mejores.add(d);
+                } else if (orden.compare(d, mejores.peek()) > 0) {
+                    mejores.poll();
+                    mejores.add(d);
+                }
+            }
+        }
+        ResultadoBusqueda[] resultado = new ResultadoBusqueda[mejores.size()];
+        for (int k = resultado.length - 1; k >= 0; k--) {
+            int d = mejores.poll();
+            Documento doc = ind.docs[d];
+            resultado[k] = new ResultadoBusqueda(doc.tipo, doc.id, doc.titulo, doc.detalle, total[d]);
+        }
+        return new ArrayList<>(Arrays.asList(resultado));
+    }
+
+    // 0 si no calza; los términos más largos que la palabra pierden un poco
+    private static double calce(String palabra, String termino) {
+        if (termino.startsWith(palabra)) {
+            return termino.length() == palabra.length() ? EXACTA
+                    : PREFIJO * (0.75 + 0.25 * palabra.length() / termino.length());
+        }
+        int l = palabra.length();
+        if (l < 4) {
+            return 0;  // con tan pocas letras una diferencia calza con cualquier cosa
+        }
+        int permitidas = l >= 8 ? 2 : 1;
+        int m = termino.length();
+        if (Math.abs(m - l) <= permitidas) {
+            int d = distancia(palabra, termino, m, permitidas);
+            if (d <= permitidas) {
+                return PARECIDA / d;
+            }
+        }
+        // La palabra que se está escribiendo contra el comienzo del término
+        if (m > l) {
+            int d = distancia(palabra, termino, l, permitidas);
+            if (d <= permitidas) {
+                return PARECIDA * PREFIJO / d;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Distancia de edición (con transposición de letras vecinas) entre
+     * {@code a} y los primeros {@code largoB} caracteres de {@code b}; deja de
+     * calcular y devuelve tope + 1 apenas se sabe que la pasa.
+     */
+    private static int distancia(String a, String b, int largoB, int tope) {
+        int la = a.length();
+        int[] anterior2 = new int[largoB + 1];
+        int[] anterior = new int[largoB + 1];
+        int[] actual = new int[largoB + 1];
+        for (int j = 0; j <= largoB; j++) {
+            anterior[j] = j;
+        }
+        for (int i = 1; i <= la; i++) {
+            actual[0] = i;
+            int minimo = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= largoB; j++) {
+                char cb = b.charAt(j - 1);
+                int v = Math.min(Math.min(actual[j - 1], anterior[j]) + 1, anterior[j - 1] + (ca == cb ? 0 : 1));
+                if (i > 1 && j > 1 && ca == b.charAt(j - 2) && a.charAt(i - 2) == cb) {
+                    v = Math.min(v, anterior2[j - 2] + 1);
+                }
+                actual[j] = v;
+                minimo = Math.min(minimo, v);
+            }
+            if (minimo > tope) {
+                return tope + 1;
+            }
+            int[] t = anterior2;
+            anterior2 = anterior;
+            anterior = actual;
+            actual = t;
+        }
+        return anterior[largoB];
+    }
+
+    static List<String> palabras(String texto) {
+        List<String> palabras = new ArrayList<>();
+        String t = Texto.plegar(texto);
+        int inicio = -1;
+        for (int i = 0; i <= t.length(); i++) {
+            boolean letra = i < t.length() && Character.isLetterOrDigit(t.charAt(i));
+            if (letra && inicio < 0) {
+                inicio = i;
+            } else if (!letra && inicio >= 0) {
+                palabras.add(t.substring(inicio, i));
+                inicio = -1;
+            }
+        }
+        return palabras;
+    }
+
+    private static String unir(String separador, String... partes) {
+        StringBuilder sb = new StringBuilder();
+        for (String p : partes) {
+            if (p != null && !p.isEmpty()) {
+                if (sb.length() > 0) {
+                    sb.append(separador);
+                }
+                sb.append(p);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static final class Documento {
+        final Tipo tipo;
+        final int id;
+        final String titulo;
+        final String detalle;
+        final String[] principales;
+        final String[] secundarios;
+
+        Documento(Tipo tipo, int id, String titulo, String detalle, String[] principales, String[] secundarios) {
+            this.tipo = tipo;
+            this.id = id;
+            this.titulo = titulo == null ? "" : titulo;
+            this.detalle = detalle;
+            this.principales = principales;
+            this.secundarios = secundarios;
+        }
+    }
+
+    /**
+     * Palabras ordenadas y, por cada una, los registros que la tienen: cada
+     * entrada es índice del registro * 2, + 1 si solo está en un campo
+     * secundario.
+     */
+    private static final class Indice {
+        final Documento[] docs;
+        final String[] terminos;
+        final int[][] listas;
+
+        Indice(List<Documento> documentos) {
+            docs = documentos.toArray(new Documento[0]);
+            Map<String, int[]> enConstruccion = new HashMap<>();
+            for (int d = 0; d < docs.length; d++) {
+                // Primero los secundarios, así un principal los pisa
+                for (String campo : docs[d].secundarios) {
+                    for (String p : palabras(campo)) {
+                        enConstruccion.put(p, agregar(enConstruccion.get(p), d * 2 + 1));
+                    }
+                }
+                for (String campo : docs[d].principales) {
+                    for (String p : palabras(campo)) {
+                        enConstruccion.put(p, agregar(enConstruccion.get(p), d * 2));
+                    }
+                }
+            }
+            terminos = enConstruccion.keySet().toArray(new String[0]);
+            Arrays.sort(terminos);
+            listas = new int[terminos.length][];
+            for (int t = 0; t < terminos.length; t++) {
+                int[] l = enConstruccion.get(terminos[t]);
+                listas[t] = Arrays.copyOfRange(l, 1, l[0] + 1);
+            }
+        }
+
+        // Posición del primer término >= prefijo
+        int desde(String prefijo) {
+            int i = Arrays.binarySearch(terminos, prefijo);
+            return i >= 0 ? i : -i - 1;
+        }
+
+        // Lista que crece al final; la posición 0 lleva el largo
+        private static int[] agregar(int[] lista, int entrada) {
+            if (lista == null) {
+                lista = new int[4];
+            }
+            int largo = lista[0];
+            if (largo > 0 && lista[largo] >>> 1 == entrada >>> 1) {
+                lista[largo] = Math.min(lista[largo], entrada);  // mismo registro: queda el campo principal
+                return lista;
+            }
+            if (largo + 1 == lista.length) {
+                lista = Arrays.copyOf(lista, lista.length * 2);
+            }
+            lista[largo + 1] = entrada;
+            lista[0] = largo + 1;
+            return lista;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package servicio;
+
+import dao.Conexion;
+import dao.CuponDAO;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Canje de cupones sin sobrevender y sin que todos esperen el lock de la
+ * misma fila de cupon_descuento.
+ *
+ * En vez de un UPDATE por canje, cada cupón tiene una bolsa local de usos
+ * ya tomados de cupon_descuento con {@link CuponDAO#tomarUsos} (un UPDATE
+ * condicional que nunca deja uso_actual por encima de uso_maximo). La bolsa
+ * está repartida en franjas, una por núcleo, y cada hilo descuenta de su
+ * franja con compareAndSet; solo cuando todas se vacían un hilo vuelve a la
+ * base por otro bloque.
+ *
+ * El bloque es de hasta -Dairlink.cupones.bloque usos (50 por defecto) pero
+ * nunca más de un octavo de lo que le queda al cupón, para no acaparar los
+ * últimos usos si hay otras instancias canjeando. Lo tomado y no canjeado se
+ * devuelve con {@link #devolverSobrantes}, que también corre al cerrar la
+ * aplicación.
+ */
+public class CanjeCupones {
+
+    private static final long AGOTADO_MS = 30_000;
+    private static volatile CanjeCupones instancia;
+
+    private final CuponDAO cuponDAO;
+    private final int bloqueMaximo;
+    private final int franjas;
+    private final Map<String, Bolsa> bolsas = new ConcurrentHashMap<>();
+
+    public static CanjeCupones getInstancia() {
+        CanjeCupones c = instancia;
+        if (c == null) {
+            synchronized (CanjeCupones.class) {
+                c = instancia;
+                if (c == null) {
+                    c = new CanjeCupones(new CuponDAO(), Integer.getInteger("airlink.cupones.bloque", 50));
+                    Conexion.antesDeCerrar(c::devolverSobrantes);
+                    instancia = c;
+                }
+            }
+        }
+        return c;
+    }
+
+    public CanjeCupones(CuponDAO cuponDAO, int bloqueMaximo) {
+        this.cuponDAO = cuponDAO;
+        this.bloqueMaximo = Math.max(1, bloqueMaximo);
+        this.franjas = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+    }
+
+    /** Consume un uso del cupón; false si no existe, no está vigente o se agotó. */
+    public boolean canjear(String codigo) {
+        Bolsa b = bolsas.computeIfAbsent(normalizar(codigo), Bolsa::new);
+        if (b.tomar()) {
+            return true;
+        }
+        return rellenarYTomar(b);
+    }
+
+    /** Anula un canje: el uso vuelve a la bolsa local y queda para el próximo. */
+    public void anular(String codigo) {
+        Bolsa b = bolsas.computeIfAbsent(normalizar(codigo), Bolsa::new);
+        b.agregar(1);
+        b.agotadoHasta = 0;
+    }
+
+    /** Devuelve a la base todos los usos tomados que nadie canjeó. */
+    public void devolverSobrantes() {
+        for (Bolsa b : bolsas.values()) {
+            synchronized (b) {
+                int sobrantes = b.vaciar();
+                if (sobrantes > 0 && !cuponDAO.devolverUsos(b.codigo, sobrantes)) {
+                    b.agregar(sobrantes);  // se reintenta en la próxima devolución
+                }
+            }
+        }
+    }
+
+    private boolean rellenarYTomar(Bolsa b) {
+        if (System.currentTimeMillis() < b.agotadoHasta) {
+            return false;
+        }
+        synchronized (b) {
+            // Mientras esperábamos otro hilo pudo haber rellenado
+            if (b.tomar()) {
+                return true;
+            }
+            for (int intento = 0; intento < 5; intento++) {
+                int restantes = cuponDAO.usosRestantes(b.codigo);
+                if (restantes < 0) {
+                    return false;  // falló la base: no dar el cupón por agotado
+                }
+                if (restantes == 0) {
+                    break;
+                }
+                int bloque = Math.max(1, Math.min(bloqueMaximo, restantes / 8));
+                if (cuponDAO.tomarUsos(b.codigo, bloque)) {
+                    // Uno para este canje, el resto a la bolsa
+                    b.agregar(bloque - 1);
+                    return true;
+                }
+                // Otra instancia tomó usos entre la consulta y el UPDATE: volver a mirar
+            }
+            b.agotadoHasta = System.currentTimeMillis() + AGOTADO_MS;
+            return false;
+        }
+    }
+
+    private static String normalizar(String codigo) {
+        return codigo.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Usos locales de un cupón en franjas separadas por 8 longs (una línea de
+     * caché) para que hilos en núcleos distintos no se pisen.
+     */
+    private final class Bolsa {
+        private static final int SEPARACION = 8;
+
+        final String codigo;
+        final AtomicLongArray usos = new AtomicLongArray(franjas * SEPARACION);
+        volatile long agotadoHasta;
+
+        Bolsa(String codigo) {
+            this.codigo = codigo;
+        }
+
+        boolean tomar() {
+            int inicio = (int) Thread.currentThread().getId();
+            for (int k = 0; k < franjas; k++) {
+                int i = ((inicio + k) & (franjas - 1)) * SEPARACION;
+                long actual;
+                while ((actual = usos.get(i)) > 0) {
+                    if (usos.compareAndSet(i, actual, actual - 1)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        void agregar(int cantidad) {
+            int cada = cantidad / franjas;
+            int resto = cantidad % franjas;
+            for (int k = 0; k < franjas; k++) {
+                int n = cada + (k < resto ? 1 : 0);
+                if (n > 0) {
+                    usos.addAndGet(k * SEPARACION, n);
+                }
+            }
+        }
+
+        int vaciar() {
+            int total = 0;
+            for (int k = 0; k < franjas; k++) {
+                total += (int) usos.getAndSet(k * SEPARACION, 0);
+            }
+            return total;
+        }
+    }
+}
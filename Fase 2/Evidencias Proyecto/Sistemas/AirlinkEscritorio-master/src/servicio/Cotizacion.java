@@ -0,0 +1,64 @@
+package servicio;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Precio final de una cotización; los montos se guardan en centavos. */
+public class Cotizacion {
+
+    private final int idViaje;
+    private final int idTarifa;
+    private final int pasajeros;
+    private final String moneda;
+    private final long base;
+    private final long descuento;
+    private final String[] codigosImpuesto;
+    private final long[] montosImpuesto;
+    private final long impuestos;
+    private final String avisoCupon;
+
+    Cotizacion(int idViaje, int idTarifa, int pasajeros, String moneda, long base, long descuento,
+               String[] codigosImpuesto, long[] montosImpuesto, long impuestos, String avisoCupon) {
+        this.idViaje = idViaje;
+        this.idTarifa = idTarifa;
+        this.pasajeros = pasajeros;
+        this.moneda = moneda;
+        this.base = base;
+        this.descuento = descuento;
+        this.codigosImpuesto = codigosImpuesto;
+        this.montosImpuesto = montosImpuesto;
+        this.impuestos = impuestos;
+        this.avisoCupon = avisoCupon;
+    }
+
+    public int getIdViaje() { return idViaje; }
+    public int getIdTarifa() { return idTarifa; }
+    public int getPasajeros() { return pasajeros; }
+    public String getMoneda() { return moneda; }
+    public BigDecimal getBase() { return BigDecimal.valueOf(base, 2); }
+    public BigDecimal getDescuento() { return BigDecimal.valueOf(descuento, 2); }
+    public BigDecimal getImpuestos() { return BigDecimal.valueOf(impuestos, 2); }
+    public BigDecimal getTotal() { return BigDecimal.valueOf(base - descuento + impuestos, 2); }
+
+    /** Motivo por el que no se aplicó el cupón pedido; null si se aplicó o no se pidió ninguno. */
+    public String getAvisoCupon() { return avisoCupon; }
+
+    /** Monto de cada impuesto por su código, en el orden de la tabla impuesto. */
+    public Map<String, BigDecimal> getDetalleImpuestos() {
+        Map<String, BigDecimal> detalle = new LinkedHashMap<>();
+        for (int i = 0; i < codigosImpuesto.length; i++) {
+            if (montosImpuesto[i] != 0) {
+                detalle.put(codigosImpuesto[i], BigDecimal.valueOf(montosImpuesto[i], 2));
+            }
+        }
+        return detalle;
+    }
+
+    @Override
+    public String toString() {
+        return pasajeros + " x tarifa " + idTarifa + " viaje " + idViaje + ": base " + getBase() + " - descuento "
+                + getDescuento() + " + impuestos " + getImpuestos() + " = " + getTotal() + " " + moneda
+                + (avisoCupon != null ? " (" + avisoCupon + ")" : "");
+    }
+}
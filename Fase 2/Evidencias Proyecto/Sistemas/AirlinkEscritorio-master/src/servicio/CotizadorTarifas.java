@@ -0,0 +1,329 @@
+package servicio;
+
+import dao.TarifarioDAO;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cotiza (viaje, tarifa, pasajeros, cupón) sin ir a la base.
+ *
+ * viaje_tarifa, los impuestos activos y los cupones activos se compilan en
+ * una {@link Tablas} inmutable con arreglos primitivos (montos en centavos,
+ * porcentajes en enteros). {@link #refrescar} arma una tabla nueva aparte y
+ * la publica con una sola escritura volátil, así una cotización en curso
+ * nunca ve la mitad de un cambio. Se refresca sola cada
+ * -Dairlink.tarifas.refrescoSeg segundos (300 por defecto, 0 la desactiva).
+ *
+ * Orden del cálculo: base = precio × pasajeros; el cupón descuenta sobre la
+ * base (sin dejarla negativa); los porcentajes de impuesto se aplican sobre
+ * la base con descuento y los montos fijos van por pasajero, solo si están
+ * en la misma moneda que el precio.
+ */
+public class CotizadorTarifas {
+
+    private static volatile CotizadorTarifas instancia;
+
+    private final TarifarioDAO tarifarioDAO = new TarifarioDAO();
+    private volatile Tablas tablas = Tablas.VACIAS;
+
+    public static CotizadorTarifas getInstancia() {
+        CotizadorTarifas c = instancia;
+        if (c == null) {
+            synchronized (CotizadorTarifas.class) {
+                c = instancia;
+                if (c == null) {
+                    c = new CotizadorTarifas();
+                    c.refrescar();
+                    c.programarRefresco(Integer.getInteger("airlink.tarifas.refrescoSeg", 300));
+                    instancia = c;
+                }
+            }
+        }
+        return c;
+    }
+
+    private void programarRefresco(int segundos) {
+        if (segundos <= 0) {
+            return;
+        }
+        ScheduledExecutorService s = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "airlink-tarifas");
+            t.setDaemon(true);
+            return t;
+        });
+        // Una excepción que escape de la tarea cancela en silencio todos los refrescos siguientes
+        s.scheduleWithFixedDelay(() -> {
+            try {
+                refrescar();
+            } catch (RuntimeException e) {
+                System.out.println("❌ Error al refrescar tarifas: " + e);
+            }
+        }, segundos, segundos, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Vuelve a leer precios, impuestos y cupones. Si alguna lectura falla, o
+     * una fila trae un valor que no se puede compilar (un monto que no cabe
+     * en centavos, un cupón sin fechas), se sigue cotizando con la tabla
+     * anterior.
+     */
+    public synchronized boolean refrescar() {
+        long inicio = System.nanoTime();
+        Tablas.Constructor c = new Tablas.Constructor();
+        Tablas nuevas = null;
+        try {
+            if (tarifarioDAO.leerPrecios(c::precio)
+                    && tarifarioDAO.leerImpuestos(c::impuesto)
+                    && tarifarioDAO.leerCupones(c::cupon)) {
+                nuevas = c.construir();
+            }
+        } catch (ArithmeticException | NullPointerException e) {
+            System.out.println("❌ Fila de tarifas inválida: " + e);
+        }
+        if (nuevas == null) {
+            System.out.println("⚠️ Tarifas no actualizadas, se mantiene la tabla anterior");
+            return false;
+        }
+        tablas = nuevas;
+        System.out.println("💲 Tarifas: " + tablas.precios.tamano + " precios, " + tablas.codigosImpuesto.length
+                + " impuestos, " + tablas.cupones.size() + " cupones (" + (System.nanoTime() - inicio) / 1_000_000 + " ms)");
+        return true;
+    }
+
+    /**
+     * @param cupon código del cupón o null
+     * @return la cotización, o null si el viaje no vende esa tarifa
+     */
+    public Cotizacion cotizar(int idViaje, int idTarifa, int pasajeros, String cupon) {
+        if (pasajeros < 1) {
+            throw new IllegalArgumentException("Debe haber al menos un pasajero");
+        }
+        Tablas t = tablas;
+        int p = t.precios.buscar(clave(idViaje, idTarifa));
+        if (p < 0) {
+            return null;
+        }
+        long base = t.precios.valores[p] * pasajeros;
+        String moneda = t.monedas[t.precios.moneda[p]];
+
+        long descuento = 0;
+        String aviso = null;
+        if (cupon != null && !cupon.isBlank()) {
+            Integer c = t.cupones.get(cupon.trim().toUpperCase(Locale.ROOT));
+            long hoy = LocalDate.now().toEpochDay();
+            if (c == null) {
+                aviso = "Cupón inexistente o inactivo";
+            } else if (hoy < t.cuponInicio[c] || hoy > t.cuponFin[c]) {
+                aviso = "Cupón fuera de vigencia";
+            } else if (t.cuponRestantes[c] <= 0) {
+                aviso = "Cupón sin usos disponibles";
+            } else if (t.cuponPorcentaje[c]) {
+                descuento = Math.min(base, porcion(base, t.cuponValor[c], 10_000));
+            } else {
+                descuento = Math.min(base, t.cuponValor[c]);
+            }
+        }
+
+        long neto = base - descuento;
+        long[] montos = new long[t.codigosImpuesto.length];
+        long impuestos = 0;
+        for (int i = 0; i < montos.length; i++) {
+            long m = porcion(neto, t.impuestoMilesimas[i], 100_000);
+            if (t.impuestoMoneda[i] == t.precios.moneda[p]) {
+                m += t.impuestoFijo[i] * pasajeros;
+            }
+            montos[i] = m;
+            impuestos += m;
+        }
+        return new Cotizacion(idViaje, idTarifa, pasajeros, moneda, base, descuento, t.codigosImpuesto, montos,
+                impuestos, aviso);
+    }
+
+    /** monto × factor / divisor redondeado al centavo (mitad hacia arriba). */
+    private static long porcion(long monto, long factor, long divisor) {
+        return (monto * factor + divisor / 2) / divisor;
+    }
+
+    private static long clave(int idViaje, int idTarifa) {
+        return ((long) idViaje << 32) | (idTarifa & 0xFFFFFFFFL);
+    }
+
+    private static long centavos(BigDecimal valor) {
+        return valor == null ? 0 : valor.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    // ============================
+    // TABLAS COMPILADAS
+    // ============================
+    private static final class Tablas {
+        static final Tablas VACIAS = new Constructor().construir();
+
+        final MapaPrecios precios;
+        final String[] monedas;
+        final String[] codigosImpuesto;
+        /** Porcentaje × 1000 (19,000% → 19000). */
+        final long[] impuestoMilesimas;
+        final long[] impuestoFijo;
+        final int[] impuestoMoneda;
+        final Map<String, Integer> cupones;
+        final boolean[] cuponPorcentaje;
+        /** Porcentaje × 100 o monto en centavos, según el tipo. */
+        final long[] cuponValor;
+        final long[] cuponInicio;
+        final long[] cuponFin;
+        final int[] cuponRestantes;
+
+        private Tablas(Constructor c) {
+            precios = c.precios;
+            monedas = c.monedas.toArray(new String[0]);
+            int n = c.codigosImpuesto.size();
+            codigosImpuesto = c.codigosImpuesto.toArray(new String[0]);
+            impuestoMilesimas = Arrays.copyOf(c.impuestoMilesimas, n);
+            impuestoFijo = Arrays.copyOf(c.impuestoFijo, n);
+            impuestoMoneda = Arrays.copyOf(c.impuestoMoneda, n);
+            int m = c.cupones.size();
+            cupones = Map.copyOf(c.cupones);
+            cuponPorcentaje = Arrays.copyOf(c.cuponPorcentaje, m);
+            cuponValor = Arrays.copyOf(c.cuponValor, m);
+            cuponInicio = Arrays.copyOf(c.cuponInicio, m);
+            cuponFin = Arrays.copyOf(c.cuponFin, m);
+            cuponRestantes = Arrays.copyOf(c.cuponRestantes, m);
+        }
+
+        /** Acumula filas de los lectores del DAO; solo lo usa el hilo que refresca. */
+        static final class Constructor {
+            final MapaPrecios precios = new MapaPrecios();
+            final List<String> monedas = new ArrayList<>();
+            final Map<String, Integer> indiceMonedas = new HashMap<>();
+            final List<String> codigosImpuesto = new ArrayList<>();
+            long[] impuestoMilesimas = new long[4];
+            long[] impuestoFijo = new long[4];
+            int[] impuestoMoneda = new int[4];
+            final Map<String, Integer> cupones = new HashMap<>();
+            boolean[] cuponPorcentaje = new boolean[16];
+            long[] cuponValor = new long[16];
+            long[] cuponInicio = new long[16];
+            long[] cuponFin = new long[16];
+            int[] cuponRestantes = new int[16];
+
+            int moneda(String m) {
+                String clave = m == null ? "CLP" : m.trim().toUpperCase(Locale.ROOT);
+                return indiceMonedas.computeIfAbsent(clave, k -> {
+                    monedas.add(k);
+                    return monedas.size() - 1;
+                });
+            }
+
+            void precio(int idViaje, int idTarifa, BigDecimal precio, String moneda) {
+                precios.poner(clave(idViaje, idTarifa), centavos(precio), moneda(moneda));
+            }
+
+            void impuesto(String codigo, BigDecimal porcentaje, BigDecimal fijoMonto, String moneda) {
+                int i = codigosImpuesto.size();
+                if (i == impuestoFijo.length) {
+                    impuestoMilesimas = Arrays.copyOf(impuestoMilesimas, i * 2);
+                    impuestoFijo = Arrays.copyOf(impuestoFijo, i * 2);
+                    impuestoMoneda = Arrays.copyOf(impuestoMoneda, i * 2);
+                }
+                codigosImpuesto.add(codigo);
+                impuestoMilesimas[i] = porcentaje == null ? 0
+                        : porcentaje.movePointRight(3).setScale(0, RoundingMode.HALF_UP).longValueExact();
+                impuestoFijo[i] = centavos(fijoMonto);
+                impuestoMoneda[i] = moneda(moneda);
+            }
+
+            void cupon(String codigo, String tipo, BigDecimal valor, java.sql.Date inicio, java.sql.Date fin,
+                       int usoMaximo, int usoActual) {
+                int i = cupones.size();
+                if (i == cuponValor.length) {
+                    cuponPorcentaje = Arrays.copyOf(cuponPorcentaje, i * 2);
+                    cuponValor = Arrays.copyOf(cuponValor, i * 2);
+                    cuponInicio = Arrays.copyOf(cuponInicio, i * 2);
+                    cuponFin = Arrays.copyOf(cuponFin, i * 2);
+                    cuponRestantes = Arrays.copyOf(cuponRestantes, i * 2);
+                }
+                cupones.put(codigo.trim().toUpperCase(Locale.ROOT), i);
+                cuponPorcentaje[i] = tipo != null && tipo.toLowerCase(Locale.ROOT).startsWith("porcentaje");
+                cuponValor[i] = centavos(valor);
+                cuponInicio[i] = inicio.toLocalDate().toEpochDay();
+                cuponFin[i] = fin.toLocalDate().toEpochDay();
+                cuponRestantes[i] = usoMaximo - usoActual;
+            }
+
+            Tablas construir() {
+                return new Tablas(this);
+            }
+        }
+    }
+
+    /**
+     * long → (precio, moneda) con direccionamiento abierto y sondeo lineal,
+     * sin cajas: la búsqueda de una cotización no crea objetos.
+     */
+    private static final class MapaPrecios {
+        long[] claves = new long[64];
+        long[] valores = new long[64];
+        int[] moneda = new int[64];
+        boolean[] usado = new boolean[64];
+        int tamano;
+
+        int buscar(long clave) {
+            int mascara = claves.length - 1;
+            for (int i = mezclar(clave) & mascara; usado[i]; i = (i + 1) & mascara) {
+                if (claves[i] == clave) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        void poner(long clave, long valor, int idMoneda) {
+            if ((tamano + 1) * 2 > claves.length) {
+                crecer();
+            }
+            int mascara = claves.length - 1;
+            int i = mezclar(clave) & mascara;
+            while (usado[i] && claves[i] != clave) {
+                i = (i + 1) & mascara;
+            }
+            if (!usado[i]) {
+                usado[i] = true;
+                tamano++;
+            }
+            claves[i] = clave;
+            valores[i] = valor;
+            moneda[i] = idMoneda;
+        }
+
+        private void crecer() {
+            long[] c = claves, v = valores;
+            int[] m = moneda;
+            boolean[] u = usado;
+            claves = new long[c.length * 2];
+            valores = new long[c.length * 2];
+            moneda = new int[c.length * 2];
+            usado = new boolean[c.length * 2];
+            tamano = 0;
+            for (int i = 0; i < c.length; i++) {
+                if (u[i]) {
+                    poner(c[i], v[i], m[i]);
+                }
+            }
+        }
+
+        private static int mezclar(long clave) {
+            long h = clave * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
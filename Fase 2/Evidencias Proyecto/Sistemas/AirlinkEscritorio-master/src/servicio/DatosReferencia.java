@@ -0,0 +1,218 @@
+package servicio;
+
+import Modelo.Combo;
+import Modelo.Destino;
+import Modelo.EmpresaEquipo;
+import Modelo.Ruta;
+import Modelo.Terminal;
+import dao.DestinoDAO;
+import dao.EmpresaEquipoDAO;
+import dao.OyenteDestinos;
+import dao.OyenteRutas;
+import dao.RolDAO;
+import dao.RutaDAO;
+import dao.TerminalDAO;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Caché de las tablas chicas que llenan combos y nombres: rutas (con los
+ * nombres de sus terminales), equipos activos, destinos, terminales y roles.
+ *
+ * Cada catálogo se lee completo la primera vez que se pide y queda en memoria
+ * como lista (en el orden del DAO) más un mapa por id. Se vuelve a leer
+ * cuando pasa -Dairlink.referencia.ttlSeg (300) o cuando el DAO avisa un
+ * cambio (rutas y destinos; equipos, terminales y roles no se editan desde la
+ * aplicación y solo vencen por tiempo). Un catálogo con más de
+ * -Dairlink.referencia.maxFilas filas (5000) no se guarda: deja de ser dato
+ * de referencia y se lee cada vez.
+ *
+ * Los objetos devueltos son compartidos: se leen, no se modifican.
+ */
+public class DatosReferencia implements OyenteRutas, OyenteDestinos {
+
+    private static volatile DatosReferencia instancia;
+
+    private final Catalogo<Ruta> rutas;
+    private final Catalogo<EmpresaEquipo> equipos;
+    private final Catalogo<Destino> destinos;
+    private final Catalogo<Terminal> terminales;
+    private final Catalogo<Combo> roles;
+
+    public static DatosReferencia getInstancia() {
+        DatosReferencia d = instancia;
+        if (d == null) {
+            synchronized (DatosReferencia.class) {
+                d = instancia;
+                if (d == null) {
+                    d = new DatosReferencia(Integer.getInteger("airlink.referencia.ttlSeg", 300) * 1000L,
+                            Integer.getInteger("airlink.referencia.maxFilas", 5000));
+                    RutaDAO.agregarOyente(d);
+                    DestinoDAO.agregarOyente(d);
+                    instancia = d;
+                }
+            }
+        }
+        return d;
+    }
+
+    private DatosReferencia(long ttlMs, int maxFilas) {
+        rutas = new Catalogo<>("rutas", () -> new RutaDAO().listar(), Ruta::getIdRuta, ttlMs, maxFilas);
+        equipos = new Catalogo<>("equipos", () -> new EmpresaEquipoDAO().listar(), EmpresaEquipo::getIdEquipo, ttlMs, maxFilas);
+        destinos = new Catalogo<>("destinos", () -> new DestinoDAO().listar(), Destino::getIdDestino, ttlMs, maxFilas);
+        terminales = new Catalogo<>("terminales", () -> new TerminalDAO().listar(), Terminal::getId, ttlMs, maxFilas);
+        roles = new Catalogo<>("roles", () -> new RolDAO().listar(), Combo::getId, ttlMs, maxFilas);
+    }
+
+    // ============================
+    // CONSULTAS
+    // ============================
+    public List<Ruta> rutas() { return rutas.lista(); }
+
+    public Ruta ruta(int idRuta) { return rutas.porId(idRuta); }
+
+    /** Solo los equipos activos, como EmpresaEquipoDAO.listar. */
+    public List<EmpresaEquipo> equipos() { return equipos.lista(); }
+
+    public EmpresaEquipo equipo(int idEquipo) { return equipos.porId(idEquipo); }
+
+    public List<Destino> destinos() { return destinos.lista(); }
+
+    public Destino destino(int idDestino) { return destinos.porId(idDestino); }
+
+    public List<Terminal> terminales() { return terminales.lista(); }
+
+    public Terminal terminal(int idTerminal) { return terminales.porId(idTerminal); }
+
+    public List<Combo> roles() { return roles.lista(); }
+
+    public Combo rol(int idRol) { return roles.porId(idRol); }
+
+    /** Olvida todo; cada catálogo se vuelve a leer cuando se pida. */
+    public void invalidar() {
+        rutas.invalidar();
+        equipos.invalidar();
+        destinos.invalidar();
+        terminales.invalidar();
+        roles.invalidar();
+    }
+
+    // ============================
+    // CAMBIOS DESDE LOS DAO
+    // ============================
+    @Override
+    public void rutaGuardada(Ruta ruta) {
+        rutas.invalidar();
+    }
+
+    @Override
+    public void rutaEliminada(int idRuta) {
+        rutas.invalidar();
+    }
+
+    @Override
+    public void destinoGuardado(Destino destino) {
+        destinos.invalidar();
+    }
+
+    @Override
+    public void destinoEliminado(int idDestino) {
+        destinos.invalidar();
+    }
+
+    /**
+     * Una tabla en memoria. La instantánea es inmutable y se reemplaza entera.
+     * Invalidar no espera a una lectura en curso: sube la versión, y la
+     * lectura que empezó antes del cambio no queda guardada.
+     */
+    private static final class Catalogo<T> {
+
+        private final String nombre;
+        private final Supplier<List<T>> lector;
+        private final ToIntFunction<T> id;
+        private final long ttlMs;
+        private final int maxFilas;
+
+        private final AtomicReference<Instantanea<T>> actual = new AtomicReference<>();
+        private final AtomicLong version = new AtomicLong();
+
+        Catalogo(String nombre, Supplier<List<T>> lector, ToIntFunction<T> id, long ttlMs, int maxFilas) {
+            this.nombre = nombre;
+            this.lector = lector;
+            this.id = id;
+            this.ttlMs = ttlMs;
+            this.maxFilas = maxFilas;
+        }
+
+        List<T> lista() {
+            return instantanea().lista;
+        }
+
+        T porId(int clave) {
+            return instantanea().porId.get(clave);
+        }
+
+        void invalidar() {
+            version.incrementAndGet();
+            actual.set(null);
+        }
+
+        private Instantanea<T> instantanea() {
+            Instantanea<T> i = actual.get();
+            if (vigente(i)) {
+                return i;
+            }
+            // Una sola lectura a la vez; los demás esperan y usan la que quedó
+            synchronized (this) {
+                i = actual.get();
+                if (vigente(i)) {
+                    return i;
+                }
+                long leyendo = version.get();
+                long inicio = System.nanoTime();
+                i = new Instantanea<>(lector.get(), id, inicio);
+                if (i.lista.isEmpty()) {
+                    return i;  // los DAO devuelven vacío también cuando falla la consulta
+                }
+                if (i.lista.size() > maxFilas) {
+                    System.out.println("⚠ Catálogo " + nombre + ": " + i.lista.size()
+                            + " filas supera el máximo de " + maxFilas + ", no se guarda en caché");
+                    return i;
+                }
+                actual.set(i);
+                if (version.get() != leyendo) {
+                    actual.compareAndSet(i, null);  // cambió mientras se leía: sirve para esta vez, no se guarda
+                } else {
+                    System.out.println("📚 Catálogo " + nombre + ": " + i.lista.size() + " filas leídas en "
+                            + (System.nanoTime() - inicio) / 1_000_000 + " ms");
+                }
+                return i;
+            }
+        }
+
+        private boolean vigente(Instantanea<T> i) {
+            return i != null && System.nanoTime() - i.leidaEn < ttlMs * 1_000_000L;
+        }
+    }
+
+    private static final class Instantanea<T> {
+        final List<T> lista;
+        final Map<Integer, T> porId;
+        final long leidaEn;
+
+        Instantanea(List<T> filas, ToIntFunction<T> id, long leidaEn) {
+            this.lista = Collections.unmodifiableList(filas);
+            this.porId = new HashMap<>(filas.size() * 2);
+            for (T t : filas) {
+                porId.put(id.applyAsInt(t), t);
+            }
+            this.leidaEn = leidaEn;
+        }
+    }
+}
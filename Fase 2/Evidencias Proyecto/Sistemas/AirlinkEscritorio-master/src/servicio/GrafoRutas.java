@@ -0,0 +1,508 @@
+package servicio;
+
+import Modelo.Ruta;
+import dao.OyenteRutas;
+import dao.RutaDAO;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Red de rutas activas en memoria para buscar itinerarios con escalas entre
+ * dos terminales: el más rápido, el más corto y los k mejores (Yen).
+ *
+ * La red se guarda como listas de adyacencia compactas (arreglos por
+ * terminal, estilo CSR) en una instantánea inmutable, así las consultas no
+ * toman locks. Los cambios que avisa {@link RutaDAO} actualizan el mapa de
+ * rutas y marcan la instantánea como vieja; la siguiente consulta la
+ * reconstruye una sola vez aunque hayan llegado varios cambios seguidos.
+ */
+public class GrafoRutas implements OyenteRutas {
+
+    public enum Criterio { DURACION, DISTANCIA }
+
+    private static volatile GrafoRutas instancia;
+
+    private final int conexionMin;
+    private final Map<Integer, Ruta> rutas = new HashMap<>();
+    private volatile Red red;
+
+    private final ThreadLocal<Busqueda> busquedas = ThreadLocal.withInitial(Busqueda::new);
+
+    /** Grafo con todas las rutas de la base, que se mantiene al día con RutaDAO. */
+    public static GrafoRutas getInstancia() {
+        GrafoRutas g = instancia;
+        if (g == null) {
+            synchronized (GrafoRutas.class) {
+                g = instancia;
+                if (g == null) {
+                    g = new GrafoRutas(new RutaDAO().listar(), Integer.getInteger("airlink.grafo.conexionMin", 45));
+                    RutaDAO.agregarOyente(g);
+                    instancia = g;
+                }
+            }
+        }
+        return g;
+    }
+
+    /** @param conexionMin minutos mínimos entre la llegada de un tramo y la salida del siguiente */
+    public GrafoRutas(Collection<Ruta> rutas, int conexionMin) {
+        this.conexionMin = conexionMin;
+        for (Ruta r : rutas) {
+            this.rutas.put(r.getIdRuta(), copiar(r));
+        }
+    }
+
+    public int getConexionMin() {
+        return conexionMin;
+    }
+
+    // ============================
+    // CAMBIOS DESDE RutaDAO
+    // ============================
+    @Override
+    public synchronized void rutaGuardada(Ruta ruta) {
+        Ruta anterior = rutas.put(ruta.getIdRuta(), copiar(ruta));
+        if (anterior != null && ruta.getOrigen() == null) {
+            // El formulario de edición no siempre trae los nombres de terminal
+            rutas.get(ruta.getIdRuta()).setOrigen(anterior.getOrigen());
+            rutas.get(ruta.getIdRuta()).setDestino(anterior.getDestino());
+        }
+        red = null;
+    }
+
+    @Override
+    public synchronized void rutaEliminada(int idRuta) {
+        if (rutas.remove(idRuta) != null) {
+            red = null;
+        }
+    }
+
+    private Red red() {
+        Red r = red;
+        if (r == null) {
+            synchronized (this) {
+                r = red;
+                if (r == null) {
+                    long inicio = System.nanoTime();
+                    r = new Red(rutas.values());
+                    red = r;
+                    System.out.println("🗺 Grafo de rutas: " + r.rutas.length + " rutas activas entre "
+                            + r.idTerminal.length + " terminales, armado en "
+                            + (System.nanoTime() - inicio) / 1000 + " µs");
+                }
+            }
+        }
+        return r;
+    }
+
+    // ============================
+    // CONSULTAS
+    // ============================
+    public Itinerario masRapido(int idTerminalOrigen, int idTerminalDestino) {
+        List<Itinerario> l = mejores(idTerminalOrigen, idTerminalDestino, 1, Criterio.DURACION);
+        return l.isEmpty() ? null : l.get(0);
+    }
+
+    public Itinerario masCorto(int idTerminalOrigen, int idTerminalDestino) {
+        List<Itinerario> l = mejores(idTerminalOrigen, idTerminalDestino, 1, Criterio.DISTANCIA);
+        return l.isEmpty() ? null : l.get(0);
+    }
+
+    /**
+     * Hasta {@code k} itinerarios sin terminales repetidos, de menor a mayor
+     * según el criterio. Lista vacía si no hay forma de llegar.
+     */
+    public List<Itinerario> mejores(int idTerminalOrigen, int idTerminalDestino, int k, Criterio criterio) {
+        Red r = red();
+        Integer s = r.indice.get(idTerminalOrigen);
+        Integer t = r.indice.get(idTerminalDestino);
+        List<Itinerario> resultado = new ArrayList<>();
+        if (s == null || t == null || s.equals(t) || k <= 0) {
+            return resultado;
+        }
+        Busqueda b = busquedas.get();
+        b.preparar(r);
+
+        List<int[]> caminos = yen(r, b, s, t, k, criterio);
+        for (int[] aristas : caminos) {
+            resultado.add(r.itinerario(aristas, conexionMin));
+        }
+        return resultado;
+    }
+
+    private List<int[]> yen(Red r, Busqueda b, int s, int t, int k, Criterio criterio) {
+        List<int[]> aceptados = new ArrayList<>();
+        b.nuevoBloqueo();
+        // La conexión se suma a cada tramo: cambia el costo total en una
+        // constante y no el orden de los caminos, así sirve Dijkstra directo
+        int extra = criterio == Criterio.DURACION ? conexionMin : 0;
+        int[] primero = b.dijkstra(r, s, t, criterio, extra);
+        if (primero == null) {
+            return aceptados;
+        }
+        aceptados.add(primero);
+        if (k == 1) {
+            return aceptados;
+        }
+
+        PriorityQueue<long[]> candidatos = new PriorityQueue<>((x, y) -> Long.compare(x[0], y[0]));
+        List<int[]> caminosCandidatos = new ArrayList<>();
+        Set<String> vistos = new HashSet<>();
+        vistos.add(Arrays.toString(primero));
+
+        while (aceptados.size() < k) {
+            int[] anterior = aceptados.get(aceptados.size() - 1);
+            for (int i = 0; i < anterior.length; i++) {
+                int nodoDesvio = i == 0 ? s : r.destino[anterior[i - 1]];
+                b.nuevoBloqueo();
+                // Cortar la arista siguiente de todo camino aceptado que comparte la misma raíz
+                for (int[] p : aceptados) {
+                    if (p.length > i && mismaRaiz(p, anterior, i)) {
+                        b.bloquearArista(p[i]);
+                    }
+                }
+                // Los nodos de la raíz no se pueden volver a pisar
+                b.bloquearNodo(s);
+                for (int j = 0; j < i; j++) {
+                    b.bloquearNodo(r.destino[anterior[j]]);
+                }
+                b.desbloquearNodo(nodoDesvio);
+
+                int[] desvio = b.dijkstra(r, nodoDesvio, t, criterio, extra);
+                if (desvio == null) {
+                    continue;
+                }
+                int[] camino = Arrays.copyOf(anterior, i + desvio.length);
+                System.arraycopy(desvio, 0, camino, i, desvio.length);
+                if (vistos.add(Arrays.toString(camino))) {
+                    caminosCandidatos.add(camino);
+                    candidatos.add(new long[] {r.costo(camino, criterio, conexionMin), caminosCandidatos.size() - 1});
+                }
+            }
+            if (candidatos.isEmpty()) {
+                break;
+            }
+            aceptados.add(caminosCandidatos.get((int) candidatos.poll()[1]));
+        }
+        return aceptados;
+    }
+
+    private static boolean mismaRaiz(int[] a, int[] b, int largo) {
+        for (int j = 0; j < largo; j++) {
+            if (a[j] != b[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Ruta copiar(Ruta r) {
+        Ruta c = new Ruta();
+        c.setIdRuta(r.getIdRuta());
+        c.setIdTerminalOrigen(r.getIdTerminalOrigen());
+        c.setIdTerminalDestino(r.getIdTerminalDestino());
+        c.setOrigen(r.getOrigen());
+        c.setDestino(r.getDestino());
+        c.setDistanciaKm(r.getDistanciaKm());
+        c.setDuracionEstimadaMin(r.getDuracionEstimadaMin());
+        c.setActivo(r.isActivo());
+        return c;
+    }
+
+    // ============================
+    // INSTANTÁNEA INMUTABLE
+    // ============================
+    private static final class Red {
+        final Map<Integer, Integer> indice = new HashMap<>();
+        final int[] idTerminal;
+        // Aristas del terminal v: posiciones inicio[v] .. inicio[v + 1] - 1
+        final int[] inicio;
+        // Aristas que llegan a v: entrantes[inicioEntrantes[v] .. inicioEntrantes[v + 1] - 1]
+        final int[] inicioEntrantes;
+        final int[] entrantes;
+        final int[] origen;
+        final int[] destino;
+        final int[] minutos;
+        final long[] metros;
+        final Ruta[] rutas;
+
+        Red(Collection<Ruta> todas) {
+            List<Ruta> activas = new ArrayList<>();
+            for (Ruta r : todas) {
+                if (r.isActivo() && r.getIdTerminalOrigen() != r.getIdTerminalDestino()) {
+                    activas.add(r);
+                    indice.putIfAbsent(r.getIdTerminalOrigen(), indice.size());
+                    indice.putIfAbsent(r.getIdTerminalDestino(), indice.size());
+                }
+            }
+            int n = indice.size();
+            idTerminal = new int[n];
+            indice.forEach((id, i) -> idTerminal[i] = id);
+
+            inicio = new int[n + 1];
+            for (Ruta r : activas) {
+                inicio[indice.get(r.getIdTerminalOrigen()) + 1]++;
+            }
+            for (int v = 0; v < n; v++) {
+                inicio[v + 1] += inicio[v];
+            }
+            int m = activas.size();
+            origen = new int[m];
+            destino = new int[m];
+            minutos = new int[m];
+            metros = new long[m];
+            rutas = new Ruta[m];
+            int[] siguiente = Arrays.copyOf(inicio, n);
+            for (Ruta r : activas) {
+                int v = indice.get(r.getIdTerminalOrigen());
+                int e = siguiente[v]++;
+                origen[e] = v;
+                destino[e] = indice.get(r.getIdTerminalDestino());
+                minutos[e] = Math.max(r.getDuracionEstimadaMin(), 0);
+                metros[e] = Math.max(Math.round(r.getDistanciaKm() * 1000), 0);
+                rutas[e] = r;
+            }
+
+            inicioEntrantes = new int[n + 1];
+            for (int e = 0; e < m; e++) {
+                inicioEntrantes[destino[e] + 1]++;
+            }
+            for (int v = 0; v < n; v++) {
+                inicioEntrantes[v + 1] += inicioEntrantes[v];
+            }
+            entrantes = new int[m];
+            int[] siguienteEntrante = Arrays.copyOf(inicioEntrantes, n);
+            for (int e = 0; e < m; e++) {
+                entrantes[siguienteEntrante[destino[e]]++] = e;
+            }
+        }
+
+        long peso(int e, Criterio criterio) {
+            return criterio == Criterio.DURACION ? minutos[e] : metros[e];
+        }
+
+        long costo(int[] aristas, Criterio criterio, int conexionMin) {
+            long total = criterio == Criterio.DURACION ? (long) conexionMin * (aristas.length - 1) : 0;
+            for (int e : aristas) {
+                total += peso(e, criterio);
+            }
+            return total;
+        }
+
+        Itinerario itinerario(int[] aristas, int conexionMin) {
+            List<Ruta> tramos = new ArrayList<>(aristas.length);
+            int duracion = conexionMin * (aristas.length - 1);
+            long distancia = 0;
+            for (int e : aristas) {
+                tramos.add(rutas[e]);
+                duracion += minutos[e];
+                distancia += metros[e];
+            }
+            return new Itinerario(tramos, duracion, distancia / 1000.0);
+        }
+    }
+
+    // ============================
+    // DIJKSTRA BIDIRECCIONAL (memoria reutilizada por hilo)
+    // ============================
+    private static final class Busqueda {
+        // [0] hacia adelante desde el origen, [1] hacia atrás desde el destino
+        long[][] dist = new long[2][0];
+        int[][] aristaPrevia = new int[2][0];
+        int[][] visto = new int[2][0];
+        int[][] cerrado = new int[2][0];
+        final Monticulo[] frente = {new Monticulo(), new Monticulo()};
+        int[] nodoBloqueado = new int[0];
+        int[] aristaBloqueada = new int[0];
+        int vuelta;
+        int bloqueo;
+
+        void preparar(Red r) {
+            int n = r.idTerminal.length;
+            int m = r.destino.length;
+            if (nodoBloqueado.length < n || aristaBloqueada.length < m) {
+                n = Math.max(n, nodoBloqueado.length);
+                for (int lado = 0; lado < 2; lado++) {
+                    dist[lado] = new long[n];
+                    aristaPrevia[lado] = new int[n];
+                    visto[lado] = new int[n];
+                    cerrado[lado] = new int[n];
+                }
+                nodoBloqueado = new int[n];
+                aristaBloqueada = new int[Math.max(m, aristaBloqueada.length)];
+                vuelta = 0;
+                bloqueo = 0;
+            }
+        }
+
+        void nuevoBloqueo() {
+            bloqueo++;
+        }
+
+        void bloquearNodo(int v) {
+            nodoBloqueado[v] = bloqueo;
+        }
+
+        void desbloquearNodo(int v) {
+            nodoBloqueado[v] = bloqueo - 1;
+        }
+
+        void bloquearArista(int e) {
+            aristaBloqueada[e] = bloqueo;
+        }
+
+        /**
+         * Aristas del mejor camino s → t respetando los bloqueos, o null.
+         * Avanza desde los dos extremos a la vez y corta cuando la suma de
+         * los dos frentes ya no puede mejorar el mejor encuentro.
+         */
+        int[] dijkstra(Red r, int s, int t, Criterio criterio, int extra) {
+            vuelta++;
+            int[] extremo = {s, t};
+            for (int lado = 0; lado < 2; lado++) {
+                int v = extremo[lado];
+                dist[lado][v] = 0;
+                aristaPrevia[lado][v] = -1;
+                visto[lado][v] = vuelta;
+                frente[lado].vaciar();
+                frente[lado].empujar(0, v);
+            }
+
+            long mejor = Long.MAX_VALUE;
+            int encuentro = -1;
+            while (!frente[0].vacio() && !frente[1].vacio()) {
+                long minAdelante = frente[0].minimo();
+                long minAtras = frente[1].minimo();
+                if (minAdelante + minAtras >= mejor) {
+                    break;
+                }
+                int lado = minAdelante <= minAtras ? 0 : 1;
+                int otro = 1 - lado;
+                long d = lado == 0 ? minAdelante : minAtras;
+                int v = frente[lado].sacar();
+                if (cerrado[lado][v] == vuelta || d > dist[lado][v]) {
+                    continue;
+                }
+                cerrado[lado][v] = vuelta;
+                if (v == extremo[otro]) {
+                    continue;  // no seguir más allá del otro extremo
+                }
+                int desde = lado == 0 ? r.inicio[v] : r.inicioEntrantes[v];
+                int hasta = lado == 0 ? r.inicio[v + 1] : r.inicioEntrantes[v + 1];
+                for (int i = desde; i < hasta; i++) {
+                    int e = lado == 0 ? i : r.entrantes[i];
+                    int w = lado == 0 ? r.destino[e] : r.origen[e];
+                    if (aristaBloqueada[e] == bloqueo || nodoBloqueado[w] == bloqueo || cerrado[lado][w] == vuelta) {
+                        continue;
+                    }
+                    long nd = d + r.peso(e, criterio) + extra;
+                    if (visto[lado][w] != vuelta || nd < dist[lado][w]) {
+                        visto[lado][w] = vuelta;
+                        dist[lado][w] = nd;
+                        aristaPrevia[lado][w] = e;
+                        frente[lado].empujar(nd, w);
+                    }
+                    if (visto[otro][w] == vuelta && dist[lado][w] + dist[otro][w] < mejor) {
+                        mejor = dist[lado][w] + dist[otro][w];
+                        encuentro = w;
+                    }
+                }
+            }
+            return encuentro < 0 ? null : reconstruir(r, s, t, encuentro);
+        }
+
+        private int[] reconstruir(Red r, int s, int t, int encuentro) {
+            int antes = 0;
+            for (int v = encuentro; v != s; v = r.origen[aristaPrevia[0][v]]) {
+                antes++;
+            }
+            int despues = 0;
+            for (int v = encuentro; v != t; v = r.destino[aristaPrevia[1][v]]) {
+                despues++;
+            }
+            int[] aristas = new int[antes + despues];
+            int i = antes;
+            for (int v = encuentro; v != s; v = r.origen[aristaPrevia[0][v]]) {
+                aristas[--i] = aristaPrevia[0][v];
+            }
+            i = antes;
+            for (int v = encuentro; v != t; v = r.destino[aristaPrevia[1][v]]) {
+                aristas[i++] = aristaPrevia[1][v];
+            }
+            return aristas;
+        }
+    }
+
+    /** Montículo binario de (costo, nodo); las entradas viejas se descartan al salir. */
+    private static final class Monticulo {
+        long[] clave = new long[16];
+        int[] nodo = new int[16];
+        int tamano;
+
+        boolean vacio() {
+            return tamano == 0;
+        }
+
+        void vaciar() {
+            tamano = 0;
+        }
+
+        long minimo() {
+            return clave[0];
+        }
+
+        void empujar(long c, int v) {
+            if (tamano == clave.length) {
+                clave = Arrays.copyOf(clave, tamano * 2);
+                nodo = Arrays.copyOf(nodo, tamano * 2);
+            }
+            int i = tamano++;
+            while (i > 0) {
+                int padre = (i - 1) >>> 1;
+                if (clave[padre] <= c) {
+                    break;
+                }
+                clave[i] = clave[padre];
+                nodo[i] = nodo[padre];
+                i = padre;
+            }
+            clave[i] = c;
+            nodo[i] = v;
+        }
+
+        int sacar() {
+            int raiz = nodo[0];
+            tamano--;
+            if (tamano > 0) {
+                long c = clave[tamano];
+                int v = nodo[tamano];
+                int i = 0;
+                while (true) {
+                    int hijo = 2 * i + 1;
+                    if (hijo >= tamano) {
+                        break;
+                    }
+                    if (hijo + 1 < tamano && clave[hijo + 1] < clave[hijo]) {
+                        hijo++;
+                    }
+                    if (clave[hijo] >= c) {
+                        break;
+                    }
+                    clave[i] = clave[hijo];
+                    nodo[i] = nodo[hijo];
+                    i = hijo;
+                }
+                clave[i] = c;
+                nodo[i] = v;
+            }
+            return raiz;
+        }
+    }
+}
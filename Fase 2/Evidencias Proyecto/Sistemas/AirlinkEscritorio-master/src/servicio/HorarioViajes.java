@@ -0,0 +1,564 @@
+package servicio;
+
+import Modelo.Ruta;
+import Modelo.Viaje;
+import dao.HorarioDAO;
+import dao.OyenteRutas;
+import dao.OyenteViajes;
+import dao.RutaDAO;
+import dao.ViajeDAO;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Horarios reales para preguntas del tipo "llegar lo antes posible de SCL a
+ * PMC saliendo después de las 08:00", con el algoritmo Connection Scan.
+ *
+ * Cada tramo de cada viaje no cancelado es una conexión; todas viven en
+ * arreglos paralelos ordenados por hora de salida dentro de una instantánea
+ * inmutable. De los cambios avisados por {@link ViajeDAO} (altas, demoras,
+ * cancelaciones, bajas) solo se anota el id, sin consultar la base ni tomar
+ * el lock de la tabla: el aviso llega con la conexión del DAO todavía
+ * prestada. La siguiente consulta relee los tramos de esos viajes y los mezcla
+ * con la instantánea anterior en una sola pasada, sin reordenar todo. Una
+ * carga masiva o un cambio de ruta relee la base completa;
+ * si la base no responde se sigue con la tabla anterior y se reintenta
+ * pasados -Dairlink.horarios.reintentoSeg segundos (10).
+ */
+public class HorarioViajes implements OyenteViajes, OyenteRutas {
+
+    private static final int INF = Integer.MAX_VALUE;
+    private static final long REINTENTO_NS = Integer.getInteger("airlink.horarios.reintentoSeg", 10) * 1_000_000_000L;
+    private static volatile HorarioViajes instancia;
+
+    private final int transbordoMin;
+    private final HorarioDAO horarioDAO = new HorarioDAO();
+
+    // Estado fuente, protegido por this
+    private final Map<Integer, RegistroViaje> viajes = new HashMap<>();
+    private final Set<Integer> cambiados = new HashSet<>();
+    private final Set<Integer> porReleer = new HashSet<>();
+    // Ids avisados por ViajeDAO; se pasan a porReleer al armar la tabla
+    private final Set<Integer> avisados = ConcurrentHashMap.newKeySet();
+    private boolean releer = true;
+    private long reintentarDesde;
+
+    private volatile Tabla tabla;
+    private volatile boolean pendiente = true;
+
+    private final ThreadLocal<Busqueda> busquedas = ThreadLocal.withInitial(Busqueda::new);
+
+    public static HorarioViajes getInstancia() {
+        HorarioViajes h = instancia;
+        if (h == null) {
+            synchronized (HorarioViajes.class) {
+                h = instancia;
+                if (h == null) {
+                    h = new HorarioViajes(Integer.getInteger("airlink.horarios.transbordoMin", 45));
+                    ViajeDAO.agregarOyente(h);
+                    RutaDAO.agregarOyente(h);
+                    instancia = h;
+                }
+            }
+        }
+        return h;
+    }
+
+    /** @param transbordoMin minutos mínimos para bajarse de un viaje y subirse a otro */
+    public HorarioViajes(int transbordoMin) {
+        this.transbordoMin = transbordoMin;
+    }
+
+    public int getConexiones() {
+        return tabla().salida.length;
+    }
+
+    // ============================
+    // CAMBIOS DESDE LOS DAO
+    // ============================
+    @Override
+    public void viajeGuardado(Viaje v) {
+        avisados.add(v.getIdViaje());
+        pendiente = true;
+    }
+
+    @Override
+    public void viajeEliminado(int idViaje) {
+        avisados.add(idViaje);
+        pendiente = true;
+    }
+
+    @Override
+    public synchronized void cargaMasiva() {
+        releer = true;
+        pendiente = true;
+    }
+
+    @Override
+    public synchronized void rutaGuardada(Ruta ruta) {
+        releer = true;
+        pendiente = true;
+    }
+
+    @Override
+    public synchronized void rutaEliminada(int idRuta) {
+        releer = true;
+        pendiente = true;
+    }
+
+    private Tabla tabla() {
+        if (!pendiente) {
+            return tabla;
+        }
+        synchronized (this) {
+            // Si la base falló hace poco se sigue con la tabla que hay hasta el próximo intento
+            if (pendiente && (tabla == null || System.nanoTime() - reintentarDesde >= 0)) {
+                // Se baja antes de tomar los avisos: uno que llegue durante la lectura la vuelve a subir
+                pendiente = false;
+                for (Iterator<Integer> it = avisados.iterator(); it.hasNext(); ) {
+                    porReleer.add(it.next());
+                    it.remove();
+                }
+                long inicio = System.nanoTime();
+                String como;
+                if ((releer || tabla == null) && leerBase()) {
+                    tabla = Tabla.desde(viajes);
+                    como = "leída de la base";
+                } else {
+                    if (!releer) {
+                        releerViajes();
+                    }
+                    como = releer ? "la base no respondió, se mantiene la anterior" : cambiados.size() + " viajes actualizados";
+                    if (tabla == null) {
+                        tabla = Tabla.desde(viajes);
+                    } else if (!cambiados.isEmpty()) {
+                        tabla = tabla.mezclar(cambiados, viajes);
+                    }
+                }
+                cambiados.clear();
+                if (releer || !porReleer.isEmpty()) {
+                    pendiente = true;
+                    reintentarDesde = System.nanoTime() + REINTENTO_NS;
+                }
+                System.out.println("🕒 Horarios: " + tabla.salida.length + " conexiones (" + como + ") en "
+                        + (System.nanoTime() - inicio) / 1_000_000 + " ms");
+            }
+            return tabla;
+        }
+    }
+
+    // Arma los viajes aparte y solo los reemplaza si la lectura terminó bien
+    private boolean leerBase() {
+        Map<Integer, RegistroViaje> leidos = new HashMap<>();
+        if (!horarioDAO.leerTramos(lector(leidos))) {
+            System.out.println("⚠️ Horarios no actualizados, se mantiene la tabla anterior");
+            return false;
+        }
+        viajes.clear();
+        viajes.putAll(leidos);
+        porReleer.clear();
+        releer = false;
+        return true;
+    }
+
+    // Los viajes avisados desde la última tabla; los que fallan quedan para el próximo intento
+    private void releerViajes() {
+        for (Iterator<Integer> it = porReleer.iterator(); it.hasNext(); ) {
+            int idViaje = it.next();
+            Map<Integer, RegistroViaje> leido = new HashMap<>();
+            if (!horarioDAO.leerTramosDeViaje(idViaje, lector(leido))) {
+                System.out.println("⚠️ No se pudo releer el viaje " + idViaje + ", queda con su horario anterior");
+                return;
+            }
+            RegistroViaje r = leido.get(idViaje);
+            if (r == null) {
+                viajes.remove(idViaje);
+            } else {
+                viajes.put(idViaje, r);
+            }
+            cambiados.add(idViaje);
+            it.remove();
+        }
+    }
+
+    private static HorarioDAO.LectorTramos lector(Map<Integer, RegistroViaje> destino) {
+        return (idViaje, estado, salidaViaje, desde, hasta, salida, llegada) -> {
+            if (salida == null || llegada == null) {
+                return;
+            }
+            RegistroViaje r = destino.get(idViaje);
+            if (r == null) {
+                r = new RegistroViaje();
+                r.cancelado = esCancelado(estado);
+                destino.put(idViaje, r);
+            }
+            r.agregar(desde, hasta, minutos(salida), minutos(llegada));
+        };
+    }
+
+    // ============================
+    // CONSULTAS
+    // ============================
+
+    /** El trayecto que llega antes saliendo de origen a partir de {@code desde}, o null. */
+    public Trayecto llegadaMasTemprana(int idTerminalOrigen, int idTerminalDestino, Timestamp desde) {
+        Tabla t = tabla();
+        Integer s = t.paradas.get(idTerminalOrigen);
+        Integer d = t.paradas.get(idTerminalDestino);
+        if (s == null || d == null || s.equals(d)) {
+            return null;
+        }
+        Busqueda b = busquedas.get();
+        b.preparar(t);
+        b.vuelta++;
+        int vuelta = b.vuelta;
+        b.marca[s] = vuelta;
+        b.llegada[s] = minutos(desde);
+        int mejor = INF;
+
+        for (int c = t.primeraDesde(minutos(desde)); c < t.salida.length; c++) {
+            if (t.salida[c] >= mejor) {
+                break;  // nada que salga después de la mejor llegada puede mejorarla
+            }
+            int v = t.viaje[c];
+            if (b.marcaViaje[v] != vuelta) {
+                int p = t.desde[c];
+                if (b.marca[p] != vuelta) {
+                    continue;
+                }
+                int margen = p == s ? 0 : transbordoMin;
+                if ((long) b.llegada[p] + margen > t.salida[c]) {
+                    continue;
+                }
+                b.marcaViaje[v] = vuelta;
+                b.subida[v] = c;
+            }
+            int q = t.hasta[c];
+            if (b.marca[q] != vuelta || t.llegada[c] < b.llegada[q]) {
+                b.marca[q] = vuelta;
+                b.llegada[q] = t.llegada[c];
+                b.enlaceSubida[q] = b.subida[v];
+                b.enlaceBajada[q] = c;
+                if (q == d) {
+                    mejor = t.llegada[c];
+                }
+            }
+        }
+        if (mejor == INF) {
+            return null;
+        }
+
+        List<Trayecto.Tramo> tramos = new ArrayList<>();
+        for (int p = d; p != s; ) {
+            int sube = b.enlaceSubida[p];
+            int baja = b.enlaceBajada[p];
+            tramos.add(0, new Trayecto.Tramo(t.idViaje[t.viaje[baja]], t.idTerminal[t.desde[sube]],
+                    t.idTerminal[t.hasta[baja]], marca(t.salida[sube]), marca(t.llegada[baja])));
+            p = t.desde[sube];
+        }
+        return new Trayecto(tramos);
+    }
+
+    /**
+     * Perfil de salidas entre {@code desde} y {@code hasta}: cada par (salida,
+     * llegada) que no es superado por otro que sale más tarde y llega antes.
+     * Ordenado por hora de salida.
+     */
+    public List<Timestamp[]> perfil(int idTerminalOrigen, int idTerminalDestino, Timestamp desde, Timestamp hasta) {
+        Tabla t = tabla();
+        Integer s = t.paradas.get(idTerminalOrigen);
+        Integer d = t.paradas.get(idTerminalDestino);
+        List<Timestamp[]> resultado = new ArrayList<>();
+        if (s == null || d == null || s.equals(d)) {
+            return resultado;
+        }
+        Busqueda b = busquedas.get();
+        b.preparar(t);
+        b.vuelta++;
+        int vuelta = b.vuelta;
+        int inicio = t.primeraDesde(minutos(desde));
+        int limite = minutos(hasta);
+
+        // Se recorre de la última conexión hacia atrás; cada parada guarda sus
+        // pares (salida, llegada) con salida decreciente y llegada estrictamente decreciente
+        for (int c = t.salida.length - 1; c >= inicio; c--) {
+            int tc = t.hasta[c] == d ? t.llegada[c] : INF;
+            int v = t.viaje[c];
+            if (b.marcaViaje[v] == vuelta) {
+                tc = Math.min(tc, b.llegadaViaje[v]);
+            }
+            tc = Math.min(tc, b.evaluar(t.hasta[c], (long) t.llegada[c] + transbordoMin, vuelta));
+            if (tc == INF) {
+                continue;
+            }
+            if (b.marcaViaje[v] != vuelta || tc < b.llegadaViaje[v]) {
+                b.marcaViaje[v] = vuelta;
+                b.llegadaViaje[v] = tc;
+            }
+            b.agregarPar(t.desde[c], t.salida[c], tc, vuelta);
+        }
+
+        if (b.marca[s] == vuelta) {
+            for (int i = b.tamanoPerfil[s] - 1; i >= 0; i--) {
+                int salida = b.perfilSalida[s][i];
+                if (salida <= limite) {
+                    resultado.add(new Timestamp[] {marca(salida), marca(b.perfilLlegada[s][i])});
+                }
+            }
+        }
+        return resultado;
+    }
+
+    private static boolean esCancelado(String estado) {
+        return estado != null && estado.trim().toLowerCase().startsWith("cancelad");
+    }
+
+    private static int minutos(Timestamp ts) {
+        return (int) Math.floorDiv(ts.getTime(), 60_000L);
+    }
+
+    private static Timestamp marca(int minutos) {
+        return new Timestamp(minutos * 60_000L);
+    }
+
+    // ============================
+    // DATOS
+    // ============================
+    private static final class RegistroViaje {
+        boolean cancelado;
+        int[] desde = new int[0];
+        int[] hasta = new int[0];
+        int[] salida = new int[0];
+        int[] llegada = new int[0];
+
+        void agregar(int d, int h, int s, int l) {
+            int n = desde.length;
+            desde = Arrays.copyOf(desde, n + 1);
+            hasta = Arrays.copyOf(hasta, n + 1);
+            salida = Arrays.copyOf(salida, n + 1);
+            llegada = Arrays.copyOf(llegada, n + 1);
+            desde[n] = d;
+            hasta[n] = h;
+            salida[n] = s;
+            llegada[n] = l;
+        }
+    }
+
+    /** Conexiones ordenadas por salida; paradas y viajes con índices densos. */
+    private static final class Tabla {
+        final int[] salida;
+        final int[] llegada;
+        final int[] desde;
+        final int[] hasta;
+        final int[] viaje;
+        final int[] idTerminal;
+        final int[] idViaje;
+        final Map<Integer, Integer> paradas = new HashMap<>();
+
+        /** Recibe arreglos con ids reales ya ordenados por salida y los pasa a índices densos. */
+        private Tabla(int[] salida, int[] llegada, int[] desdeId, int[] hastaId, int[] viajeId) {
+            this.salida = salida;
+            this.llegada = llegada;
+            int n = salida.length;
+            desde = new int[n];
+            hasta = new int[n];
+            viaje = new int[n];
+            Map<Integer, Integer> viajes = new HashMap<>();
+            for (int c = 0; c < n; c++) {
+                desde[c] = paradas.computeIfAbsent(desdeId[c], k -> paradas.size());
+                hasta[c] = paradas.computeIfAbsent(hastaId[c], k -> paradas.size());
+                viaje[c] = viajes.computeIfAbsent(viajeId[c], k -> viajes.size());
+            }
+            idTerminal = new int[paradas.size()];
+            paradas.forEach((id, i) -> idTerminal[i] = id);
+            idViaje = new int[viajes.size()];
+            viajes.forEach((id, i) -> idViaje[i] = id);
+        }
+
+        static Tabla desde(Map<Integer, RegistroViaje> viajes) {
+            Lista l = new Lista();
+            viajes.forEach((id, r) -> l.agregar(id, r));
+            return l.ordenada();
+        }
+
+        /** Nueva tabla sin las conexiones viejas de {@code cambiados} y con las actuales, en una pasada. */
+        Tabla mezclar(Set<Integer> cambiados, Map<Integer, RegistroViaje> viajes) {
+            Lista nuevas = new Lista();
+            for (int id : cambiados) {
+                RegistroViaje r = viajes.get(id);
+                if (r != null) {
+                    nuevas.agregar(id, r);
+                }
+            }
+            Tabla a = nuevas.ordenada();
+
+            int n = salida.length + a.salida.length;
+            int[] s = new int[n], l = new int[n], d = new int[n], h = new int[n], v = new int[n];
+            int i = 0, j = 0, k = 0;
+            while (i < salida.length || j < a.salida.length) {
+                if (i < salida.length && cambiados.contains(idViaje[viaje[i]])) {
+                    i++;
+                    continue;
+                }
+                boolean tomarVieja = j >= a.salida.length || (i < salida.length && salida[i] <= a.salida[j]);
+                Tabla o = tomarVieja ? this : a;
+                int c = tomarVieja ? i++ : j++;
+                s[k] = o.salida[c];
+                l[k] = o.llegada[c];
+                d[k] = o.idTerminal[o.desde[c]];
+                h[k] = o.idTerminal[o.hasta[c]];
+                v[k] = o.idViaje[o.viaje[c]];
+                k++;
+            }
+            return new Tabla(Arrays.copyOf(s, k), Arrays.copyOf(l, k), Arrays.copyOf(d, k),
+                    Arrays.copyOf(h, k), Arrays.copyOf(v, k));
+        }
+
+        int primeraDesde(int minuto) {
+            int lo = 0, hi = salida.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (salida[mid] < minuto) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+
+    /** Acumula conexiones sueltas y las entrega como Tabla ordenada por salida. */
+    private static final class Lista {
+        int[] s = new int[64], l = new int[64], d = new int[64], h = new int[64], v = new int[64];
+        int n;
+
+        void agregar(int idViaje, RegistroViaje r) {
+            if (r.cancelado) {
+                return;
+            }
+            for (int i = 0; i < r.salida.length; i++) {
+                if (n == s.length) {
+                    s = Arrays.copyOf(s, n * 2);
+                    l = Arrays.copyOf(l, n * 2);
+                    d = Arrays.copyOf(d, n * 2);
+                    h = Arrays.copyOf(h, n * 2);
+                    v = Arrays.copyOf(v, n * 2);
+                }
+                s[n] = r.salida[i];
+                l[n] = r.llegada[i];
+                d[n] = r.desde[i];
+                h[n] = r.hasta[i];
+                v[n] = idViaje;
+                n++;
+            }
+        }
+
+        Tabla ordenada() {
+            // Orden por (salida, posición) empaquetado en un long: sort primitivo, sin comparadores
+            long[] claves = new long[n];
+            for (int i = 0; i < n; i++) {
+                claves[i] = ((long) s[i] << 32) | i;
+            }
+            Arrays.sort(claves);
+            int[] os = new int[n], ol = new int[n], od = new int[n], oh = new int[n], ov = new int[n];
+            for (int k = 0; k < n; k++) {
+                int i = (int) claves[k];
+                os[k] = s[i];
+                ol[k] = l[i];
+                od[k] = d[i];
+                oh[k] = h[i];
+                ov[k] = v[i];
+            }
+            return new Tabla(os, ol, od, oh, ov);
+        }
+    }
+
+    /** Memoria de trabajo por hilo; las marcas de vuelta evitan limpiar arreglos entre consultas. */
+    private static final class Busqueda {
+        int vuelta;
+        int[] marca = new int[0];
+        int[] llegada = new int[0];
+        int[] enlaceSubida = new int[0];
+        int[] enlaceBajada = new int[0];
+        int[] marcaViaje = new int[0];
+        int[] subida = new int[0];
+        int[] llegadaViaje = new int[0];
+        int[][] perfilSalida = new int[0][];
+        int[][] perfilLlegada = new int[0][];
+        int[] tamanoPerfil = new int[0];
+
+        void preparar(Tabla t) {
+            int p = t.idTerminal.length;
+            int v = t.idViaje.length;
+            if (marca.length < p || marcaViaje.length < v) {
+                p = Math.max(p, marca.length);
+                v = Math.max(v, marcaViaje.length);
+                marca = new int[p];
+                llegada = new int[p];
+                enlaceSubida = new int[p];
+                enlaceBajada = new int[p];
+                perfilSalida = new int[p][];
+                perfilLlegada = new int[p][];
+                tamanoPerfil = new int[p];
+                marcaViaje = new int[v];
+                subida = new int[v];
+                llegadaViaje = new int[v];
+                vuelta = 0;
+            }
+        }
+
+        /** Llegada más temprana saliendo de la parada p a partir de {@code minuto}. */
+        int evaluar(int p, long minuto, int vuelta) {
+            if (marca[p] != vuelta) {
+                return INF;
+            }
+            int[] sal = perfilSalida[p];
+            // sal está en orden decreciente: buscar el último índice con salida >= minuto
+            int lo = 0, hi = tamanoPerfil[p] - 1, pos = -1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sal[mid] >= minuto) {
+                    pos = mid;
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return pos < 0 ? INF : perfilLlegada[p][pos];
+        }
+
+        void agregarPar(int p, int salida, int llegada, int vuelta) {
+            if (marca[p] != vuelta) {
+                marca[p] = vuelta;
+                tamanoPerfil[p] = 0;
+                if (perfilSalida[p] == null) {
+                    perfilSalida[p] = new int[4];
+                    perfilLlegada[p] = new int[4];
+                }
+            }
+            int n = tamanoPerfil[p];
+            if (n > 0 && perfilLlegada[p][n - 1] <= llegada) {
+                return;  // otro par sale igual o más tarde y llega igual o antes
+            }
+            if (n > 0 && perfilSalida[p][n - 1] == salida) {
+                n--;  // misma salida, mejor llegada: reemplaza
+            }
+            if (n == perfilSalida[p].length) {
+                perfilSalida[p] = Arrays.copyOf(perfilSalida[p], n * 2);
+                perfilLlegada[p] = Arrays.copyOf(perfilLlegada[p], n * 2);
+            }
+            perfilSalida[p][n] = salida;
+            perfilLlegada[p][n] = llegada;
+            tamanoPerfil[p] = n + 1;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package servicio;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Índice de subcadenas sobre textos cortos (nombre, correo...) para filtrar
+ * miles de filas mientras el usuario escribe.
+ *
+ * Cada texto se pliega con {@link Texto#plegar} y se parte en trigramas
+ * (y en letras y pares de letras); por cada uno se guarda la lista ordenada
+ * de documentos que lo contienen. Una consulta de una o dos letras es
+ * directamente su lista. Una de tres o más solo revisa la lista más corta de
+ * sus trigramas y confirma con contains, así que el resultado es exactamente
+ * el de un contains sobre todos los textos. Si la consulta extiende la
+ * anterior (se escribió una letra más) se revisan solo los resultados
+ * anteriores, cuando son menos.
+ *
+ * Es inmutable: se arma de una vez (fuera del EDT si son muchos) y se
+ * reemplaza entero cuando cambian los datos.
+ */
+public class IndiceTrigramas {
+
+    private static final int[] VACIA = new int[0];
+
+    private final int[] ids;
+    private final String[] textos;
+    private final Map<Integer, Integer> docDe;
+    private final Map<Long, int[]> listas;
+
+    /** ids[i] identifica al documento i; campos[i] son sus textos buscables. */
+    public IndiceTrigramas(int[] ids, String[][] campos) {
+        this.ids = ids.clone();
+        this.textos = new String[ids.length];
+        this.docDe = new HashMap<>(ids.length * 2);
+        Map<Long, Lista> enConstruccion = new HashMap<>();
+        for (int d = 0; d < ids.length; d++) {
+            // Un separador que nadie escribe, para no encontrar trigramas entre dos campos
+            StringBuilder sb = new StringBuilder();
+            for (String campo : campos[d]) {
+                if (sb.length() > 0) {
+                    sb.append('\u0001');
+                }
+                sb.append(Texto.plegar(campo));
+            }
+            String t = sb.toString();
+            textos[d] = t;
+            docDe.put(ids[d], d);
+            for (int i = 0; i < t.length(); i++) {
+                for (int largo = 1; largo <= 3 && i + largo <= t.length(); largo++) {
+                    enConstruccion.computeIfAbsent(clave(t, i, largo), k -> new Lista()).agregar(d);
+                }
+            }
+        }
+        this.listas = new HashMap<>(enConstruccion.size() * 2);
+        for (Map.Entry<Long, Lista> e : enConstruccion.entrySet()) {
+            listas.put(e.getKey(), Arrays.copyOf(e.getValue().docs, e.getValue().largo));
+        }
+    }
+
+    public int tamano() {
+        return ids.length;
+    }
+
+    /** Ids cuyos textos contienen la consulta (plegada). Con consulta vacía, todos. */
+    public BitSet buscar(String consulta) {
+        return buscar(consulta, null, null);
+    }
+
+    /**
+     * Igual que {@link #buscar(String)}, pero si {@code consulta} contiene
+     * a {@code anterior} parte de {@code resultadoAnterior}.
+     */
+    public BitSet buscar(String consulta, String anterior, BitSet resultadoAnterior) {
+        String q = Texto.plegar(consulta).trim();
+        BitSet resultado = new BitSet();
+        if (q.isEmpty()) {
+            for (int id : ids) {
+                resultado.set(id);
+            }
+            return resultado;
+        }
+        if (q.length() < 3) {
+            for (int d : listas.getOrDefault(clave(q, 0, q.length()), VACIA)) {
+                resultado.set(ids[d]);
+            }
+            return resultado;
+        }
+        int[] lista = listaMasCorta(q);
+        boolean estrechar = anterior != null && resultadoAnterior != null
+                && q.contains(Texto.plegar(anterior).trim())
+                && resultadoAnterior.cardinality() < lista.length;
+        if (estrechar) {
+            for (int id = resultadoAnterior.nextSetBit(0); id >= 0; id = resultadoAnterior.nextSetBit(id + 1)) {
+                Integer d = docDe.get(id);
+                if (d != null && textos[d].contains(q)) {
+                    resultado.set(id);
+                }
+            }
+        } else {
+            for (int d : lista) {
+                if (textos[d].contains(q)) {
+                    resultado.set(ids[d]);
+                }
+            }
+        }
+        return resultado;
+    }
+
+    private int[] listaMasCorta(String q) {
+        int[] mejor = null;
+        for (int i = 0; i + 3 <= q.length(); i++) {
+            int[] lista = listas.getOrDefault(clave(q, i, 3), VACIA);
+            if (mejor == null || lista.length < mejor.length) {
+                mejor = lista;
+                if (lista.length == 0) {
+                    break;  // un trigrama que nadie tiene: no hay resultados
+                }
+            }
+        }
+        return mejor;
+    }
+
+    private static final class Lista {
+        int[] docs = new int[4];
+        int largo;
+
+        void agregar(int d) {
+            if (largo > 0 && docs[largo - 1] == d) {
+                return;  // repetido en el mismo texto
+            }
+            if (largo == docs.length) {
+                docs = Arrays.copyOf(docs, largo * 2);
+            }
+            docs[largo++] = d;
+        }
+    }
+
+    // Hasta tres caracteres de 16 bits y el largo en los bits de arriba
+    private static long clave(String t, int i, int largo) {
+        long k = largo;
+        for (int j = 0; j < largo; j++) {
+            k = (k << 16) | t.charAt(i + j);
+        }
+        return k;
+    }
+}
@@ -0,0 +1,459 @@
+package servicio;
+
+import Modelo.Viaje;
+import dao.AsientoDAO;
+import dao.OyenteViajes;
+import dao.ViajeDAO;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Disponibilidad de asientos en memoria: un bitset por viaje y cabina, cargado
+ * la primera vez que se pregunta por el viaje.
+ *
+ * Retener y liberar son compareAndSet sobre la palabra del bitset, así dos
+ * vendedores nunca se quedan con el mismo asiento aunque no haya locks. La
+ * marca de vendido va en la misma palabra que la de retenido, así que
+ * liberar y vender el mismo asiento a la vez no lo puede dejar vendido y
+ * libre. Solo
+ * {@link #confirmar} y {@link #devolver} escriben en la tabla asiento, y la
+ * escritura es condicional: si alguien vendió el asiento por fuera de esta
+ * aplicación, la confirmación falla en lugar de pisarlo.
+ */
+public class InventarioAsientos implements OyenteViajes {
+
+    private static final int MAX_CONTIGUOS = 16;
+    private static volatile InventarioAsientos instancia;
+
+    private final AsientoDAO asientoDAO = new AsientoDAO();
+    private final ConcurrentHashMap<Integer, MapaViaje> viajes = new ConcurrentHashMap<>();
+
+    public static InventarioAsientos getInstancia() {
+        InventarioAsientos i = instancia;
+        if (i == null) {
+            synchronized (InventarioAsientos.class) {
+                i = instancia;
+                if (i == null) {
+                    i = new InventarioAsientos();
+                    ViajeDAO.agregarOyente(i);
+                    instancia = i;
+                }
+            }
+        }
+        return i;
+    }
+
+    // ============================
+    // CONSULTAS
+    // ============================
+    public int libres(int idViaje, int idCabinaClase) {
+        Cabina c = cabina(idViaje, idCabinaClase);
+        if (c == null) {
+            return 0;
+        }
+        int total = 0;
+        for (int g = 0; g < c.estado.length(); g++) {
+            total += Long.bitCount(~c.estado.get(g) & Cabina.OCUPADOS);
+        }
+        return total;
+    }
+
+    /** Números de los primeros {@code cantidad} asientos libres juntos en una misma fila; vacía si no hay. */
+    public List<String> contiguos(int idViaje, int idCabinaClase, int cantidad) {
+        Cabina c = cabina(idViaje, idCabinaClase);
+        if (c == null || cantidad < 1 || cantidad > MAX_CONTIGUOS) {
+            return Collections.emptyList();
+        }
+        int inicio = c.buscarContiguos(c.libres(), cantidad);
+        List<String> numeros = new ArrayList<>();
+        for (int i = 0; inicio >= 0 && i < cantidad; i++) {
+            numeros.add(c.numero[inicio + i]);
+        }
+        return numeros;
+    }
+
+    // ============================
+    // RETENCIÓN Y VENTA
+    // ============================
+
+    /** Aparta un asiento libre; false si ya estaba retenido o vendido. */
+    public boolean retener(int idViaje, int idAsiento) {
+        MapaViaje m = mapa(idViaje);
+        int pos = m == null ? -1 : m.posicion(idAsiento);
+        return pos >= 0 && m.cabinas[pos >>> 16].ocupar((char) pos, 1);
+    }
+
+    /** Suelta una retención; un asiento ya vendido no se libera por acá (ver {@link #devolver}). */
+    public boolean liberar(int idViaje, int idAsiento) {
+        MapaViaje m = mapa(idViaje);
+        int pos = m == null ? -1 : m.posicion(idAsiento);
+        return pos >= 0 && m.cabinas[pos >>> 16].soltar((char) pos);
+    }
+
+    /**
+     * Retiene {@code cantidad} asientos juntos de la cabina y devuelve sus
+     * idAsiento, o una lista vacía si no queda ningún bloque así.
+     */
+    public List<Integer> retenerContiguos(int idViaje, int idCabinaClase, int cantidad) {
+        Cabina c = cabina(idViaje, idCabinaClase);
+        if (c == null || cantidad < 1 || cantidad > MAX_CONTIGUOS) {
+            return Collections.emptyList();
+        }
+        while (true) {
+            int inicio = c.buscarContiguos(c.libres(), cantidad);
+            if (inicio < 0) {
+                return Collections.emptyList();
+            }
+            if (c.ocupar(inicio, cantidad)) {
+                List<Integer> ids = new ArrayList<>(cantidad);
+                for (int i = 0; i < cantidad; i++) {
+                    ids.add(c.idAsiento[inicio + i]);
+                }
+                return ids;
+            }
+            // Otro vendedor tomó parte del bloque entre la búsqueda y el CAS: buscar de nuevo
+        }
+    }
+
+    /**
+     * Pasa a vendido un asiento retenido, marcándolo no disponible en la base.
+     * Se marca vendido en memoria antes de escribir, así un liberar que llegue
+     * mientras tanto ya no lo suelta. Si la base dice que ya no estaba
+     * disponible, el asiento queda ocupado también en memoria y se devuelve
+     * false. Si la base falló, sigue retenido (no vendido) y también se
+     * devuelve false: se puede reintentar.
+     */
+    public boolean confirmar(int idViaje, int idAsiento) {
+        MapaViaje m = mapa(idViaje);
+        int pos = m == null ? -1 : m.posicion(idAsiento);
+        if (pos < 0) {
+            return false;
+        }
+        Cabina c = m.cabinas[pos >>> 16];
+        int bit = (char) pos;
+        if (!c.marcarVendido(bit)) {
+            return false;  // hay que retenerlo primero, o ya se vendió
+        }
+        int marcados = asientoDAO.ocupar(idAsiento);
+        if (marcados < 0) {
+            c.desmarcarVendido(bit);
+            return false;
+        }
+        return marcados == 1;
+    }
+
+    /** Si el asiento figura vendido en memoria (confirmado acá o tomado por fuera). */
+    public boolean vendido(int idViaje, int idAsiento) {
+        MapaViaje m = viajes.get(idViaje);
+        int pos = m == null ? -1 : m.posicion(idAsiento);
+        return pos >= 0 && m.cabinas[pos >>> 16].vendido((char) pos);
+    }
+
+    /** Deshace una venta: vuelve a dejar el asiento disponible en la base y en memoria. */
+    public boolean devolver(int idViaje, int idAsiento) {
+        MapaViaje m = mapa(idViaje);
+        int pos = m == null ? -1 : m.posicion(idAsiento);
+        if (pos < 0 || asientoDAO.liberar(idAsiento) != 1) {
+            return false;
+        }
+        return m.cabinas[pos >>> 16].vaciar((char) pos);
+    }
+
+    /**
+     * La base ya dejó libre el asiento por su cuenta (por ejemplo, expiró la
+     * reserva que lo tenía): se refleja en memoria sin volver a escribir.
+     */
+    public void asientoLiberado(int idViaje, int idAsiento) {
+        MapaViaje m = viajes.get(idViaje);
+        int pos = m == null ? -1 : m.posicion(idAsiento);
+        if (pos >= 0) {
+            m.cabinas[pos >>> 16].vaciar((char) pos);
+        }
+    }
+
+    /** Olvida el viaje; se vuelve a leer de la base en la próxima consulta. */
+    public void invalidar(int idViaje) {
+        viajes.remove(idViaje);
+    }
+
+    @Override
+    public void viajeGuardado(Viaje viaje) {
+        // Cambiar horario o estado no toca los asientos
+    }
+
+    @Override
+    public void viajeEliminado(int idViaje) {
+        invalidar(idViaje);
+    }
+
+    // ============================
+    // CARGA
+    // ============================
+    private Cabina cabina(int idViaje, int idCabinaClase) {
+        MapaViaje m = mapa(idViaje);
+        if (m == null) {
+            return null;
+        }
+        for (Cabina c : m.cabinas) {
+            if (c.idCabinaClase == idCabinaClase) {
+                return c;
+            }
+        }
+        return null;
+    }
+
+    private MapaViaje mapa(int idViaje) {
+        MapaViaje m = viajes.get(idViaje);
+        if (m == null) {
+            // Si la lectura falla no se guarda nada y se reintenta en la próxima consulta
+            m = viajes.computeIfAbsent(idViaje, this::cargar);
+        }
+        return m;
+    }
+
+    private MapaViaje cargar(int idViaje) {
+        Map<Integer, List<Object[]>> porCabina = new TreeMap<>();
+        boolean ok = asientoDAO.leerAsientos(idViaje, (idAsiento, numero, idCabinaClase, libre) ->
+                porCabina.computeIfAbsent(idCabinaClase, k -> new ArrayList<>())
+                        .add(new Object[] {idAsiento, numero, libre}));
+        if (!ok) {
+            return null;
+        }
+        MapaViaje m = new MapaViaje();
+        m.cabinas = new Cabina[porCabina.size()];
+        int i = 0;
+        for (Map.Entry<Integer, List<Object[]>> e : porCabina.entrySet()) {
+            List<Object[]> asientos = e.getValue();
+            asientos.sort((a, b) -> compararNumero((String) a[1], (String) b[1]));
+            Cabina c = new Cabina(e.getKey(), asientos);
+            for (int bit = 0; bit < c.idAsiento.length; bit++) {
+                m.posiciones.put(c.idAsiento[bit], (i << 16) | bit);
+            }
+            m.cabinas[i++] = c;
+        }
+        return m;
+    }
+
+    /** "12C" va antes de "12D" y "9A" antes de "10A". */
+    private static int compararNumero(String a, String b) {
+        int c = Integer.compare(fila(a), fila(b));
+        return c != 0 ? c : letra(a).compareTo(letra(b));
+    }
+
+    private static int fila(String numero) {
+        int i = 0;
+        while (i < numero.length() && Character.isDigit(numero.charAt(i))) {
+            i++;
+        }
+        return i == 0 ? -1 : Integer.parseInt(numero.substring(0, Math.min(i, 9)));
+    }
+
+    private static String letra(String numero) {
+        int i = 0;
+        while (i < numero.length() && Character.isDigit(numero.charAt(i))) {
+            i++;
+        }
+        return numero.substring(i);
+    }
+
+    private static final class MapaViaje {
+        Cabina[] cabinas;
+        final Map<Integer, Integer> posiciones = new HashMap<>();
+
+        /** Cabina en los 16 bits altos y bit dentro de la cabina en los bajos, o -1. */
+        int posicion(int idAsiento) {
+            Integer p = posiciones.get(idAsiento);
+            return p == null ? -1 : p;
+        }
+    }
+
+    /**
+     * Asientos de una cabina ordenados por fila y letra. Cada palabra de
+     * {@code estado} lleva 32 asientos: en la mitad baja el bit de ocupado
+     * (retenido o vendido) y en la alta el de vendido, para cambiar los dos con
+     * un solo CAS. Los bits de relleno nacen ocupados para que nunca cuenten
+     * como libres.
+     */
+    private static final class Cabina {
+        static final long OCUPADOS = 0xFFFF_FFFFL;
+
+        final int idCabinaClase;
+        final int[] idAsiento;
+        final String[] numero;
+        /** Palabras de 64 asientos de las búsquedas; estado tiene el doble. */
+        final int palabras;
+        /** Bit i encendido si el asiento i y el i+1 están en la misma fila. */
+        final long[] mismaFila;
+        final AtomicLongArray estado;
+
+        Cabina(int idCabinaClase, List<Object[]> asientos) {
+            this.idCabinaClase = idCabinaClase;
+            int n = asientos.size();
+            palabras = Math.max(1, (n + 63) >>> 6);
+            idAsiento = new int[n];
+            numero = new String[n];
+            mismaFila = new long[palabras];
+            long[] inicial = new long[palabras * 2];
+            for (int i = 0; i < n; i++) {
+                Object[] a = asientos.get(i);
+                idAsiento[i] = (Integer) a[0];
+                numero[i] = (String) a[1];
+                if (!(Boolean) a[2]) {
+                    inicial[i >>> 5] |= ocupadoBit(i) | vendidoBit(i);
+                }
+                if (i > 0) {
+                    int f = fila(numero[i]);
+                    if (f >= 0 && f == fila(numero[i - 1])) {
+                        mismaFila[(i - 1) >>> 6] |= 1L << (i - 1);
+                    }
+                }
+            }
+            for (int i = n; i < palabras * 64; i++) {
+                inicial[i >>> 5] |= ocupadoBit(i);
+            }
+            estado = new AtomicLongArray(inicial);
+        }
+
+        private static long ocupadoBit(int bit) {
+            return 1L << (bit & 31);
+        }
+
+        private static long vendidoBit(int bit) {
+            return 1L << (32 + (bit & 31));
+        }
+
+        long[] libres() {
+            long[] l = new long[palabras];
+            for (int w = 0; w < palabras; w++) {
+                l[w] = ~((estado.get(2 * w) & OCUPADOS) | (estado.get(2 * w + 1) << 32));
+            }
+            return l;
+        }
+
+        boolean vendido(int bit) {
+            return (estado.get(bit >>> 5) & vendidoBit(bit)) != 0;
+        }
+
+        /** Retenido a vendido; false si no estaba retenido o ya estaba vendido. */
+        boolean marcarVendido(int bit) {
+            int g = bit >>> 5;
+            long ocupado = ocupadoBit(bit);
+            long vendido = vendidoBit(bit);
+            while (true) {
+                long actual = estado.get(g);
+                if ((actual & ocupado) == 0 || (actual & vendido) != 0) {
+                    return false;
+                }
+                if (estado.compareAndSet(g, actual, actual | vendido)) {
+                    return true;
+                }
+            }
+        }
+
+        /** Vendido a retenido, cuando la venta no llegó a la base. */
+        void desmarcarVendido(int bit) {
+            estado.getAndAccumulate(bit >>> 5, ~vendidoBit(bit), (x, y) -> x & y);
+        }
+
+        /** Retenido a libre; false si estaba libre o vendido. */
+        boolean soltar(int bit) {
+            int g = bit >>> 5;
+            long ocupado = ocupadoBit(bit);
+            long vendido = vendidoBit(bit);
+            while (true) {
+                long actual = estado.get(g);
+                if ((actual & ocupado) == 0 || (actual & vendido) != 0) {
+                    return false;
+                }
+                if (estado.compareAndSet(g, actual, actual & ~ocupado)) {
+                    return true;
+                }
+            }
+        }
+
+        /** Libre sea como sea que estaba; true si estaba ocupado. */
+        boolean vaciar(int bit) {
+            long ocupado = ocupadoBit(bit);
+            long antes = estado.getAndAccumulate(bit >>> 5, ~(ocupado | vendidoBit(bit)), (x, y) -> x & y);
+            return (antes & ocupado) != 0;
+        }
+
+        /**
+         * Primer índice donde empiezan {@code n} bits libres seguidos en la
+         * misma fila, o -1. Es un AND de la fotografía corrida 0..n-1
+         * posiciones: O(n · palabras).
+         */
+        int buscarContiguos(long[] libres, int n) {
+            long[] candidatos = libres.clone();
+            for (int k = 1; k < n; k++) {
+                for (int w = 0; w < palabras; w++) {
+                    candidatos[w] &= correr(libres, w, k) & correr(mismaFila, w, k - 1);
+                }
+            }
+            for (int w = 0; w < palabras; w++) {
+                if (candidatos[w] != 0) {
+                    return (w << 6) + Long.numberOfTrailingZeros(candidatos[w]);
+                }
+            }
+            return -1;
+        }
+
+        /** Palabra w del bitset corrido k bits hacia los índices bajos. */
+        private long correr(long[] bits, int w, int k) {
+            int desde = w + (k >>> 6);
+            int r = k & 63;
+            long baja = desde < bits.length ? bits[desde] : 0;
+            if (r == 0) {
+                return baja;
+            }
+            long alta = desde + 1 < bits.length ? bits[desde + 1] : 0;
+            return (baja >>> r) | (alta << (64 - r));
+        }
+
+        /**
+         * Ocupa los asientos [inicio, inicio+n) solo si todos estaban libres.
+         * Cada palabra va con su propio CAS; si una falla se deshacen las
+         * anteriores.
+         */
+        boolean ocupar(int inicio, int n) {
+            int fin = inicio + n;
+            int g = inicio >>> 5;
+            while ((g << 5) < fin) {
+                long mascara = mascara(g, inicio, fin);
+                boolean ok;
+                while (true) {
+                    long actual = estado.get(g);
+                    if ((actual & mascara) != 0) {
+                        ok = false;
+                        break;
+                    }
+                    if (estado.compareAndSet(g, actual, actual | mascara)) {
+                        ok = true;
+                        break;
+                    }
+                }
+                if (!ok) {
+                    for (int v = inicio >>> 5; v < g; v++) {
+                        estado.getAndAccumulate(v, ~mascara(v, inicio, fin), (x, y) -> x & y);
+                    }
+                    return false;
+                }
+                g++;
+            }
+            return true;
+        }
+
+        /** Bits de ocupado de la palabra g que caen en [inicio, fin). */
+        private static long mascara(int g, int inicio, int fin) {
+            int desde = Math.max(inicio, g << 5) - (g << 5);
+            int hasta = Math.min(fin, (g + 1) << 5) - (g << 5);
+            return ((1L << hasta) - 1) & ~((1L << desde) - 1);
+        }
+    }
+}
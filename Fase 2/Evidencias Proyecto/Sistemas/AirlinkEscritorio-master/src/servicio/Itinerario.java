@@ -0,0 +1,48 @@
+package servicio;
+
+import Modelo.Ruta;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Una forma de ir de un terminal a otro encadenando rutas. La duración total
+ * incluye el tiempo mínimo de conexión en cada escala.
+ */
+public class Itinerario {
+
+    private final List<Ruta> tramos;
+    private final int duracionMin;
+    private final double distanciaKm;
+
+    Itinerario(List<Ruta> tramos, int duracionMin, double distanciaKm) {
+        this.tramos = Collections.unmodifiableList(tramos);
+        this.duracionMin = duracionMin;
+        this.distanciaKm = distanciaKm;
+    }
+
+    public List<Ruta> getTramos() {
+        return tramos;
+    }
+
+    public int getEscalas() {
+        return tramos.size() - 1;
+    }
+
+    public int getDuracionMin() {
+        return duracionMin;
+    }
+
+    public double getDistanciaKm() {
+        return distanciaKm;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Ruta r : tramos) {
+            sb.append(sb.length() == 0 ? r.getOrigen() : "").append(" → ").append(r.getDestino());
+        }
+        return sb + " (" + duracionMin + " min, " + String.format("%.1f", distanciaKm) + " km, "
+                + getEscalas() + " escala" + (getEscalas() == 1 ? "" : "s") + ")";
+    }
+}
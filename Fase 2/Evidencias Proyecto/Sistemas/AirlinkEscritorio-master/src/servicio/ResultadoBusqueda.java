@@ -0,0 +1,50 @@
+package servicio;
+
+/**
+ * Un registro encontrado por {@link BuscadorGlobal}: de qué tabla es, su id
+ * y el texto para mostrarlo en la lista de resultados.
+ */
+public class ResultadoBusqueda {
+
+    public enum Tipo { DESTINO, TERMINAL, EMPRESA, RUTA }
+
+    private final Tipo tipo;
+    private final int id;
+    private final String titulo;
+    private final String detalle;
+    private final double puntaje;
+
+    ResultadoBusqueda(Tipo tipo, int id, String titulo, String detalle, double puntaje) {
+        this.tipo = tipo;
+        this.id = id;
+        this.titulo = titulo;
+        this.detalle = detalle;
+        this.puntaje = puntaje;
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getTitulo() {
+        return titulo;
+    }
+
+    public String getDetalle() {
+        return detalle;
+    }
+
+    /** Mayor es mejor; solo sirve para comparar resultados de la misma búsqueda. */
+    public double getPuntaje() {
+        return puntaje;
+    }
+
+    @Override
+    public String toString() {
+        return titulo + (detalle == null || detalle.isEmpty() ? "" : " — " + detalle);
+    }
+}
@@ -0,0 +1,379 @@
+package servicio;
+
+import dao.ReservaDAO;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vencimiento de reservas pendientes. Cada reserva que toma asientos queda
+ * retenida por un tiempo (-Dairlink.reservas.ttlMin, 15 por defecto); si no
+ * se confirma antes, la reserva pasa a expirada, se borran sus
+ * pasajero_asiento y los asientos vuelven a {@link InventarioAsientos}.
+ *
+ * Los vencimientos viven en una rueda de tiempo jerárquica (cuatro niveles
+ * de 64 casillas, como los timers del kernel de Linux) que avanza una
+ * casilla por tick (-Dairlink.reservas.tickMs, 1000 por defecto): agregar y
+ * cancelar son O(1) y cada tick solo toca su casilla, sin importar cuántas
+ * retenciones haya. Lo que vence en un tick se expira en la base en lotes
+ * de -Dairlink.reservas.lote reservas (500).
+ *
+ * Al arrancar se leen las reservas que ya estaban pendientes y se agendan
+ * con su fecha_reserva, así las abandonadas antes de abrir la aplicación
+ * también expiran.
+ */
+public class RetencionReservas {
+
+    private static final int BITS = 6;
+    private static final int CASILLAS = 1 << BITS;
+    private static final int MASCARA = CASILLAS - 1;
+    private static final int NIVELES = 4;
+    private static final long MAX_TICKS = (1L << (BITS * NIVELES)) - 1;
+
+    private static volatile RetencionReservas instancia;
+
+    private final ReservaDAO reservaDAO = new ReservaDAO();
+    private final InventarioAsientos inventario;
+    private final long ttlMs;
+    private final long tickMs;
+    private final int lote;
+
+    // Rueda y mapa protegidos por this
+    private final Retencion[][] rueda = new Retencion[NIVELES][CASILLAS];
+    private final Map<Integer, Retencion> porReserva = new HashMap<>();
+    private final long origen;
+    private long tickActual;
+
+    public static RetencionReservas getInstancia() {
+        RetencionReservas r = instancia;
+        if (r == null) {
+            synchronized (RetencionReservas.class) {
+                r = instancia;
+                if (r == null) {
+                    r = new RetencionReservas(InventarioAsientos.getInstancia(),
+                            Duration.ofMinutes(Integer.getInteger("airlink.reservas.ttlMin", 15)),
+                            Integer.getInteger("airlink.reservas.tickMs", 1000),
+                            Integer.getInteger("airlink.reservas.lote", 500));
+                    r.recuperarPendientes();
+                    r.iniciar();
+                    instancia = r;
+                }
+            }
+        }
+        return r;
+    }
+
+    public RetencionReservas(InventarioAsientos inventario, Duration ttl, long tickMs, int lote) {
+        this.inventario = inventario;
+        this.ttlMs = ttl.toMillis();
+        this.tickMs = Math.max(1, tickMs);
+        this.lote = Math.max(1, lote);
+        this.origen = System.currentTimeMillis();
+    }
+
+    // ============================
+    // API
+    // ============================
+
+    /**
+     * Retiene los asientos de una reserva pendiente. Es todo o nada: si uno
+     * ya no está libre se sueltan los demás y devuelve false.
+     */
+    public boolean retener(int idReserva, int idViaje, int... idAsientos) {
+        return retener(idReserva, idViaje, Duration.ofMillis(ttlMs), idAsientos);
+    }
+
+    public boolean retener(int idReserva, int idViaje, Duration ttl, int... idAsientos) {
+        // Volver a retener la misma reserva reemplaza sus asientos anteriores
+        Retencion anterior = quitar(idReserva);
+        if (anterior != null && !anterior.recuperada) {
+            soltarEnMemoria(anterior);
+        }
+        for (int i = 0; i < idAsientos.length; i++) {
+            if (!inventario.retener(idViaje, idAsientos[i])) {
+                for (int j = 0; j < i; j++) {
+                    inventario.liberar(idViaje, idAsientos[j]);
+                }
+                return false;
+            }
+        }
+        Retencion r = new Retencion(idReserva, idViaje, idAsientos.clone(), false);
+        synchronized (this) {
+            porReserva.put(idReserva, r);
+            r.vence = tick(System.currentTimeMillis() + ttl.toMillis());
+            enganchar(r);
+        }
+        return true;
+    }
+
+    /**
+     * La reserva se pagó: se cancela el vencimiento y sus asientos pasan a
+     * vendidos. Si la base falló con alguno, ese sigue retenido con el mismo
+     * vencimiento y se puede volver a confirmar.
+     */
+    public boolean confirmar(int idReserva) {
+        Retencion r = quitar(idReserva);
+        if (r == null) {
+            return false;
+        }
+        boolean ok = true;
+        int[] sinVender = new int[r.asientos.length];
+        int n = 0;
+        for (int idAsiento : r.asientos) {
+            if (!r.recuperada && !inventario.confirmar(r.idViaje, idAsiento)) {
+                ok = false;
+                if (!inventario.vendido(r.idViaje, idAsiento)) {
+                    sinVender[n++] = idAsiento;
+                }
+            }
+        }
+        if (n > 0) {
+            r.asientos = Arrays.copyOf(sinVender, n);
+            synchronized (this) {
+                if (!porReserva.containsKey(idReserva)) {
+                    porReserva.put(idReserva, r);
+                    enganchar(r);
+                    return false;
+                }
+            }
+            soltarEnMemoria(r);  // la reserva se volvió a retener mientras tanto
+        }
+        return ok;
+    }
+
+    /** Expira ya una reserva pendiente, sin esperar su vencimiento. */
+    public void cancelar(int idReserva) {
+        Retencion r = quitar(idReserva);
+        if (r != null) {
+            expirar(new ArrayList<>(List.of(r)));
+        }
+    }
+
+    public synchronized int getPendientes() {
+        return porReserva.size();
+    }
+
+    // ============================
+    // RUEDA DE TIEMPO
+    // ============================
+    private long tick(long epochMs) {
+        return Math.max(0, (epochMs - origen) / tickMs);
+    }
+
+    /** Casilla según cuánto falta: nivel 0 para los próximos 64 ticks, nivel 1 para los próximos 64², etc. */
+    private void enganchar(Retencion r) {
+        long falta = r.vence - tickActual;
+        int nivel;
+        int casilla;
+        if (falta < 0) {
+            nivel = 0;
+            casilla = (int) (tickActual & MASCARA);
+        } else {
+            if (falta > MAX_TICKS) {
+                r.vence = tickActual + MAX_TICKS;
+                falta = MAX_TICKS;
+            }
+            nivel = 0;
+            while (falta >= (1L << (BITS * (nivel + 1)))) {
+                nivel++;
+            }
+            casilla = (int) ((r.vence >>> (BITS * nivel)) & MASCARA);
+        }
+        r.nivel = nivel;
+        r.casilla = casilla;
+        r.anterior = null;
+        r.siguiente = rueda[nivel][casilla];
+        if (r.siguiente != null) {
+            r.siguiente.anterior = r;
+        }
+        rueda[nivel][casilla] = r;
+    }
+
+    private void desenganchar(Retencion r) {
+        if (r.anterior != null) {
+            r.anterior.siguiente = r.siguiente;
+        } else if (rueda[r.nivel][r.casilla] == r) {
+            rueda[r.nivel][r.casilla] = r.siguiente;
+        }
+        if (r.siguiente != null) {
+            r.siguiente.anterior = r.anterior;
+        }
+        r.anterior = null;
+        r.siguiente = null;
+    }
+
+    /**
+     * Procesa un tick: si el nivel 0 dio la vuelta baja la casilla que toca
+     * de los niveles de arriba (cascada) y luego vacía la casilla actual.
+     */
+    private void avanzar(List<Retencion> vencidas) {
+        int indice = (int) (tickActual & MASCARA);
+        for (int nivel = 1; indice == 0 && nivel < NIVELES; nivel++) {
+            indice = (int) ((tickActual >>> (BITS * nivel)) & MASCARA);
+            Retencion r = rueda[nivel][indice];
+            rueda[nivel][indice] = null;
+            while (r != null) {
+                Retencion sig = r.siguiente;
+                enganchar(r);
+                r = sig;
+            }
+        }
+        int casilla = (int) (tickActual & MASCARA);
+        Retencion r = rueda[0][casilla];
+        rueda[0][casilla] = null;
+        while (r != null) {
+            Retencion sig = r.siguiente;
+            r.anterior = null;
+            r.siguiente = null;
+            porReserva.remove(r.idReserva);
+            vencidas.add(r);
+            r = sig;
+        }
+        tickActual++;
+    }
+
+    private void iniciar() {
+        ScheduledExecutorService s = Executors.newSingleThreadScheduledExecutor(t -> {
+            Thread h = new Thread(t, "airlink-reservas");
+            h.setDaemon(true);
+            return h;
+        });
+        s.scheduleAtFixedRate(this::procesarTicks, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Avanza hasta el tick del reloj (si el hilo se atrasó procesa varios) y expira lo vencido. */
+    void procesarTicks() {
+        List<Retencion> vencidas = new ArrayList<>();
+        synchronized (this) {
+            long hasta = tick(System.currentTimeMillis());
+            while (tickActual <= hasta) {
+                avanzar(vencidas);
+            }
+        }
+        if (!vencidas.isEmpty()) {
+            try {
+                expirar(vencidas);
+            } catch (RuntimeException e) {
+                System.out.println("❌ Error al expirar reservas: " + e);
+            }
+        }
+    }
+
+    // ============================
+    // EXPIRACIÓN
+    // ============================
+    private Retencion quitar(int idReserva) {
+        synchronized (this) {
+            Retencion r = porReserva.remove(idReserva);
+            if (r != null) {
+                desenganchar(r);
+            }
+            return r;
+        }
+    }
+
+    private void expirar(List<Retencion> vencidas) {
+        long inicio = System.nanoTime();
+        int expiradas = 0;
+        for (int desde = 0; desde < vencidas.size(); desde += lote) {
+            List<Retencion> parte = vencidas.subList(desde, Math.min(desde + lote, vencidas.size()));
+            List<Integer> ids = new ArrayList<>(parte.size());
+            for (Retencion r : parte) {
+                ids.add(r.idReserva);
+            }
+            List<Integer> enBase = reservaDAO.expirar(ids);
+            if (enBase == null) {
+                // La base no respondió: se reintenta en el próximo tick
+                synchronized (this) {
+                    for (Retencion r : parte) {
+                        if (!porReserva.containsKey(r.idReserva)) {
+                            porReserva.put(r.idReserva, r);
+                            r.vence = tickActual;
+                            enganchar(r);
+                        }
+                    }
+                }
+                continue;
+            }
+            expiradas += enBase.size();
+            Set<Integer> expiradasEnBase = new HashSet<>(enBase);
+            for (Retencion r : parte) {
+                if (expiradasEnBase.contains(r.idReserva)) {
+                    // La base ya borró sus pasajero_asiento: se sueltan aunque el viaje se haya releído
+                    for (int idAsiento : r.asientos) {
+                        inventario.asientoLiberado(r.idViaje, idAsiento);
+                    }
+                } else if (!r.recuperada) {
+                    // Ya no estaba pendiente (se pagó por la web, se anuló por otro lado): sus asientos
+                    // pueden estar vendidos, así que no se sueltan; el viaje se vuelve a leer de la base
+                    inventario.invalidar(r.idViaje);
+                }
+            }
+        }
+        System.out.println("⏱️ Reservas vencidas: " + vencidas.size() + " (" + expiradas + " expiradas en la base, "
+                + (System.nanoTime() - inicio) / 1_000_000 + " ms)");
+    }
+
+    private void soltarEnMemoria(Retencion r) {
+        for (int idAsiento : r.asientos) {
+            inventario.liberar(r.idViaje, idAsiento);
+        }
+    }
+
+    private void recuperarPendientes() {
+        Map<Integer, Retencion> leidas = new HashMap<>();
+        boolean ok = reservaDAO.leerPendientes((idReserva, idViaje, fechaReserva, idAsiento) -> {
+            Retencion r = leidas.get(idReserva);
+            if (r == null) {
+                long creada = fechaReserva == null ? System.currentTimeMillis() : fechaReserva.getTime();
+                r = new Retencion(idReserva, idViaje, new int[0], true);
+                r.vence = tick(creada + ttlMs);
+                leidas.put(idReserva, r);
+            }
+            if (idAsiento > 0) {
+                r.asientos = Arrays.copyOf(r.asientos, r.asientos.length + 1);
+                r.asientos[r.asientos.length - 1] = idAsiento;
+            }
+        });
+        if (!ok) {
+            return;
+        }
+        synchronized (this) {
+            for (Retencion r : leidas.values()) {
+                if (!porReserva.containsKey(r.idReserva)) {
+                    porReserva.put(r.idReserva, r);
+                    enganchar(r);
+                }
+            }
+        }
+        System.out.println("⏱️ Reservas pendientes agendadas: " + leidas.size());
+    }
+
+    private static final class Retencion {
+        final int idReserva;
+        final int idViaje;
+        int[] asientos;
+        /** Leída de la base al arrancar: sus asientos figuran como vendidos, no retenidos en memoria. */
+        final boolean recuperada;
+        long vence;
+        int nivel;
+        int casilla;
+        Retencion anterior;
+        Retencion siguiente;
+
+        Retencion(int idReserva, int idViaje, int[] asientos, boolean recuperada) {
+            this.idReserva = idReserva;
+            this.idViaje = idViaje;
+            this.asientos = asientos;
+            this.recuperada = recuperada;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package servicio;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/** Utilidades de texto para las búsquedas. */
+public final class Texto {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+
+    private Texto() {
+    }
+
+    /**
+     * Minúsculas y sin tildes ni diéresis ("Ñuñoa" -> "nunoa"), para que
+     * buscar "peru" encuentre "Perú". El caso común, texto ASCII, no pasa
+     * por el Normalizer.
+     */
+    public static String plegar(String s) {
+        if (s == null) {
+            return "";
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) {
+                String sinMarcas = MARCAS.matcher(Normalizer.normalize(s, Normalizer.Form.NFD)).replaceAll("");
+                return sinMarcas.toLowerCase(Locale.ROOT);
+            }
+        }
+        return s.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,64 @@
+package servicio;
+
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.List;
+
+/** Viaje real de punta a punta: uno o más tramos, cambiando de viaje en las escalas. */
+public class Trayecto {
+
+    /** Parte del trayecto hecha arriba de un mismo viaje. */
+    public static class Tramo {
+        private final int idViaje;
+        private final int idTerminalSalida;
+        private final int idTerminalLlegada;
+        private final Timestamp salida;
+        private final Timestamp llegada;
+
+        Tramo(int idViaje, int idTerminalSalida, int idTerminalLlegada, Timestamp salida, Timestamp llegada) {
+            this.idViaje = idViaje;
+            this.idTerminalSalida = idTerminalSalida;
+            this.idTerminalLlegada = idTerminalLlegada;
+            this.salida = salida;
+            this.llegada = llegada;
+        }
+
+        public int getIdViaje() { return idViaje; }
+        public int getIdTerminalSalida() { return idTerminalSalida; }
+        public int getIdTerminalLlegada() { return idTerminalLlegada; }
+        public Timestamp getSalida() { return salida; }
+        public Timestamp getLlegada() { return llegada; }
+
+        @Override
+        public String toString() {
+            return "viaje " + idViaje + ": " + idTerminalSalida + " " + salida + " → " + idTerminalLlegada + " " + llegada;
+        }
+    }
+
+    private final List<Tramo> tramos;
+
+    Trayecto(List<Tramo> tramos) {
+        this.tramos = Collections.unmodifiableList(tramos);
+    }
+
+    public List<Tramo> getTramos() {
+        return tramos;
+    }
+
+    public Timestamp getSalida() {
+        return tramos.get(0).getSalida();
+    }
+
+    public Timestamp getLlegada() {
+        return tramos.get(tramos.size() - 1).getLlegada();
+    }
+
+    public int getTransbordos() {
+        return tramos.size() - 1;
+    }
+
+    @Override
+    public String toString() {
+        return tramos.toString();
+    }
+}
@@ -16,6 +16,7 @@ public class SistemaEscritorio {
      * @param args the command line arguments
      */
    public static void main(String[] args) {
+   Vista.MonitorEdt.instalarSiActivo();
    java.awt.EventQueue.invokeLater(new Runnable() {
         public void run() {
             new Login().setVisible(true);
@@ -0,0 +1,211 @@
+package Vista;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.SwingUtilities;
+import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableRowSorter;
+import servicio.IndiceTrigramas;
+import servicio.Texto;
+
+/**
+ * Tiempo desde que se escribe una letra en el buscador de usuarios hasta que
+ * la tabla está pintada, con 100 mil usuarios.
+ *
+ * Arma la misma tabla que UsuariosVista (modelo, JTable, TableRowSorter y
+ * {@link FiltroPorIndice}) sin ventana y, en el EDT, escribe consultas letra
+ * por letra (también borrando). Por cada letra mide aplicar el filtro, volver
+ * a acomodar la tabla y pintarla entera en una imagen del tamaño de la
+ * ventana. La espera del rebote del buscador no cuenta: es lo que pasa
+ * después. El presupuesto es un cuadro de 60 Hz, 16 ms.
+ *
+ * Las letras en las que la JVM hizo una pausa de GC se cuentan aparte: con
+ * un solo núcleo la JVM elige el colector serial, y sus pausas dependen del
+ * tamaño del heap (aquí casi todo es de la prueba), no del filtro. El
+ * presupuesto se aplica al p99 de las demás; el total se informa igual.
+ *
+ * Después de cada letra compara las filas visibles con un contains sobre el
+ * nombre y el correo plegados con {@link Texto#plegar}.
+ *
+ * Se corre desde la carpeta del proyecto, sin pantalla:
+ *   java -Djava.awt.headless=true -cp build/classes:build/test/classes:librerias/* Vista.RendimientoBusquedaUsuarios [usuarios] [semilla]
+ * Termina con código 1 si alguna búsqueda no coincide o si el p99 sin pausas
+ * de GC pasa los 16 ms.
+ */
+public class RendimientoBusquedaUsuarios {
+
+    private static final long PRESUPUESTO_NS = 16_000_000L;
+    private static final int CALENTAMIENTO = 2;
+    private static final int MEDIDAS = 5;
+    private static final String[] NOMBRES = {"María", "José", "Juan", "Ana", "Luis", "Camila", "Benjamín", "Sofía",
+        "Matías", "Valentina", "Tomás", "Josefa", "Martín", "Florencia", "Agustín", "Ignacia", "Vicente", "Antonia"};
+    private static final String[] APELLIDOS = {"González", "Muñoz", "Rojas", "Díaz", "Pérez", "Soto", "Contreras",
+        "Silva", "Martínez", "Sepúlveda", "Morales", "Rodríguez", "López", "Fuentes", "Hernández", "Núñez", "Araya"};
+    private static final String[] DOMINIOS = {"gmail.com", "hotmail.com", "airlink.cl", "outlook.com", "yahoo.es"};
+    private static final String[] ROLES = {"cliente", "admin", "operador"};
+
+    // Lo que se escribe; '<' es borrar la última letra
+    private static final String[] TECLEOS = {
+        "maria gonz", "<<<<rojas", "@airlink", "benjamin.m", "sepu<<<<nunez", "xqz", "jo", "1234", "ñuñoa"
+    };
+
+    private static boolean ok = true;
+
+    public static void main(String[] args) throws Exception {
+        int usuarios = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        long semilla = args.length > 1 ? Long.parseLong(args[1]) : 20_24L;
+        Random azar = new Random(semilla);
+
+        int[] ids = new int[usuarios];
+        String[][] campos = new String[usuarios][];
+        DefaultTableModel modelo = new DefaultTableModel(new Object[][]{}, new String[]{"ID", "Nombre", "Correo", "Rol"});
+        for (int i = 0; i < usuarios; i++) {
+            String nombre = NOMBRES[azar.nextInt(NOMBRES.length)];
+            String apellido = APELLIDOS[azar.nextInt(APELLIDOS.length)];
+            String correo = Texto.plegar(nombre + "." + apellido).replace("ñ", "n") + azar.nextInt(10_000)
+                    + "@" + DOMINIOS[azar.nextInt(DOMINIOS.length)];
+            ids[i] = i + 1;
+            campos[i] = new String[]{nombre + " " + apellido, correo};
+            modelo.addRow(new Object[]{ids[i], campos[i][0], correo, ROLES[azar.nextInt(ROLES.length)]});
+        }
+        long inicio = System.nanoTime();
+        IndiceTrigramas indice = new IndiceTrigramas(ids, campos);
+        System.out.printf("🔎 %,d usuarios, índice armado en %,d ms%n", usuarios, (System.nanoTime() - inicio) / 1_000_000);
+
+        String[] plegados = new String[usuarios];
+        for (int i = 0; i < usuarios; i++) {
+            plegados[i] = Texto.plegar(campos[i][0]) + "\u0001" + Texto.plegar(campos[i][1]);
+        }
+
+        List<Long> tiempos = new ArrayList<>();
+        List<Long> sinPausa = new ArrayList<>();
+        SwingUtilities.invokeAndWait(() -> {
+            JTable tabla = new JTable(modelo);
+            TableRowSorter<DefaultTableModel> ordenador = new TableRowSorter<>(modelo);
+            tabla.setRowSorter(ordenador);
+            FiltroPorIndice filtro = new FiltroPorIndice(modelo, ordenador);
+            tabla.setFillsViewportHeight(true);
+            tabla.setRowHeight(24);
+            JScrollPane scroll = new JScrollPane(tabla);
+            scroll.setSize(780, 400);
+            BufferedImage imagen = new BufferedImage(780, 400, BufferedImage.TYPE_INT_RGB);
+
+            comprobar(!filtro.aplicar("ma"), "sin índice no debería filtrar");
+            filtro.setIndice(indice);
+
+            // Las primeras pasadas calientan el JIT
+            for (int vuelta = 0; vuelta < CALENTAMIENTO + MEDIDAS; vuelta++) {
+                for (String tecleo : TECLEOS) {
+                    StringBuilder texto = new StringBuilder();
+                    for (char c : tecleo.toCharArray()) {
+                        if (c == '<') {
+                            texto.setLength(Math.max(0, texto.length() - 1));
+                        } else {
+                            texto.append(c);
+                        }
+                        long gc = recolecciones();
+                        long t0 = System.nanoTime();
+                        filtro.aplicar(texto.toString());
+                        acomodar(scroll);
+                        Graphics2D g = imagen.createGraphics();
+                        scroll.paint(g);
+                        g.dispose();
+                        long t = System.nanoTime() - t0;
+                        if (vuelta >= CALENTAMIENTO) {
+                            tiempos.add(t);
+                            if (recolecciones() == gc) {
+                                sinPausa.add(t);
+                            }
+                            if (vuelta == CALENTAMIENTO) {
+                                comprobarFilas(tabla, plegados, texto.toString());
+                            }
+                        }
+                    }
+                    filtro.aplicar("");
+                }
+            }
+            acomodar(scroll);
+            comprobar(tabla.getRowCount() == usuarios, "con el buscador vacío se ven " + tabla.getRowCount() + " filas");
+        });
+
+        long[] todas = tiempos.stream().mapToLong(Long::longValue).toArray();
+        long[] nanos = sinPausa.stream().mapToLong(Long::longValue).toArray();
+        System.out.printf("⏱ %d letras: %.2f ms promedio, p99 %.2f ms, máximo %.2f ms%n",
+                todas.length, promedio(todas), percentil(todas, 99), maximo(todas));
+        System.out.printf("⏱ %d sin pausa de GC: %.2f ms promedio, p99 %.2f ms, máximo %.2f ms (presupuesto %d ms)%n",
+                nanos.length, promedio(nanos), percentil(nanos, 99), maximo(nanos), PRESUPUESTO_NS / 1_000_000);
+        comprobar(nanos.length > 0 && percentil(nanos, 99) * 1_000_000 <= PRESUPUESTO_NS,
+                "el p99 sin pausas de GC pasa el presupuesto de un cuadro");
+        if (!ok) {
+            System.exit(1);
+        }
+        System.out.println("✅ Cada búsqueda coincide con un contains y se pinta dentro de un cuadro");
+        System.exit(0);
+    }
+
+    // Sin ventana nadie atiende el revalidate de la tabla: se acomoda a mano
+    private static void acomodar(Component c) {
+        if (c instanceof Container) {
+            Container contenedor = (Container) c;
+            contenedor.doLayout();
+            for (Component hijo : contenedor.getComponents()) {
+                acomodar(hijo);
+            }
+        }
+    }
+
+    private static long recolecciones() {
+        long n = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            n += gc.getCollectionCount();
+        }
+        return n;
+    }
+
+    private static void comprobarFilas(JTable tabla, String[] plegados, String texto) {
+        String q = Texto.plegar(texto).trim();
+        int esperadas = 0;
+        for (String p : plegados) {
+            if (p.contains(q)) {
+                esperadas++;
+            }
+        }
+        comprobar(tabla.getRowCount() == esperadas,
+                "\"" + texto + "\": la tabla muestra " + tabla.getRowCount() + " filas y el contains encuentra " + esperadas);
+        for (int fila = 0; fila < Math.min(50, tabla.getRowCount()); fila++) {
+            int id = (Integer) tabla.getValueAt(fila, 0);
+            comprobar(plegados[id - 1].contains(q), "\"" + texto + "\": la fila del usuario " + id + " no coincide");
+        }
+    }
+
+    private static double promedio(long[] nanos) {
+        return Arrays.stream(nanos).average().orElse(0) / 1_000_000;
+    }
+
+    private static double maximo(long[] nanos) {
+        return Arrays.stream(nanos).max().orElse(0) / 1_000_000.0;
+    }
+
+    private static double percentil(long[] nanos, int p) {
+        long[] orden = nanos.clone();
+        Arrays.sort(orden);
+        return orden[Math.min(orden.length - 1, orden.length * p / 100)] / 1_000_000.0;
+    }
+
+    private static void comprobar(boolean condicion, String mensaje) {
+        if (!condicion) {
+            System.out.println("❌ " + mensaje);
+            ok = false;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package Vista;
+
+import dao.Conexion;
+import java.awt.Frame;
+import java.awt.GraphicsEnvironment;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
+
+/**
+ * Latencia de navegación y crecimiento del heap en una sesión larga de
+ * administrador, con las vistas de verdad sobre la base H2.
+ *
+ * Abre el menú y va y vuelve al azar entre usuarios, empresas, destinos,
+ * rutas, reportes, viajes y los viajes de varios destinos (más claves que
+ * -Dairlink.nav.maxVistas, así que el navegador tiene que ir cerrando las
+ * ocultas). Cada ida y cada vuelta se mide en el EDT, separando las vistas
+ * creadas de las reutilizadas; entre paso y paso espera a que terminen las
+ * cargas en segundo plano. Cada tanto fuerza un GC y anota el heap en uso.
+ *
+ * Comprueba que reutilizar sea más rápido que crear, que nunca haya más
+ * ventanas abiertas que las guardadas más el menú, que el heap del final no
+ * pase en más de [crecimientoMB] al del primer bloque y que cerrar la sesión
+ * no deje ventanas.
+ *
+ * Necesita pantalla (o xvfb-run). Se corre desde la carpeta del proyecto:
+ *   java -Dairlink.db=h2 -cp build/classes:build/test/classes:librerias/* Vista.RendimientoNavegacion [navegaciones] [crecimientoMB] [semilla]
+ * Termina con código 1 si algo no cuadra o si no hay pantalla.
+ */
+public class RendimientoNavegacion {
+
+    private static final int MAX_VISTAS = Integer.getInteger("airlink.nav.maxVistas", 6);
+    private static final int BLOQUE = 100;
+
+    private static boolean ok = true;
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("airlink.db", System.getProperty("airlink.db", "h2"));
+        int navegaciones = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int crecimientoMB = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        long semilla = args.length > 2 ? Long.parseLong(args[2]) : 20_24L;
+        if (GraphicsEnvironment.isHeadless()) {
+            System.out.println("❌ No hay pantalla: correr con DISPLAY o con xvfb-run");
+            System.exit(1);
+        }
+        Random azar = new Random(semilla);
+
+        List<String> claves = new ArrayList<>(List.of("usuarios", "empresas", "destinos", "rutas", "viajes", "reportes"));
+        List<Integer> destinos = idsDestinos(MAX_VISTAS);
+        for (int id : destinos) {
+            claves.add("viajes#" + id);
+        }
+
+        MenuAdminModern[] menu = new MenuAdminModern[1];
+        SwingUtilities.invokeAndWait(() -> {
+            menu[0] = new MenuAdminModern();
+            Navegador.iniciar(menu[0]);
+            menu[0].setVisible(true);
+        });
+        esperarCargas();
+
+        List<Long> creadas = new ArrayList<>();
+        List<Long> reutilizadas = new ArrayList<>();
+        List<Long> vueltas = new ArrayList<>();
+        List<Long> heap = new ArrayList<>();
+        int maxAbiertas = 0;
+        for (int i = 1; i <= navegaciones; i++) {
+            String clave = claves.get(azar.nextInt(claves.size()));
+            boolean[] creada = new boolean[1];
+            Supplier<JFrame> crear = () -> {
+                creada[0] = true;
+                return vista(clave);
+            };
+            JFrame[] abierta = new JFrame[1];
+            long[] t = new long[2];
+            SwingUtilities.invokeAndWait(() -> {
+                long inicio = System.nanoTime();
+                Navegador.ir(menu[0], clave, crear);
+                t[0] = System.nanoTime() - inicio;
+                for (Frame f : Frame.getFrames()) {
+                    if (f.isVisible() && f != menu[0]) {
+                        abierta[0] = (JFrame) f;
+                    }
+                }
+            });
+            esperarCargas();
+            SwingUtilities.invokeAndWait(() -> {
+                long inicio = System.nanoTime();
+                Navegador.volver(abierta[0]);
+                t[1] = System.nanoTime() - inicio;
+            });
+            esperarCargas();
+            (creada[0] ? creadas : reutilizadas).add(t[0]);
+            vueltas.add(t[1]);
+            maxAbiertas = Math.max(maxAbiertas, abiertas());
+            if (i % BLOQUE == 0) {
+                heap.add(heapTrasGc());
+                System.out.printf("📈 %d navegaciones: heap %d MB, %d ventanas abiertas%n",
+                        i, heap.get(heap.size() - 1) / (1024 * 1024), abiertas());
+            }
+        }
+
+        long[] c = aArreglo(creadas);
+        long[] r = aArreglo(reutilizadas);
+        long[] v = aArreglo(vueltas);
+        System.out.printf("⏱ crear:      %d veces, %.1f ms promedio, p99 %.1f ms%n", c.length, promedio(c), percentil(c, 99));
+        System.out.printf("⏱ reutilizar: %d veces, %.1f ms promedio, p99 %.1f ms%n", r.length, promedio(r), percentil(r, 99));
+        System.out.printf("⏱ volver:     %d veces, %.1f ms promedio, p99 %.1f ms%n", v.length, promedio(v), percentil(v, 99));
+        comprobar(r.length > 0 && c.length > 0 && promedio(r) < promedio(c), "reutilizar una vista no es más rápido que crearla");
+        comprobar(maxAbiertas <= MAX_VISTAS + 1, "llegó a haber " + maxAbiertas + " ventanas abiertas con "
+                + MAX_VISTAS + " vistas guardadas");
+        if (heap.size() >= 2) {
+            long crecimiento = heap.get(heap.size() - 1) - heap.get(0);
+            System.out.printf("📊 Heap del primer bloque %d MB, del último %d MB%n",
+                    heap.get(0) / (1024 * 1024), heap.get(heap.size() - 1) / (1024 * 1024));
+            comprobar(crecimiento <= crecimientoMB * 1024L * 1024, "el heap creció " + crecimiento / (1024 * 1024)
+                    + " MB en la sesión (máximo " + crecimientoMB + ")");
+        }
+
+        SwingUtilities.invokeAndWait(Navegador::cerrarSesion);
+        esperarCargas();
+        comprobar(abiertas() == 0, "cerrar la sesión dejó " + abiertas() + " ventanas abiertas");
+        if (!ok) {
+            System.exit(1);
+        }
+        System.out.println("✅ Las vistas se reutilizan y el heap no crece con la sesión");
+        System.exit(0);
+    }
+
+    private static JFrame vista(String clave) {
+        if (clave.startsWith("viajes#")) {
+            return new ViajesVista(Integer.parseInt(clave.substring("viajes#".length())));
+        }
+        return switch (clave) {
+            case "usuarios" -> new UsuariosVista();
+            case "empresas" -> new EmpresasVista();
+            case "destinos" -> new DestinosVista();
+            case "rutas" -> new RutasVista();
+            case "viajes" -> new ViajesVista();
+            default -> new ReportesVista();
+        };
+    }
+
+    private static List<Integer> idsDestinos(int cuantos) throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement("SELECT idDestino FROM destino ORDER BY idDestino LIMIT ?")) {
+            ps.setInt(1, cuantos);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    // Las cargas de las tablas toman conexiones del pool y terminan en el EDT
+    private static void esperarCargas() throws Exception {
+        long limite = System.currentTimeMillis() + 10_000;
+        do {
+            Thread.sleep(5);
+            SwingUtilities.invokeAndWait(() -> { });
+        } while (Conexion.getPool().getConexionesActivas() > 0 && System.currentTimeMillis() < limite);
+        SwingUtilities.invokeAndWait(() -> { });
+    }
+
+    private static int abiertas() {
+        int n = 0;
+        for (Frame f : Frame.getFrames()) {
+            if (f.isDisplayable()) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    private static long heapTrasGc() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        Runtime rt = Runtime.getRuntime();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    private static long[] aArreglo(List<Long> tiempos) {
+        return tiempos.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static double promedio(long[] nanos) {
+        return Arrays.stream(nanos).average().orElse(0) / 1_000_000;
+    }
+
+    private static double percentil(long[] nanos, int p) {
+        if (nanos.length == 0) {
+            return 0;
+        }
+        long[] orden = nanos.clone();
+        Arrays.sort(orden);
+        return orden[Math.min(orden.length - 1, orden.length * p / 100)] / 1_000_000.0;
+    }
+
+    private static void comprobar(boolean condicion, String mensaje) {
+        if (!condicion) {
+            System.out.println("❌ " + mensaje);
+            ok = false;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package dao;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.CancellationException;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+/**
+ * Compara la exportación de viajes con SXSSF ({@link ExportadorExcel})
+ * contra un XSSFWorkbook común que arma la hoja entera en memoria antes de
+ * escribirla. Misma consulta y mismos datos; cambia solo el libro.
+ *
+ * Cada modo se corre en su propia JVM para que el pico de heap de uno no
+ * ensucie al otro. La base es H2 en archivo (no en memoria) para que los
+ * datos no cuenten en el heap:
+ *   java -Xmx512m -cp ... dao.ComparacionExportacionExcel sxssf 100000
+ *   java -Xmx512m -cp ... dao.ComparacionExportacionExcel xssf 100000
+ * Además revisa que cancelar borre el archivo y devuelva la conexión al pool.
+ */
+public class ComparacionExportacionExcel {
+
+    public static void main(String[] args) throws Exception {
+        String modo = args.length > 0 ? args[0] : "sxssf";
+        int filas = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        File carpeta = Files.createTempDirectory("airlink-excel").toFile();
+        System.setProperty("airlink.db", "h2");
+        System.setProperty("airlink.db.url", System.getProperty("airlink.db.url",
+                "jdbc:h2:file:" + new File(carpeta, "db").getAbsolutePath() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE"));
+
+        try (Connection con = Conexion.getConexion(); Statement st = con.createStatement()) {
+            st.execute("INSERT INTO viaje (idRuta, salida, llegada, idEquipo, estado) "
+                    + "SELECT 1 + MOD(x, 90), DATEADD('MINUTE', x, TIMESTAMP '2027-01-01 00:00:00'), "
+                    + "DATEADD('MINUTE', x + 90, TIMESTAMP '2027-01-01 00:00:00'), 1, 'programado' "
+                    + "FROM SYSTEM_RANGE(1, " + filas + ") r(x)");
+        }
+        ExportadorExcel exportador = new ExportadorExcel();
+        int esperadas = exportador.contar(ExportadorExcel.Tabla.VIAJES);
+        boolean ok = true;
+
+        // Cancelar: sin interrumpir, el archivo se borra y la conexión vuelve al pool
+        File cancelado = new File(carpeta, "cancelado.xlsx");
+        try {
+            exportador.exportar(ExportadorExcel.Tabla.VIAJES, cancelado, null, () -> true);
+            System.out.println("❌ La exportación cancelada terminó igual");
+            ok = false;
+        } catch (CancellationException e) {
+            ok &= comprobar(!cancelado.exists(), "el archivo cancelado se borró");
+            ok &= comprobar(Conexion.getPool().getConexionesActivas() == 0, "la conexión volvió al pool");
+        }
+
+        File archivo = new File(carpeta, modo + ".xlsx");
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        reiniciarPicos();
+        long base = heapEnUso();
+        long inicio = System.nanoTime();
+        int escritas = modo.equals("xssf") ? exportarXssf(archivo) : exportador.exportar(ExportadorExcel.Tabla.VIAJES, archivo, null, null);
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+        long pico = picoHeap();
+
+        ok &= comprobar(escritas == esperadas, escritas + " de " + esperadas + " filas escritas");
+        System.out.printf("⏱ %s: %d filas en %d ms, pico de heap %d MB (%d MB antes de exportar), archivo %d KB%n",
+                modo, escritas, ms, pico / (1024 * 1024), base / (1024 * 1024), archivo.length() / 1024);
+        System.exit(ok ? 0 : 1);
+    }
+
+    // Lo que haría una exportación sin streaming: toda la hoja en memoria y recién al final al disco
+    private static int exportarXssf(File archivo) throws Exception {
+        int filas = 0;
+        try (XSSFWorkbook libro = new XSSFWorkbook();
+             Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement(ExportadorExcel.Tabla.VIAJES.sql);
+             ResultSet rs = ps.executeQuery()) {
+            Sheet hoja = libro.createSheet("Viajes");
+            int columnas = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                Row row = hoja.createRow(++filas);
+                for (int c = 0; c < columnas; c++) {
+                    String valor = rs.getString(c + 1);
+                    if (valor != null) {
+                        row.createCell(c).setCellValue(valor);
+                    }
+                }
+            }
+            try (OutputStream salida = new FileOutputStream(archivo)) {
+                libro.write(salida);
+            }
+        }
+        return filas;
+    }
+
+    private static boolean comprobar(boolean condicion, String mensaje) {
+        System.out.println((condicion ? "✅ " : "❌ No: ") + mensaje);
+        return condicion;
+    }
+
+    private static void reiniciarPicos() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+    }
+
+    private static long picoHeap() {
+        long pico = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pico += pool.getPeakUsage().getUsed();
+            }
+        }
+        return pico;
+    }
+
+    private static long heapEnUso() {
+        Runtime rt = Runtime.getRuntime();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
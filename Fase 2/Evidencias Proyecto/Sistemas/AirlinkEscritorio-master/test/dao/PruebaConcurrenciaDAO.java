@@ -0,0 +1,233 @@
+package dao;
+
+import Modelo.Destino;
+import Modelo.Empresa;
+import Modelo.Ruta;
+import Modelo.Usuario;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prueba de estrés: una sola instancia de cada DAO compartida por muchos
+ * hilos contra la base H2 en memoria.
+ *
+ * Cada hilo crea, modifica y borra sus propios destinos y empresas mientras
+ * lee todas las tablas. Al final se comprueba que ninguna operación falló,
+ * que lo leído nunca vino mezclado (filas con campos nulos o de otra fila),
+ * que en la base quedó exactamente lo que cada hilo dejó y que el pool
+ * recuperó todas sus conexiones.
+ *
+ * Se corre desde la carpeta del proyecto:
+ *   java -cp build/classes:build/test/classes:librerias/* dao.PruebaConcurrenciaDAO [hilos] [vueltas]
+ * Termina con código 1 si algo no cuadra.
+ */
+public class PruebaConcurrenciaDAO {
+
+    private static final DestinoDAO destinos = new DestinoDAO();
+    private static final EmpresaDAO empresas = new EmpresaDAO();
+    private static final RutaDAO rutas = new RutaDAO();
+    private static final ViajeDAO viajes = new ViajeDAO();
+    private static final UsuarioDAO usuarios = new UsuarioDAO();
+    private static final TerminalDAO terminales = new TerminalDAO();
+    private static final EmpresaEquipoDAO equipos = new EmpresaEquipoDAO();
+
+    private static final ConcurrentLinkedQueue<String> errores = new ConcurrentLinkedQueue<>();
+    private static final AtomicLong operaciones = new AtomicLong();
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("airlink.db", System.getProperty("airlink.db", "h2"));
+        int hilos = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int vueltas = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        if (usuarios.listar().isEmpty()) {
+            // Los scripts semilla no traen usuarios
+            usuarios.agregar(new Usuario(0, "Prueba", "prueba@airlink.cl", "prueba123", "1"));
+        }
+        int destinosAntes = destinos.listar().size();
+        int empresasAntes = empresas.listar().size();
+        List<Ruta> rutasBase = rutas.listar();
+        if (destinosAntes == 0 || rutasBase.isEmpty()) {
+            System.out.println("❌ La base no tiene datos semilla; revisa -Dairlink.h2.scripts");
+            System.exit(1);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<Vivos>> resultados = new ArrayList<>();
+        for (int h = 0; h < hilos; h++) {
+            int hilo = h;
+            resultados.add(pool.submit(() -> {
+                largada.await();
+                return trabajar(hilo, vueltas, rutasBase);
+            }));
+        }
+        long inicio = System.nanoTime();
+        largada.countDown();
+        Map<Integer, String> destinosVivos = new HashMap<>();
+        Map<Integer, String> empresasVivas = new HashMap<>();
+        for (Future<Vivos> f : resultados) {
+            Vivos vivos = f.get();
+            destinosVivos.putAll(vivos.destinos);
+            empresasVivas.putAll(vivos.empresas);
+        }
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+        pool.shutdown();
+
+        // Lo que quedó en la base tiene que ser justo lo que los hilos dejaron
+        List<Destino> destinosDespues = destinos.listar();
+        List<Empresa> empresasDespues = empresas.listar();
+        comprobar(destinosDespues.size() == destinosAntes + destinosVivos.size(),
+                "destinos: " + destinosDespues.size() + " en la base, se esperaban " + (destinosAntes + destinosVivos.size()));
+        comprobar(empresasDespues.size() == empresasAntes + empresasVivas.size(),
+                "empresas: " + empresasDespues.size() + " en la base, se esperaban " + (empresasAntes + empresasVivas.size()));
+        for (Destino d : destinosDespues) {
+            String esperado = destinosVivos.get(d.getIdDestino());
+            comprobar(esperado == null || esperado.equals(d.getNombre()),
+                    "destino " + d.getIdDestino() + " quedó como '" + d.getNombre() + "', se esperaba '" + esperado + "'");
+        }
+        for (Empresa e : empresasDespues) {
+            String esperado = empresasVivas.get(e.getIdEmpresa());
+            comprobar(esperado == null || esperado.equals(e.getNombreEmpresa()),
+                    "empresa " + e.getIdEmpresa() + " quedó como '" + e.getNombreEmpresa() + "', se esperaba '" + esperado + "'");
+        }
+
+        // El escritor de auditoría puede estar grabando un lote con una conexión prestada
+        Auditoria.vaciar();
+        PoolConexiones p = Conexion.getPool();
+        comprobar(p.getConexionesActivas() == 0, p.getConexionesActivas() + " conexiones siguen prestadas");
+        comprobar(p.getFugasDetectadas() == 0, p.getFugasDetectadas() + " fugas detectadas por el pool");
+
+        System.out.println("⏱ " + hilos + " hilos x " + vueltas + " vueltas: " + operaciones.get() + " operaciones en "
+                + ms + " ms (" + operaciones.get() * 1000 / Math.max(ms, 1) + " op/s)");
+        System.out.println("📊 " + p);
+        if (!errores.isEmpty()) {
+            errores.stream().limit(20).forEach(e -> System.out.println("❌ " + e));
+            System.out.println("❌ " + errores.size() + " errores");
+            System.exit(1);
+        }
+        System.out.println("✅ Los DAO compartidos entre hilos no perdieron ni mezclaron datos");
+        System.exit(0);
+    }
+
+    /** Lo que un hilo dejó creado en la base, id -> nombre. */
+    private static final class Vivos {
+        final Map<Integer, String> destinos;
+        final Map<Integer, String> empresas;
+
+        Vivos(Map<Integer, String> destinos, Map<Integer, String> empresas) {
+            this.destinos = destinos;
+            this.empresas = empresas;
+        }
+    }
+
+    private static Vivos trabajar(int hilo, int vueltas, List<Ruta> rutasBase) {
+        Map<Integer, String> misDestinos = new HashMap<>();
+        Map<Integer, String> misEmpresas = new HashMap<>();
+        List<Integer> idsDestinos = new ArrayList<>();
+        List<Integer> idsEmpresas = new ArrayList<>();
+        for (int v = 0; v < vueltas; v++) {
+            String nombre = "h" + hilo + "-v" + v;
+            switch (v % 6) {
+                case 0 -> {
+                    Destino d = destino(nombre);
+                    if (comprobar(destinos.agregar(d), "agregar destino " + nombre)
+                            && comprobar(d.getIdDestino() > 0, "destino " + nombre + " sin id generado")) {
+                        misDestinos.put(d.getIdDestino(), nombre);
+                        idsDestinos.add(d.getIdDestino());
+                    }
+                    Empresa e = empresa(nombre);
+                    if (comprobar(empresas.agregar(e), "agregar empresa " + nombre)) {
+                        misEmpresas.put(e.getIdEmpresa(), nombre);
+                        idsEmpresas.add(e.getIdEmpresa());
+                    }
+                }
+                case 1 -> {
+                    if (!idsDestinos.isEmpty()) {
+                        Destino d = destino(nombre);
+                        d.setIdDestino(idsDestinos.get(idsDestinos.size() - 1));
+                        if (comprobar(destinos.actualizar(d), "actualizar destino " + d.getIdDestino())) {
+                            misDestinos.put(d.getIdDestino(), nombre);
+                        }
+                    }
+                    if (!idsEmpresas.isEmpty()) {
+                        Empresa e = empresa(nombre);
+                        e.setIdEmpresa(idsEmpresas.get(idsEmpresas.size() - 1));
+                        if (comprobar(empresas.actualizar(e), "actualizar empresa " + e.getIdEmpresa())) {
+                            misEmpresas.put(e.getIdEmpresa(), nombre);
+                        }
+                    }
+                }
+                case 2 -> {
+                    // Un destino de cada tres se borra
+                    if (idsDestinos.size() % 3 == 0 && !idsDestinos.isEmpty()) {
+                        int id = idsDestinos.remove(0);
+                        if (comprobar(destinos.eliminar(id), "eliminar destino " + id)) {
+                            misDestinos.remove(id);
+                        }
+                    }
+                    if (idsEmpresas.size() % 3 == 0 && !idsEmpresas.isEmpty()) {
+                        int id = idsEmpresas.remove(0);
+                        if (comprobar(empresas.eliminar(id), "eliminar empresa " + id)) {
+                            misEmpresas.remove(id);
+                        }
+                    }
+                }
+                case 3 -> {
+                    for (Destino d : destinos.listar()) {
+                        comprobar(d.getIdDestino() > 0 && d.getNombre() != null && d.getPais() != null,
+                                "destino leído incompleto: " + d.getIdDestino());
+                    }
+                    for (Empresa e : empresas.listar()) {
+                        comprobar(e.getIdEmpresa() > 0 && e.getNombreEmpresa() != null && e.getTipoEmpresa() != null,
+                                "empresa leída incompleta: " + e.getIdEmpresa());
+                    }
+                }
+                case 4 -> {
+                    Ruta esperada = rutasBase.get((hilo + v) % rutasBase.size());
+                    Ruta leida = rutas.obtenerPorId(esperada.getIdRuta());
+                    comprobar(leida != null && leida.getIdRuta() == esperada.getIdRuta()
+                            && leida.getDistanciaKm() == esperada.getDistanciaKm(),
+                            "ruta " + esperada.getIdRuta() + " leída con datos de otra fila");
+                    comprobar(rutas.listar().size() == rutasBase.size(), "listar rutas devolvió otra cantidad");
+                }
+                default -> {
+                    comprobar(!viajes.listar().isEmpty(), "listar viajes vacío");
+                    comprobar(!usuarios.listar().isEmpty(), "listar usuarios vacío");
+                    comprobar(!terminales.listar().isEmpty(), "listar terminales vacío");
+                    comprobar(!equipos.listar().isEmpty(), "listar equipos vacío");
+                }
+            }
+            operaciones.incrementAndGet();
+        }
+        return new Vivos(misDestinos, misEmpresas);
+    }
+
+    private static Destino destino(String nombre) {
+        Destino d = new Destino();
+        d.setNombre(nombre);
+        d.setPrecio(100);
+        d.setCiudad("Ciudad " + nombre);
+        d.setPais("Chile");
+        d.setImagen("img/" + nombre + ".jpg");
+        return d;
+    }
+
+    private static Empresa empresa(String nombre) {
+        return new Empresa(0, nombre, "AEROLINEA", null, "prueba de concurrencia", null, true);
+    }
+
+    private static boolean comprobar(boolean condicion, String mensaje) {
+        if (!condicion) {
+            errores.add(Thread.currentThread().getName() + ": " + mensaje);
+        }
+        return condicion;
+    }
+}
@@ -0,0 +1,229 @@
+package dao;
+
+import Modelo.Destino;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Latencia de crear, modificar y borrar un destino con y sin auditoría.
+ *
+ * "Sin auditoría" son las mismas sentencias que arma DestinoDAO, corridas a
+ * mano sobre una conexión del pool; "con auditoría" es el DAO completo:
+ * transacción, foto de la fila con SELECT ... FOR UPDATE y evento encolado.
+ * Las dos variantes se alternan por vuelta para que el JIT y la caché de
+ * sentencias las traten igual; la primera vuelta solo calienta.
+ *
+ * Después comprueba lo que quedó en la tabla auditoria: un registro por cada
+ * operación del DAO, y que el valor anterior de una modificación sea el de
+ * la base aunque otro haya cambiado la fila después de que se leyó.
+ *
+ * Se corre desde la carpeta del proyecto:
+ *   java -cp build/classes:build/test/classes:librerias/* dao.RendimientoAuditoria [operaciones] [vueltas]
+ * Termina con código 1 si algo no cuadra.
+ */
+public class RendimientoAuditoria {
+
+    private static final String INSERTAR = "INSERT INTO destino (nombre, precio, ciudad, pais, imagen, descripcion, destacado) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String ACTUALIZAR = "UPDATE destino SET nombre=?, precio=?, ciudad=?, pais=?, imagen=?, "
+            + "descripcion=?, destacado=? WHERE idDestino=?";
+
+    private static final DestinoDAO dao = new DestinoDAO();
+    private static boolean ok = true;
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("airlink.db", System.getProperty("airlink.db", "h2"));
+        int operaciones = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int vueltas = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        long[][] sin = new long[3][];
+        long[][] con = new long[3][];
+        int auditadas = 0;
+        for (int v = 0; v <= vueltas; v++) {
+            long[][] s = medirSinAuditoria(operaciones, v);
+            long[][] c = medirConAuditoria(operaciones, v);
+            auditadas += operaciones * 3;
+            if (v > 0) {
+                for (int i = 0; i < 3; i++) {
+                    sin[i] = unir(sin[i], s[i]);
+                    con[i] = unir(con[i], c[i]);
+                }
+            }
+        }
+
+        String[] nombres = {"crear", "modificar", "borrar"};
+        for (int i = 0; i < 3; i++) {
+            System.out.printf("⏱ %-9s sin auditoría %7.1f µs (p99 %7.1f), con auditoría %7.1f µs (p99 %7.1f)%n",
+                    nombres[i], promedio(sin[i]), percentil(sin[i], 99), promedio(con[i]), percentil(con[i], 99));
+        }
+
+        Auditoria.vaciar();
+        int registros = contarAuditoria();
+        comprobar(registros == auditadas, registros + " registros de auditoría para " + auditadas + " operaciones del DAO");
+        comprobarFotoDeLaBase();
+
+        PoolConexiones p = Conexion.getPool();
+        comprobar(p.getConexionesActivas() == 0, p.getConexionesActivas() + " conexiones siguen prestadas");
+        System.out.println("📊 " + p);
+        if (!ok) {
+            System.exit(1);
+        }
+        System.out.println("✅ Cada operación del DAO quedó auditada con el valor anterior de la base");
+        System.exit(0);
+    }
+
+    /** {crear, modificar, borrar} en nanosegundos por operación. */
+    private static long[][] medirSinAuditoria(int n, int vuelta) throws SQLException {
+        long[][] t = new long[3][n];
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i++) {
+            long inicio = System.nanoTime();
+            try (Connection con = Conexion.getConexion();
+                 PreparedStatement ps = con.prepareStatement(INSERTAR, Statement.RETURN_GENERATED_KEYS)) {
+                asignar(ps, destino("s" + vuelta + "-" + i));
+                ps.executeUpdate();
+                try (ResultSet claves = ps.getGeneratedKeys()) {
+                    claves.next();
+                    ids[i] = claves.getInt(1);
+                }
+            }
+            t[0][i] = System.nanoTime() - inicio;
+        }
+        for (int i = 0; i < n; i++) {
+            long inicio = System.nanoTime();
+            try (Connection con = Conexion.getConexion();
+                 PreparedStatement ps = con.prepareStatement(ACTUALIZAR)) {
+                asignar(ps, destino("s" + vuelta + "-" + i + "b"));
+                ps.setInt(8, ids[i]);
+                ps.executeUpdate();
+            }
+            t[1][i] = System.nanoTime() - inicio;
+        }
+        for (int i = 0; i < n; i++) {
+            long inicio = System.nanoTime();
+            // Lo mismo que DestinoDAO.eliminar menos la foto: DELETE y lápida en una transacción
+            try (Connection con = Conexion.getConexion();
+                 PreparedStatement ps = con.prepareStatement("DELETE FROM destino WHERE idDestino=?")) {
+                con.setAutoCommit(false);
+                ps.setInt(1, ids[i]);
+                ps.executeUpdate();
+                Sincronizacion.registrarEliminado(con, "destino", ids[i]);
+                con.commit();
+            }
+            t[2][i] = System.nanoTime() - inicio;
+        }
+        return t;
+    }
+
+    private static long[][] medirConAuditoria(int n, int vuelta) {
+        long[][] t = new long[3][n];
+        Destino[] destinos = new Destino[n];
+        for (int i = 0; i < n; i++) {
+            destinos[i] = destino("c" + vuelta + "-" + i);
+            long inicio = System.nanoTime();
+            comprobar(dao.agregar(destinos[i]), "agregar destino " + destinos[i].getNombre());
+            t[0][i] = System.nanoTime() - inicio;
+        }
+        for (int i = 0; i < n; i++) {
+            destinos[i].setNombre(destinos[i].getNombre() + "b");
+            long inicio = System.nanoTime();
+            comprobar(dao.actualizar(destinos[i]), "actualizar destino " + destinos[i].getIdDestino());
+            t[1][i] = System.nanoTime() - inicio;
+        }
+        for (int i = 0; i < n; i++) {
+            long inicio = System.nanoTime();
+            comprobar(dao.eliminar(destinos[i].getIdDestino()), "eliminar destino " + destinos[i].getIdDestino());
+            t[2][i] = System.nanoTime() - inicio;
+        }
+        return t;
+    }
+
+    // Otro usuario cambia el nombre entre que la vista lee la fila y este guarda
+    private static void comprobarFotoDeLaBase() throws SQLException {
+        Destino d = destino("foto");
+        dao.agregar(d);
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement("UPDATE destino SET nombre = 'cambiado por otro' WHERE idDestino = ?")) {
+            ps.setInt(1, d.getIdDestino());
+            ps.executeUpdate();
+        }
+        d.setNombre("foto editada");
+        dao.actualizar(d);
+        Auditoria.vaciar();
+        String json = null;
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement("SELECT cambios_json FROM auditoria WHERE entidad = 'destino' "
+                     + "AND idEntidad = ? AND accion = 'ACTUALIZAR' ORDER BY idAuditoria DESC")) {
+            ps.setInt(1, d.getIdDestino());
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    json = rs.getString(1);
+                }
+            }
+        }
+        comprobar(json != null && json.contains("\"antes\":\"cambiado por otro\""),
+                "la modificación quedó auditada como " + json + ", el anterior debía ser el de la base");
+        dao.eliminar(d.getIdDestino());
+    }
+
+    private static int contarAuditoria() throws SQLException {
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement("SELECT COUNT(*) FROM auditoria WHERE entidad = 'destino'");
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static Destino destino(String nombre) {
+        Destino d = new Destino();
+        d.setNombre(nombre);
+        d.setPrecio(100);
+        d.setCiudad("Ciudad " + nombre);
+        d.setPais("Chile");
+        d.setImagen("img/" + nombre + ".jpg");
+        return d;
+    }
+
+    private static void asignar(PreparedStatement ps, Destino d) throws SQLException {
+        ps.setString(1, d.getNombre());
+        ps.setDouble(2, d.getPrecio());
+        ps.setString(3, d.getCiudad());
+        ps.setString(4, d.getPais());
+        ps.setString(5, d.getImagen());
+        ps.setString(6, d.getDescripcion());
+        ps.setBoolean(7, d.isDestacado());
+    }
+
+    private static long[] unir(long[] a, long[] b) {
+        if (a == null) {
+            return b;
+        }
+        long[] r = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, r, a.length, b.length);
+        return r;
+    }
+
+    private static double promedio(long[] nanos) {
+        return Arrays.stream(nanos).average().orElse(0) / 1_000;
+    }
+
+    private static double percentil(long[] nanos, int p) {
+        long[] orden = nanos.clone();
+        Arrays.sort(orden);
+        return orden[Math.min(orden.length - 1, orden.length * p / 100)] / 1_000.0;
+    }
+
+    private static void comprobar(boolean condicion, String mensaje) {
+        if (!condicion) {
+            System.out.println("❌ " + mensaje);
+            ok = false;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package dao;
+
+import com.itextpdf.text.Document;
+import com.itextpdf.text.PageSize;
+import com.itextpdf.text.Phrase;
+import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tiempo y pico de heap del listado de viajes en PDF
+ * ({@link ReportesDAO#generarReporteViajes}) con 10 mil, 100 mil o un millón
+ * de viajes, contra lo que hacía antes: juntar todas las filas en una lista
+ * y después armar una sola PdfPTable con todas.
+ *
+ * Cada medición en su propia JVM, con la base H2 en archivo (no en memoria)
+ * para que los datos no cuenten en el heap:
+ *   java -Xmx256m -cp ... dao.RendimientoReporteViajes streaming 10000
+ *   java -Xmx256m -cp ... dao.RendimientoReporteViajes streaming 1000000
+ *   java -Xmx256m -cp ... dao.RendimientoReporteViajes tabla 100000
+ * La cantidad son los viajes que se agregan a los de los scripts semilla.
+ * Además revisa que un reporte que no se puede escribir devuelva -1, no deje
+ * archivo y devuelva la conexión al pool. Termina con código 1 si algo no
+ * cuadra (con "tabla" y muchas filas lo esperable es un OutOfMemoryError).
+ */
+public class RendimientoReporteViajes {
+
+    public static void main(String[] args) throws Exception {
+        String modo = args.length > 0 ? args[0] : "streaming";
+        int filas = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        File carpeta = Files.createTempDirectory("airlink-pdf").toFile();
+        System.setProperty("airlink.db", "h2");
+        System.setProperty("airlink.db.url", System.getProperty("airlink.db.url",
+                "jdbc:h2:file:" + new File(carpeta, "db").getAbsolutePath() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE"));
+
+        int esperadas;
+        try (Connection con = Conexion.getConexion(); Statement st = con.createStatement()) {
+            st.execute("INSERT INTO viaje (idRuta, salida, llegada, idEquipo, estado) "
+                    + "SELECT 1 + MOD(x, 90), DATEADD('MINUTE', x, TIMESTAMP '2027-01-01 00:00:00'), "
+                    + "DATEADD('MINUTE', x + 90, TIMESTAMP '2027-01-01 00:00:00'), 1, 'programado' "
+                    + "FROM SYSTEM_RANGE(1, " + filas + ") r(x)");
+            try (ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM viaje")) {
+                rs.next();
+                esperadas = rs.getInt(1);
+            }
+        }
+        ReportesDAO dao = new ReportesDAO();
+        boolean ok = true;
+
+        // Carpeta que no existe: -1, sin archivo y la conexión de vuelta en el pool
+        File imposible = new File(carpeta, "no/existe.pdf");
+        ok &= comprobar(dao.generarReporteViajes(imposible.getPath()) == -1, "un reporte que no se puede escribir devuelve -1");
+        ok &= comprobar(!imposible.exists(), "no quedó archivo");
+        ok &= comprobar(Conexion.getPool().getConexionesActivas() == 0, "la conexión volvió al pool");
+
+        File archivo = new File(carpeta, modo + ".pdf");
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        reiniciarPicos();
+        long base = heapEnUso();
+        long inicio = System.nanoTime();
+        int escritas = modo.equals("tabla") ? reporteEnTabla(archivo) : dao.generarReporteViajes(archivo.getPath());
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+        long pico = picoHeap();
+
+        ok &= comprobar(escritas == esperadas, escritas + " de " + esperadas + " viajes escritos");
+        System.out.printf("⏱ %s: %,d viajes en %,d ms, pico de heap %d MB (%d MB antes del reporte, -Xmx %d MB), PDF %,d KB%n",
+                modo, escritas, ms, pico / (1024 * 1024), base / (1024 * 1024),
+                Runtime.getRuntime().maxMemory() / (1024 * 1024), archivo.length() / 1024);
+        System.exit(ok ? 0 : 1);
+    }
+
+    // Como era antes: toda la consulta a una lista y una sola tabla con todas las filas
+    private static int reporteEnTabla(File archivo) throws Exception {
+        List<String[]> datos = new ArrayList<>();
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement("SELECT v.idViaje, t1.nombreTerminal, t2.nombreTerminal, "
+                     + "v.salida, v.llegada, e.nombreEmpresa, v.estado FROM viaje v "
+                     + "LEFT JOIN ruta r ON v.idRuta = r.idRuta "
+                     + "LEFT JOIN terminal t1 ON r.idTerminalOrigen = t1.idTerminal "
+                     + "LEFT JOIN terminal t2 ON r.idTerminalDestino = t2.idTerminal "
+                     + "LEFT JOIN empresa_equipo eq ON v.idEquipo = eq.idEquipo "
+                     + "LEFT JOIN empresa e ON eq.idEmpresa = e.idEmpresa ORDER BY v.salida");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                String[] fila = new String[7];
+                for (int i = 0; i < 7; i++) {
+                    fila[i] = rs.getString(i + 1);
+                }
+                datos.add(fila);
+            }
+        }
+        Document doc = new Document(PageSize.A4.rotate());
+        try (FileOutputStream salida = new FileOutputStream(archivo)) {
+            PdfWriter.getInstance(doc, salida);
+            doc.open();
+            PdfPTable tabla = new PdfPTable(7);
+            tabla.setWidthPercentage(100);
+            tabla.setHeaderRows(1);
+            for (String encabezado : new String[] {"ID", "Origen", "Destino", "Salida", "Llegada", "Empresa", "Estado"}) {
+                tabla.addCell(new Phrase(encabezado));
+            }
+            for (String[] fila : datos) {
+                for (String valor : fila) {
+                    tabla.addCell(new Phrase(valor != null ? valor : "N/D"));
+                }
+            }
+            doc.add(tabla);
+            doc.close();
+        }
+        return datos.size();
+    }
+
+    private static boolean comprobar(boolean condicion, String mensaje) {
+        System.out.println((condicion ? "✅ " : "❌ No: ") + mensaje);
+        return condicion;
+    }
+
+    private static void reiniciarPicos() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+    }
+
+    private static long picoHeap() {
+        long pico = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pico += pool.getPeakUsage().getUsed();
+            }
+        }
+        return pico;
+    }
+
+    private static long heapEnUso() {
+        Runtime rt = Runtime.getRuntime();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,146 @@
+package servicio;
+
+import dao.Conexion;
+import dao.CuponDAO;
+import dao.PoolConexiones;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Canje concurrente de un mismo cupón: muchos hilos repartidos entre dos
+ * {@link CanjeCupones} (como dos instancias de la aplicación contra la misma
+ * base) canjean hasta que se agota, anulando de vez en cuando.
+ *
+ * Comprueba que no se canjeó ni un uso de más, que no quedaron usos sin
+ * canjear, que después de {@link CanjeCupones#devolverSobrantes} uso_actual
+ * en la base es exactamente lo canjeado y que el pool recuperó sus
+ * conexiones. Para comparar, mide también el canje directo con un UPDATE
+ * condicional por uso ({@link CuponDAO#tomarUsos} de a uno).
+ *
+ * Se corre desde la carpeta del proyecto:
+ *   java -cp build/classes:build/test/classes:librerias/* servicio.PruebaConcurrenciaCupones [hilos] [usos]
+ * Termina con código 1 si algo no cuadra.
+ */
+public class PruebaConcurrenciaCupones {
+
+    private static boolean ok = true;
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("airlink.db", System.getProperty("airlink.db", "h2"));
+        int hilos = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int usos = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        CuponDAO cuponDAO = new CuponDAO();
+
+        // Cada instancia con su propio DAO, como dos aplicaciones distintas
+        crearCupon("CANJE", usos);
+        CanjeCupones[] instancias = {new CanjeCupones(new CuponDAO(), 50), new CanjeCupones(new CuponDAO(), 50)};
+        long[] canje = correr(hilos, h -> {
+            CanjeCupones c = instancias[h % 2];
+            return () -> c.canjear("canje");
+        }, h -> instancias[h % 2]);
+        for (CanjeCupones c : instancias) {
+            c.devolverSobrantes();
+        }
+        long canjeados = canje[0];
+        comprobar(canjeados <= usos, canjeados + " canjes para " + usos + " usos: se sobrevendió");
+        comprobar(canjeados == usos, canjeados + " canjes para " + usos + " usos: quedaron usos sin canjear");
+        int enBase = usoActual("CANJE");
+        comprobar(enBase == canjeados, "uso_actual en la base es " + enBase + ", se canjearon " + canjeados);
+
+        crearCupon("DIRECTO", usos);
+        long[] directo = correr(hilos, h -> () -> cuponDAO.tomarUsos("DIRECTO", 1), h -> null);
+        comprobar(directo[0] == usos, directo[0] + " canjes directos para " + usos + " usos");
+
+        PoolConexiones p = Conexion.getPool();
+        comprobar(p.getConexionesActivas() == 0, p.getConexionesActivas() + " conexiones siguen prestadas");
+
+        System.out.printf("⏱ %d hilos, %d usos: con bolsas %d ms (%,d canjes/s), un UPDATE por canje %d ms (%,d canjes/s)%n",
+                hilos, usos, canje[1], canjeados * 1000 / Math.max(canje[1], 1),
+                directo[1], directo[0] * 1000 / Math.max(directo[1], 1));
+        System.out.println("📊 " + p);
+        if (!ok) {
+            System.exit(1);
+        }
+        System.out.println("✅ Ningún uso de más ni de menos con " + hilos + " hilos en dos instancias");
+        System.exit(0);
+    }
+
+    interface Fabrica<T> {
+        T para(int hilo);
+    }
+
+    /**
+     * Cada hilo canjea hasta que le dicen que no hay más; uno de cada diez
+     * canjes se anula si hay instancia. Devuelve {canjes netos, ms}.
+     */
+    private static long[] correr(int hilos, Fabrica<BooleanSupplier> canjes, Fabrica<CanjeCupones> anular)
+            throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<Long>> resultados = new ArrayList<>();
+        for (int h = 0; h < hilos; h++) {
+            BooleanSupplier canjear = canjes.para(h);
+            CanjeCupones instancia = anular.para(h);
+            resultados.add(pool.submit(() -> {
+                largada.await();
+                long canjeados = 0;
+                long anulados = 0;
+                while (canjear.getAsBoolean()) {
+                    if (++canjeados % 10 == 0 && instancia != null) {
+                        instancia.anular("canje");
+                        anulados++;
+                    }
+                }
+                return canjeados - anulados;
+            }));
+        }
+        long inicio = System.nanoTime();
+        largada.countDown();
+        long total = 0;
+        for (Future<Long> f : resultados) {
+            total += f.get();
+        }
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+        pool.shutdown();
+        return new long[] {total, ms};
+    }
+
+    private static void crearCupon(String codigo, int usos) throws Exception {
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement("INSERT INTO cupon_descuento (codigo, idTipoCupon, valor, "
+                     + "uso_maximo, fecha_inicio, fecha_fin) VALUES (?, 1, 10, ?, ?, ?)")) {
+            ps.setString(1, codigo);
+            ps.setInt(2, usos);
+            ps.setDate(3, Date.valueOf(LocalDate.now().minusDays(1)));
+            ps.setDate(4, Date.valueOf(LocalDate.now().plusYears(1)));
+            ps.executeUpdate();
+        }
+    }
+
+    private static int usoActual(String codigo) throws Exception {
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement("SELECT uso_actual FROM cupon_descuento WHERE codigo = ?")) {
+            ps.setString(1, codigo);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : -1;
+            }
+        }
+    }
+
+    private static void comprobar(boolean condicion, String mensaje) {
+        if (!condicion) {
+            System.out.println("❌ " + mensaje);
+            ok = false;
+        }
+    }
+}
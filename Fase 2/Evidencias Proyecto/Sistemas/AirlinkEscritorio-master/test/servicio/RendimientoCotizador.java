@@ -0,0 +1,144 @@
+package servicio;
+
+import dao.Conexion;
+import dao.TarifarioDAO;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cotizaciones por segundo de {@link CotizadorTarifas} con 1, 2, 4... hilos
+ * hasta el máximo pedido, mientras otro hilo refresca las tablas cada 100 ms.
+ *
+ * Primero calcula con un solo hilo el total de cada (viaje, tarifa) con y
+ * sin cupón; después cada hilo cotiza pares al azar y compara contra eso,
+ * así un refresco a medio publicar se notaría como un total distinto. Cada
+ * paso calienta un tiempo antes de medir para que el JIT ya haya compilado.
+ *
+ * Se corre desde la carpeta del proyecto:
+ *   java -cp build/classes:build/test/classes:librerias/* servicio.RendimientoCotizador [hilos] [segundos]
+ * Termina con código 1 si algún total no coincide.
+ */
+public class RendimientoCotizador {
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("airlink.db", System.getProperty("airlink.db", "h2"));
+        System.setProperty("airlink.tarifas.refrescoSeg", "0");
+        int maxHilos = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors() * 2;
+        int segundos = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        List<long[]> pares = new ArrayList<>();
+        new TarifarioDAO().leerPrecios((idViaje, idTarifa, precio, moneda) -> pares.add(new long[] {idViaje, idTarifa}));
+        if (pares.isEmpty()) {
+            System.out.println("❌ La base no tiene viaje_tarifa; revisa -Dairlink.h2.scripts");
+            System.exit(1);
+        }
+        // Los scripts semilla no traen cupones: uno de 10% vigente para probar también ese camino
+        String cupon = "COTIZA10";
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement("INSERT INTO cupon_descuento (codigo, idTipoCupon, valor, "
+                     + "uso_maximo, fecha_inicio, fecha_fin) VALUES (?, 1, 10, 1000000, ?, ?)")) {
+            ps.setString(1, cupon);
+            ps.setDate(2, Date.valueOf(LocalDate.now().minusDays(1)));
+            ps.setDate(3, Date.valueOf(LocalDate.now().plusYears(1)));
+            ps.executeUpdate();
+        }
+
+        CotizadorTarifas cotizador = CotizadorTarifas.getInstancia();
+        BigDecimal[][] esperados = new BigDecimal[pares.size()][2];
+        for (int i = 0; i < pares.size(); i++) {
+            esperados[i][0] = cotizador.cotizar((int) pares.get(i)[0], (int) pares.get(i)[1], 2, null).getTotal();
+            esperados[i][1] = cotizador.cotizar((int) pares.get(i)[0], (int) pares.get(i)[1], 2, cupon).getTotal();
+        }
+        if (esperados[0][1].compareTo(esperados[0][0]) >= 0) {
+            System.out.println("❌ El cupón " + cupon + " no descontó nada");
+            System.exit(1);
+        }
+        System.out.println("💲 " + pares.size() + " precios, cupón " + cupon + ", " + Runtime.getRuntime().availableProcessors()
+                + " núcleos, " + segundos + " s por paso");
+
+        AtomicBoolean corriendo = new AtomicBoolean(true);
+        AtomicLong refrescos = new AtomicLong();
+        Thread refresco = new Thread(() -> {
+            while (corriendo.get()) {
+                if (cotizador.refrescar()) {
+                    refrescos.incrementAndGet();
+                }
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "refresco");
+        refresco.setDaemon(true);
+        refresco.start();
+
+        AtomicLong errores = new AtomicLong();
+        double base = 0;
+        for (int hilos = 1; hilos <= maxHilos; hilos *= 2) {
+            medir(cotizador, pares, cupon, esperados, hilos, 1, errores);
+            long desde = refrescos.get();
+            double porSegundo = medir(cotizador, pares, cupon, esperados, hilos, segundos, errores);
+            base = hilos == 1 ? porSegundo : base;
+            System.out.printf("⏱ %2d hilos: %,12.0f cotizaciones/s (x%.2f respecto de 1 hilo), %d refrescos%n",
+                    hilos, porSegundo, porSegundo / base, refrescos.get() - desde);
+        }
+        corriendo.set(false);
+
+        if (errores.get() > 0) {
+            System.out.println("❌ " + errores.get() + " cotizaciones con un total distinto al esperado");
+            System.exit(1);
+        }
+        System.out.println("✅ Ninguna cotización vio una tabla a medio refrescar");
+        System.exit(0);
+    }
+
+    private static double medir(CotizadorTarifas cotizador, List<long[]> pares, String cupon, BigDecimal[][] esperados,
+                                int hilos, int segundos, AtomicLong errores) throws InterruptedException {
+        AtomicBoolean corriendo = new AtomicBoolean(true);
+        AtomicLong total = new AtomicLong();
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Thread> trabajadores = new ArrayList<>();
+        for (int h = 0; h < hilos; h++) {
+            Thread t = new Thread(() -> {
+                ThreadLocalRandom azar = ThreadLocalRandom.current();
+                long hechas = 0;
+                try {
+                    largada.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (corriendo.get()) {
+                    int i = azar.nextInt(pares.size());
+                    int conCupon = azar.nextInt(2);
+                    Cotizacion c = cotizador.cotizar((int) pares.get(i)[0], (int) pares.get(i)[1], 2,
+                            conCupon == 1 ? cupon : null);
+                    if (c == null || c.getTotal().compareTo(esperados[i][conCupon]) != 0) {
+                        errores.incrementAndGet();
+                    }
+                    hechas++;
+                }
+                total.addAndGet(hechas);
+            }, "cotizador-" + h);
+            trabajadores.add(t);
+            t.start();
+        }
+        long inicio = System.nanoTime();
+        largada.countDown();
+        Thread.sleep(segundos * 1000L);
+        corriendo.set(false);
+        for (Thread t : trabajadores) {
+            t.join();
+        }
+        return total.get() * 1e9 / (System.nanoTime() - inicio);
+    }
+}
@@ -0,0 +1,264 @@
+package servicio;
+
+import Modelo.Ruta;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Correctitud y tiempo de consulta de {@link GrafoRutas} sobre redes al azar.
+ *
+ * Correctitud: en una red grande, el más rápido y el más corto de cada par
+ * al azar tienen que costar lo mismo que un Dijkstra común de un solo lado
+ * (el bidireccional corta antes y es donde se equivoca si se equivoca). En
+ * una red chica se enumeran todos los caminos sin terminales repetidos y los
+ * k mejores de Yen tienen que ser exactamente los k costos más bajos. En
+ * las dos, cada itinerario tiene que encadenar sus tramos de origen a
+ * destino sin repetir terminal.
+ *
+ * Tiempo: promedio y p99 en microsegundos de masRapido y de mejores(k) en
+ * la red grande, después de calentar.
+ *
+ * Se corre desde la carpeta del proyecto:
+ *   java -cp build/classes:build/test/classes:librerias/* servicio.RendimientoGrafoRutas [terminales] [rutas] [consultas] [semilla]
+ * Termina con código 1 si algún resultado no coincide.
+ */
+public class RendimientoGrafoRutas {
+
+    private static final int CONEXION_MIN = 45;
+    private static final int K = 5;
+    private static boolean ok = true;
+
+    public static void main(String[] args) {
+        int terminales = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int cantidadRutas = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+        int consultas = args.length > 2 ? Integer.parseInt(args[2]) : 2_000;
+        long semilla = args.length > 3 ? Long.parseLong(args[3]) : 20_24L;
+        Random azar = new Random(semilla);
+
+        // Red grande: Dijkstra bidireccional contra el de un solo lado
+        List<Ruta> rutas = redAlAzar(azar, terminales, cantidadRutas);
+        GrafoRutas grafo = new GrafoRutas(rutas, CONEXION_MIN);
+        int[][] pares = new int[consultas][];
+        int sinCamino = 0;
+        for (int i = 0; i < consultas; i++) {
+            int s = 1 + azar.nextInt(terminales);
+            int t = 1 + azar.nextInt(terminales);
+            pares[i] = new int[] {s, t};
+            if (s == t) {
+                continue;
+            }
+            long duracion = dijkstra(rutas, s, t, GrafoRutas.Criterio.DURACION);
+            long metros = dijkstra(rutas, s, t, GrafoRutas.Criterio.DISTANCIA);
+            Itinerario rapido = grafo.masRapido(s, t);
+            Itinerario corto = grafo.masCorto(s, t);
+            if (duracion < 0) {
+                sinCamino++;
+                comprobar(rapido == null && corto == null, "hay itinerario de " + s + " a " + t + " y no debería");
+                continue;
+            }
+            comprobar(rapido != null && rapido.getDuracionMin() == duracion,
+                    "más rápido " + s + "→" + t + ": " + (rapido == null ? "nada" : rapido.getDuracionMin()) + " min, Dijkstra " + duracion);
+            comprobar(corto != null && Math.round(corto.getDistanciaKm() * 1000) == metros,
+                    "más corto " + s + "→" + t + ": " + (corto == null ? "nada" : corto.getDistanciaKm()) + " km, Dijkstra " + metros / 1000.0);
+            comprobarCamino(rapido, s, t);
+            comprobarCamino(corto, s, t);
+            for (Itinerario it : grafo.mejores(s, t, K, GrafoRutas.Criterio.DURACION)) {
+                comprobarCamino(it, s, t);
+            }
+        }
+        System.out.println("🗺 " + terminales + " terminales, " + cantidadRutas + " rutas: " + consultas + " pares comparados con Dijkstra ("
+                + sinCamino + " sin camino)");
+
+        // Red chica: Yen contra todos los caminos simples
+        int comparadosYen = 0;
+        for (int red = 0; red < 30; red++) {
+            List<Ruta> chica = redAlAzar(azar, 9, 30);
+            GrafoRutas g = new GrafoRutas(chica, CONEXION_MIN);
+            for (int s = 1; s <= 9; s++) {
+                for (int t = 1; t <= 9; t++) {
+                    if (s == t) {
+                        continue;
+                    }
+                    for (GrafoRutas.Criterio criterio : GrafoRutas.Criterio.values()) {
+                        List<Long> todos = todosLosCostos(chica, s, t, criterio);
+                        List<Itinerario> yen = g.mejores(s, t, K, criterio);
+                        List<Long> obtenidos = new ArrayList<>();
+                        for (Itinerario it : yen) {
+                            comprobarCamino(it, s, t);
+                            obtenidos.add(criterio == GrafoRutas.Criterio.DURACION ? it.getDuracionMin()
+                                    : Math.round(it.getDistanciaKm() * 1000));
+                        }
+                        List<Long> esperados = todos.subList(0, Math.min(K, todos.size()));
+                        comprobar(obtenidos.equals(esperados), "Yen " + criterio + " " + s + "→" + t + ": " + obtenidos
+                                + ", todos los caminos dicen " + esperados);
+                        comparadosYen++;
+                    }
+                }
+            }
+        }
+        System.out.println("🧮 " + comparadosYen + " búsquedas de Yen (k=" + K + ") comparadas con todos los caminos simples");
+
+        // Tiempo en la red grande
+        for (int vuelta = 0; vuelta < 3; vuelta++) {
+            for (int[] p : pares) {
+                grafo.masRapido(p[0], p[1]);
+                grafo.mejores(p[0], p[1], K, GrafoRutas.Criterio.DURACION);
+            }
+        }
+        long[] rapido = new long[consultas];
+        long[] mejores = new long[consultas];
+        for (int i = 0; i < consultas; i++) {
+            long inicio = System.nanoTime();
+            grafo.masRapido(pares[i][0], pares[i][1]);
+            rapido[i] = System.nanoTime() - inicio;
+        }
+        for (int i = 0; i < consultas; i++) {
+            long inicio = System.nanoTime();
+            grafo.mejores(pares[i][0], pares[i][1], K, GrafoRutas.Criterio.DURACION);
+            mejores[i] = System.nanoTime() - inicio;
+        }
+        System.out.printf("⏱ masRapido: %.1f µs promedio, p99 %.1f µs%n", promedio(rapido), percentil(rapido, 99));
+        System.out.printf("⏱ mejores(k=%d): %.1f µs promedio, p99 %.1f µs%n", K, promedio(mejores), percentil(mejores, 99));
+
+        if (!ok) {
+            System.exit(1);
+        }
+        System.out.println("✅ Bidireccional y Yen coinciden con las búsquedas de referencia");
+    }
+
+    /** Rutas dirigidas al azar entre terminales 1..n; puede haber dos rutas entre el mismo par. */
+    private static List<Ruta> redAlAzar(Random azar, int n, int m) {
+        List<Ruta> rutas = new ArrayList<>(m);
+        for (int i = 1; i <= m; i++) {
+            int o = 1 + azar.nextInt(n);
+            int d = 1 + azar.nextInt(n - 1);
+            if (d >= o) {
+                d++;
+            }
+            Ruta r = new Ruta();
+            r.setIdRuta(i);
+            r.setIdTerminalOrigen(o);
+            r.setIdTerminalDestino(d);
+            r.setOrigen("T" + o);
+            r.setDestino("T" + d);
+            r.setDuracionEstimadaMin(20 + azar.nextInt(600));
+            r.setDistanciaKm(50 + azar.nextInt(5_000_000) / 1000.0);
+            r.setActivo(azar.nextInt(20) != 0);
+            rutas.add(r);
+        }
+        return rutas;
+    }
+
+    private static long peso(Ruta r, GrafoRutas.Criterio criterio) {
+        return criterio == GrafoRutas.Criterio.DURACION ? r.getDuracionEstimadaMin() : Math.round(r.getDistanciaKm() * 1000);
+    }
+
+    /** Dijkstra de un solo lado con la conexión cobrada en cada escala; -1 si no hay camino. */
+    private static long dijkstra(List<Ruta> rutas, int s, int t, GrafoRutas.Criterio criterio) {
+        int extra = criterio == GrafoRutas.Criterio.DURACION ? CONEXION_MIN : 0;
+        int n = 0;
+        for (Ruta r : rutas) {
+            n = Math.max(n, Math.max(r.getIdTerminalOrigen(), r.getIdTerminalDestino()));
+        }
+        long[] dist = new long[n + 1];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        List<List<Ruta>> salientes = new ArrayList<>();
+        for (int v = 0; v <= n; v++) {
+            salientes.add(new ArrayList<>());
+        }
+        for (Ruta r : rutas) {
+            if (r.isActivo()) {
+                salientes.get(r.getIdTerminalOrigen()).add(r);
+            }
+        }
+        PriorityQueue<long[]> cola = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        dist[s] = 0;
+        cola.add(new long[] {0, s});
+        while (!cola.isEmpty()) {
+            long[] e = cola.poll();
+            int v = (int) e[1];
+            if (e[0] > dist[v]) {
+                continue;
+            }
+            if (v == t) {
+                return e[0];
+            }
+            for (Ruta r : salientes.get(v)) {
+                long c = e[0] + peso(r, criterio) + (v == s ? 0 : extra);
+                if (c < dist[r.getIdTerminalDestino()]) {
+                    dist[r.getIdTerminalDestino()] = c;
+                    cola.add(new long[] {c, r.getIdTerminalDestino()});
+                }
+            }
+        }
+        return -1;
+    }
+
+    /** Costo de cada camino de s a t sin terminales repetidos, de menor a mayor. */
+    private static List<Long> todosLosCostos(List<Ruta> rutas, int s, int t, GrafoRutas.Criterio criterio) {
+        List<Long> costos = new ArrayList<>();
+        Set<Integer> pisados = new HashSet<>();
+        pisados.add(s);
+        recorrer(rutas, s, t, criterio, 0, 0, pisados, costos);
+        costos.sort(null);
+        return costos;
+    }
+
+    private static void recorrer(List<Ruta> rutas, int v, int t, GrafoRutas.Criterio criterio, long costo, int tramos,
+                                 Set<Integer> pisados, List<Long> costos) {
+        for (Ruta r : rutas) {
+            int d = r.getIdTerminalDestino();
+            if (!r.isActivo() || r.getIdTerminalOrigen() != v || pisados.contains(d)) {
+                continue;
+            }
+            long c = costo + peso(r, criterio) + (tramos > 0 && criterio == GrafoRutas.Criterio.DURACION ? CONEXION_MIN : 0);
+            if (d == t) {
+                costos.add(c);
+                continue;
+            }
+            pisados.add(d);
+            recorrer(rutas, d, t, criterio, c, tramos + 1, pisados, costos);
+            pisados.remove(d);
+        }
+    }
+
+    private static void comprobarCamino(Itinerario it, int s, int t) {
+        if (it == null) {
+            return;
+        }
+        Set<Integer> pisados = new HashSet<>();
+        pisados.add(s);
+        int actual = s;
+        for (Ruta r : it.getTramos()) {
+            comprobar(r.isActivo(), "el itinerario " + it + " usa la ruta inactiva " + r.getIdRuta());
+            comprobar(r.getIdTerminalOrigen() == actual, "el itinerario " + it + " no encadena en la ruta " + r.getIdRuta());
+            actual = r.getIdTerminalDestino();
+            comprobar(pisados.add(actual), "el itinerario " + it + " repite el terminal " + actual);
+        }
+        comprobar(actual == t, "el itinerario " + it + " no termina en " + t);
+    }
+
+    private static double promedio(long[] nanos) {
+        return Arrays.stream(nanos).average().orElse(0) / 1_000;
+    }
+
+    private static double percentil(long[] nanos, int p) {
+        long[] orden = nanos.clone();
+        Arrays.sort(orden);
+        return orden[Math.min(orden.length - 1, orden.length * p / 100)] / 1_000.0;
+    }
+
+    private static void comprobar(boolean condicion, String mensaje) {
+        if (!condicion) {
+            if (ok) {
+                System.out.println("❌ " + mensaje);
+            }
+            ok = false;
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package servicio;
+
+import dao.Conexion;
+import dao.HorarioDAO;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Correctitud y tiempo de consulta de {@link HorarioViajes} (Connection Scan)
+ * con un horario al azar cargado en la base.
+ *
+ * Agrega viajes directos sobre las rutas de los scripts semilla y viajes con
+ * varios tramos en viaje_tramo, algunos cancelados, repartidos en una
+ * semana. Después compara cada consulta contra una búsqueda por fuerza
+ * bruta sobre los mismos tramos (leídos con HorarioDAO): relajar todos los
+ * viajes una y otra vez hasta que ninguna llegada mejore.
+ * - llegadaMasTemprana: misma hora de llegada que la fuerza bruta, y el
+ *   trayecto encadena sus tramos respetando el transbordo mínimo.
+ * - perfil de un día: los mismos pares (salida, llegada) que resultan de
+ *   calcular la llegada más temprana para cada salida posible del origen y
+ *   quedarse con los que ninguna salida posterior mejora.
+ * Al final mide en microsegundos las dos consultas, después de calentar.
+ *
+ * Se corre desde la carpeta del proyecto:
+ *   java -cp build/classes:build/test/classes:librerias/* servicio.RendimientoHorarioViajes [viajes] [consultas] [semilla]
+ * Termina con código 1 si algún resultado no coincide.
+ */
+public class RendimientoHorarioViajes {
+
+    private static final int TRANSBORDO_MIN = 45;
+    private static final int INF = Integer.MAX_VALUE;
+    private static final long INICIO = Timestamp.valueOf("2040-01-01 00:00:00").getTime();
+    private static final List<Integer> equipos = new ArrayList<>();
+    private static boolean ok = true;
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("airlink.db", System.getProperty("airlink.db", "h2"));
+        int cantidadViajes = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int consultas = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+        long semilla = args.length > 2 ? Long.parseLong(args[2]) : 20_24L;
+        Random azar = new Random(semilla);
+
+        List<Integer> terminales = cargarHorario(azar, cantidadViajes);
+        Horario h = leerHorario();
+        HorarioViajes horario = new HorarioViajes(TRANSBORDO_MIN);
+        System.out.println("🕒 " + horario.getConexiones() + " conexiones, " + h.viajes.size() + " viajes leídos para la fuerza bruta");
+
+        int[][] pares = new int[consultas][];
+        int encontrados = 0;
+        for (int i = 0; i < consultas; i++) {
+            int s = terminales.get(azar.nextInt(terminales.size()));
+            int d = terminales.get(azar.nextInt(terminales.size()));
+            int desde = minuto(INICIO) + azar.nextInt(5 * 24 * 60);
+            pares[i] = new int[] {s, d, desde};
+            if (s == d) {
+                continue;
+            }
+            Trayecto t = horario.llegadaMasTemprana(s, d, marca(desde));
+            int esperada = h.llegadaMasTemprana(s, d, desde);
+            if (esperada == INF) {
+                comprobar(t == null, "trayecto " + s + "→" + d + " desde " + marca(desde) + " que la fuerza bruta no encuentra: " + t);
+                continue;
+            }
+            encontrados++;
+            comprobar(t != null && minuto(t.getLlegada().getTime()) == esperada, "llegada " + s + "→" + d + " desde "
+                    + marca(desde) + ": " + (t == null ? "nada" : t.getLlegada()) + ", fuerza bruta " + marca(esperada));
+            if (t != null) {
+                comprobarTrayecto(t, s, d, desde);
+            }
+        }
+        System.out.println("🔎 " + consultas + " llegadas más tempranas comparadas con la fuerza bruta (" + encontrados + " con trayecto)");
+
+        int perfiles = Math.min(consultas, 100);
+        int paresPerfil = 0;
+        for (int i = 0; i < perfiles; i++) {
+            int s = pares[i][0];
+            int d = pares[i][1];
+            if (s == d) {
+                continue;
+            }
+            int desde = pares[i][2];
+            int hasta = desde + 24 * 60;
+            List<Timestamp[]> obtenido = horario.perfil(s, d, marca(desde), marca(hasta));
+            List<int[]> esperado = h.perfil(s, d, desde, hasta);
+            paresPerfil += esperado.size();
+            boolean igual = obtenido.size() == esperado.size();
+            for (int j = 0; igual && j < esperado.size(); j++) {
+                igual = minuto(obtenido.get(j)[0].getTime()) == esperado.get(j)[0]
+                        && minuto(obtenido.get(j)[1].getTime()) == esperado.get(j)[1];
+            }
+            comprobar(igual, "perfil " + s + "→" + d + " desde " + marca(desde) + ": " + obtenido.size()
+                    + " pares, la fuerza bruta da " + esperado.size());
+        }
+        System.out.println("📈 " + perfiles + " perfiles de un día comparados (" + paresPerfil + " pares)");
+
+        for (int vuelta = 0; vuelta < 5; vuelta++) {
+            for (int[] p : pares) {
+                horario.llegadaMasTemprana(p[0], p[1], marca(p[2]));
+                horario.perfil(p[0], p[1], marca(p[2]), marca(p[2] + 24 * 60));
+            }
+        }
+        long[] llegada = new long[consultas];
+        long[] perfil = new long[consultas];
+        for (int i = 0; i < consultas; i++) {
+            int[] p = pares[i];
+            long inicio = System.nanoTime();
+            horario.llegadaMasTemprana(p[0], p[1], marca(p[2]));
+            llegada[i] = System.nanoTime() - inicio;
+        }
+        for (int i = 0; i < consultas; i++) {
+            int[] p = pares[i];
+            long inicio = System.nanoTime();
+            horario.perfil(p[0], p[1], marca(p[2]), marca(p[2] + 24 * 60));
+            perfil[i] = System.nanoTime() - inicio;
+        }
+        System.out.printf("⏱ llegadaMasTemprana: %.1f µs promedio, p99 %.1f µs%n", promedio(llegada), percentil(llegada, 99));
+        System.out.printf("⏱ perfil de un día: %.1f µs promedio, p99 %.1f µs%n", promedio(perfil), percentil(perfil, 99));
+
+        if (!ok) {
+            System.exit(1);
+        }
+        System.out.println("✅ Connection Scan coincide con la fuerza bruta");
+        System.exit(0);
+    }
+
+    /** Viajes directos sobre las rutas semilla y viajes de 2 a 4 tramos; devuelve los terminales usados. */
+    private static List<Integer> cargarHorario(Random azar, int cantidad) throws Exception {
+        List<int[]> rutas = new ArrayList<>();
+        TreeSet<Integer> usados = new TreeSet<>();
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement("SELECT idRuta, idTerminalOrigen, idTerminalDestino FROM ruta");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                rutas.add(new int[] {rs.getInt(1), rs.getInt(2), rs.getInt(3)});
+                usados.add(rs.getInt(2));
+                usados.add(rs.getInt(3));
+            }
+        }
+        List<Integer> terminales = new ArrayList<>(usados);
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement ps = con.prepareStatement("SELECT idEquipo FROM empresa_equipo");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                equipos.add(rs.getInt(1));
+            }
+        }
+        int semana = 7 * 24 * 60;
+        try (Connection con = Conexion.getConexion();
+             PreparedStatement viaje = con.prepareStatement("INSERT INTO viaje (idRuta, salida, llegada, idEquipo, estado) "
+                     + "VALUES (?, ?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS);
+             PreparedStatement tramo = con.prepareStatement("INSERT INTO viaje_tramo (idViaje, orden, idTerminalSalida, "
+                     + "idTerminalLlegada, hora_salida, hora_llegada) VALUES (?, ?, ?, ?, ?, ?)")) {
+            con.setAutoCommit(false);
+            int directos = cantidad * 4 / 5;
+            for (int i = 0; i < directos; i++) {
+                int[] r = rutas.get(azar.nextInt(rutas.size()));
+                int salida = minuto(INICIO) + azar.nextInt(semana);
+                asignarViaje(viaje, azar, r[0], salida, salida + 30 + azar.nextInt(570));
+                viaje.addBatch();
+            }
+            viaje.executeBatch();
+            for (int i = directos; i < cantidad; i++) {
+                int tramos = 2 + azar.nextInt(3);
+                int[] paradas = new int[tramos + 1];
+                paradas[0] = terminales.get(azar.nextInt(terminales.size()));
+                for (int j = 1; j <= tramos; j++) {
+                    do {
+                        paradas[j] = terminales.get(azar.nextInt(terminales.size()));
+                    } while (paradas[j] == paradas[j - 1]);
+                }
+                int[] salidas = new int[tramos];
+                int[] llegadas = new int[tramos];
+                int t = minuto(INICIO) + azar.nextInt(semana);
+                for (int j = 0; j < tramos; j++) {
+                    salidas[j] = t;
+                    llegadas[j] = t + 30 + azar.nextInt(270);
+                    t = llegadas[j] + 20 + azar.nextInt(70);
+                }
+                asignarViaje(viaje, azar, rutas.get(azar.nextInt(rutas.size()))[0], salidas[0], llegadas[tramos - 1]);
+                viaje.executeUpdate();
+                int idViaje;
+                try (ResultSet claves = viaje.getGeneratedKeys()) {
+                    claves.next();
+                    idViaje = claves.getInt(1);
+                }
+                for (int j = 0; j < tramos; j++) {
+                    tramo.setInt(1, idViaje);
+                    tramo.setInt(2, j + 1);
+                    tramo.setInt(3, paradas[j]);
+                    tramo.setInt(4, paradas[j + 1]);
+                    tramo.setTimestamp(5, marca(salidas[j]));
+                    tramo.setTimestamp(6, marca(llegadas[j]));
+                    tramo.addBatch();
+                }
+            }
+            tramo.executeBatch();
+            con.commit();
+        }
+        return terminales;
+    }
+
+    private static void asignarViaje(PreparedStatement ps, Random azar, int idRuta, int salida, int llegada) throws Exception {
+        ps.setInt(1, idRuta);
+        ps.setTimestamp(2, marca(salida));
+        ps.setTimestamp(3, marca(llegada));
+        ps.setInt(4, equipos.get(azar.nextInt(equipos.size())));
+        ps.setString(5, azar.nextInt(10) == 0 ? "cancelado" : "programado");
+    }
+
+    private static Horario leerHorario() {
+        Horario h = new Horario();
+        Map<Integer, List<int[]>> porViaje = new HashMap<>();
+        boolean leido = new HorarioDAO().leerTramos((idViaje, estado, salidaViaje, desde, hasta, salida, llegada) -> {
+            if (salida == null || llegada == null
+                    || (estado != null && estado.trim().toLowerCase().startsWith("cancelad"))) {
+                return;
+            }
+            porViaje.computeIfAbsent(idViaje, k -> {
+                List<int[]> tramos = new ArrayList<>();
+                h.viajes.add(tramos);
+                return tramos;
+            }).add(new int[] {desde, hasta, minuto(salida.getTime()), minuto(llegada.getTime())});
+        });
+        if (!leido) {
+            System.out.println("❌ No se pudieron leer los tramos");
+            System.exit(1);
+        }
+        return h;
+    }
+
+    /** Tramos de cada viaje no cancelado, en orden: {desde, hasta, salida, llegada} en minutos. */
+    private static final class Horario {
+        final List<List<int[]>> viajes = new ArrayList<>();
+
+        int llegadaMasTemprana(int s, int d, int desde) {
+            Integer r = llegadas(s, desde).get(d);
+            return r == null ? INF : r;
+        }
+
+        // Relaja todos los viajes hasta que ninguna llegada mejora
+        Map<Integer, Integer> llegadas(int s, int desde) {
+            Map<Integer, Integer> llegada = new HashMap<>();
+            llegada.put(s, desde);
+            boolean cambio = true;
+            while (cambio) {
+                cambio = false;
+                for (List<int[]> tramos : viajes) {
+                    boolean arriba = false;
+                    for (int[] t : tramos) {
+                        if (!arriba) {
+                            Integer en = llegada.get(t[0]);
+                            int margen = t[0] == s ? 0 : TRANSBORDO_MIN;
+                            arriba = en != null && (long) en + margen <= t[2];
+                        }
+                        if (arriba) {
+                            Integer antes = llegada.get(t[1]);
+                            if (antes == null || t[3] < antes) {
+                                llegada.put(t[1], t[3]);
+                                cambio = true;
+                            }
+                        }
+                    }
+                }
+            }
+            return llegada;
+        }
+
+        /** Pares {salida, llegada} con salida en [desde, hasta] que ninguna salida posterior mejora. */
+        List<int[]> perfil(int s, int d, int desde, int hasta) {
+            TreeSet<Integer> salidas = new TreeSet<>();
+            for (List<int[]> tramos : viajes) {
+                for (int[] t : tramos) {
+                    if (t[0] == s && t[2] >= desde) {
+                        salidas.add(t[2]);
+                    }
+                }
+            }
+            // Una salida posterior a la llegada más tardía de la ventana ya no puede mejorar a nadie
+            Map<Integer, Integer> llegadaDe = new HashMap<>();
+            int tope = hasta;
+            for (int salida : salidas) {
+                if (salida > tope) {
+                    break;
+                }
+                int l = llegadaMasTemprana(s, d, salida);
+                llegadaDe.put(salida, l);
+                if (salida <= hasta && l != INF) {
+                    tope = Math.max(tope, l);
+                }
+            }
+            List<int[]> pares = new ArrayList<>();
+            int mejor = INF;
+            for (int salida : salidas.descendingSet()) {
+                Integer l = llegadaDe.get(salida);
+                if (l == null || l >= mejor) {
+                    continue;
+                }
+                mejor = l;
+                if (salida <= hasta) {
+                    pares.add(0, new int[] {salida, l});
+                }
+            }
+            return pares;
+        }
+    }
+
+    private static void comprobarTrayecto(Trayecto t, int s, int d, int desde) {
+        int parada = s;
+        int libre = desde;
+        for (Trayecto.Tramo tramo : t.getTramos()) {
+            int sale = minuto(tramo.getSalida().getTime());
+            comprobar(tramo.getIdTerminalSalida() == parada, "el trayecto " + t + " no encadena en el viaje " + tramo.getIdViaje());
+            comprobar(sale >= libre, "el trayecto " + t + " sube al viaje " + tramo.getIdViaje() + " antes de poder");
+            parada = tramo.getIdTerminalLlegada();
+            libre = minuto(tramo.getLlegada().getTime()) + TRANSBORDO_MIN;
+        }
+        comprobar(parada == d, "el trayecto " + t + " no termina en " + d);
+    }
+
+    private static int minuto(long ms) {
+        return (int) Math.floorDiv(ms, 60_000L);
+    }
+
+    private static Timestamp marca(int minutos) {
+        return new Timestamp(minutos * 60_000L);
+    }
+
+    private static double promedio(long[] nanos) {
+        return Arrays.stream(nanos).average().orElse(0) / 1_000;
+    }
+
+    private static double percentil(long[] nanos, int p) {
+        long[] orden = nanos.clone();
+        Arrays.sort(orden);
+        return orden[Math.min(orden.length - 1, orden.length * p / 100)] / 1_000.0;
+    }
+
+    private static void comprobar(boolean condicion, String mensaje) {
+        if (!condicion) {
+            System.out.println("❌ " + mensaje);
+            ok = false;
+        }
+    }
+}
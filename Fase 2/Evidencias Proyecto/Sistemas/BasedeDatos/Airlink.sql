@@ -80,7 +80,8 @@ CREATE TABLE usuario (
   ultima_modificacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
   FOREIGN KEY (idRol) REFERENCES rol(idRol),
   INDEX idx_email (email),
-  INDEX idx_googleId (googleId)
+  INDEX idx_googleId (googleId),
+  INDEX idx_ultima_modificacion (ultima_modificacion)
 );
 
 CREATE TABLE empresa (
@@ -92,8 +93,10 @@ CREATE TABLE empresa (
   sitio_web VARCHAR(255),
   activo TINYINT(1) DEFAULT 1,
   creado TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  ultima_modificacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
   INDEX idx_tipo (tipoEmpresa),
-  INDEX idx_activo (activo)
+  INDEX idx_activo (activo),
+  INDEX idx_ultima_modificacion (ultima_modificacion)
 );
 
 CREATE TABLE terminal (
@@ -107,9 +110,11 @@ CREATE TABLE terminal (
   longitud DECIMAL(11, 8),
   idTipoTerminal INT NOT NULL,
   activo TINYINT(1) DEFAULT 1,
+  ultima_modificacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
   FOREIGN KEY (idTipoTerminal) REFERENCES tipo_terminal(idTipoTerminal),
   INDEX idx_codigo (codigo),
-  INDEX idx_ciudad (ciudad)
+  INDEX idx_ciudad (ciudad),
+  INDEX idx_ultima_modificacion (ultima_modificacion)
 );
 
 CREATE TABLE cabina_clase (
@@ -142,9 +147,11 @@ CREATE TABLE empresa_equipo (
   idTipoEquipo INT NOT NULL,
   anio_fabricacion YEAR,
   activo TINYINT(1) DEFAULT 1,
+  ultima_modificacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
   FOREIGN KEY (idEmpresa) REFERENCES empresa(idEmpresa),
   FOREIGN KEY (idTipoEquipo) REFERENCES tipo_equipo(idTipoEquipo),
-  INDEX idx_matricula (matricula)
+  INDEX idx_matricula (matricula),
+  INDEX idx_ultima_modificacion (ultima_modificacion)
 );
 
 CREATE TABLE ruta (
@@ -154,10 +161,12 @@ CREATE TABLE ruta (
   distanciaKm DECIMAL(7,2),
   duracionEstimadaMin INT,
   activo TINYINT(1) DEFAULT 1,
+  ultima_modificacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
   FOREIGN KEY (idTerminalOrigen) REFERENCES terminal(idTerminal),
   FOREIGN KEY (idTerminalDestino) REFERENCES terminal(idTerminal),
   INDEX idx_origen (idTerminalOrigen),
-  INDEX idx_destino (idTerminalDestino)
+  INDEX idx_destino (idTerminalDestino),
+  INDEX idx_ultima_modificacion (ultima_modificacion)
 );
 
 CREATE TABLE viaje (
@@ -168,10 +177,12 @@ CREATE TABLE viaje (
   idEquipo INT NOT NULL,
   estado VARCHAR(30) DEFAULT 'programado',
   creado TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  ultima_modificacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
   FOREIGN KEY (idRuta) REFERENCES ruta(idRuta),
   FOREIGN KEY (idEquipo) REFERENCES empresa_equipo(idEquipo),
   INDEX idx_salida (salida),
-  INDEX idx_estado (estado)
+  INDEX idx_estado (estado),
+  INDEX idx_ultima_modificacion (ultima_modificacion)
 );
 
 CREATE TABLE viaje_tramo (
@@ -461,6 +472,15 @@ CREATE TABLE auditoria (
   INDEX idx_usuario (idUsuario)
 );
 
+-- Filas borradas de las tablas que las vistas sincronizan por ultima_modificacion
+CREATE TABLE eliminado (
+  idEliminado INT AUTO_INCREMENT PRIMARY KEY,
+  entidad VARCHAR(50) NOT NULL,
+  idEntidad INT NOT NULL,
+  eliminado_en TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  INDEX idx_entidad_fecha (entidad, eliminado_en)
+);
+
 CREATE TABLE sesion (
   idSesion INT AUTO_INCREMENT PRIMARY KEY,
   idUsuario INT NOT NULL,
@@ -487,8 +507,10 @@ CREATE TABLE destino (
   destacado TINYINT(1) DEFAULT 0,
   activo TINYINT(1) DEFAULT 1,
   created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  ultima_modificacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
   INDEX idx_destacado (destacado),
-  INDEX idx_activo (activo)
+  INDEX idx_activo (activo),
+  INDEX idx_ultima_modificacion (ultima_modificacion)
 );
 
 CREATE TABLE IF NOT EXISTS contacto (
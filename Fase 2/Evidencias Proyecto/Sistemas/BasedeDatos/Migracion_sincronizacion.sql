@@ -0,0 +1,138 @@
+-- Lleva una base Airlink ya creada al esquema que usan los refrescos
+-- incrementales (usuarios, destinos, empresas, terminales, equipos, rutas y
+-- viajes): columna ultima_modificacion
+-- (con su índice) y tabla eliminado con las lápidas de los borrados.
+--
+-- Airlink.sql ya trae todo esto, pero borra la base; este script solo agrega
+-- lo que falta y se puede correr las veces que haga falta. MySQL no tiene
+-- ADD COLUMN IF NOT EXISTS, así que cada ALTER se arma según lo que diga
+-- information_schema (si ya existe se ejecuta DO 0).
+USE Airlink;
+
+-- Filas borradas de las tablas que las vistas sincronizan por ultima_modificacion
+CREATE TABLE IF NOT EXISTS eliminado (
+  idEliminado INT AUTO_INCREMENT PRIMARY KEY,
+  entidad VARCHAR(50) NOT NULL,
+  idEntidad INT NOT NULL,
+  eliminado_en TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  INDEX idx_entidad_fecha (entidad, eliminado_en)
+);
+
+-- empresa
+SET @sql = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'empresa' AND COLUMN_NAME = 'ultima_modificacion') = 0,
+    'ALTER TABLE empresa ADD COLUMN ultima_modificacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP',
+    'DO 0');
+PREPARE paso FROM @sql;
+EXECUTE paso;
+DEALLOCATE PREPARE paso;
+
+SET @sql = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'empresa' AND INDEX_NAME = 'idx_ultima_modificacion') = 0,
+    'ALTER TABLE empresa ADD INDEX idx_ultima_modificacion (ultima_modificacion)',
+    'DO 0');
+PREPARE paso FROM @sql;
+EXECUTE paso;
+DEALLOCATE PREPARE paso;
+
+-- destino
+SET @sql = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'destino' AND COLUMN_NAME = 'ultima_modificacion') = 0,
+    'ALTER TABLE destino ADD COLUMN ultima_modificacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP',
+    'DO 0');
+PREPARE paso FROM @sql;
+EXECUTE paso;
+DEALLOCATE PREPARE paso;
+
+SET @sql = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'destino' AND INDEX_NAME = 'idx_ultima_modificacion') = 0,
+    'ALTER TABLE destino ADD INDEX idx_ultima_modificacion (ultima_modificacion)',
+    'DO 0');
+PREPARE paso FROM @sql;
+EXECUTE paso;
+DEALLOCATE PREPARE paso;
+
+-- usuario (la columna viene desde el esquema original; solo puede faltar el índice)
+SET @sql = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'usuario' AND COLUMN_NAME = 'ultima_modificacion') = 0,
+    'ALTER TABLE usuario ADD COLUMN ultima_modificacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP',
+    'DO 0');
+PREPARE paso FROM @sql;
+EXECUTE paso;
+DEALLOCATE PREPARE paso;
+
+SET @sql = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'usuario' AND INDEX_NAME = 'idx_ultima_modificacion') = 0,
+    'ALTER TABLE usuario ADD INDEX idx_ultima_modificacion (ultima_modificacion)',
+    'DO 0');
+PREPARE paso FROM @sql;
+EXECUTE paso;
+DEALLOCATE PREPARE paso;
+
+-- terminal
+SET @sql = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'terminal' AND COLUMN_NAME = 'ultima_modificacion') = 0,
+    'ALTER TABLE terminal ADD COLUMN ultima_modificacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP',
+    'DO 0');
+PREPARE paso FROM @sql;
+EXECUTE paso;
+DEALLOCATE PREPARE paso;
+
+SET @sql = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'terminal' AND INDEX_NAME = 'idx_ultima_modificacion') = 0,
+    'ALTER TABLE terminal ADD INDEX idx_ultima_modificacion (ultima_modificacion)',
+    'DO 0');
+PREPARE paso FROM @sql;
+EXECUTE paso;
+DEALLOCATE PREPARE paso;
+
+-- empresa_equipo
+SET @sql = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'empresa_equipo' AND COLUMN_NAME = 'ultima_modificacion') = 0,
+    'ALTER TABLE empresa_equipo ADD COLUMN ultima_modificacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP',
+    'DO 0');
+PREPARE paso FROM @sql;
+EXECUTE paso;
+DEALLOCATE PREPARE paso;
+
+SET @sql = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'empresa_equipo' AND INDEX_NAME = 'idx_ultima_modificacion') = 0,
+    'ALTER TABLE empresa_equipo ADD INDEX idx_ultima_modificacion (ultima_modificacion)',
+    'DO 0');
+PREPARE paso FROM @sql;
+EXECUTE paso;
+DEALLOCATE PREPARE paso;
+
+-- ruta
+SET @sql = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'ruta' AND COLUMN_NAME = 'ultima_modificacion') = 0,
+    'ALTER TABLE ruta ADD COLUMN ultima_modificacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP',
+    'DO 0');
+PREPARE paso FROM @sql;
+EXECUTE paso;
+DEALLOCATE PREPARE paso;
+
+SET @sql = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'ruta' AND INDEX_NAME = 'idx_ultima_modificacion') = 0,
+    'ALTER TABLE ruta ADD INDEX idx_ultima_modificacion (ultima_modificacion)',
+    'DO 0');
+PREPARE paso FROM @sql;
+EXECUTE paso;
+DEALLOCATE PREPARE paso;
+
+-- viaje
+SET @sql = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'viaje' AND COLUMN_NAME = 'ultima_modificacion') = 0,
+    'ALTER TABLE viaje ADD COLUMN ultima_modificacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP',
+    'DO 0');
+PREPARE paso FROM @sql;
+EXECUTE paso;
+DEALLOCATE PREPARE paso;
+
+SET @sql = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'viaje' AND INDEX_NAME = 'idx_ultima_modificacion') = 0,
+    'ALTER TABLE viaje ADD INDEX idx_ultima_modificacion (ultima_modificacion)',
+    'DO 0');
+PREPARE paso FROM @sql;
+EXECUTE paso;
+DEALLOCATE PREPARE paso;